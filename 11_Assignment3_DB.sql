@@ -31,6 +31,7 @@ CREATE TABLE `bills` (
   `reservation_id` int NOT NULL,
   PRIMARY KEY (`bill_number`),
   KEY `fk_bill_reservation` (`reservation_id`),
+  KEY `idx_bills_date` (`bill_date`),
   CONSTRAINT `fk_bill_reservation` FOREIGN KEY (`reservation_id`) REFERENCES `reservations` (`reservation_id`) ON DELETE CASCADE
 ) ENGINE=InnoDB AUTO_INCREMENT=5011 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
 /*!40101 SET character_set_client = @saved_cs_client */;
@@ -45,6 +46,94 @@ INSERT INTO `bills` VALUES (5001,220.00,20.00,'2025-12-25',1),(5002,200.00,0.00,
 /*!40000 ALTER TABLE `bills` ENABLE KEYS */;
 UNLOCK TABLES;
 
+--
+-- Table structure for table `bills_archive`
+--
+
+DROP TABLE IF EXISTS `bills_archive`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `bills_archive` (
+  `bill_number` int NOT NULL,
+  `total_amount` decimal(10,2) NOT NULL,
+  `discount_amount` decimal(10,2) DEFAULT '0.00',
+  `bill_date` date NOT NULL,
+  `reservation_id` int NOT NULL,
+  PRIMARY KEY (`bill_number`),
+  KEY `idx_billarc_reservation` (`reservation_id`),
+  KEY `idx_billarc_date` (`bill_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Dumping data for table `bills_archive`
+--
+
+LOCK TABLES `bills_archive` WRITE;
+/*!40000 ALTER TABLE `bills_archive` DISABLE KEYS */;
+/*!40000 ALTER TABLE `bills_archive` ENABLE KEYS */;
+UNLOCK TABLES;
+
+--
+-- Table structure for table `code_sequences`
+--
+
+DROP TABLE IF EXISTS `code_sequences`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `code_sequences` (
+  `name` varchar(20) NOT NULL,
+  `next_value` bigint NOT NULL DEFAULT '0',
+  `perm_key` bigint NOT NULL,
+  PRIMARY KEY (`name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Dumping data for table `code_sequences`
+--
+
+LOCK TABLES `code_sequences` WRITE;
+/*!40000 ALTER TABLE `code_sequences` DISABLE KEYS */;
+/*!40000 ALTER TABLE `code_sequences` ENABLE KEYS */;
+UNLOCK TABLES;
+
+--
+-- Table structure for table `daily_rollup`
+--
+
+DROP TABLE IF EXISTS `daily_rollup`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `daily_rollup` (
+  `rollup_date` date NOT NULL,
+  `covers` int NOT NULL DEFAULT '0',
+  `reservations_total` int NOT NULL DEFAULT '0',
+  `reservations_active` int NOT NULL DEFAULT '0',
+  `reservations_checked_in` int NOT NULL DEFAULT '0',
+  `reservations_completed` int NOT NULL DEFAULT '0',
+  `reservations_canceled` int NOT NULL DEFAULT '0',
+  `delay_minutes_sum` bigint NOT NULL DEFAULT '0',
+  `delay_count` int NOT NULL DEFAULT '0',
+  `dining_minutes_sum` bigint NOT NULL DEFAULT '0',
+  `dining_count` int NOT NULL DEFAULT '0',
+  `waiting_joins` int NOT NULL DEFAULT '0',
+  `bills_count` int NOT NULL DEFAULT '0',
+  `revenue` decimal(12,2) NOT NULL DEFAULT '0.00',
+  `updated_at` datetime DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`rollup_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Dumping data for table `daily_rollup`
+--
+
+LOCK TABLES `daily_rollup` WRITE;
+/*!40000 ALTER TABLE `daily_rollup` DISABLE KEYS */;
+/*!40000 ALTER TABLE `daily_rollup` ENABLE KEYS */;
+UNLOCK TABLES;
+
 --
 -- Table structure for table `monthly_subscriber_report`
 --
@@ -198,8 +287,20 @@ CREATE TABLE `reservations` (
   `created_at` datetime DEFAULT NULL,
   `check_in_time` datetime DEFAULT NULL,
   `reminder_sent_at` datetime DEFAULT NULL,
+  `email_key` varchar(255) DEFAULT NULL,
+  `phone_key` varchar(20) DEFAULT NULL,
   PRIMARY KEY (`reservation_id`),
-  UNIQUE KEY `uq_reservation_code` (`confirmation_code`)
+  UNIQUE KEY `uq_reservation_code` (`confirmation_code`),
+  KEY `idx_res_status_start` (`status`,`start_time`),
+  KEY `idx_res_start_time` (`start_time`),
+  KEY `idx_res_table_time` (`table_number`,`status`,`start_time`,`end_time`),
+  KEY `idx_res_status_checkin` (`status`,`check_in_time`),
+  KEY `idx_res_reminder` (`status`,`reminder_sent_at`,`start_time`),
+  KEY `idx_res_email_phone` (`email`,`phone`),
+  KEY `idx_res_subscriber_status` (`subscriber_number`,`status`,`start_time`),
+  KEY `idx_res_subscriber_start` (`subscriber_number`,`start_time`,`reservation_id`),
+  KEY `idx_res_email_key` (`email_key`,`phone_key`),
+  KEY `idx_res_phone_key` (`phone_key`)
 ) ENGINE=InnoDB AUTO_INCREMENT=63 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
@@ -209,10 +310,48 @@ CREATE TABLE `reservations` (
 
 LOCK TABLES `reservations` WRITE;
 /*!40000 ALTER TABLE `reservations` DISABLE KEYS */;
-INSERT INTO `reservations` VALUES (1,2,'277771','CANCELED',1,NULL,'2026-01-07 12:00:00','2026-01-07 14:00:00','1','','2026-01-06 01:07:07',NULL,NULL),(2,3,'660400','CANCELED',2,NULL,'2026-01-09 14:00:00','2026-01-09 16:00:00','1','','2026-01-06 01:07:17',NULL,NULL),(3,3,'534785','CANCELED',3,NULL,'2026-01-07 12:00:00','2026-01-07 14:00:00','1','','2026-01-06 01:07:21',NULL,NULL),(4,3,'639486','CANCELED',4,NULL,'2026-01-07 12:00:00','2026-01-07 14:00:00','1','','2026-01-06 01:07:22',NULL,NULL),(5,2,'362209','CANCELED',1,'1','2026-01-07 12:00:00','2026-01-07 14:00:00','0500000000','ashrf@test.com','2026-01-06 01:43:55',NULL,NULL),(6,2,'755033','CANCELED',1,NULL,'2026-01-07 18:00:00','2026-01-07 20:00:00','00000','','2026-01-07 14:40:03',NULL,NULL),(7,2,'183706','CANCELED',2,'1','2026-01-07 18:00:00','2026-01-07 20:00:00','0500000000','ashrf@test.com','2026-01-07 14:41:47',NULL,NULL),(8,2,'820635','ACTIVE',1,NULL,'2026-01-21 18:00:00','2026-01-21 20:00:00','12','','2026-01-07 15:24:16',NULL,NULL),(9,2,'901986','COMPLETED',2,NULL,'2026-01-07 15:00:00','2026-01-07 18:30:00','12','','2026-01-07 15:24:52',NULL,NULL),(10,5,'278961','COMPLETED',3,'1','2026-01-07 15:00:00','2026-01-07 20:00:00','0500000000','ashrf@test.com','2026-01-07 15:31:03',NULL,NULL),(11,2,'211293','CANCELED',1,NULL,'2026-01-10 18:00:00','2026-01-10 20:00:00','1','','2026-01-09 13:58:04',NULL,NULL),(12,2,'263509','CANCELED',2,'1','2026-01-10 18:00:00','2026-01-10 20:00:00','0527393342','ashrf@test.com','2026-01-09 23:42:43',NULL,NULL),(13,2,'657707','CANCELED',1,'SUB123','2026-01-15 10:00:00','2026-01-15 12:00:00','0527393342','ashrf@test.com','2026-01-09 23:58:26',NULL,NULL),(14,2,'989304','CANCELED',1,'SUB123','2026-01-16 11:00:00','2026-01-16 13:00:00','0527393342','ashrf@test.com','2026-01-10 00:02:03',NULL,NULL),(15,2,'355210','COMPLETED',1,'SUB123','2026-01-10 00:00:00','2026-01-10 12:00:00','0527393342','ashrf@test.com','2026-01-10 00:16:30',NULL,NULL),(16,2,'305779','CANCELED',2,'SUB123','2026-01-21 17:00:00','2026-01-21 19:00:00','0527393342','ashrf@test.com','2026-01-10 00:30:25',NULL,NULL),(17,2,'749390','CANCELED',1,NULL,'2026-01-15 11:30:00','2026-01-15 13:30:00','١٢٣','','2026-01-10 00:38:51',NULL,NULL),(18,2,'271598','CANCELED',1,'SUB6','2026-01-11 14:00:00','2026-01-11 16:00:00','1234567890','mhmd@test.com','2026-01-10 01:10:21',NULL,NULL),(19,2,'393897','COMPLETED',2,NULL,'2026-01-14 23:00:00','2026-01-15 01:00:00','1234512345','thisistest@gmail.com','2026-01-14 22:52:40','2026-01-14 22:53:58',NULL),(20,6,'205795','CANCELED',3,'SUB123','2026-01-16 19:30:00','2026-01-16 21:30:00','0527393342','ashrfcode@gmail.com','2026-01-16 17:28:16',NULL,NULL),(21,2,'NORM-TEST','COMPLETED',5,NULL,'2026-01-10 18:00:00','2026-01-10 19:00:00','0500000001','test1@gmail.com','2026-01-16 19:48:25','2026-01-10 18:00:00',NULL),(22,2,'DELAY-TEST','COMPLETED',6,NULL,'2026-01-12 18:00:00','2026-01-12 19:30:00','0500000002','test2@gmail.com','2026-01-16 19:48:36','2026-01-12 18:14:00',NULL),(23,2,'REP-001','COMPLETED',1,'SUB-100','2026-01-02 18:00:00','2026-01-02 19:00:00','0501111111','sub1@test.com','2026-01-16 20:18:37','2026-01-02 18:00:00',NULL),(24,4,'REP-002','COMPLETED',2,'SUB-100','2026-01-05 19:00:00','2026-01-05 20:30:00','0501111111','sub1@test.com','2026-01-16 20:18:37','2026-01-05 19:00:00',NULL),(25,2,'REP-003','COMPLETED',3,'SUB-200','2026-01-10 13:00:00','2026-01-10 14:00:00','0502222222','sub2@test.com','2026-01-16 20:18:37','2026-01-10 13:00:00',NULL),(26,3,'REP-004','COMPLETED',4,'SUB-200','2026-01-15 20:00:00','2026-01-15 21:00:00','0502222222','sub2@test.com','2026-01-16 20:18:37','2026-01-15 20:00:00',NULL),(27,2,'REP-005','COMPLETED',1,'SUB-300','2026-01-20 18:00:00','2026-01-20 19:30:00','0503333333','sub3@test.com','2026-01-16 20:18:37','2026-01-20 18:00:00',NULL),(28,2,'184982','CANCELED',1,'SUB123','2026-01-17 15:30:00','2026-01-17 17:30:00','0527393342','ashrfcode@gmail.com','2026-01-17 14:28:41',NULL,NULL),(29,2,'997324','CANCELED',2,'SUB123','2026-01-17 16:00:00','2026-01-17 18:00:00','0527393342','ashrfcode@gmail.com','2026-01-17 14:31:26',NULL,NULL),(30,2,'375501','CANCELED',3,'SUB123','2026-01-17 16:00:00','2026-01-17 18:00:00','0527393342','ashrfcode@gmail.com','2026-01-17 14:31:43',NULL,NULL),(31,2,'761497','CANCELED',4,'SUB123','2026-01-17 16:00:00','2026-01-17 18:00:00','0527393342','ashrfcode@gmail.com','2026-01-17 14:31:45',NULL,NULL),(32,2,'313492','COMPLETED',1,NULL,'2026-01-17 16:00:00','2026-01-17 19:00:00','','ashrfasadi435@gmail.com','2026-01-17 15:54:35','2026-01-17 16:13:29',NULL),(33,2,'706466','ACTIVE',1,'SUB123','2026-01-20 10:00:00','2026-01-20 12:00:00','0527393342','ashrfcode@gmail.com','2026-01-17 17:07:36',NULL,NULL),(34,2,'791072','CANCELED',1,'SUB123','2026-01-18 10:00:00','2026-01-18 12:00:00','0527393342','ashrfcode@gmail.com','2026-01-17 19:43:27',NULL,NULL),(35,2,'105172','CANCELED',2,'SUB123','2026-01-18 10:00:00','2026-01-18 12:00:00','0527393342','ashrfcode@gmail.com','2026-01-17 19:52:05',NULL,NULL),(36,2,'180172','CANCELED',3,'SUB123','2026-01-18 10:00:00','2026-01-18 12:00:00','0527393342','ashrfcode@gmail.com','2026-01-17 19:56:20',NULL,NULL),(37,2,'174412','CANCELED',4,'SUB123','2026-01-18 10:00:00','2026-01-18 12:00:00','0527393342','ashrfcode@gmail.com','2026-01-17 20:05:24',NULL,NULL),(39,2,'538762','CANCELED',1,NULL,'2026-01-17 23:00:00','2026-01-18 01:00:00','1','','2026-01-17 23:11:29',NULL,NULL),(40,6,'151026','CANCELED',3,'SUB8','2026-01-18 12:00:00','2026-01-18 14:00:00','123456789','aya@test.com','2026-01-18 00:00:54',NULL,NULL),(41,6,'765757','CANCELED',4,'SUB8','2026-01-18 12:00:00','2026-01-18 14:00:00','123456789','aya@test.com','2026-01-18 00:01:05',NULL,NULL),(42,6,'334020','CANCELED',3,'SUB8','2026-01-18 14:00:00','2026-01-18 16:00:00','123456789','aya@test.com','2026-01-18 00:01:13',NULL,NULL),(43,6,'224453','CANCELED',4,'SUB8','2026-01-18 14:00:00','2026-01-18 16:00:00','123456789','aya@test.com','2026-01-18 00:01:15',NULL,NULL),(44,6,'978006','CANCELED',3,'SUB8','2026-01-18 16:00:00','2026-01-18 18:00:00','123456789','aya@test.com','2026-01-18 00:01:19',NULL,NULL),(45,2,'802944','CANCELED',1,'SUB8','2026-01-18 16:00:00','2026-01-18 18:00:00','123456789','aya@test.com','2026-01-18 00:01:33',NULL,NULL),(46,2,'461814','CANCELED',2,'SUB8','2026-01-18 16:00:00','2026-01-18 18:00:00','123456789','aya@test.com','2026-01-18 00:01:34',NULL,NULL),(47,2,'542225','CANCELED',4,'SUB8','2026-01-18 16:00:00','2026-01-18 18:00:00','123456789','aya@test.com','2026-01-18 00:01:34',NULL,NULL),(48,2,'730379','CANCELED',1,'SUB8','2026-01-18 12:00:00','2026-01-18 14:00:00','123456789','aya@test.com','2026-01-18 00:02:03',NULL,NULL),(49,2,'521762','CANCELED',2,'SUB8','2026-01-18 12:00:00','2026-01-18 14:00:00','123456789','aya@test.com','2026-01-18 00:02:10',NULL,NULL),(50,2,'881147','CANCELED',1,'SUB8','2026-01-18 14:00:00','2026-01-18 16:00:00','123456789','aya@test.com','2026-01-18 00:02:14',NULL,NULL),(51,2,'793615','CANCELED',2,'SUB8','2026-01-18 14:00:00','2026-01-18 16:00:00','123456789','aya@test.com','2026-01-18 00:02:15',NULL,NULL),(52,6,'370774','CANCELED',3,'SUB8','2026-01-18 18:00:00','2026-01-18 20:00:00','123456789','aya@test.com','2026-01-18 00:02:29',NULL,NULL),(53,6,'356304','CANCELED',4,'SUB8','2026-01-18 18:00:00','2026-01-18 20:00:00','123456789','aya@test.com','2026-01-18 00:02:39',NULL,NULL),(54,2,'405203','CANCELED',1,NULL,'2026-01-19 10:00:00','2026-01-19 12:00:00','٩','','2026-01-18 00:23:00',NULL,NULL),(55,2,'WL891019','CANCELED',1,NULL,'2026-01-19 12:45:32','2026-01-19 14:45:32','0527393342','tssest@gmail.com','2026-01-19 12:45:32',NULL,NULL),(56,2,'WL216775','CANCELED',2,NULL,'2026-01-19 12:45:35','2026-01-19 14:45:35','050','','2026-01-19 12:45:34',NULL,NULL),(57,3,'WL788897','CANCELED',4,NULL,'2026-01-19 12:45:35','2026-01-19 14:45:35','1','1','2026-01-19 12:45:34',NULL,NULL),(58,2,'WL593524','COMPLETED',1,'SUB123','2026-01-19 15:00:17','2026-01-19 17:00:17','0527393342','ashrfcode@gmail.com','2026-01-19 15:00:16','2026-01-19 15:01:02',NULL),(59,2,'WL957302','CANCELED',1,'SUB123','2026-01-19 16:32:51','2026-01-19 18:32:51','0527393342','ashrfcode@gmail.com','2026-01-19 16:32:50',NULL,NULL),(60,2,'WL879951','COMPLETED',2,'SUB123','2026-01-18 01:30:00','2026-01-19 19:59:21','0527393342','ashrfcode@gmail.com','2026-01-19 17:59:20',NULL,NULL),(61,2,'291389','COMPLETED',1,'SUB123','2026-01-19 16:30:00','2026-01-19 18:30:00','0527393342','ashrfcode@gmail.com','2026-01-19 15:00:12','2026-01-19 16:33:19',NULL),(62,2,'858312','ACTIVE',1,'SUB123','2026-01-19 20:00:00','2026-01-19 22:00:00','0527393342','ashrfcode@gmail.com','2026-01-19 18:33:20',NULL,NULL);
+INSERT INTO `reservations` VALUES (1,2,'277771','CANCELED',1,NULL,'2026-01-07 12:00:00','2026-01-07 14:00:00','1','','2026-01-06 01:07:07',NULL,NULL,NULL,NULL),(2,3,'660400','CANCELED',2,NULL,'2026-01-09 14:00:00','2026-01-09 16:00:00','1','','2026-01-06 01:07:17',NULL,NULL,NULL,NULL),(3,3,'534785','CANCELED',3,NULL,'2026-01-07 12:00:00','2026-01-07 14:00:00','1','','2026-01-06 01:07:21',NULL,NULL,NULL,NULL),(4,3,'639486','CANCELED',4,NULL,'2026-01-07 12:00:00','2026-01-07 14:00:00','1','','2026-01-06 01:07:22',NULL,NULL,NULL,NULL),(5,2,'362209','CANCELED',1,'1','2026-01-07 12:00:00','2026-01-07 14:00:00','0500000000','ashrf@test.com','2026-01-06 01:43:55',NULL,NULL,NULL,NULL),(6,2,'755033','CANCELED',1,NULL,'2026-01-07 18:00:00','2026-01-07 20:00:00','00000','','2026-01-07 14:40:03',NULL,NULL,NULL,NULL),(7,2,'183706','CANCELED',2,'1','2026-01-07 18:00:00','2026-01-07 20:00:00','0500000000','ashrf@test.com','2026-01-07 14:41:47',NULL,NULL,NULL,NULL),(8,2,'820635','ACTIVE',1,NULL,'2026-01-21 18:00:00','2026-01-21 20:00:00','12','','2026-01-07 15:24:16',NULL,NULL,NULL,NULL),(9,2,'901986','COMPLETED',2,NULL,'2026-01-07 15:00:00','2026-01-07 18:30:00','12','','2026-01-07 15:24:52',NULL,NULL,NULL,NULL),(10,5,'278961','COMPLETED',3,'1','2026-01-07 15:00:00','2026-01-07 20:00:00','0500000000','ashrf@test.com','2026-01-07 15:31:03',NULL,NULL,NULL,NULL),(11,2,'211293','CANCELED',1,NULL,'2026-01-10 18:00:00','2026-01-10 20:00:00','1','','2026-01-09 13:58:04',NULL,NULL,NULL,NULL),(12,2,'263509','CANCELED',2,'1','2026-01-10 18:00:00','2026-01-10 20:00:00','0527393342','ashrf@test.com','2026-01-09 23:42:43',NULL,NULL,NULL,NULL),(13,2,'657707','CANCELED',1,'SUB123','2026-01-15 10:00:00','2026-01-15 12:00:00','0527393342','ashrf@test.com','2026-01-09 23:58:26',NULL,NULL,NULL,NULL),(14,2,'989304','CANCELED',1,'SUB123','2026-01-16 11:00:00','2026-01-16 13:00:00','0527393342','ashrf@test.com','2026-01-10 00:02:03',NULL,NULL,NULL,NULL),(15,2,'355210','COMPLETED',1,'SUB123','2026-01-10 00:00:00','2026-01-10 12:00:00','0527393342','ashrf@test.com','2026-01-10 00:16:30',NULL,NULL,NULL,NULL),(16,2,'305779','CANCELED',2,'SUB123','2026-01-21 17:00:00','2026-01-21 19:00:00','0527393342','ashrf@test.com','2026-01-10 00:30:25',NULL,NULL,NULL,NULL),(17,2,'749390','CANCELED',1,NULL,'2026-01-15 11:30:00','2026-01-15 13:30:00','١٢٣','','2026-01-10 00:38:51',NULL,NULL,NULL,NULL),(18,2,'271598','CANCELED',1,'SUB6','2026-01-11 14:00:00','2026-01-11 16:00:00','1234567890','mhmd@test.com','2026-01-10 01:10:21',NULL,NULL,NULL,NULL),(19,2,'393897','COMPLETED',2,NULL,'2026-01-14 23:00:00','2026-01-15 01:00:00','1234512345','thisistest@gmail.com','2026-01-14 22:52:40','2026-01-14 22:53:58',NULL,NULL,NULL),(20,6,'205795','CANCELED',3,'SUB123','2026-01-16 19:30:00','2026-01-16 21:30:00','0527393342','ashrfcode@gmail.com','2026-01-16 17:28:16',NULL,NULL,NULL,NULL),(21,2,'NORM-TEST','COMPLETED',5,NULL,'2026-01-10 18:00:00','2026-01-10 19:00:00','0500000001','test1@gmail.com','2026-01-16 19:48:25','2026-01-10 18:00:00',NULL,NULL,NULL),(22,2,'DELAY-TEST','COMPLETED',6,NULL,'2026-01-12 18:00:00','2026-01-12 19:30:00','0500000002','test2@gmail.com','2026-01-16 19:48:36','2026-01-12 18:14:00',NULL,NULL,NULL),(23,2,'REP-001','COMPLETED',1,'SUB-100','2026-01-02 18:00:00','2026-01-02 19:00:00','0501111111','sub1@test.com','2026-01-16 20:18:37','2026-01-02 18:00:00',NULL,NULL,NULL),(24,4,'REP-002','COMPLETED',2,'SUB-100','2026-01-05 19:00:00','2026-01-05 20:30:00','0501111111','sub1@test.com','2026-01-16 20:18:37','2026-01-05 19:00:00',NULL,NULL,NULL),(25,2,'REP-003','COMPLETED',3,'SUB-200','2026-01-10 13:00:00','2026-01-10 14:00:00','0502222222','sub2@test.com','2026-01-16 20:18:37','2026-01-10 13:00:00',NULL,NULL,NULL),(26,3,'REP-004','COMPLETED',4,'SUB-200','2026-01-15 20:00:00','2026-01-15 21:00:00','0502222222','sub2@test.com','2026-01-16 20:18:37','2026-01-15 20:00:00',NULL,NULL,NULL),(27,2,'REP-005','COMPLETED',1,'SUB-300','2026-01-20 18:00:00','2026-01-20 19:30:00','0503333333','sub3@test.com','2026-01-16 20:18:37','2026-01-20 18:00:00',NULL,NULL,NULL),(28,2,'184982','CANCELED',1,'SUB123','2026-01-17 15:30:00','2026-01-17 17:30:00','0527393342','ashrfcode@gmail.com','2026-01-17 14:28:41',NULL,NULL,NULL,NULL),(29,2,'997324','CANCELED',2,'SUB123','2026-01-17 16:00:00','2026-01-17 18:00:00','0527393342','ashrfcode@gmail.com','2026-01-17 14:31:26',NULL,NULL,NULL,NULL),(30,2,'375501','CANCELED',3,'SUB123','2026-01-17 16:00:00','2026-01-17 18:00:00','0527393342','ashrfcode@gmail.com','2026-01-17 14:31:43',NULL,NULL,NULL,NULL),(31,2,'761497','CANCELED',4,'SUB123','2026-01-17 16:00:00','2026-01-17 18:00:00','0527393342','ashrfcode@gmail.com','2026-01-17 14:31:45',NULL,NULL,NULL,NULL),(32,2,'313492','COMPLETED',1,NULL,'2026-01-17 16:00:00','2026-01-17 19:00:00','','ashrfasadi435@gmail.com','2026-01-17 15:54:35','2026-01-17 16:13:29',NULL,NULL,NULL),(33,2,'706466','ACTIVE',1,'SUB123','2026-01-20 10:00:00','2026-01-20 12:00:00','0527393342','ashrfcode@gmail.com','2026-01-17 17:07:36',NULL,NULL,NULL,NULL),(34,2,'791072','CANCELED',1,'SUB123','2026-01-18 10:00:00','2026-01-18 12:00:00','0527393342','ashrfcode@gmail.com','2026-01-17 19:43:27',NULL,NULL,NULL,NULL),(35,2,'105172','CANCELED',2,'SUB123','2026-01-18 10:00:00','2026-01-18 12:00:00','0527393342','ashrfcode@gmail.com','2026-01-17 19:52:05',NULL,NULL,NULL,NULL),(36,2,'180172','CANCELED',3,'SUB123','2026-01-18 10:00:00','2026-01-18 12:00:00','0527393342','ashrfcode@gmail.com','2026-01-17 19:56:20',NULL,NULL,NULL,NULL),(37,2,'174412','CANCELED',4,'SUB123','2026-01-18 10:00:00','2026-01-18 12:00:00','0527393342','ashrfcode@gmail.com','2026-01-17 20:05:24',NULL,NULL,NULL,NULL),(39,2,'538762','CANCELED',1,NULL,'2026-01-17 23:00:00','2026-01-18 01:00:00','1','','2026-01-17 23:11:29',NULL,NULL,NULL,NULL),(40,6,'151026','CANCELED',3,'SUB8','2026-01-18 12:00:00','2026-01-18 14:00:00','123456789','aya@test.com','2026-01-18 00:00:54',NULL,NULL,NULL,NULL),(41,6,'765757','CANCELED',4,'SUB8','2026-01-18 12:00:00','2026-01-18 14:00:00','123456789','aya@test.com','2026-01-18 00:01:05',NULL,NULL,NULL,NULL),(42,6,'334020','CANCELED',3,'SUB8','2026-01-18 14:00:00','2026-01-18 16:00:00','123456789','aya@test.com','2026-01-18 00:01:13',NULL,NULL,NULL,NULL),(43,6,'224453','CANCELED',4,'SUB8','2026-01-18 14:00:00','2026-01-18 16:00:00','123456789','aya@test.com','2026-01-18 00:01:15',NULL,NULL,NULL,NULL),(44,6,'978006','CANCELED',3,'SUB8','2026-01-18 16:00:00','2026-01-18 18:00:00','123456789','aya@test.com','2026-01-18 00:01:19',NULL,NULL,NULL,NULL),(45,2,'802944','CANCELED',1,'SUB8','2026-01-18 16:00:00','2026-01-18 18:00:00','123456789','aya@test.com','2026-01-18 00:01:33',NULL,NULL,NULL,NULL),(46,2,'461814','CANCELED',2,'SUB8','2026-01-18 16:00:00','2026-01-18 18:00:00','123456789','aya@test.com','2026-01-18 00:01:34',NULL,NULL,NULL,NULL),(47,2,'542225','CANCELED',4,'SUB8','2026-01-18 16:00:00','2026-01-18 18:00:00','123456789','aya@test.com','2026-01-18 00:01:34',NULL,NULL,NULL,NULL),(48,2,'730379','CANCELED',1,'SUB8','2026-01-18 12:00:00','2026-01-18 14:00:00','123456789','aya@test.com','2026-01-18 00:02:03',NULL,NULL,NULL,NULL),(49,2,'521762','CANCELED',2,'SUB8','2026-01-18 12:00:00','2026-01-18 14:00:00','123456789','aya@test.com','2026-01-18 00:02:10',NULL,NULL,NULL,NULL),(50,2,'881147','CANCELED',1,'SUB8','2026-01-18 14:00:00','2026-01-18 16:00:00','123456789','aya@test.com','2026-01-18 00:02:14',NULL,NULL,NULL,NULL),(51,2,'793615','CANCELED',2,'SUB8','2026-01-18 14:00:00','2026-01-18 16:00:00','123456789','aya@test.com','2026-01-18 00:02:15',NULL,NULL,NULL,NULL),(52,6,'370774','CANCELED',3,'SUB8','2026-01-18 18:00:00','2026-01-18 20:00:00','123456789','aya@test.com','2026-01-18 00:02:29',NULL,NULL,NULL,NULL),(53,6,'356304','CANCELED',4,'SUB8','2026-01-18 18:00:00','2026-01-18 20:00:00','123456789','aya@test.com','2026-01-18 00:02:39',NULL,NULL,NULL,NULL),(54,2,'405203','CANCELED',1,NULL,'2026-01-19 10:00:00','2026-01-19 12:00:00','٩','','2026-01-18 00:23:00',NULL,NULL,NULL,NULL),(55,2,'WL891019','CANCELED',1,NULL,'2026-01-19 12:45:32','2026-01-19 14:45:32','0527393342','tssest@gmail.com','2026-01-19 12:45:32',NULL,NULL,NULL,NULL),(56,2,'WL216775','CANCELED',2,NULL,'2026-01-19 12:45:35','2026-01-19 14:45:35','050','','2026-01-19 12:45:34',NULL,NULL,NULL,NULL),(57,3,'WL788897','CANCELED',4,NULL,'2026-01-19 12:45:35','2026-01-19 14:45:35','1','1','2026-01-19 12:45:34',NULL,NULL,NULL,NULL),(58,2,'WL593524','COMPLETED',1,'SUB123','2026-01-19 15:00:17','2026-01-19 17:00:17','0527393342','ashrfcode@gmail.com','2026-01-19 15:00:16','2026-01-19 15:01:02',NULL,NULL,NULL),(59,2,'WL957302','CANCELED',1,'SUB123','2026-01-19 16:32:51','2026-01-19 18:32:51','0527393342','ashrfcode@gmail.com','2026-01-19 16:32:50',NULL,NULL,NULL,NULL),(60,2,'WL879951','COMPLETED',2,'SUB123','2026-01-18 01:30:00','2026-01-19 19:59:21','0527393342','ashrfcode@gmail.com','2026-01-19 17:59:20',NULL,NULL,NULL,NULL),(61,2,'291389','COMPLETED',1,'SUB123','2026-01-19 16:30:00','2026-01-19 18:30:00','0527393342','ashrfcode@gmail.com','2026-01-19 15:00:12','2026-01-19 16:33:19',NULL,NULL,NULL),(62,2,'858312','ACTIVE',1,'SUB123','2026-01-19 20:00:00','2026-01-19 22:00:00','0527393342','ashrfcode@gmail.com','2026-01-19 18:33:20',NULL,NULL,NULL,NULL);
 /*!40000 ALTER TABLE `reservations` ENABLE KEYS */;
 UNLOCK TABLES;
 
+--
+-- Table structure for table `reservations_archive`
+--
+
+DROP TABLE IF EXISTS `reservations_archive`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `reservations_archive` (
+  `reservation_id` int NOT NULL,
+  `dinners_number` int NOT NULL,
+  `confirmation_code` varchar(20) NOT NULL,
+  `status` enum('ACTIVE','CANCELED','COMPLETED','CHECKED_IN') DEFAULT NULL,
+  `table_number` int DEFAULT NULL,
+  `subscriber_number` varchar(20) DEFAULT NULL,
+  `start_time` datetime DEFAULT NULL,
+  `end_time` datetime DEFAULT NULL,
+  `phone` varchar(20) DEFAULT NULL,
+  `email` varchar(255) DEFAULT NULL,
+  `created_at` datetime DEFAULT NULL,
+  `check_in_time` datetime DEFAULT NULL,
+  `reminder_sent_at` datetime DEFAULT NULL,
+  `archived_at` datetime NOT NULL,
+  PRIMARY KEY (`reservation_id`),
+  KEY `idx_resarc_start_time` (`start_time`),
+  KEY `idx_resarc_subscriber_status` (`subscriber_number`,`status`,`start_time`),
+  KEY `idx_resarc_subscriber_start` (`subscriber_number`,`start_time`,`reservation_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Dumping data for table `reservations_archive`
+--
+
+LOCK TABLES `reservations_archive` WRITE;
+/*!40000 ALTER TABLE `reservations_archive` DISABLE KEYS */;
+/*!40000 ALTER TABLE `reservations_archive` ENABLE KEYS */;
+UNLOCK TABLES;
+
 --
 -- Table structure for table `restaurant_tables`
 --
@@ -239,6 +378,30 @@ INSERT INTO `restaurant_tables` VALUES (1,2,'VIP Room','EMPTY'),(2,4,'Inside','E
 /*!40000 ALTER TABLE `restaurant_tables` ENABLE KEYS */;
 UNLOCK TABLES;
 
+--
+-- Table structure for table `rollup_watermark`
+--
+
+DROP TABLE IF EXISTS `rollup_watermark`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `rollup_watermark` (
+  `job_name` varchar(50) NOT NULL,
+  `watermark_date` date NOT NULL,
+  `updated_at` datetime DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`job_name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Dumping data for table `rollup_watermark`
+--
+
+LOCK TABLES `rollup_watermark` WRITE;
+/*!40000 ALTER TABLE `rollup_watermark` DISABLE KEYS */;
+/*!40000 ALTER TABLE `rollup_watermark` ENABLE KEYS */;
+UNLOCK TABLES;
+
 --
 -- Table structure for table `special_opening_hours`
 --
@@ -267,6 +430,33 @@ INSERT INTO `special_opening_hours` VALUES (1,'2025-12-31',NULL,NULL,1),(2,'2025
 /*!40000 ALTER TABLE `special_opening_hours` ENABLE KEYS */;
 UNLOCK TABLES;
 
+--
+-- Table structure for table `subscriber_stats`
+--
+
+DROP TABLE IF EXISTS `subscriber_stats`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `subscriber_stats` (
+  `subscriber_number` varchar(50) NOT NULL,
+  `visits` int NOT NULL DEFAULT '0',
+  `no_shows` int NOT NULL DEFAULT '0',
+  `last_visit` datetime DEFAULT NULL,
+  `lifetime_spend` decimal(12,2) NOT NULL DEFAULT '0.00',
+  `updated_at` datetime NOT NULL,
+  PRIMARY KEY (`subscriber_number`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Dumping data for table `subscriber_stats`
+--
+
+LOCK TABLES `subscriber_stats` WRITE;
+/*!40000 ALTER TABLE `subscriber_stats` DISABLE KEYS */;
+/*!40000 ALTER TABLE `subscriber_stats` ENABLE KEYS */;
+UNLOCK TABLES;
+
 --
 -- Table structure for table `subscribers`
 --
@@ -334,8 +524,13 @@ CREATE TABLE `users` (
   `role` enum('SUBSCRIBER','REPRESENTATIVE','MANAGER') NOT NULL,
   `is_active` tinyint(1) DEFAULT '1',
   `created_at` timestamp NULL DEFAULT CURRENT_TIMESTAMP,
+  `email_key` varchar(255) DEFAULT NULL,
+  `phone_key` varchar(20) DEFAULT NULL,
   PRIMARY KEY (`id`),
-  UNIQUE KEY `email` (`email`)
+  UNIQUE KEY `email` (`email`),
+  KEY `idx_users_phone` (`phone`),
+  KEY `idx_users_email_key` (`email_key`),
+  KEY `idx_users_phone_key` (`phone_key`)
 ) ENGINE=InnoDB AUTO_INCREMENT=9 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
@@ -346,12 +541,12 @@ CREATE TABLE `users` (
 LOCK TABLES `users` WRITE;
 /*!40000 ALTER TABLE `users` DISABLE KEYS */;
 INSERT INTO `users` VALUES
-(1,'Ashrf','ashrfcode@gmail.com','0527393342','1234','SUBSCRIBER',1,'2025-12-17 17:37:36'),
-(2,'Mona','mona@test.com','0501111111','1234','REPRESENTATIVE',1,'2025-12-17 18:05:58'),
-(3,'test','test@test.com','123456789','1234','MANAGER',1,'2025-12-17 18:05:50'),
-(6,'mhmd','mhmd@gmail.com','1234567890','1234','SUBSCRIBER',1,'2026-01-09 22:54:29'),
-(7,'asad','asad@test.com','1234123412','1234','SUBSCRIBER',1,'2026-01-14 23:52:57'),
-(8,'aya','aya@test.com','123456789','1234','SUBSCRIBER',1,'2026-01-17 21:59:05');
+(1,'Ashrf','ashrfcode@gmail.com','0527393342','1234','SUBSCRIBER',1,'2025-12-17 17:37:36',NULL,NULL),
+(2,'Mona','mona@test.com','0501111111','1234','REPRESENTATIVE',1,'2025-12-17 18:05:58',NULL,NULL),
+(3,'test','test@test.com','123456789','1234','MANAGER',1,'2025-12-17 18:05:50',NULL,NULL),
+(6,'mhmd','mhmd@gmail.com','1234567890','1234','SUBSCRIBER',1,'2026-01-09 22:54:29',NULL,NULL),
+(7,'asad','asad@test.com','1234123412','1234','SUBSCRIBER',1,'2026-01-14 23:52:57',NULL,NULL),
+(8,'aya','aya@test.com','123456789','1234','SUBSCRIBER',1,'2026-01-17 21:59:05',NULL,NULL);
 
 /*!40000 ALTER TABLE `users` ENABLE KEYS */;
 UNLOCK TABLES;
@@ -375,9 +570,13 @@ CREATE TABLE `waiting_list` (
   `invited_at` timestamp NULL DEFAULT NULL,
   `expires_at` timestamp NULL DEFAULT NULL,
   `assigned_table` int DEFAULT NULL,
+  `email_key` varchar(255) DEFAULT NULL,
+  `phone_key` varchar(20) DEFAULT NULL,
   PRIMARY KEY (`id`),
   UNIQUE KEY `uq_waiting_confirmation_code` (`confirmation_code`),
   KEY `fk_waitinglist_subscriber` (`subscriber_number`),
+  KEY `idx_wl_status_request` (`status`,`request_time`,`id`),
+  KEY `idx_wl_request_time` (`request_time`),
   CONSTRAINT `fk_waitinglist_subscriber` FOREIGN KEY (`subscriber_number`) REFERENCES `subscribers` (`subscriber_number`) ON DELETE CASCADE
 ) ENGINE=InnoDB AUTO_INCREMENT=25 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
 /*!40101 SET character_set_client = @saved_cs_client */;
@@ -388,7 +587,7 @@ CREATE TABLE `waiting_list` (
 
 LOCK TABLES `waiting_list` WRITE;
 /*!40000 ALTER TABLE `waiting_list` DISABLE KEYS */;
-INSERT INTO `waiting_list` VALUES (3,'2026-01-14 20:02:23',NULL,2,'0527393342','tssest@gmail.com','WL891019','EXPIRED','2026-01-19 10:45:32','2026-01-19 11:00:32',1),(4,'2026-01-14 21:46:51',NULL,2,'050','','WL216775','EXPIRED','2026-01-19 10:45:34','2026-01-19 11:00:34',2),(17,'2026-01-17 19:04:59',NULL,3,'1','1','WL788897','EXPIRED','2026-01-19 10:45:34','2026-01-19 11:00:34',4),(24,'2026-01-19 15:33:52','SUB123',2,'','','WL879951','INVITED','2026-01-19 15:59:20','2026-01-19 16:14:20',2);
+INSERT INTO `waiting_list` VALUES (3,'2026-01-14 20:02:23',NULL,2,'0527393342','tssest@gmail.com','WL891019','EXPIRED','2026-01-19 10:45:32','2026-01-19 11:00:32',1,NULL,NULL),(4,'2026-01-14 21:46:51',NULL,2,'050','','WL216775','EXPIRED','2026-01-19 10:45:34','2026-01-19 11:00:34',2,NULL,NULL),(17,'2026-01-17 19:04:59',NULL,3,'1','1','WL788897','EXPIRED','2026-01-19 10:45:34','2026-01-19 11:00:34',4,NULL,NULL),(24,'2026-01-19 15:33:52','SUB123',2,'','','WL879951','INVITED','2026-01-19 15:59:20','2026-01-19 16:14:20',2,NULL,NULL);
 /*!40000 ALTER TABLE `waiting_list` ENABLE KEYS */;
 UNLOCK TABLES;
 /*!40103 SET TIME_ZONE=@OLD_TIME_ZONE */;
@@ -1,6 +1,7 @@
 package client;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -24,6 +25,21 @@ public class ClientController extends AbstractClient {
      */
     private ChatIF ui;
 
+    /**
+     * Reconnect attempts after the connection drops, before giving up.
+     */
+    private static final int MAX_RECONNECT_ATTEMPTS = 8;
+
+    /**
+     * Longest wait between two reconnect attempts (the wait doubles from one second up to this).
+     */
+    private static final long MAX_RECONNECT_DELAY_MILLIS = 10_000L;
+
+    /**
+     * Set once the connection is closed on purpose, so no reconnect is attempted afterwards.
+     */
+    private volatile boolean closedByUser = false;
+
     /**
      * Creates a new client controller, opens a connection to the server, and stores the UI handler.
      *
@@ -59,6 +75,11 @@ public class ClientController extends AbstractClient {
    @Override
 	protected void handleMessageFromServer(Object msg) {
 	
+	    // ✅ Session token bookkeeping (resume replies are not meant for the screens)
+	    if (msg instanceof String text && handleSessionMessage(text)) {
+	        return;
+	    }
+
 	    // ✅ First: deliver to the active screen handler (if exists)
 	    if (ClientSession.activeHandler != null) {
 	        ClientSession.activeHandler.accept(msg);
@@ -121,6 +142,21 @@ public class ClientController extends AbstractClient {
         return; // activeHandler handles it
     }
 
+    // ✅ final result of a background report job (activeHandler matches it by job id)
+    if (msg instanceof common.ReportJobResult) {
+        return;
+    }
+
+    // ✅ seat utilization heatmap (activeHandler handles it)
+    if (msg instanceof common.OccupancyReport) {
+        return;
+    }
+
+    // ✅ data export stream (activeHandler writes the chunks to the file)
+    if (msg instanceof common.ExportChunk) {
+        return;
+    }
+
     System.err.println("⚠️ Unrecognized message from server: " + msg);
     ui.display("⚠️ Unrecognized message from server.");
 }
@@ -213,7 +249,77 @@ public class ClientController extends AbstractClient {
         sendRequest(new ClientRequest(ClientRequest.CMD_GET_SUBSCRIBER_REPORT,
                 new Object[]{ month, year }));
     }
+
+    /**
+     * Requests aggregated analytics (covers, reservations by status, average delay and dining time,
+     * waiting-list joins, revenue) for an inclusive date range.
+     * The server answers with an ordered {@code Map<String, Double>} (see {@code RangeReportController}).
+     *
+     * @param fromDate first day, formatted {@code yyyy-MM-dd}
+     * @param toDate   last day, formatted {@code yyyy-MM-dd}
+     */
+    public void requestRangeReport(String fromDate, String toDate) {
+        sendRequest(new ClientRequest(ClientRequest.CMD_GET_RANGE_REPORT,
+                new Object[]{ fromDate, toDate }));
+    }
     
+    /**
+     * Requests a monthly report for every month of an inclusive range (e.g. one year).
+     * The server answers with an ordered {@code Map<String, Map<String, Integer>>} keyed by {@code yyyy-MM},
+     * or {@code "REPORT_RANGE_FAIL|reason"}.
+     *
+     * @param type      {@code "TIME"} or {@code "SUBSCRIBER"}
+     * @param fromMonth first month, formatted {@code yyyy-MM}
+     * @param toMonth   last month, formatted {@code yyyy-MM}
+     */
+    public void requestMonthlyReportRange(String type, String fromMonth, String toMonth) {
+        sendRequest(new ClientRequest(ClientRequest.CMD_GET_MONTHLY_REPORT_RANGE,
+                new Object[]{ type, fromMonth, toMonth }));
+    }
+
+    /**
+     * Requests seat utilization per 30-minute bucket per weekday for an inclusive date range.
+     * The server answers with a {@link common.OccupancyReport} or {@code "OCCUPANCY_FAIL|reason"}.
+     *
+     * @param fromDate first day, formatted {@code yyyy-MM-dd}
+     * @param toDate   last day, formatted {@code yyyy-MM-dd}
+     */
+    public void requestOccupancyReport(String fromDate, String toDate) {
+        sendRequest(new ClientRequest(ClientRequest.CMD_GET_OCCUPANCY_REPORT,
+                new Object[]{ fromDate, toDate }));
+    }
+
+    /**
+     * Submits a report as a background job.
+     * The server answers {@code REPORT_JOB_ACCEPTED|jobId}, zero or more
+     * {@code REPORT_JOB_PROGRESS|jobId|done|total}, then a {@link common.ReportJobResult}
+     * or {@code REPORT_JOB_FAILED|jobId|reason}.
+     *
+     * @param kind report kind: {@code TIME}, {@code SUBSCRIBER}, {@code RANGE} or {@code TREND}
+     * @param args parameters of that report (same as its synchronous command)
+     */
+    public void submitReportJob(String kind, Object... args) {
+        Object[] params = new Object[args.length + 1];
+        params[0] = kind;
+        System.arraycopy(args, 0, params, 1, args.length);
+        sendRequest(new ClientRequest(ClientRequest.CMD_SUBMIT_REPORT_JOB, params));
+    }
+
+    /**
+     * Requests a streamed export of reservations or bills.
+     * The server answers {@code EXPORT_STARTED|exportId|fileName}, then {@link common.ExportChunk}s
+     * (the last one flagged), or {@code EXPORT_FAILED|exportId|reason}.
+     *
+     * @param dataset  {@code RESERVATIONS} or {@code BILLS}
+     * @param format   {@code CSV} (gzip) or {@code COLUMNAR} (gzip binary)
+     * @param fromDate first day ({@code yyyy-MM-dd}), or {@code null} for the whole history
+     * @param toDate   last day ({@code yyyy-MM-dd}), or {@code null} for the whole history
+     */
+    public void exportData(String dataset, String format, String fromDate, String toDate) {
+        sendRequest(new ClientRequest(ClientRequest.CMD_EXPORT_DATA,
+                new Object[]{ dataset, format, fromDate, toDate }));
+    }
+
     /**
      * Requests to pay for a reservation identified by its confirmation code.
      *
@@ -235,7 +341,7 @@ public class ClientController extends AbstractClient {
     }
     
     /**
-     * Requests the reservation/order history for a subscriber.
+     * Requests the first page of the reservation/order history for a subscriber.
      *
      * @param subscriberId the subscriber ID
      */
@@ -244,6 +350,20 @@ public class ClientController extends AbstractClient {
             new Object[] { subscriberId }
         ));
     }
+
+    /**
+     * Requests the history page that follows the last row already shown.
+     *
+     * @param subscriberId the subscriber ID
+     * @param beforeStart  start time of the last row shown
+     * @param beforeId     reservation id of the last row shown
+     * @param limit        page size
+     */
+    public void requestSubscriberHistory(int subscriberId, LocalDateTime beforeStart, int beforeId, int limit) {
+    	sendRequest(new ClientRequest(ClientRequest.CMD_GET_SUBSCRIBER_HISTORY,
+            new Object[] { subscriberId, beforeStart, beforeId, limit }
+        ));
+    }
     
     /**
      * Requests the list of subscriber confirmation codes associated with a user.
@@ -283,8 +403,81 @@ public class ClientController extends AbstractClient {
      */
     @Override
     protected void connectionClosed() {
+        closedByUser = true;
         ui.display("🔌 Client disconnected from server.");
     }
+
+    /**
+     * Callback invoked by {@link AbstractClient} when the connection drops unexpectedly
+     * (e.g. a Wi-Fi blip). Reconnects in the background and, if signed in, resumes the session.
+     *
+     * @param exception the exception that ended the connection
+     */
+    @Override
+    protected void connectionException(Exception exception) {
+        if (closedByUser) return;
+
+        Thread t = new Thread(this::reconnect, "bistro-reconnect");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * Reopens the connection with exponential backoff, then sends the stored session token so the
+     * server restores the sign-in without a password or a database lookup. The current screen and
+     * its {@link ClientSession#activeHandler} stay in place, so nothing has to be reloaded.
+     */
+    private void reconnect() {
+        long delay = 1_000L;
+        for (int attempt = 1; attempt <= MAX_RECONNECT_ATTEMPTS && !closedByUser; attempt++) {
+            try {
+                Thread.sleep(delay);
+                openConnection();
+
+                String token = ClientSession.sessionToken;
+                if (token != null) {
+                    sendToServer(new ClientRequest(ClientRequest.CMD_RESUME_SESSION, new Object[]{token}));
+                }
+                System.out.println("🔌 Reconnected to server (attempt " + attempt + ")");
+                return;
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                delay = Math.min(delay * 2, MAX_RECONNECT_DELAY_MILLIS);
+            }
+        }
+        if (!closedByUser) ui.display("🔌 Lost connection to server.");
+    }
+
+    /**
+     * Keeps {@link ClientSession#sessionToken} up to date from login/resume replies.
+     *
+     * @param msg a string reply from the server
+     * @return {@code true} if the message was a resume reply (fully handled here)
+     */
+    private boolean handleSessionMessage(String msg) {
+        if (msg.startsWith("LOGIN_OK|")) {
+            // LOGIN_OK|ROLE|NAME|ID|EMAIL|PHONE|TOKEN (screens still handle the login itself)
+            String[] parts = msg.split("\\|", -1);
+            if (parts.length >= 7) ClientSession.sessionToken = parts[6];
+            return false;
+        }
+        if (msg.startsWith("RESUME_OK|")) {
+            String[] parts = msg.split("\\|", -1);
+            if (parts.length >= 7) ClientSession.sessionToken = parts[6];
+            System.out.println("🔑 Session resumed");
+            return true;
+        }
+        if (msg.startsWith("RESUME_FAIL")) {
+            ClientSession.sessionToken = null;
+            String[] parts = msg.split("\\|", 2);
+            ui.display("🔌 " + (parts.length > 1 ? parts[1] : "Session expired. Please sign in again."));
+            return true;
+        }
+        return false;
+    }
     
     
     /**
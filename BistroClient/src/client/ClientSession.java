@@ -48,6 +48,12 @@ public class ClientSession {
      */
     public static String userPhone = "";
 
+    /**
+     * Signed session token from the last {@code LOGIN_OK}/{@code RESUME_OK}; sent back after a
+     * reconnect to restore the sign-in without logging in again ({@code null} if not signed in).
+     */
+    public static volatile String sessionToken = null;
+
     /**
      * Clears all session state and resets the active handler and user fields to defaults.
      */
@@ -58,6 +64,7 @@ public class ClientSession {
         userName = "";
         userEmail = "";
         userPhone = "";
+        sessionToken = null;
     }
 
     /**
@@ -0,0 +1,30 @@
+package client;
+
+/**
+ * Formatting helpers for the waiting list replies shared by the guest and subscriber screens.
+ */
+public final class WaitingListMessages {
+
+    /**
+     * Utility class.
+     */
+    private WaitingListMessages() {}
+
+    /**
+     * Formats the optional queue position and wait estimate sent with a join confirmation.
+     *
+     * @param parts split server message ({@code WAITING_JOIN_OK|code|position|etaMinutes} or
+     *              {@code WAITING_GUEST_JOIN_OK|code|position|etaMinutes})
+     * @return text to append to the status label (may be empty)
+     */
+    public static String formatQueueInfo(String[] parts) {
+        String text = "";
+        if (parts.length > 2 && parts[2].trim().matches("\\d+")) {
+            text += " | Position: " + parts[2].trim();
+        }
+        if (parts.length > 3 && parts[3].trim().matches("\\d+")) {
+            text += " | Estimated wait: ~" + parts[3].trim() + " min";
+        }
+        return text;
+    }
+}
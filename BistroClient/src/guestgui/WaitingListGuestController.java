@@ -2,6 +2,7 @@ package guestgui;
 
 import client.ClientController;
 import client.ClientSession;
+import client.WaitingListMessages;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
@@ -152,8 +153,10 @@ public class WaitingListGuestController
                     // ✅ 4) JOIN OK
                     if (s.startsWith("WAITING_GUEST_JOIN_OK|"))
                     {
-                        String code = extractAfterPipe(s);
-                        lblStatus.setText("Successfully added to waiting list. Code: " + code);
+                        // expected: WAITING_GUEST_JOIN_OK|code|position|etaMinutes
+                        String[] parts = s.split("\\|", -1);
+                        String code = (parts.length > 1) ? parts[1].trim() : "";
+                        lblStatus.setText("Successfully added to waiting list. Code: " + code + WaitingListMessages.formatQueueInfo(parts));
                         lblStatus.setStyle("-fx-text-fill: #1B8F3A; -fx-font-weight: bold;");
                         if (txtCode != null) txtCode.setText(code);
                         return;
@@ -0,0 +1,238 @@
+package representativegui;
+
+import client.ClientController;
+import client.ClientSession;
+import common.ExportChunk;
+import javafx.application.Platform;
+import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.DatePicker;
+import javafx.scene.control.Label;
+import javafx.scene.layout.StackPane;
+import javafx.stage.FileChooser;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+
+/**
+ * JavaFX controller for exporting reservations or bills to a file.
+ * <p>
+ * The server streams the export as {@link ExportChunk}s. Each chunk is appended to a
+ * {@code .part} file on the network thread as soon as it arrives, so the client never holds the
+ * whole file in memory; when the last chunk arrives the part file is moved to the chosen name.
+ * A failed export deletes the part file.
+ */
+public class ExportDataController {
+
+    /**
+     * Connected client controller used to communicate with the server.
+     */
+    private ClientController client;
+
+    /**
+     * Main content container used for navigation back to the visual reports menu.
+     */
+    private StackPane mainContentArea;
+
+    @FXML private ComboBox<String> datasetCombo;
+    @FXML private ComboBox<String> formatCombo;
+    @FXML private DatePicker fromPicker;
+    @FXML private DatePicker toPicker;
+    @FXML private Button exportButton;
+    @FXML private Label statusLabel;
+
+    /**
+     * Export currently being received (only touched on the network thread after it starts).
+     */
+    private String exportId;
+    private OutputStream partOut;
+    private File partFile;
+    private File targetFile;
+    private long bytesReceived;
+
+    /**
+     * Sets the client instance for server communication.
+     *
+     * @param client the connected {@link ClientController}
+     */
+    public void setClient(ClientController client) {
+        this.client = client;
+    }
+
+    /**
+     * Sets the main content area to allow navigation back to the menu.
+     *
+     * @param area the container in which this view is displayed
+     */
+    public void setMainContentArea(StackPane area) {
+        this.mainContentArea = area;
+    }
+
+    /**
+     * JavaFX initialization hook. Fills the dataset and format choices.
+     */
+    @FXML
+    public void initialize() {
+        datasetCombo.getItems().addAll("Reservations", "Bills");
+        datasetCombo.getSelectionModel().selectFirst();
+        formatCombo.getItems().addAll("CSV (.csv.gz)", "Columnar (.bcol.gz)");
+        formatCombo.getSelectionModel().selectFirst();
+    }
+
+    /**
+     * Asks for the target file and starts the export.
+     */
+    @FXML
+    private void handleExport() {
+        if (client == null) {
+            statusLabel.setText("❌ No server connection.");
+            return;
+        }
+
+        LocalDate from = fromPicker.getValue();
+        LocalDate to = toPicker.getValue();
+        if ((from == null) != (to == null) || (from != null && to.isBefore(from))) {
+            statusLabel.setText("❌ Choose both dates (or neither) with From before To.");
+            return;
+        }
+
+        String dataset = datasetCombo.getSelectionModel().getSelectedIndex() == 1 ? "BILLS" : "RESERVATIONS";
+        boolean columnar = formatCombo.getSelectionModel().getSelectedIndex() == 1;
+        String format = columnar ? "COLUMNAR" : "CSV";
+        String ext = columnar ? ".bcol.gz" : ".csv.gz";
+
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Save export");
+        chooser.setInitialFileName(dataset.toLowerCase() + "-" + LocalDate.now() + ext);
+        File file = chooser.showSaveDialog(exportButton.getScene().getWindow());
+        if (file == null) return;
+
+        try {
+            targetFile = file;
+            partFile = new File(file.getPath() + ".part");
+            partOut = new FileOutputStream(partFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+            statusLabel.setText("❌ Cannot write to " + file.getName());
+            return;
+        }
+
+        exportId = null;
+        bytesReceived = 0;
+        exportButton.setDisable(true);
+        statusLabel.setText("Waiting for the server...");
+
+        ClientSession.activeHandler = this::handleServerMessage;
+        client.exportData(dataset, format,
+                from == null ? null : from.toString(),
+                to == null ? null : to.toString());
+    }
+
+    /**
+     * Handles export messages on the network thread; only label updates go to the FX thread.
+     */
+    private void handleServerMessage(Object msg) {
+        if (msg instanceof ExportChunk) {
+            ExportChunk chunk = (ExportChunk) msg;
+            if (partOut == null || !chunk.getExportId().equals(exportId)) return;
+
+            try {
+                partOut.write(chunk.getData());
+                bytesReceived += chunk.getData().length;
+            } catch (IOException e) {
+                e.printStackTrace();
+                abort("Could not write the file: " + e.getMessage());
+                return;
+            }
+
+            if (chunk.isLast()) {
+                complete(chunk.getRowCount());
+            } else {
+                long kb = bytesReceived / 1024;
+                Platform.runLater(() -> statusLabel.setText("Receiving... " + kb + " KB"));
+            }
+            return;
+        }
+
+        if (!(msg instanceof String)) return;
+        String s = (String) msg;
+
+        if (s.startsWith("EXPORT_STARTED|")) {
+            String[] parts = s.split("\\|", 3);
+            exportId = parts[1];
+            Platform.runLater(() -> statusLabel.setText("Exporting " + (parts.length > 2 ? parts[2] : "") + "..."));
+        } else if (s.startsWith("EXPORT_FAILED|")) {
+            String[] parts = s.split("\\|", 3);
+            abort(parts.length > 2 ? parts[2] : "Export failed");
+        }
+    }
+
+    /**
+     * Closes the part file and moves it to the chosen file name.
+     */
+    private void complete(long rows) {
+        try {
+            partOut.close();
+            Files.move(partFile.toPath(), targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            String name = targetFile.getName();
+            long kb = bytesReceived / 1024;
+            Platform.runLater(() -> {
+                statusLabel.setText("✅ Exported " + rows + " rows to " + name + " (" + kb + " KB)");
+                exportButton.setDisable(false);
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+            abort("Could not save the file: " + e.getMessage());
+            return;
+        }
+        partOut = null;
+    }
+
+    /**
+     * Closes and deletes the part file and shows the reason.
+     */
+    private void abort(String reason) {
+        try {
+            if (partOut != null) partOut.close();
+        } catch (IOException ignored) {
+        }
+        partOut = null;
+        if (partFile != null) partFile.delete();
+
+        Platform.runLater(() -> {
+            statusLabel.setText("❌ " + reason);
+            exportButton.setDisable(false);
+        });
+    }
+
+    /**
+     * Navigates back to the visual reports menu view.
+     */
+    @FXML
+    private void handleBack() {
+        if (mainContentArea == null) return;
+
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/representativegui/VisualReportsMenu.fxml"));
+            Parent root = loader.load();
+
+            VisualReportsMenuController controller = loader.getController();
+            controller.setClient(client);
+            controller.setMainContentArea(mainContentArea);
+
+            mainContentArea.getChildren().clear();
+            mainContentArea.getChildren().add(root);
+        } catch (IOException e) {
+            e.printStackTrace();
+            statusLabel.setText("❌ Error navigating back.");
+        }
+    }
+}
@@ -3,7 +3,8 @@ package representativegui;
 import client.ClientManager;
 import client.ClientSession;
 import common.ClientRequest;
-import entities.User;
+import common.SubscriberSearchPage;
+import common.SubscriberSummary;
 
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
@@ -13,7 +14,6 @@ import javafx.scene.control.cell.PropertyValueFactory;
 
 import java.io.IOException;
 import java.sql.Timestamp;
-import java.util.List;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -24,8 +24,11 @@ import javafx.stage.Modality;
 /**
  * JavaFX controller for managing subscribers.
  * <p>
- * Displays all subscribers in a table, supports refreshing the list, opening a dialog
+ * Displays subscribers in a table, supports refreshing the list, opening a dialog
  * to add a subscriber, and deactivating a selected subscriber.
+ * The table is filled page by page from the server-side subscriber search
+ * ({@link ClientRequest#CMD_SEARCH_SUBSCRIBERS}); every keystroke in the search field asks for the
+ * first page of the new query, and "Load more" appends the next one.
  * Uses {@link ClientSession#activeHandler} to receive and process server messages.
  */
 public class ManageSubscribersController {
@@ -37,47 +40,71 @@ public class ManageSubscribersController {
     /**
      * Table view displaying the list of subscribers.
      */
-    @FXML private TableView<User> subscribersTable;
+    @FXML private TableView<SubscriberSummary> subscribersTable;
 
     /**
      * Column displaying the subscriber user ID.
      */
-    @FXML private TableColumn<User, Integer> colId;
+    @FXML private TableColumn<SubscriberSummary, Integer> colId;
 
     /**
      * Column displaying the subscriber name.
      */
-    @FXML private TableColumn<User, String> colName;
+    @FXML private TableColumn<SubscriberSummary, String> colName;
 
     /**
      * Column displaying the subscriber email.
      */
-    @FXML private TableColumn<User, String> colEmail;
+    @FXML private TableColumn<SubscriberSummary, String> colEmail;
 
     /**
      * Column displaying the subscriber phone.
      */
-    @FXML private TableColumn<User, String> colPhone;
+    @FXML private TableColumn<SubscriberSummary, String> colPhone;
 
     /**
      * Column indicating whether the subscriber is active.
      */
-    @FXML private TableColumn<User, Boolean> colActive;
+    @FXML private TableColumn<SubscriberSummary, Boolean> colActive;
 
     /**
      * Column displaying the subscriber creation timestamp.
      */
-    @FXML private TableColumn<User, Timestamp> colCreatedAt;
+    @FXML private TableColumn<SubscriberSummary, Timestamp> colCreatedAt;
 
     /**
      * Column displaying the subscriber number.
      */
-    @FXML private TableColumn<User, String> colSubNumber;
+    @FXML private TableColumn<SubscriberSummary, String> colSubNumber;
 
     /**
      * Column displaying the digital card identifier/value.
      */
-    @FXML private TableColumn<User, String> colDigitalCard;
+    @FXML private TableColumn<SubscriberSummary, String> colDigitalCard;
+
+    // =========================
+    // SEARCH
+    // =========================
+
+    /**
+     * Search text (name, email, phone or subscriber number prefixes).
+     */
+    @FXML private TextField searchField;
+
+    /**
+     * Appends the next page of the current search.
+     */
+    @FXML private Button loadMoreButton;
+
+    /**
+     * Rows requested per page.
+     */
+    private static final int PAGE_SIZE = 100;
+
+    /**
+     * Query whose results are shown; replies to older queries are ignored.
+     */
+    private String currentQuery = "";
 
     // =========================
     // FORM
@@ -95,8 +122,8 @@ public class ManageSubscribersController {
     /**
      * JavaFX initialization hook.
      * <p>
-     * Installs the server message handler, binds table columns to {@link User} properties,
-     * and triggers loading the initial list of subscribers.
+     * Installs the server message handler, binds table columns to {@link SubscriberSummary} properties,
+     * wires the search field, and triggers loading the first page of subscribers.
      */
     @FXML
     private void initialize() {
@@ -112,6 +139,11 @@ public class ManageSubscribersController {
         colActive.setCellValueFactory(new PropertyValueFactory<>("active"));
         colCreatedAt.setCellValueFactory(new PropertyValueFactory<>("createdAt"));
 
+        searchField.textProperty().addListener((obs, oldText, newText) -> {
+            currentQuery = (newText == null) ? "" : newText.trim();
+            requestPage(0);
+        });
+
         loadSubscribers();
     }
 
@@ -124,7 +156,7 @@ public class ManageSubscribersController {
      * <p>
      * Supports:
      * <ul>
-     *   <li>A {@link List} of {@link User} objects representing subscribers</li>
+     *   <li>A {@link SubscriberSearchPage} with one page of subscribers</li>
      *   <li>A {@link String} message for general feedback</li>
      * </ul>
      *
@@ -132,15 +164,19 @@ public class ManageSubscribersController {
      */
     private void handleServerMessage(Object msg) {
 
-        // ✅ רשימת מנויים
-        if (msg instanceof List<?> list && (list.isEmpty() || list.get(0) instanceof User)) {
-
-            @SuppressWarnings("unchecked")
-            List<User> users = (List<User>) list;
+        // ✅ עמוד תוצאות חיפוש
+        if (msg instanceof SubscriberSearchPage page) {
 
             Platform.runLater(() -> {
-                subscribersTable.setItems(FXCollections.observableArrayList(users));
-                msgLabel.setText("Loaded " + users.size() + " subscribers.");
+                if (!page.getQuery().trim().equals(currentQuery)) return; // reply to an older keystroke
+
+                if (page.getOffset() == 0) {
+                    subscribersTable.setItems(FXCollections.observableArrayList(page.getRows()));
+                } else {
+                    subscribersTable.getItems().addAll(page.getRows());
+                }
+                loadMoreButton.setDisable(!page.hasMore());
+                msgLabel.setText("Showing " + subscribersTable.getItems().size() + " of " + page.getTotal() + " subscribers.");
             });
             return;
         }
@@ -156,14 +192,23 @@ public class ManageSubscribersController {
     // =========================
 
     /**
-     * Requests the full list of subscribers from the server and updates the table on response.
-     * <p>
-     * Sends {@link ClientRequest#CMD_GET_ALL_SUBSCRIBERS} using the shared client.
+     * Reloads the first page of the current search.
      */
     private void loadSubscribers() {
+        requestPage(0);
+    }
+
+    /**
+     * Requests one page of the current search.
+     * <p>
+     * Sends {@link ClientRequest#CMD_SEARCH_SUBSCRIBERS} using the shared client.
+     *
+     * @param offset index of the first subscriber to return
+     */
+    private void requestPage(int offset) {
         try {
             ClientManager.getClient().sendToServer(
-                new ClientRequest(ClientRequest.CMD_GET_ALL_SUBSCRIBERS, new Object[0])
+                new ClientRequest(ClientRequest.CMD_SEARCH_SUBSCRIBERS, new Object[]{ currentQuery, offset, PAGE_SIZE })
             );
         } catch (IOException e) {
             e.printStackTrace();
@@ -182,6 +227,14 @@ public class ManageSubscribersController {
     private void refresh() {
         loadSubscribers();
     }
+
+    /**
+     * Appends the next page of the current search to the table.
+     */
+    @FXML
+    private void loadMore() {
+        requestPage(subscribersTable.getItems().size());
+    }
     
     /**
      * Opens a modal dialog for adding a new subscriber.
@@ -219,7 +272,7 @@ public class ManageSubscribersController {
     @FXML
     private void deactivateSubscriber() {
 
-        User selected = subscribersTable.getSelectionModel().getSelectedItem();
+        SubscriberSummary selected = subscribersTable.getSelectionModel().getSelectedItem();
         if (selected == null) {
             msgLabel.setText("❌ Select subscriber first");
             return;
@@ -0,0 +1,215 @@
+package representativegui;
+
+import client.ClientController;
+import client.ClientSession;
+import common.OccupancyReport;
+import javafx.application.Platform;
+import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.geometry.Pos;
+import javafx.scene.Parent;
+import javafx.scene.control.DatePicker;
+import javafx.scene.control.Label;
+import javafx.scene.control.Tooltip;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.StackPane;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * JavaFX controller for the seat utilization heatmap.
+ * <p>
+ * Requests an {@link OccupancyReport} for a date range and renders it as a grid: one column per
+ * weekday, one row per half hour in which the restaurant was open, each cell colored by its
+ * seat utilization (occupied seat-minutes / available seat-minutes). Uses
+ * {@link ClientSession#activeHandler} to process the asynchronous response.
+ */
+public class OccupancyHeatmapController {
+
+    private static final String[] DAY_NAMES = { "Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun" };
+
+    /**
+     * Connected client controller used to communicate with the server.
+     */
+    private ClientController client;
+
+    /**
+     * Main content container used for navigation back to the visual reports menu.
+     */
+    private StackPane mainContentArea;
+
+    /**
+     * First day of the report range.
+     */
+    @FXML private DatePicker fromPicker;
+
+    /**
+     * Last day of the report range.
+     */
+    @FXML private DatePicker toPicker;
+
+    /**
+     * Grid holding the heatmap cells.
+     */
+    @FXML private GridPane heatmapGrid;
+
+    /**
+     * Label used to display status messages and errors.
+     */
+    @FXML private Label statusLabel;
+
+    /**
+     * Sets the client instance for server communication.
+     *
+     * @param client the connected {@link ClientController}
+     */
+    public void setClient(ClientController client) {
+        this.client = client;
+    }
+
+    /**
+     * Sets the main content area to allow navigation back to the menu.
+     *
+     * @param area the container in which this view is displayed
+     */
+    public void setMainContentArea(StackPane area) {
+        this.mainContentArea = area;
+    }
+
+    /**
+     * JavaFX initialization hook.
+     * <p>
+     * Defaults the range to the last four weeks.
+     */
+    @FXML
+    public void initialize() {
+        LocalDate today = LocalDate.now();
+        toPicker.setValue(today);
+        fromPicker.setValue(today.minusWeeks(4).plusDays(1));
+    }
+
+    /**
+     * Loads the occupancy report for the selected range and redraws the heatmap.
+     */
+    @FXML
+    private void loadData() {
+        if (client == null) {
+            statusLabel.setText("❌ No server connection.");
+            return;
+        }
+
+        LocalDate from = fromPicker.getValue();
+        LocalDate to = toPicker.getValue();
+        if (from == null || to == null || to.isBefore(from)) {
+            statusLabel.setText("❌ Please choose a valid date range.");
+            return;
+        }
+
+        statusLabel.setText("Generating utilization for " + from + " .. " + to + "...");
+        heatmapGrid.getChildren().clear();
+
+        ClientSession.activeHandler = (msg) -> {
+            Platform.runLater(() -> {
+                if (msg instanceof OccupancyReport) {
+                    drawHeatmap((OccupancyReport) msg);
+                } else if (msg instanceof String && ((String) msg).startsWith("OCCUPANCY_FAIL")) {
+                    String[] parts = ((String) msg).split("\\|", 2);
+                    statusLabel.setText("❌ " + (parts.length > 1 ? parts[1] : "Failed to load report"));
+                } else {
+                    statusLabel.setText("❌ Error: Received unexpected data from server.");
+                }
+            });
+        };
+
+        client.requestOccupancyReport(from.toString(), to.toString());
+    }
+
+    /**
+     * Rebuilds the grid from the report. Rows where the restaurant was never open are skipped.
+     *
+     * @param report occupancy report from the server
+     */
+    private void drawHeatmap(OccupancyReport report) {
+        heatmapGrid.getChildren().clear();
+
+        for (int d = 0; d < OccupancyReport.DAYS; d++) {
+            heatmapGrid.add(headerCell(DAY_NAMES[d]), d + 1, 0);
+        }
+
+        int row = 1;
+        for (int b = 0; b < OccupancyReport.BUCKETS; b++) {
+            boolean open = false;
+            for (int d = 0; d < OccupancyReport.DAYS && !open; d++) {
+                open = report.getAvailable(d, b) > 0;
+            }
+            if (!open) continue;
+
+            int minutes = b * OccupancyReport.BUCKET_MINUTES;
+            heatmapGrid.add(headerCell(String.format("%02d:%02d", minutes / 60, minutes % 60)), 0, row);
+
+            for (int d = 0; d < OccupancyReport.DAYS; d++) {
+                heatmapGrid.add(valueCell(report, d, b), d + 1, row);
+            }
+            row++;
+        }
+
+        statusLabel.setText(row == 1
+                ? "No opening hours in this range."
+                : "✅ Loaded (" + report.getTotalSeats() + " seats, " + report.getFrom() + " .. " + report.getTo() + ")");
+    }
+
+    private Label headerCell(String text) {
+        Label l = new Label(text);
+        l.setMinWidth(60);
+        l.setAlignment(Pos.CENTER);
+        l.setStyle("-fx-font-weight: bold;");
+        return l;
+    }
+
+    /**
+     * Creates one heatmap cell: white (empty) to peach to red (full); gray when closed.
+     */
+    private Label valueCell(OccupancyReport report, int day, int bucket) {
+        double u = report.getUtilization(day, bucket);
+
+        Label l = new Label(u < 0 ? "" : Math.round(u * 100) + "%");
+        l.setMinWidth(60);
+        l.setMinHeight(22);
+        l.setAlignment(Pos.CENTER);
+
+        if (u < 0) {
+            l.setStyle("-fx-background-color: #EEEEEE;");
+        } else {
+            double t = Math.min(1.0, u);
+            int g = (int) Math.round(255 - t * (255 - 80));
+            int b = (int) Math.round(255 - t * (255 - 60));
+            l.setStyle(String.format("-fx-background-color: rgb(255,%d,%d);", g, b));
+            l.setTooltip(new Tooltip(report.getOccupied(day, bucket) + " / " + report.getAvailable(day, bucket) + " seat-minutes"));
+        }
+        return l;
+    }
+
+    /**
+     * Navigates back to the visual reports menu view.
+     */
+    @FXML
+    private void handleBack() {
+        if (mainContentArea == null) return;
+
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/representativegui/VisualReportsMenu.fxml"));
+            Parent root = loader.load();
+
+            VisualReportsMenuController controller = loader.getController();
+            controller.setClient(client);
+            controller.setMainContentArea(mainContentArea);
+
+            mainContentArea.getChildren().clear();
+            mainContentArea.getChildren().add(root);
+        } catch (IOException e) {
+            e.printStackTrace();
+            statusLabel.setText("❌ Error navigating back.");
+        }
+    }
+}
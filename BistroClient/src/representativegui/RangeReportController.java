@@ -0,0 +1,191 @@
+package representativegui;
+
+import client.ClientController;
+import client.ClientSession;
+import javafx.application.Platform;
+import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.control.DatePicker;
+import javafx.scene.control.Label;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.StackPane;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JavaFX controller for the date range summary.
+ * <p>
+ * Requests the aggregated analytics of any inclusive date range (served from the daily rollups)
+ * and lists them as label / value rows. Uses {@link ClientSession#activeHandler} to process the
+ * asynchronous response.
+ */
+public class RangeReportController {
+
+    /**
+     * Display label of each metric, in display order (keys of the server's range report).
+     */
+    private static final Map<String, String> LABELS = new LinkedHashMap<>();
+    static {
+        LABELS.put("Days", "Days with data");
+        LABELS.put("Covers", "Covers (diners)");
+        LABELS.put("Reservations", "Reservations");
+        LABELS.put("Active", "Active");
+        LABELS.put("CheckedIn", "Checked in");
+        LABELS.put("Completed", "Completed");
+        LABELS.put("Canceled", "Canceled");
+        LABELS.put("AvgDelayMinutes", "Avg. delay (min)");
+        LABELS.put("AvgDiningMinutes", "Avg. dining time (min)");
+        LABELS.put("WaitingJoins", "Waiting list joins");
+        LABELS.put("Bills", "Bills");
+        LABELS.put("Revenue", "Revenue (₪)");
+    }
+
+    /**
+     * Connected client controller used to communicate with the server.
+     */
+    private ClientController client;
+
+    /**
+     * Main content container used for navigation back to the visual reports menu.
+     */
+    private StackPane mainContentArea;
+
+    /**
+     * First day of the report range.
+     */
+    @FXML private DatePicker fromPicker;
+
+    /**
+     * Last day of the report range.
+     */
+    @FXML private DatePicker toPicker;
+
+    /**
+     * Grid holding the metric rows.
+     */
+    @FXML private GridPane metricsGrid;
+
+    /**
+     * Label used to display status messages and errors.
+     */
+    @FXML private Label statusLabel;
+
+    /**
+     * Sets the client instance for server communication.
+     *
+     * @param client the connected {@link ClientController}
+     */
+    public void setClient(ClientController client) {
+        this.client = client;
+    }
+
+    /**
+     * Sets the main content area to allow navigation back to the menu.
+     *
+     * @param area the container in which this view is displayed
+     */
+    public void setMainContentArea(StackPane area) {
+        this.mainContentArea = area;
+    }
+
+    /**
+     * JavaFX initialization hook.
+     * <p>
+     * Defaults the range to the current month so far.
+     */
+    @FXML
+    public void initialize() {
+        LocalDate today = LocalDate.now();
+        toPicker.setValue(today);
+        fromPicker.setValue(today.withDayOfMonth(1));
+    }
+
+    /**
+     * Loads the summary for the selected range.
+     */
+    @FXML
+    private void loadData() {
+        if (client == null) {
+            statusLabel.setText("❌ No server connection.");
+            return;
+        }
+
+        LocalDate from = fromPicker.getValue();
+        LocalDate to = toPicker.getValue();
+        if (from == null || to == null || to.isBefore(from)) {
+            statusLabel.setText("❌ Please choose a valid date range.");
+            return;
+        }
+
+        statusLabel.setText("Loading summary for " + from + " .. " + to + "...");
+        metricsGrid.getChildren().clear();
+
+        ClientSession.activeHandler = (msg) -> {
+            Platform.runLater(() -> {
+                if (msg instanceof Map) {
+                    showMetrics((Map<?, ?>) msg);
+                    statusLabel.setText("✅ Loaded (" + from + " .. " + to + ")");
+                } else if (msg instanceof String) {
+                    statusLabel.setText((String) msg);
+                } else {
+                    statusLabel.setText("❌ Error: Received unexpected data from server.");
+                }
+            });
+        };
+
+        client.requestRangeReport(from.toString(), to.toString());
+    }
+
+    /**
+     * Rebuilds the metric rows from the report.
+     *
+     * @param data metric name to value
+     */
+    private void showMetrics(Map<?, ?> data) {
+        metricsGrid.getChildren().clear();
+
+        int row = 0;
+        for (Map.Entry<String, String> e : LABELS.entrySet()) {
+            Object value = data.get(e.getKey());
+            if (!(value instanceof Number)) continue;
+
+            double v = ((Number) value).doubleValue();
+            String text = e.getKey().startsWith("Avg") || e.getKey().equals("Revenue")
+                    ? String.format("%.2f", v)
+                    : String.valueOf(Math.round(v));
+
+            Label name = new Label(e.getValue());
+            name.setStyle("-fx-font-weight: bold;");
+            metricsGrid.add(name, 0, row);
+            metricsGrid.add(new Label(text), 1, row);
+            row++;
+        }
+    }
+
+    /**
+     * Navigates back to the visual reports menu view.
+     */
+    @FXML
+    private void handleBack() {
+        if (mainContentArea == null) return;
+
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/representativegui/VisualReportsMenu.fxml"));
+            Parent root = loader.load();
+
+            VisualReportsMenuController controller = loader.getController();
+            controller.setClient(client);
+            controller.setMainContentArea(mainContentArea);
+
+            mainContentArea.getChildren().clear();
+            mainContentArea.getChildren().add(root);
+        } catch (IOException e) {
+            e.printStackTrace();
+            statusLabel.setText("❌ Error navigating back.");
+        }
+    }
+}
@@ -104,4 +104,104 @@ public class VisualReportsMenuController {
             System.err.println("Failed to load SubscriberReportView.fxml");
         }
     }
+
+    /**
+     * Loads and displays the yearly trend view (12 months of one report in a single request).
+     * <p>
+     * Injects the connected {@link ClientController} and main content area reference into the
+     * loaded {@link YearTrendReportController}.
+     */
+    @FXML
+    private void showYearTrendReport() {
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/representativegui/YearTrendReportView.fxml"));
+            Parent root = loader.load();
+
+            YearTrendReportController controller = loader.getController();
+            controller.setClient(this.client);
+            controller.setMainContentArea(this.mainContentArea);
+
+            mainContentArea.getChildren().clear();
+            mainContentArea.getChildren().add(root);
+
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Failed to load YearTrendReportView.fxml");
+        }
+    }
+
+    /**
+     * Loads and displays the seat utilization heatmap (30-minute buckets per weekday).
+     * <p>
+     * Injects the connected {@link ClientController} and main content area reference into the
+     * loaded {@link OccupancyHeatmapController}.
+     */
+    @FXML
+    private void showOccupancyReport() {
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/representativegui/OccupancyHeatmapView.fxml"));
+            Parent root = loader.load();
+
+            OccupancyHeatmapController controller = loader.getController();
+            controller.setClient(this.client);
+            controller.setMainContentArea(this.mainContentArea);
+
+            mainContentArea.getChildren().clear();
+            mainContentArea.getChildren().add(root);
+
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Failed to load OccupancyHeatmapView.fxml");
+        }
+    }
+
+    /**
+     * Loads and displays the date range summary (aggregated from the daily rollups).
+     * <p>
+     * Injects the connected {@link ClientController} and main content area reference into the
+     * loaded {@link RangeReportController}.
+     */
+    @FXML
+    private void showRangeReport() {
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/representativegui/RangeReportView.fxml"));
+            Parent root = loader.load();
+
+            RangeReportController controller = loader.getController();
+            controller.setClient(this.client);
+            controller.setMainContentArea(this.mainContentArea);
+
+            mainContentArea.getChildren().clear();
+            mainContentArea.getChildren().add(root);
+
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Failed to load RangeReportView.fxml");
+        }
+    }
+
+    /**
+     * Loads and displays the data export view (reservations / bills as CSV or columnar files).
+     * <p>
+     * Injects the connected {@link ClientController} and main content area reference into the
+     * loaded {@link ExportDataController}.
+     */
+    @FXML
+    private void showDataExport() {
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/representativegui/ExportDataView.fxml"));
+            Parent root = loader.load();
+
+            ExportDataController controller = loader.getController();
+            controller.setClient(this.client);
+            controller.setMainContentArea(this.mainContentArea);
+
+            mainContentArea.getChildren().clear();
+            mainContentArea.getChildren().add(root);
+
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Failed to load ExportDataView.fxml");
+        }
+    }
 }
@@ -0,0 +1,220 @@
+package representativegui;
+
+import client.ClientController;
+import client.ClientSession;
+import common.ReportJobResult;
+import javafx.application.Platform;
+import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.layout.StackPane;
+
+import java.io.IOException;
+import java.time.Year;
+import java.util.Map;
+
+/**
+ * JavaFX controller for the yearly trend report.
+ * <p>
+ * Submits the monthly time or subscriber report for all 12 months of a selected year as one
+ * background report job, shows its progress, and plots every metric as one line of a
+ * {@link LineChart}. Uses {@link ClientSession#activeHandler} to process the job messages.
+ */
+public class YearTrendReportController {
+
+    private static final String TIME_LABEL = "Time Performance";
+    private static final String SUBSCRIBER_LABEL = "Subscribers";
+
+    /**
+     * Connected client controller used to communicate with the server.
+     */
+    private ClientController client;
+
+    /**
+     * Main content container used for navigation back to the visual reports menu.
+     */
+    private StackPane mainContentArea;
+
+    /**
+     * Combo box for selecting the report type (time performance or subscribers).
+     */
+    @FXML private ComboBox<String> typeCombo;
+
+    /**
+     * Combo box for selecting the report year (e.g., current and previous year).
+     */
+    @FXML private ComboBox<String> yearCombo;
+
+    /**
+     * Line chart with one series per report metric.
+     */
+    @FXML private LineChart<String, Number> lineChart;
+
+    /**
+     * Label used to display status messages and errors.
+     */
+    @FXML private Label statusLabel;
+
+    /**
+     * ID of the report job this screen is waiting for (null until the server accepts it).
+     */
+    private String currentJobId;
+
+    /**
+     * Sets the client instance for server communication.
+     *
+     * @param client the connected {@link ClientController}
+     */
+    public void setClient(ClientController client) {
+        this.client = client;
+    }
+
+    /**
+     * Sets the main content area to allow navigation back to the menu.
+     *
+     * @param area the container in which this view is displayed
+     */
+    public void setMainContentArea(StackPane area) {
+        this.mainContentArea = area;
+    }
+
+    /**
+     * JavaFX initialization hook.
+     * <p>
+     * Populates the report type and year selectors with defaults.
+     */
+    @FXML
+    public void initialize() {
+        typeCombo.getItems().addAll(TIME_LABEL, SUBSCRIBER_LABEL);
+        typeCombo.getSelectionModel().select(TIME_LABEL);
+
+        int currentYear = Year.now().getValue();
+        yearCombo.getItems().addAll(String.valueOf(currentYear - 1), String.valueOf(currentYear));
+        yearCombo.getSelectionModel().select(String.valueOf(currentYear));
+    }
+
+    /**
+     * Submits a job for the 12 months of the selected year and updates the line chart when it finishes.
+     * <p>
+     * Installs an active handler that follows the job messages and expects the result payload to be
+     * an ordered {@code Map<String, Map<String, Integer>>} keyed by {@code yyyy-MM}.
+     */
+    @FXML
+    private void loadData() {
+        if (client == null) {
+            statusLabel.setText("❌ No server connection.");
+            return;
+        }
+
+        String y = yearCombo.getValue();
+        String type = SUBSCRIBER_LABEL.equals(typeCombo.getValue()) ? "SUBSCRIBER" : "TIME";
+
+        statusLabel.setText("Generating " + y + " trend...");
+        lineChart.getData().clear();
+        currentJobId = null;
+
+        ClientSession.activeHandler = (msg) -> {
+            Platform.runLater(() -> handleJobMessage(type, msg));
+        };
+
+        client.submitReportJob("TREND", type, y + "-01", y + "-12");
+    }
+
+    /**
+     * Follows the report job: remembers its ID, shows progress, and renders the final result.
+     * Messages of other jobs are ignored.
+     *
+     * @param type report type that was requested
+     * @param msg  message from the server
+     */
+    private void handleJobMessage(String type, Object msg) {
+        if (msg instanceof ReportJobResult) {
+            ReportJobResult res = (ReportJobResult) msg;
+            if (!res.getJobId().equals(currentJobId)) return;
+
+            if (res.getResult() instanceof Map) {
+                @SuppressWarnings("unchecked")
+                Map<String, Map<String, Integer>> months = (Map<String, Map<String, Integer>>) res.getResult();
+                updateChart(type, months);
+                statusLabel.setText("✅ Trend Loaded");
+            } else {
+                statusLabel.setText("❌ Error: Received unexpected data from server.");
+            }
+            return;
+        }
+
+        if (!(msg instanceof String)) return;
+        String[] parts = ((String) msg).split("\\|");
+
+        switch (parts[0]) {
+            case "REPORT_JOB_ACCEPTED":
+                currentJobId = parts[1];
+                break;
+            case "REPORT_JOB_PROGRESS":
+                if (parts[1].equals(currentJobId)) {
+                    statusLabel.setText("Generating... " + parts[2] + "/" + parts[3] + " months");
+                }
+                break;
+            case "REPORT_JOB_FAILED":
+                if (currentJobId == null || parts[1].isEmpty() || parts[1].equals(currentJobId)) {
+                    statusLabel.setText("❌ " + (parts.length > 2 ? parts[2] : "Failed to load trend"));
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Rebuilds the chart: one series per metric, one point per month.
+     *
+     * @param type   {@code "TIME"} or {@code "SUBSCRIBER"}
+     * @param months ordered map {@code yyyy-MM} -> metric name -> count
+     */
+    private void updateChart(String type, Map<String, Map<String, Integer>> months) {
+        lineChart.getData().clear();
+
+        String[] keys = "SUBSCRIBER".equals(type)
+                ? new String[] { "Orders", "WaitingList" }
+                : new String[] { "Normal", "Delayed", "Extended" };
+
+        for (String key : keys) {
+            XYChart.Series<String, Number> series = new XYChart.Series<>();
+            series.setName(key);
+
+            for (Map.Entry<String, Map<String, Integer>> month : months.entrySet()) {
+                // "2026-03" -> "03"
+                String label = month.getKey().substring(month.getKey().length() - 2);
+                series.getData().add(new XYChart.Data<>(label, month.getValue().getOrDefault(key, 0)));
+            }
+            lineChart.getData().add(series);
+        }
+    }
+
+    /**
+     * Navigates back to the visual reports menu view.
+     */
+    @FXML
+    private void handleBack() {
+        if (mainContentArea == null) return;
+
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/representativegui/VisualReportsMenu.fxml"));
+            Parent root = loader.load();
+
+            VisualReportsMenuController controller = loader.getController();
+            controller.setClient(client);
+            controller.setMainContentArea(mainContentArea);
+
+            mainContentArea.getChildren().clear();
+            mainContentArea.getChildren().add(root);
+        } catch (IOException e) {
+            e.printStackTrace();
+            statusLabel.setText("❌ Error navigating back.");
+        }
+    }
+}
@@ -7,9 +7,11 @@ import client.ClientController;
 import client.ClientSession;
 import common.ReservationHistoryRow;
 import common.SubscriberHistoryResponse;
+import common.SubscriberStats;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
@@ -20,8 +22,8 @@ import javafx.scene.control.cell.PropertyValueFactory;
  * JavaFX controller for displaying a subscriber's reservation history.
  * <p>
  * Loads history data from the server (as a {@link SubscriberHistoryResponse}) and presents it
- * in a {@link TableView} of {@link ReservationHistoryRow}. Also displays summary values such
- * as total reservations and visits count.
+ * in a {@link TableView} of {@link ReservationHistoryRow}, one page at a time (newest first).
+ * Also displays the subscriber's lifetime counters: visits, no-shows, last visit and total spend.
  */
 public class HistoryController {
 
@@ -76,10 +78,40 @@ public class HistoryController {
     @FXML private Label visitsLabel;
 
     /**
-     * Label displaying the total number of reservations in the history list.
+     * Label displaying the number of reservations loaded so far.
      */
     @FXML private Label totalReservationsLabel;
 
+    /**
+     * Label displaying the number of no-shows.
+     */
+    @FXML private Label noShowsLabel;
+
+    /**
+     * Label displaying the date of the last visit.
+     */
+    @FXML private Label lastVisitLabel;
+
+    /**
+     * Label displaying the total amount paid.
+     */
+    @FXML private Label spendLabel;
+
+    /**
+     * Appends the next (older) page of the history.
+     */
+    @FXML private Button loadMoreButton;
+
+    /**
+     * Rows requested per page.
+     */
+    private static final int PAGE_SIZE = 50;
+
+    /**
+     * Last page received (holds the cursor of the next one).
+     */
+    private SubscriberHistoryResponse lastPage;
+
     /**
      * Label used to show loading state and status messages.
      */
@@ -125,21 +157,43 @@ public class HistoryController {
     }
 
     /**
-     * Updates the UI with reservation history data received from the server.
+     * Updates the UI with a page of reservation history received from the server.
      * <p>
-     * Populates the table with reservations, updates summary labels, and sets a success status.
+     * The first page replaces the table, later pages are appended. Summary labels come from the
+     * subscriber's stats, which are sent with every page.
      *
-     * @param res the history response containing reservations and computed summary values
+     * @param res the history page with the subscriber's lifetime counters
      */
     public void onHistoryReceived(SubscriberHistoryResponse res) {
         // make sure UI update is on FX thread
         Platform.runLater(() -> {
-            historyTable.setItems(FXCollections.observableArrayList(res.getReservations()));
-            totalReservationsLabel.setText(String.valueOf(res.getReservations().size()));
-            visitsLabel.setText(String.valueOf(res.getVisitsCount()));
+            if (lastPage == null) historyTable.setItems(FXCollections.observableArrayList(res.getReservations()));
+            else historyTable.getItems().addAll(res.getReservations());
+            lastPage = res;
+
+            SubscriberStats stats = res.getStats();
+            int loaded = historyTable.getItems().size();
+            totalReservationsLabel.setText(loaded + (res.hasMore() ? "+" : ""));
+            visitsLabel.setText(String.valueOf(stats.getVisits()));
+            noShowsLabel.setText(String.valueOf(stats.getNoShows()));
+            lastVisitLabel.setText(stats.getLastVisit() == null ? "-"
+                    : DateTimeFormatter.ofPattern("dd/MM/yyyy").format(stats.getLastVisit()));
+            spendLabel.setText(String.format("%.2f₪", stats.getLifetimeSpend()));
+            loadMoreButton.setDisable(!res.hasMore());
             statusLabel.setText("✅ Loaded.");
         });
     }
+
+    /**
+     * Requests the page of history older than the last row shown.
+     */
+    @FXML
+    private void loadMore() {
+        if (client == null || lastPage == null || !lastPage.hasMore()) return;
+        loadMoreButton.setDisable(true);
+        statusLabel.setText("Loading history...");
+        client.requestSubscriberHistory(subscriberId, lastPage.getNextBeforeStart(), lastPage.getNextBeforeId(), PAGE_SIZE);
+    }
     
     /**
      * Initializes this controller with the connected client and subscriber context and triggers loading history.
@@ -153,6 +207,7 @@ public class HistoryController {
     public void init(ClientController client, int subscriberId) {
         this.client = client;
         this.subscriberId = subscriberId;
+        this.lastPage = null;
 
         // ✅ Register handler for THIS screen
         ClientSession.activeHandler = (msg) -> {
@@ -162,6 +217,7 @@ public class HistoryController {
         };
 
         statusLabel.setText("Loading history...");
-        client.requestSubscriberHistory(subscriberId);
+        loadMoreButton.setDisable(true);
+        client.requestSubscriberHistory(subscriberId, null, 0, PAGE_SIZE);
     }
 }
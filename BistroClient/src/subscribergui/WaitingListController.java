@@ -2,6 +2,7 @@ package subscribergui;
 
 import client.ClientController;
 import client.ClientSession;
+import client.WaitingListMessages;
 import common.ClientRequest;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -110,11 +111,13 @@ public class WaitingListController
                 // ✅ 4) JOIN OK
                 if (s.startsWith("WAITING_JOIN_OK|"))
                 {
-                    String code = extractAfterPipe(s);
+                    // expected: WAITING_JOIN_OK|code|position|etaMinutes
+                    String[] parts = s.split("\\|", -1);
+                    String code = (parts.length > 1) ? parts[1].trim() : "";
 
                     if (isValidWaitingCode(code))
                     {
-                        lblStatus.setText("Successfully added to waiting list. Code: " + code);
+                        lblStatus.setText("Successfully added to waiting list. Code: " + code + WaitingListMessages.formatQueueInfo(parts));
                     }
                     else
                     {
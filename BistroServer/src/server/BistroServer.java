@@ -1,7 +1,12 @@
 package server;
 
 import java.io.IOException;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -11,12 +16,15 @@ import java.util.concurrent.TimeUnit;
 
 import common.ClientRequest;
 import common.LoginRequest;
-import common.ReservationHistoryRow;
+import common.ExportChunk;
+import common.ReportJobResult;
 import common.SubscriberHistoryResponse;
+import common.SubscriberSummary;
 import entities.Table;
 import entities.User;
 import ocsf.server.AbstractServer;
 import ocsf.server.ConnectionToClient;
+import server.dao.ExportDAO;
 import server.dao.MySQLUserDAO;
 import server.dao.ReservationDAO;
 import server.dao.TableDAO;
@@ -80,6 +88,16 @@ public class BistroServer extends AbstractServer {
      */
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
 
+    /**
+     * Optional leader election so only one server node runs the periodic jobs.
+     */
+    private final SchedulerLeaderLock leaderLock = new SchedulerLeaderLock();
+
+    /**
+     * Whether this node holds the invite expiry timers (only the leader does).
+     */
+    private volatile boolean inviteTimersArmed = false;
+
     // For now: prints "sent" to server console (you can swap later to real Email/SMS)
     /**
      * Notification service used to send emails/SMS (reservation reminders, waiting list invites, etc.).
@@ -102,14 +120,93 @@ public class BistroServer extends AbstractServer {
     public BistroServer(int port, ServerMainController guiController) {
         super(port);
         this.guiController = guiController;
+
+        // Bring the DB schema up to date (versioned migrations, applied once per database)
+        int migrations = new SchemaMigrator().migrate();
+        if (migrations > 0) System.out.println("🛠️ Schema migrations applied: " + migrations);
+
+        // Contact keys (lower-case email, E.164 phone) for rows written before the key columns existed
+        int keyed = db.backfillContactKeys();
+        if (keyed > 0) System.out.println("📇 Contact keys backfilled: " + keyed + " rows");
+
+        // Load the WAITING queue into memory (joins/leaves/invites keep it up to date afterwards)
+        if (db.rebuildWaitingQueueIndex()) {
+            System.out.println("📋 Waiting queue loaded: " + WaitingQueueIndex.getInstance().size() + " parties");
+        }
+
+        // Card-reader logins: index every active subscriber card (swipes then skip the DB; reloaded with the search resync)
+        try {
+            System.out.println("💳 Card login index loaded: " + new MySQLUserDAO().warmCardIndex() + " cards");
+        } catch (Exception e) {
+            e.printStackTrace(); // card logins fall back to the DB
+        }
+
+        // Subscriber search for representatives: prefix index over name / email / phone / number
+        try {
+            System.out.println("🔎 Subscriber search index loaded: " + new MySQLUserDAO().warmSearchIndex() + " subscribers");
+        } catch (Exception e) {
+            e.printStackTrace(); // searches return nothing until the next resync
+        }
+
+        // Session resumption: active users and their roles (a resume is refused for anyone else)
+        try {
+            System.out.println("🔑 Session role snapshot loaded: " + new MySQLUserDAO().warmSessionRoles() + " active users");
+        } catch (Exception e) {
+            e.printStackTrace(); // resumes are refused until the next resync (clients sign in again)
+        }
+
+        // Confirmation code Bloom filter: unknown codes are rejected without a DB lookup
+        ConfirmationCodeFilter.getInstance().maintain();
+
+        // Kiosk check-in: index today's confirmation codes (check-in, bill preview and payment skip the lookup)
+        int kioskCodes = db.refreshKioskIndex();
+        if (kioskCodes >= 0) System.out.println("🎫 Kiosk code index loaded: " + kioskCodes + " codes");
+
+        // Monthly report rows: recompute the current month and backfill months with no stored row
+        int months = db.refreshMonthlyReports();
+        if (months > 0) System.out.println("📊 Monthly reports refreshed: " + months + " month(s)");
+
+        // Waiting-list invite expiry: release the held table as soon as the 15 min window ends,
+        // then immediately invite the next party that fits. Invites are a leader job, so the
+        // timers are armed only on the leader (and re-armed by whichever node takes over).
+        InviteExpiryTimer.getInstance().setExpiryHandler(code -> {
+            if (!leaderLock.isLeader()) return;
+            if (!db.expireWaitingInvite(code, notifier)) return;
+
+            int invited = db.processWaitingListInvites(notifier);
+            if (invited > 0) System.out.println("📨 Waiting list invites sent after expiry: " + invited);
+        });
+        syncInviteTimers(leaderLock.isLeader());
  
         // Periodic background tasks:
+        // - Kiosk code index refresh + confirmation code filter top-up / rebuild (every node)
+        // - Subscriber search index + session role snapshot resync every 10 minutes (every node)
         // - Reservation reminders
         // - Waiting list invites
         // - Auto-cancel no-shows
         // - Auto-complete + billing for finished reservations
+        // - Daily analytics rollup (from the watermark up to today)
         scheduler.scheduleAtFixedRate(() -> {
             try {
+                // Every node serves kiosk check-ins, so every node refreshes its own index.
+                db.refreshKioskIndex();
+                ConfirmationCodeFilter.getInstance().maintain();
+                if (SubscriberSearchIndex.getInstance().needsResync()) {
+                    try {
+                        MySQLUserDAO userDAO = new MySQLUserDAO();
+                        userDAO.warmSearchIndex();
+                        userDAO.warmSessionRoles();
+                        userDAO.warmCardIndex();
+                    } catch (Exception e) {
+                        e.printStackTrace(); // keep serving the old snapshot
+                    }
+                }
+
+                // When leader election is enabled, only the leader node runs the jobs.
+                boolean leader = leaderLock.isLeader();
+                syncInviteTimers(leader);
+                if (!leader) return;
+
                 int reminders = db.sendReservationReminders(notifier);
                 if (reminders > 0) System.out.println("🔔 Reservation reminders sent: " + reminders);
 
@@ -122,6 +219,11 @@ public class BistroServer extends AbstractServer {
                 int autoFinished = db.autoCompleteFinishedReservations(notifier);
                 if (autoFinished > 0) System.out.println("💰 Auto-completed & billed reservations: " + autoFinished);
 
+                db.runDailyRollupJob();
+
+                int archived = db.runArchivalJob();
+                if (archived > 0) System.out.println("🗄️ Archived finished reservations: " + archived);
+
             } catch (Exception e) {
                 e.printStackTrace();
             }
@@ -131,6 +233,23 @@ public class BistroServer extends AbstractServer {
       
     }
 
+    /**
+     * Arms the invite expiry timers when this node becomes the scheduler leader, and drops them when
+     * it stops being the leader (the new leader re-arms them from {@code waiting_list}).
+     *
+     * @param leader whether this node is the leader right now
+     */
+    private void syncInviteTimers(boolean leader) {
+        if (leader && !inviteTimersArmed) {
+            inviteTimersArmed = true;
+            int rearmed = db.rearmInviteTimers();
+            if (rearmed > 0) System.out.println("⏱️ Invite expiry timers re-armed: " + rearmed);
+        } else if (!leader && inviteTimersArmed) {
+            inviteTimersArmed = false;
+            InviteExpiryTimer.getInstance().cancelAll();
+        }
+    }
+
     /**
      * Main message dispatcher from clients.
      * <p>
@@ -179,6 +298,8 @@ public class BistroServer extends AbstractServer {
                                     + "|" + user.getId()
                                     + "|" + safeEmail
                                     + "|" + safePhone
+                                    + "|" + SessionTokens.getInstance().issue(user.getRole().toString(),
+                                            user.getName(), user.getId(), safeEmail, safePhone)
                     );
                 }
 
@@ -222,6 +343,8 @@ public class BistroServer extends AbstractServer {
                                     + "|" + user.getId()
                                     + "|" + safeEmail
                                     + "|" + safePhone
+                                    + "|" + SessionTokens.getInstance().issue(user.getRole().toString(),
+                                            user.getName(), user.getId(), safeEmail, safePhone)
                     );
                 }
             } catch (Exception e) {
@@ -242,7 +365,34 @@ public class BistroServer extends AbstractServer {
                 Object[] params = request.getParams();
 
                 switch (command) {
-                	
+
+                    case ClientRequest.CMD_RESUME_SESSION: {
+                        // params: [token] -> signature + active-role snapshot check, no DB (reconnect after a network drop)
+                        String token = (params != null && params.length > 0 && params[0] != null)
+                                ? params[0].toString() : null;
+                        SessionTokens.Session s = SessionTokens.getInstance().verify(token);
+
+                        if (s == null) {
+                            client.sendToClient("RESUME_FAIL|Session expired. Please sign in again.");
+                            break;
+                        }
+
+                        clientInfoMap.put(client, new String[] {
+                                s.role(), s.name(), String.valueOf(s.userId())
+                        });
+
+                        client.sendToClient(
+                                "RESUME_OK|" + s.role() + "|" + s.name()
+                                        + "|" + s.userId()
+                                        + "|" + s.email()
+                                        + "|" + s.phone()
+                                        + "|" + SessionTokens.getInstance().reissue(s)
+                        );
+                        System.out.println("🔑 Session resumed for user " + s.userId() + " "
+                                + SessionTokens.getInstance().summary());
+                        break;
+                    }
+
                 case ClientRequest.CMD_GET_SUBSCRIBER_CODES: {
                     Object[] data = (Object[]) request.getParams(); // or getParameters()
 
@@ -385,15 +535,13 @@ public class BistroServer extends AbstractServer {
                     case ClientRequest.CMD_GET_SUBSCRIBER_HISTORY: {
                         int subscriberId = (int) request.getParams()[0];
 
-                        // Pull history + visits count, wrap in a DTO response object.
-                        List<ReservationHistoryRow> reservations =
-                                db.getSubscriberReservationHistory(subscriberId);
-
-                        int visits =
-                                db.countSubscriberVisits(subscriberId);
+                        // params: [subscriberId, beforeStart?, beforeId?, limit?] -> one keyset page + stats row
+                        LocalDateTime beforeStart = (params.length >= 2 && params[1] instanceof LocalDateTime t) ? t : null;
+                        int beforeId = (params.length >= 3 && params[2] != null) ? Integer.parseInt(params[2].toString()) : 0;
+                        int limit = (params.length >= 4 && params[3] != null) ? Integer.parseInt(params[3].toString()) : 50;
 
                         SubscriberHistoryResponse response =
-                                new SubscriberHistoryResponse(reservations, visits);
+                                db.getSubscriberHistory(subscriberId, beforeStart, beforeId, limit);
 
                         client.sendToClient(response);
                         break;
@@ -417,7 +565,11 @@ public class BistroServer extends AbstractServer {
                         String code = db.joinWaitingListAsGuest(diners, phone, email);
 
                         if ("CLOSED".equals(code)) client.sendToClient("WAITING_CLOSED");
-                        else if (code != null && !code.isBlank()) client.sendToClient("WAITING_GUEST_JOIN_OK|" + code);
+                        else if (code != null && !code.isBlank()) {
+                            // WAITING_GUEST_JOIN_OK|code|position|etaMinutes (eta -1 = not enough data yet)
+                            int position = db.getWaitingPosition(code);
+                            client.sendToClient("WAITING_GUEST_JOIN_OK|" + code + "|" + position + "|" + db.estimateWaitMinutes(diners, position));
+                        }
                         else client.sendToClient("WAITING_GUEST_JOIN_FAIL|DB error");
 
                         break;
@@ -442,7 +594,11 @@ public class BistroServer extends AbstractServer {
                         String code = db.joinWaitingListAsSubscriber(subscriberId, diners, phone, email);
 
                         if ("CLOSED".equals(code)) client.sendToClient("WAITING_CLOSED");
-                        else if (code != null && !code.isBlank()) client.sendToClient("WAITING_JOIN_OK|" + code);
+                        else if (code != null && !code.isBlank()) {
+                            // WAITING_JOIN_OK|code|position|etaMinutes (eta -1 = not enough data yet)
+                            int position = db.getWaitingPosition(code);
+                            client.sendToClient("WAITING_JOIN_OK|" + code + "|" + position + "|" + db.estimateWaitMinutes(diners, position));
+                        }
                         else client.sendToClient("WAITING_JOIN_FAIL|DB error");
 
                         break;
@@ -571,7 +727,7 @@ public class BistroServer extends AbstractServer {
 
                         try {
                             MySQLUserDAO userDAO = new MySQLUserDAO();
-                            List<User> subscribers = userDAO.getAllSubscribers();
+                            List<SubscriberSummary> subscribers = userDAO.getAllSubscribers();
                             client.sendToClient(subscribers);
                         } catch (Exception e) {
                             e.printStackTrace();
@@ -580,6 +736,23 @@ public class BistroServer extends AbstractServer {
                         break;
                     }
 
+                    case ClientRequest.CMD_SEARCH_SUBSCRIBERS: {
+
+                        // 🔐 Authorization: REPRESENTATIVE only
+                        if (!isRepresentative(client)) {
+                            client.sendToClient("❌ Unauthorized: Representative only");
+                            break;
+                        }
+
+                        // params: [query, offset, limit] -> one page from the in-memory index, no DB access
+                        String query = (params.length >= 1 && params[0] != null) ? params[0].toString() : "";
+                        int offset = (params.length >= 2 && params[1] != null) ? Integer.parseInt(params[1].toString()) : 0;
+                        int limit = (params.length >= 3 && params[2] != null) ? Integer.parseInt(params[2].toString()) : 50;
+
+                        client.sendToClient(SubscriberSearchIndex.getInstance().search(query, offset, limit));
+                        break;
+                    }
+
                     case ClientRequest.CMD_CREATE_RESERVATION: {
                         String dateTime = params[0].toString();
                         int diners = Integer.parseInt(params[1].toString());
@@ -633,17 +806,59 @@ public class BistroServer extends AbstractServer {
                     }
                     
                     case ClientRequest.CMD_GET_MONTHLY_TIME_REPORT: {
-                        // 1. Parse parameters safely using toString() first, then parseInt
-                        int month = Integer.parseInt(params[0].toString());
-                        int year = Integer.parseInt(params[1].toString());
-
-                        // 2. Call the non-static method on your 'db' instance and send result
-                        client.sendToClient(
-                                db.generateMonthlyTimeReport(month, year)
-                        );
+                        // Runs on the report job executor; the raw Map is sent when it is ready.
+                        runPlainReport(client, parseReportSpec("TIME", params), "❌ Error processing command: ");
                         break;
                     }
                     
+                    case ClientRequest.CMD_GET_RANGE_REPORT: {
+                        // params: [fromDate, toDate] as yyyy-MM-dd (both inclusive)
+                        runPlainReport(client, parseReportSpec("RANGE", params), "❌ Error processing command: ");
+                        break;
+                    }
+
+                    case ClientRequest.CMD_GET_MONTHLY_REPORT_RANGE: {
+                        // params: [type, fromMonth, toMonth] with months as yyyy-MM (both inclusive)
+                        try {
+                            runPlainReport(client, parseReportSpec("TREND", params), "REPORT_RANGE_FAIL|");
+                        } catch (Exception e) {
+                            client.sendToClient("REPORT_RANGE_FAIL|" + e.getMessage());
+                        }
+                        break;
+                    }
+
+                    case ClientRequest.CMD_GET_OCCUPANCY_REPORT: {
+                        // params: [fromDate, toDate] as yyyy-MM-dd (both inclusive); answers an OccupancyReport
+                        try {
+                            runPlainReport(client, parseReportSpec("OCCUPANCY", params), "OCCUPANCY_FAIL|");
+                        } catch (Exception e) {
+                            client.sendToClient("OCCUPANCY_FAIL|" + e.getMessage());
+                        }
+                        break;
+                    }
+
+                    case ClientRequest.CMD_EXPORT_DATA: {
+                        // params: [dataset, format, fromDate|null, toDate|null]; answers STARTED, ExportChunk..., or FAILED
+                        try {
+                            runExport(client, params);
+                        } catch (Exception e) {
+                            client.sendToClient("EXPORT_FAILED||" + e.getMessage());
+                        }
+                        break;
+                    }
+
+                    case ClientRequest.CMD_SUBMIT_REPORT_JOB: {
+                        // params: [kind, ...report params]; answers ACCEPTED, PROGRESS..., then ReportJobResult or FAILED
+                        try {
+                            String kind = params[0].toString().trim().toUpperCase();
+                            Object[] args = Arrays.copyOfRange(params, 1, params.length);
+                            runTrackedReport(client, parseReportSpec(kind, args));
+                        } catch (Exception e) {
+                            client.sendToClient("REPORT_JOB_FAILED||" + e.getMessage());
+                        }
+                        break;
+                    }
+
                     case ClientRequest.CMD_GET_ALL_RESERVATIONS: {
                         // Returns list used by representative "Manage Orders" table view.
                         client.sendToClient(db.getAllReservations());
@@ -651,12 +866,7 @@ public class BistroServer extends AbstractServer {
                     }
                     
                     case ClientRequest.CMD_GET_SUBSCRIBER_REPORT: {
-                        int m = Integer.parseInt(params[0].toString());
-                        int y = Integer.parseInt(params[1].toString());
-
-                        client.sendToClient(
-                            db.generateMonthlySubscriberReport(m, y)
-                        );
+                        runPlainReport(client, parseReportSpec("SUBSCRIBER", params), "❌ Error processing command: ");
                         break;
                     }
                     
@@ -804,6 +1014,182 @@ public class BistroServer extends AbstractServer {
 	 }
 
 
+    /* =========================
+       REPORT JOBS
+       ========================= */
+    /**
+     * A parsed report request: its memoization key and the work that produces it.
+     */
+    private static final class ReportSpec {
+        final String kind;
+        final String key;
+        final ReportJobService.Job job;
+
+        ReportSpec(String kind, String key, ReportJobService.Job job) {
+            this.kind = kind;
+            this.key = key;
+            this.job = job;
+        }
+    }
+
+    /**
+     * Parses the parameters of a report request (on the reader thread, so bad input fails fast).
+     *
+     * @param kind TIME [month, year], SUBSCRIBER [month, year], RANGE [fromDate, toDate],
+     *             TREND [type, fromMonth, toMonth] or OCCUPANCY [fromDate, toDate]
+     * @param args report parameters
+     * @return the report spec
+     * @throws IllegalArgumentException if the kind is unknown or a parameter is invalid
+     */
+    private ReportSpec parseReportSpec(String kind, Object[] args) {
+        switch (kind) {
+            case "TIME": {
+                int month = Integer.parseInt(args[0].toString().trim());
+                int year = Integer.parseInt(args[1].toString().trim());
+                return new ReportSpec(kind, kind + "|" + year + "|" + month,
+                        progress -> db.generateMonthlyTimeReport(month, year));
+            }
+            case "SUBSCRIBER": {
+                int month = Integer.parseInt(args[0].toString().trim());
+                int year = Integer.parseInt(args[1].toString().trim());
+                return new ReportSpec(kind, kind + "|" + year + "|" + month,
+                        progress -> db.generateMonthlySubscriberReport(month, year));
+            }
+            case "RANGE": {
+                LocalDate from = LocalDate.parse(args[0].toString().trim());
+                LocalDate to = LocalDate.parse(args[1].toString().trim());
+                return new ReportSpec(kind, kind + "|" + from + "|" + to,
+                        progress -> db.getRangeReport(from, to));
+            }
+            case "TREND": {
+                String type = args[0].toString().trim().toUpperCase();
+                YearMonth from = YearMonth.parse(args[1].toString().trim());
+                YearMonth to = YearMonth.parse(args[2].toString().trim());
+                return new ReportSpec(kind, kind + "|" + type + "|" + from + "|" + to,
+                        progress -> db.generateMonthlyReportRange(type, from, to, progress));
+            }
+            case "OCCUPANCY": {
+                LocalDate from = LocalDate.parse(args[0].toString().trim());
+                LocalDate to = LocalDate.parse(args[1].toString().trim());
+                if (to.isBefore(from) || from.plusDays(366).isBefore(to)) {
+                    throw new IllegalArgumentException("Occupancy range must be 1 to 366 days");
+                }
+                return new ReportSpec(kind, kind + "|" + from + "|" + to,
+                        progress -> db.generateOccupancyReport(from, to));
+            }
+            default:
+                throw new IllegalArgumentException("Unknown report kind: " + kind);
+        }
+    }
+
+    /**
+     * Runs a report for one of the original report commands: no job messages, the raw result
+     * is sent when ready (exactly what the command used to answer synchronously).
+     *
+     * @param client     requesting client
+     * @param spec       parsed report request
+     * @param failPrefix prefix of the message sent if the job fails
+     */
+    private void runPlainReport(ConnectionToClient client, ReportSpec spec, String failPrefix) {
+        ReportJobService.getInstance().submit(spec.key, spec.job, new ReportJobService.Listener() {
+            @Override public void onAccepted(String jobId) {}
+            @Override public void onProgress(String jobId, int done, int total) {}
+            @Override public void onDone(String jobId, Object result) { sendAsync(client, result); }
+            @Override public void onFailed(String jobId, String reason) { sendAsync(client, failPrefix + reason); }
+        });
+    }
+
+    /**
+     * Runs a report submitted with {@code SUBMIT_REPORT_JOB} and streams its life cycle:
+     * {@code REPORT_JOB_ACCEPTED|jobId}, {@code REPORT_JOB_PROGRESS|jobId|done|total},
+     * then a {@link ReportJobResult} or {@code REPORT_JOB_FAILED|jobId|reason}.
+     *
+     * @param client requesting client
+     * @param spec   parsed report request
+     */
+    private void runTrackedReport(ConnectionToClient client, ReportSpec spec) {
+        ReportJobService.getInstance().submit(spec.key, spec.job, new ReportJobService.Listener() {
+            @Override public void onAccepted(String jobId) {
+                sendAsync(client, "REPORT_JOB_ACCEPTED|" + jobId);
+            }
+            @Override public void onProgress(String jobId, int done, int total) {
+                sendAsync(client, "REPORT_JOB_PROGRESS|" + jobId + "|" + done + "|" + total);
+            }
+            @Override public void onDone(String jobId, Object result) {
+                sendAsync(client, new ReportJobResult(jobId, spec.kind, (Serializable) result));
+            }
+            @Override public void onFailed(String jobId, String reason) {
+                sendAsync(client, "REPORT_JOB_FAILED|" + jobId + "|" + reason);
+            }
+        });
+    }
+
+    /**
+     * Sends a message from a background thread.
+     * {@link ConnectionToClient} serializes writes per connection, so the message is never
+     * interleaved with a reply written by that client's reader thread, and a slow client only
+     * delays its own messages (the server lock is not held).
+     * A client that disconnected in the meantime is ignored.
+     *
+     * @param client target client
+     * @param msg    message to send
+     */
+    private void sendAsync(ConnectionToClient client, Object msg) {
+        try {
+            client.sendToClient(msg);
+        } catch (IOException e) {
+            System.out.println("⚠️ Could not deliver report to client: " + e.getMessage());
+        }
+    }
+
+
+    /* =========================
+       DATA EXPORTS
+       ========================= */
+    /**
+     * Validates an {@code EXPORT_DATA} request and queues the export.
+     * Protocol: {@code EXPORT_STARTED|exportId|fileName}, then {@link ExportChunk}s (the last one
+     * flagged), or {@code EXPORT_FAILED|exportId|reason}.
+     *
+     * @param client requesting client
+     * @param params [dataset, format, fromDate, toDate]; both dates null exports the whole history
+     */
+    private void runExport(ConnectionToClient client, Object[] params) {
+        String dataset = params[0].toString().trim().toUpperCase();
+        String format = params[1].toString().trim().toUpperCase();
+        if (!ExportDAO.isDataset(dataset)) {
+            throw new IllegalArgumentException("Unknown dataset: " + dataset);
+        }
+        if (!ExportEncoder.FORMAT_CSV.equals(format) && !ExportEncoder.FORMAT_COLUMNAR.equals(format)) {
+            throw new IllegalArgumentException("Unknown format: " + format);
+        }
+
+        TimeRange range = null;
+        if (params.length > 3 && params[2] != null && params[3] != null) {
+            LocalDate from = LocalDate.parse(params[2].toString().trim());
+            LocalDate to = LocalDate.parse(params[3].toString().trim());
+            if (to.isBefore(from)) throw new IllegalArgumentException("Export range ends before it starts");
+            range = TimeRange.days(from, to.plusDays(1));
+        }
+
+        TimeRange r = range;
+        ExportService.getInstance().submit(dataset, format, sink -> db.exportData(dataset, r, sink),
+                new ExportService.Output() {
+            @Override public void started(String exportId, String fileName) {
+                sendAsync(client, "EXPORT_STARTED|" + exportId + "|" + fileName);
+            }
+            @Override public void chunk(ExportChunk chunk) throws IOException {
+                // per-connection write lock only: a stalled export client never blocks request handling;
+                // reset after each chunk, so the stream does not keep every chunk reachable
+                client.sendToClientAndReset(chunk);
+            }
+            @Override public void failed(String exportId, String reason) {
+                sendAsync(client, "EXPORT_FAILED|" + exportId + "|" + reason);
+            }
+        });
+    }
+
+
     /* =========================
        CLIENT CONNECT / DISCONNECT
        ========================= */
@@ -853,6 +1239,8 @@ public class BistroServer extends AbstractServer {
     protected void serverStopped() {
         System.out.println("🛑 Server stopped. Shutting down scheduler...");
         scheduler.shutdownNow();
+        leaderLock.release();
+        InviteExpiryTimer.getInstance().cancelAll();
     }
 
 }
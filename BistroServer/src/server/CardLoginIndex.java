@@ -0,0 +1,222 @@
+package server;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import entities.Subscriber;
+
+/**
+ * In-memory digital card -> subscriber index for card-reader logins.
+ * <p>
+ * Loaded with every active subscriber that has a card at server startup and again with every
+ * subscriber search resync (so deactivations and card changes made directly in the database or on
+ * another node stop matching), so a swipe at the restaurant terminal is a hash lookup with no
+ * database round trip. Subscriber changes made through {@code MySQLUserDAO} (add, contact update,
+ * deactivation) refresh the affected entry at once. A card that is not indexed (e.g. a subscriber
+ * added on another server node) falls back to the database; if it is unknown there too it goes into
+ * a small LRU negative cache, so repeated bad swipes do not reach the database again for
+ * {@value #NEGATIVE_TTL_MILLIS} ms. Adding a card and every reload clear the negative cache.
+ * <p>
+ * Cached subscribers carry no password (card login does not need it), and callers get a copy of
+ * the cached object.
+ */
+public final class CardLoginIndex {
+
+    /**
+     * Max remembered bad card codes.
+     */
+    static final int MAX_NEGATIVE = 1_000;
+
+    /**
+     * How long a bad card code is remembered.
+     */
+    static final long NEGATIVE_TTL_MILLIS = 30 * 1000L;
+
+    private static final CardLoginIndex INSTANCE = new CardLoginIndex();
+
+    /**
+     * Normalized card code -> subscriber (active subscribers only).
+     */
+    private final Map<String, Subscriber> byCard = new ConcurrentHashMap<>();
+
+    /**
+     * User id -> normalized card code (to drop an entry when a user changes).
+     */
+    private final Map<Integer, String> cardByUser = new ConcurrentHashMap<>();
+
+    /**
+     * Bad card codes -> time of the failed lookup (access-ordered LRU).
+     */
+    private final LinkedHashMap<String, Long> negative = new LinkedHashMap<String, Long>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_NEGATIVE;
+        }
+    };
+
+    // ---------- metrics ----------
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Returns the shared index.
+     *
+     * @return card login index
+     */
+    public static CardLoginIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Private constructor (singleton).
+     */
+    private CardLoginIndex() {}
+
+    /**
+     * Looks up a card.
+     *
+     * @param digitalCode scanned card code
+     * @return a copy of the indexed subscriber, or null if the card is not indexed
+     */
+    public Subscriber find(String digitalCode) {
+        Subscriber s = byCard.get(normalize(digitalCode));
+        if (s == null) return null;
+        hits.incrementAndGet();
+        return new Subscriber(s, s.getSubscriberNumber(), s.getDigitalCard());
+    }
+
+    /**
+     * Returns whether a card was recently looked up in the database and not found.
+     *
+     * @param digitalCode scanned card code
+     * @return {@code true} if the swipe can be rejected without a DB lookup
+     */
+    public boolean isKnownBad(String digitalCode) {
+        String key = normalize(digitalCode);
+        synchronized (negative) {
+            Long at = negative.get(key);
+            if (at == null) return false;
+            if (System.currentTimeMillis() - at > NEGATIVE_TTL_MILLIS) {
+                negative.remove(key);
+                return false;
+            }
+        }
+        negativeHits.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Records a database miss for a card.
+     *
+     * @param digitalCode scanned card code
+     */
+    public void markBad(String digitalCode) {
+        misses.incrementAndGet();
+        synchronized (negative) {
+            negative.put(normalize(digitalCode), System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Adds or replaces the entry of an active subscriber (the password is not kept).
+     *
+     * @param s subscriber loaded from the database
+     */
+    public void put(Subscriber s) {
+        if (s == null || s.getDigitalCard() == null || s.getDigitalCard().isBlank()) return;
+
+        String key = normalize(s.getDigitalCard());
+        synchronized (negative) {
+            negative.remove(key);
+        }
+        if (!s.isActive()) {
+            remove(s.getId());
+            return;
+        }
+
+        Subscriber copy = new Subscriber(s, s.getSubscriberNumber(), s.getDigitalCard());
+        copy.setPassword(null);
+
+        synchronized (this) {
+            String old = cardByUser.put(s.getId(), key);
+            if (old != null && !old.equals(key)) byCard.remove(old);
+            byCard.put(key, copy);
+        }
+    }
+
+    /**
+     * Drops the entry of a user (deactivated, or no longer a subscriber).
+     *
+     * @param userId {@code users.id}
+     */
+    public void remove(int userId) {
+        synchronized (this) {
+            String key = cardByUser.remove(userId);
+            if (key != null) byCard.remove(key);
+        }
+    }
+
+    /**
+     * Replaces the whole index (startup warm-up and periodic resync) and forgets every bad card.
+     *
+     * @param subscribers all active subscribers with a card
+     */
+    public void replaceAll(Collection<Subscriber> subscribers) {
+        Map<String, Subscriber> cards = new HashMap<>();
+        Map<Integer, String> users = new HashMap<>();
+        for (Subscriber s : subscribers) {
+            if (s.getDigitalCard() == null || s.getDigitalCard().isBlank() || !s.isActive()) continue;
+            Subscriber copy = new Subscriber(s, s.getSubscriberNumber(), s.getDigitalCard());
+            copy.setPassword(null);
+            String key = normalize(s.getDigitalCard());
+            cards.put(key, copy);
+            users.put(s.getId(), key);
+        }
+
+        synchronized (this) {
+            byCard.keySet().retainAll(cards.keySet());
+            byCard.putAll(cards);
+            cardByUser.clear();
+            cardByUser.putAll(users);
+        }
+        synchronized (negative) {
+            negative.clear();
+        }
+    }
+
+    /**
+     * Returns the number of indexed cards.
+     *
+     * @return indexed cards
+     */
+    public int size() {
+        return byCard.size();
+    }
+
+    /**
+     * Returns a one-line summary of the index metrics.
+     *
+     * @return metrics summary
+     */
+    public String summary() {
+        int bad;
+        synchronized (negative) {
+            bad = negative.size();
+        }
+        return "(cards=" + byCard.size() + ", hits=" + hits.get() + ", badSwipesAbsorbed=" + negativeHits.get()
+                + ", dbMisses=" + misses.get() + ", knownBad=" + bad + ")";
+    }
+
+    /**
+     * Card codes are matched case-insensitively (like the column collation) and trimmed.
+     */
+    private static String normalize(String digitalCode) {
+        return digitalCode == null ? "" : digitalCode.trim().toUpperCase(Locale.ROOT);
+    }
+}
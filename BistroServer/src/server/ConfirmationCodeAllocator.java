@@ -0,0 +1,230 @@
+package server;
+
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out unique confirmation codes without probing the database.
+ * <p>
+ * Each namespace (reservation codes, {@code WL} waiting-list codes) has a row in
+ * {@code code_sequences}. A server node reserves a block of {@value #BLOCK_SIZE} sequence values with
+ * a single atomic {@code UPDATE ... LAST_INSERT_ID(next_value + n)}, so two nodes never get the same
+ * value. Inside a block, values are taken with an {@link AtomicLong} (no lock, no round trip).
+ * <p>
+ * A value is turned into a 6-digit code by a keyed Feistel permutation of {@code [0, 900000)}
+ * (cycle-walking over 20 bits). A permutation is a bijection, so distinct values give distinct
+ * codes, while consecutive codes still look random to a guesser. The key is random per database
+ * (stored with the sequence) and shared by all nodes. After 900000 values the next epoch uses a
+ * different round key, so codes are only reused once the whole space was handed out.
+ * <p>
+ * Codes created before this allocator (random) can still collide with a new one, so callers keep
+ * their duplicate-key retry as a safety net. If the sequence row cannot be read, the allocator
+ * falls back to random codes and those retries.
+ */
+public final class ConfirmationCodeAllocator {
+
+    /**
+     * Sequence values reserved per database round trip.
+     */
+    static final int BLOCK_SIZE = 50;
+
+    /**
+     * Number of 6-digit codes (100000..999999).
+     */
+    private static final int SPACE = 900_000;
+
+    private static final int HALF_BITS = 10;
+    private static final int HALF_MASK = (1 << HALF_BITS) - 1;
+    private static final int ROUNDS = 4;
+
+    private static final ConfirmationCodeAllocator INSTANCE = new ConfirmationCodeAllocator();
+
+    /**
+     * Fallback source when the sequence is not available (shared, thread-safe).
+     */
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * A reserved range of sequence values {@code [next, end)}.
+     */
+    private static final class Block {
+        final AtomicLong next;
+        final long end;
+        final long permKey;
+
+        Block(long start, long end, long permKey) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+            this.permKey = permKey;
+        }
+    }
+
+    /**
+     * One code namespace ({@code code_sequences.name}).
+     */
+    private final class Sequence {
+        final String name;
+        final String prefix;
+        volatile Block block = new Block(0, 0, 0); // empty: first call reserves
+
+        Sequence(String name, String prefix) {
+            this.name = name;
+            this.prefix = prefix;
+        }
+
+        String next() {
+            while (true) {
+                Block b = block;
+                long n = b.next.getAndIncrement();
+                if (n < b.end) return prefix + format(n, b.permKey);
+
+                synchronized (this) {
+                    if (block != b) continue; // another thread already reserved a new block
+                    Block fresh = reserve(name);
+                    if (fresh == null) {
+                        fallbacks.incrementAndGet();
+                        return prefix + (100000 + RANDOM.nextInt(SPACE));
+                    }
+                    block = fresh;
+                }
+            }
+        }
+    }
+
+    private final MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
+
+    private final Sequence reservations = new Sequence("RES", "");
+    private final Sequence waiting = new Sequence("WL", "WL");
+
+    // ---------- metrics ----------
+    private final AtomicLong blocksReserved = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    /**
+     * Returns the shared allocator.
+     *
+     * @return confirmation code allocator
+     */
+    public static ConfirmationCodeAllocator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Private constructor (singleton).
+     */
+    private ConfirmationCodeAllocator() {}
+
+    /**
+     * Returns a new reservation confirmation code (6 digits).
+     *
+     * @return confirmation code
+     */
+    public String nextReservationCode() {
+        return reservations.next();
+    }
+
+    /**
+     * Returns a new waiting-list confirmation code ({@code WL} + 6 digits).
+     *
+     * @return waiting list code
+     */
+    public String nextWaitingCode() {
+        return waiting.next();
+    }
+
+    /**
+     * Returns a one-line summary of the allocator metrics.
+     *
+     * @return metrics summary
+     */
+    public String summary() {
+        return "(blocks=" + blocksReserved.get() + ", blockSize=" + BLOCK_SIZE + ", randomFallbacks=" + fallbacks.get() + ")";
+    }
+
+    /**
+     * Reserves the next block of a sequence (atomic across nodes).
+     *
+     * @param name sequence name
+     * @return the block, or null if the sequence cannot be used
+     */
+    private Block reserve(String name) {
+        PooledConnection pConn = null;
+        try {
+            pConn = pool.getConnection();
+            Connection conn = pConn.getConnection();
+
+            // LAST_INSERT_ID(expr) remembers the new value for this connection only
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE code_sequences SET next_value = LAST_INSERT_ID(next_value + ?) WHERE name = ?")) {
+                ps.setInt(1, BLOCK_SIZE);
+                ps.setString(2, name);
+                if (ps.executeUpdate() != 1) return null;
+            }
+
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT LAST_INSERT_ID(), perm_key FROM code_sequences WHERE name = ?")) {
+                ps.setString(1, name);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) return null;
+                    long end = rs.getLong(1);
+                    blocksReserved.incrementAndGet();
+                    return new Block(end - BLOCK_SIZE, end, rs.getLong(2));
+                }
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            if (pConn != null) pool.releaseConnection(pConn);
+        }
+    }
+
+    // ---------- PERMUTATION ----------
+
+    /**
+     * Maps a sequence value to a 6-digit code.
+     *
+     * @param n       sequence value (>= 0)
+     * @param permKey per-database key
+     * @return code in {@code 100000..999999}
+     */
+    static String format(long n, long permKey) {
+        long epoch = n / SPACE;
+        int x = (int) (n % SPACE);
+        // cycle-walking: the permutation is over 2^20 values, keep applying it until we land in range
+        do {
+            x = feistel(x, permKey, epoch);
+        } while (x >= SPACE);
+        return String.valueOf(100000 + x);
+    }
+
+    /**
+     * Balanced 4-round Feistel network over 20 bits (a bijection for any round function).
+     */
+    private static int feistel(int x, long key, long epoch) {
+        int left = (x >>> HALF_BITS) & HALF_MASK;
+        int right = x & HALF_MASK;
+        for (int round = 0; round < ROUNDS; round++) {
+            int f = round(right, key, epoch, round);
+            int tmp = right;
+            right = left ^ f;
+            left = tmp;
+        }
+        return (left << HALF_BITS) | right;
+    }
+
+    private static int round(int half, long key, long epoch, int round) {
+        long h = key ^ (epoch * 0x9E3779B97F4A7C15L) ^ ((long) round << 32) ^ half;
+        h ^= (h >>> 33);
+        h *= 0xff51afd7ed558ccdL;
+        h ^= (h >>> 33);
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= (h >>> 33);
+        return (int) h & HALF_MASK;
+    }
+}
@@ -0,0 +1,382 @@
+package server;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bloom filter over every live confirmation code (the {@code reservations} table, including
+ * {@code WL} invite rows, and the {@code waiting_list} table).
+ * <p>
+ * Check-in, cancel, bill preview, payment and guest waiting-list leave ask {@link #mightExist(String)}
+ * before touching the database: a code the filter has never seen cannot exist, so kiosk typos and
+ * scripted guessing over the 6-digit code space are rejected in memory. A "maybe" still goes to the
+ * database (≈{@value #TARGET_FPP} false positives by construction).
+ * <p>
+ * Codes created on this node are added right after the insert. Codes created on another node are
+ * picked up by a top-up (new rows by primary key) on every scheduler tick. A code the filter has not
+ * seen is only rejected once a load that started after the question was asked has completed (any
+ * code the user can type was committed before that), so a code is never rejected because a top-up
+ * was skipped or failed: in that case it goes to the database and is counted as unverified.
+ * Concurrent misses share one top-up. The whole filter is rebuilt every
+ * {@value #REBUILD_INTERVAL_MILLIS} ms, which drops archived codes and resizes the bit set.
+ * Until the first build succeeds nothing is rejected.
+ */
+public final class ConfirmationCodeFilter {
+
+    /**
+     * Target false-positive probability used to size the filter.
+     */
+    static final double TARGET_FPP = 0.01;
+
+    /**
+     * Full rebuild interval.
+     */
+    static final long REBUILD_INTERVAL_MILLIS = 15 * 60 * 1000L;
+
+    /**
+     * How long a miss waits for a running rebuild or top-up before it lets the code through.
+     */
+    static final long LOAD_WAIT_MILLIS = 2000L;
+
+    /**
+     * Smallest capacity the filter is sized for (keeps room for the codes added before the next rebuild).
+     */
+    private static final int MIN_CAPACITY = 10_000;
+
+    /**
+     * Top-ups re-read this many ids below the last seen one (auto-increment ids can commit out of order).
+     */
+    private static final int TOP_UP_OVERLAP = 100;
+
+    private static final ConfirmationCodeFilter INSTANCE = new ConfirmationCodeFilter();
+
+    /**
+     * Fixed-size Bloom filter (double hashing, thread-safe bit set).
+     */
+    private static final class Bloom {
+        final AtomicLongArray bits;
+        final int numBits;
+        final int numHashes;
+        final AtomicLong inserted = new AtomicLong();
+
+        Bloom(int capacity) {
+            double ln2 = Math.log(2);
+            long m = (long) Math.ceil(-capacity * Math.log(TARGET_FPP) / (ln2 * ln2));
+            this.numBits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, m));
+            this.numHashes = Math.max(1, (int) Math.round((double) numBits / capacity * ln2));
+            this.bits = new AtomicLongArray((numBits + 63) / 64);
+        }
+
+        void add(String code) {
+            int h1 = hash1(code);
+            int h2 = hash2(code);
+            for (int i = 0; i < numHashes; i++) {
+                int bit = Math.floorMod(h1 + i * h2, numBits);
+                long mask = 1L << (bit & 63);
+                int word = bit >>> 6;
+                long old;
+                do {
+                    old = bits.get(word);
+                    if ((old & mask) != 0) break;
+                } while (!bits.compareAndSet(word, old, old | mask));
+            }
+            inserted.incrementAndGet();
+        }
+
+        boolean contains(String code) {
+            int h1 = hash1(code);
+            int h2 = hash2(code);
+            for (int i = 0; i < numHashes; i++) {
+                int bit = Math.floorMod(h1 + i * h2, numBits);
+                if ((bits.get(bit >>> 6) & (1L << (bit & 63))) == 0) return false;
+            }
+            return true;
+        }
+
+        /**
+         * Expected false-positive probability for the number of inserted codes: {@code (1 - e^(-kn/m))^k}.
+         */
+        double estimatedFpp() {
+            return Math.pow(1 - Math.exp(-(double) numHashes * inserted.get() / numBits), numHashes);
+        }
+
+        private static int hash1(String s) {
+            int h = s.hashCode();
+            h ^= (h >>> 16);
+            h *= 0x85ebca6b;
+            h ^= (h >>> 13);
+            h *= 0xc2b2ae35;
+            return h ^ (h >>> 16);
+        }
+
+        private static int hash2(String s) {
+            int h = 0x811c9dc5; // FNV-1a
+            for (int i = 0; i < s.length(); i++) {
+                h ^= s.charAt(i);
+                h *= 0x01000193;
+            }
+            return h | 1; // odd, so the probe sequence does not collapse
+        }
+    }
+
+    private final MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
+
+    /**
+     * Current filter (null until the first build).
+     */
+    private volatile Bloom current;
+
+    /**
+     * Codes added while a rebuild is reading the tables (replayed into the new filter).
+     */
+    private List<String> pendingDuringRebuild;
+
+    /**
+     * Serializes rebuilds and top-ups.
+     */
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    // ---------- load state (guarded by loadLock) ----------
+    private long maxReservationId;
+    private long maxWaitingId;
+    private volatile long lastRebuildAt;
+
+    /**
+     * Start time of the last load (rebuild or top-up) that completed: every code committed before
+     * it is in the filter.
+     */
+    private volatile long coveredSince;
+
+    // ---------- metrics ----------
+    private final AtomicLong passed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong unverified = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+    private final AtomicLong topUps = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+
+    /**
+     * Returns the shared filter.
+     *
+     * @return confirmation code filter
+     */
+    public static ConfirmationCodeFilter getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Private constructor (singleton).
+     */
+    private ConfirmationCodeFilter() {}
+
+    // ---------- GATE ----------
+
+    /**
+     * Returns whether a code may exist. {@code false} means it certainly does not, and the caller
+     * can answer "not found" without a database lookup.
+     *
+     * @param confirmationCode code entered by the user
+     * @return {@code false} if the code is certainly unknown
+     */
+    public boolean mightExist(String confirmationCode) {
+        String code = (confirmationCode == null) ? "" : confirmationCode.trim();
+        if (code.isEmpty()) return true; // callers already reject blank codes with their own message
+
+        Bloom f = current;
+        if (f == null || f.contains(code)) {
+            passed.incrementAndGet();
+            return true;
+        }
+
+        // maybe created on another node since the last load: reject only after a load that started
+        // after this question (waiting for one that is running, or running one)
+        long askedAt = System.currentTimeMillis();
+        if (coveredSince < askedAt) {
+            boolean locked = false;
+            try {
+                locked = loadLock.tryLock(LOAD_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                if (locked && coveredSince < askedAt) topUp();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                if (locked) loadLock.unlock();
+            }
+        }
+
+        if (current.contains(code)) {
+            passed.incrementAndGet();
+            return true;
+        }
+        if (coveredSince < askedAt) {
+            unverified.incrementAndGet(); // no fresh load (busy or DB error): let the database decide
+            return true;
+        }
+
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Adds a code that was just inserted on this node.
+     *
+     * @param code new confirmation code
+     */
+    public void add(String code) {
+        if (code == null || code.isBlank()) return;
+        String c = code.trim();
+        synchronized (this) {
+            Bloom f = current;
+            if (f != null) f.add(c);
+            if (pendingDuringRebuild != null) pendingDuringRebuild.add(c);
+        }
+    }
+
+    /**
+     * A code passed the filter but the database did not find it (counts an observed false positive).
+     */
+    public void onDbMiss() {
+        falsePositives.incrementAndGet();
+    }
+
+    // ---------- MAINTENANCE ----------
+
+    /**
+     * Scheduler hook: rebuilds the filter when it is missing or older than
+     * {@link #REBUILD_INTERVAL_MILLIS}, otherwise tops it up with new rows.
+     */
+    public void maintain() {
+        loadLock.lock();
+        try {
+            if (current == null || System.currentTimeMillis() - lastRebuildAt >= REBUILD_INTERVAL_MILLIS) rebuild();
+            else topUp();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Builds a new filter from both tables and swaps it in. On failure the old filter is kept.
+     */
+    private void rebuild() {
+        synchronized (this) {
+            pendingDuringRebuild = new ArrayList<>();
+        }
+
+        PooledConnection pConn = null;
+        Bloom fresh = null;
+        long maxRes = 0;
+        long maxWait = 0;
+        long startedAt = System.currentTimeMillis();
+        try {
+            pConn = pool.getConnection();
+            Connection conn = pConn.getConnection();
+
+            int count = 0;
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT (SELECT COUNT(*) FROM reservations) + (SELECT COUNT(*) FROM waiting_list)");
+                 ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) count = rs.getInt(1);
+            }
+            fresh = new Bloom(Math.max(MIN_CAPACITY, count * 2));
+
+            maxRes = load(conn, fresh, "SELECT reservation_id, confirmation_code FROM reservations", 0);
+            maxWait = load(conn, fresh, "SELECT id, confirmation_code FROM waiting_list", 0);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            fresh = null;
+        } finally {
+            if (pConn != null) pool.releaseConnection(pConn);
+        }
+
+        synchronized (this) {
+            if (fresh != null) {
+                for (String c : pendingDuringRebuild) fresh.add(c);
+                current = fresh;
+                maxReservationId = maxRes;
+                maxWaitingId = maxWait;
+                lastRebuildAt = System.currentTimeMillis();
+                coveredSince = startedAt;
+                rebuilds.incrementAndGet();
+            }
+            pendingDuringRebuild = null;
+        }
+        if (fresh != null) System.out.println("🧮 Confirmation code filter rebuilt " + summary());
+    }
+
+    /**
+     * Adds rows inserted since the last load (by primary key, with a small overlap).
+     */
+    private void topUp() {
+        Bloom f = current;
+        if (f == null) return;
+        long startedAt = System.currentTimeMillis();
+
+        PooledConnection pConn = null;
+        try {
+            pConn = pool.getConnection();
+            Connection conn = pConn.getConnection();
+
+            maxReservationId = Math.max(maxReservationId, load(conn, f,
+                    "SELECT reservation_id, confirmation_code FROM reservations WHERE reservation_id > ?",
+                    Math.max(0, maxReservationId - TOP_UP_OVERLAP)));
+            maxWaitingId = Math.max(maxWaitingId, load(conn, f,
+                    "SELECT id, confirmation_code FROM waiting_list WHERE id > ?",
+                    Math.max(0, maxWaitingId - TOP_UP_OVERLAP)));
+            coveredSince = startedAt;
+            topUps.incrementAndGet();
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            if (pConn != null) pool.releaseConnection(pConn);
+        }
+    }
+
+    /**
+     * Streams {@code (id, code)} rows into a filter.
+     *
+     * @return the largest id read (0 if none)
+     */
+    private static long load(Connection conn, Bloom f, String sql, long afterId) throws Exception {
+        long max = 0;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            if (sql.indexOf('?') >= 0) ps.setLong(1, afterId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    max = Math.max(max, rs.getLong(1));
+                    String code = rs.getString(2);
+                    if (code != null && !code.isBlank()) f.add(code.trim());
+                }
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns a one-line summary of the filter metrics.
+     *
+     * @return metrics summary
+     */
+    public String summary() {
+        Bloom f = current;
+        long p = passed.get();
+        long r = rejected.get();
+        long fp = falsePositives.get();
+        // of the unknown codes that were asked about, the share the filter let through
+        String observed = (fp + r == 0) ? "-" : String.format(java.util.Locale.US, "%.2f", fp * 100.0 / (fp + r));
+        String estimated = (f == null) ? "-" : String.format(java.util.Locale.US, "%.2f", f.estimatedFpp() * 100);
+        return "(codes=" + (f == null ? 0 : f.inserted.get())
+                + ", bits=" + (f == null ? 0 : f.numBits) + ", k=" + (f == null ? 0 : f.numHashes)
+                + ", estFpp=" + estimated + "%, passed=" + p + ", rejected=" + r + ", unverified=" + unverified.get()
+                + ", falsePositives=" + fp + ", observedFpp=" + observed + "%"
+                + ", topUps=" + topUps.get() + ", rebuilds=" + rebuilds.get() + ")";
+    }
+}
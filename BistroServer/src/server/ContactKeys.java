@@ -0,0 +1,74 @@
+package server;
+
+import java.util.Locale;
+
+/**
+ * Normalized contact keys stored next to free-text email/phone columns ({@code email_key},
+ * {@code phone_key} on {@code users}, {@code reservations} and {@code waiting_list}).
+ * <p>
+ * Lookups by contact compare keys with plain, indexed equality ({@code email_key = ?}) instead of
+ * {@code LOWER(email) = LOWER(?)} or raw text, so case and formatting variants of the same address
+ * or number match. Every write of an email/phone also writes its keys; rows written before the key
+ * columns existed are filled by {@link server.dao.ContactKeyDAO#backfill}.
+ * <p>
+ * A blank value has no key ({@code null}), so it never matches anything.
+ */
+public final class ContactKeys {
+
+    /**
+     * Country calling code assumed for national numbers (leading single {@code 0}).
+     */
+    static final String DEFAULT_COUNTRY_CODE = "972";
+
+    /**
+     * Longest key kept (E.164 numbers have at most 15 digits; junk input is cut, not rejected).
+     */
+    private static final int MAX_PHONE_KEY = 20;
+
+    private ContactKeys() {}
+
+    /**
+     * Email key: trimmed and lower case.
+     *
+     * @param email raw email (may be null)
+     * @return key, or {@code null} if blank
+     */
+    public static String email(String email) {
+        if (email == null) return null;
+        String e = email.trim().toLowerCase(Locale.ROOT);
+        return e.isEmpty() ? null : e;
+    }
+
+    /**
+     * Phone key: E.164 digits without the {@code +}.
+     * <p>
+     * Separators are dropped and any Unicode decimal digit is read as its value. An international
+     * prefix ({@code +} or {@code 00}) is removed; a national number ({@code 0} then the subscriber
+     * number) gets {@link #DEFAULT_COUNTRY_CODE}. So {@code 052-739-3342}, {@code +972 52 739 3342}
+     * and {@code 00972527393342} share the key {@code 972527393342}.
+     *
+     * @param phone raw phone (may be null)
+     * @return key, or {@code null} if it has no digits
+     */
+    public static String phone(String phone) {
+        if (phone == null) return null;
+        String raw = phone.trim();
+
+        StringBuilder sb = new StringBuilder(raw.length() + 3);
+        for (int i = 0; i < raw.length(); i++) {
+            int d = Character.digit(raw.charAt(i), 10);
+            if (d >= 0) sb.append((char) ('0' + d));
+        }
+        if (sb.length() == 0) return null;
+
+        if (!raw.startsWith("+")) {
+            if (sb.length() > 2 && sb.charAt(0) == '0' && sb.charAt(1) == '0') {
+                sb.delete(0, 2);
+            } else if (sb.length() > 1 && sb.charAt(0) == '0') {
+                sb.replace(0, 1, DEFAULT_COUNTRY_CODE);
+            }
+        }
+        if (sb.length() > MAX_PHONE_KEY) sb.setLength(MAX_PHONE_KEY);
+        return sb.toString();
+    }
+}
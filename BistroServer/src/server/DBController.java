@@ -1,11 +1,12 @@
 package server;
 
-import java.security.SecureRandom;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
@@ -13,14 +14,27 @@ import java.sql.Types;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 import common.ManageOrderEntry;
+import common.OccupancyReport;
 import common.ReservationHistoryRow;
+import common.SubscriberHistoryResponse;
+import common.SubscriberStats;
 import common.WaitingListEntry;
+import server.dao.ArchiveDAO;
+import server.dao.ContactKeyDAO;
+import server.dao.DailyRollupDAO;
+import server.dao.ExportDAO;
+import server.dao.OccupancyDAO;
+import server.dao.ReportAggregateDAO;
+import server.dao.SubscriberStatsDAO;
 import server.dao.WaitingListDAO;
 
 /**
@@ -43,6 +57,36 @@ public class DBController {
 
     private final MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
 
+    /**
+     * Shared in-memory view of the WAITING queue (size buckets + FIFO order).
+     */
+    private final WaitingQueueIndex waitingIndex = WaitingQueueIndex.getInstance();
+
+    /**
+     * Finished (COMPLETED/CANCELED) reservations older than this many days are moved to the archive tables.
+     */
+    private static final int ARCHIVE_AFTER_DAYS = 90;
+
+    /**
+     * Reservations moved per archive transaction.
+     */
+    private static final int ARCHIVE_BATCH_SIZE = 500;
+
+    /**
+     * Largest subscriber history page a client can ask for.
+     */
+    public static final int MAX_HISTORY_PAGE = 200;
+
+    /**
+     * Day of the last completed archive run (the job runs once per day).
+     */
+    private volatile LocalDate lastArchiveDay;
+
+    /**
+     * Whether the rollup tables were checked by this process (databases that predate them get them on the first run).
+     */
+    private volatile boolean rollupTablesReady;
+
     
     // ------------------------------------------------------------
     // GET ALL ORDERS
@@ -147,7 +191,7 @@ public class DBController {
 	                 "FROM reservations r " +
 	                 "JOIN subscribers s ON r.subscriber_number = s.subscriber_number " +
 	                 "WHERE s.user_id = ? " +  
-	                 "AND DATE(r.start_time) = CURDATE() " + 
+	                 "AND " + TimeRange.predicate("r.start_time") + " " +
 	                 "AND r.status = 'ACTIVE'";
 	
 	    PooledConnection pConn = null;
@@ -157,6 +201,7 @@ public class DBController {
 	
 	        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
 	            stmt.setInt(1, userId); // Now we can safely use the int ID!
+	            TimeRange.today().bind(stmt, 2);
 	            
 	            try (ResultSet rs = stmt.executeQuery()) {
 	                while (rs.next()) {
@@ -284,7 +329,7 @@ public class DBController {
     String sql =
         "SELECT start_time, dinners_number, table_number, confirmation_code " +
         "FROM reservations " +
-        "WHERE DATE(start_time) = CURDATE() AND status = 'ACTIVE' " +
+        "WHERE " + TimeRange.predicate("start_time") + " AND status = 'ACTIVE' " +
         "ORDER BY start_time";
 
     PooledConnection pConn = null;
@@ -293,9 +338,10 @@ public class DBController {
         pConn = pool.getConnection();
         Connection conn = pConn.getConnection();
 
-        try (PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            TimeRange.today().bind(ps, 1);
 
+            try (ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
                 String time = rs.getTimestamp("start_time").toLocalDateTime().toLocalTime().toString();
                 int diners = rs.getInt("dinners_number");
@@ -309,6 +355,7 @@ public class DBController {
                     " | 🔑 " + code
                 );
             }
+            }
         }
 
     } catch (Exception e) {
@@ -363,51 +410,77 @@ public class DBController {
             String safeEmail = (email == null) ? "" : email.trim();
 
             Integer subscriberId = null;
+            String subNumber = null;
 
          // ✅ Only treat it as subscriber id if it was sent as SUB:<id>
          if (customerIdOrEmail != null && customerIdOrEmail.startsWith("SUB:")) {
              subscriberId = tryParseInt(customerIdOrEmail.substring(4));
+             if (subscriberId != null) subNumber = getSubscriberNumberByUserId(conn, subscriberId);
          }
 
 
-            // 2) Guest case: try to auto-detect subscriber by email/phone
+            // 2) Guest case: try to auto-detect subscriber by email/phone (one cached lookup gives both)
             if (subscriberId == null) {
-                subscriberId = findSubscriberIdByEmailOrPhone(conn, safeEmail, safePhone);
+                SubscriberIdentityCache.Identity found = findSubscriberByEmailOrPhone(conn, safeEmail, safePhone);
+                if (found != null) {
+                    subscriberId = found.userId;
+                    subNumber = found.subscriberNumber;
+                }
             }
 
-            String code = generateConfirmationCode();
-
             String sql =
                     "INSERT INTO `Reservations` " +
-                    "(`confirmation_code`, `start_time`, `end_time`, `dinners_number`, `subscriber_number`, `phone`, `email`, `status`, `created_at`, `table_number`) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, 'ACTIVE', NOW(), ?)";
+                    "(`confirmation_code`, `start_time`, `end_time`, `dinners_number`, `subscriber_number`, `phone`, `email`, `status`, `created_at`, `table_number`, `email_key`, `phone_key`) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, 'ACTIVE', NOW(), ?, ?, ?)";
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, code);
-                stmt.setTimestamp(2, Timestamp.valueOf(start));
-                stmt.setTimestamp(3, Timestamp.valueOf(end));
-                stmt.setInt(4, dinners);
+            // allocator codes are unique; the retry only covers older random codes still in the table
+            for (int attempt = 0; attempt < 3; attempt++) {
+                String code = generateConfirmationCode();
 
-                if (subscriberId == null) {
-                    stmt.setNull(5, Types.VARCHAR);
-                } else {
-                    String subNumber = getSubscriberNumberByUserId(conn, subscriberId);
-                    if (subNumber == null || subNumber.isBlank()) {
-                        stmt.setNull(5, Types.VARCHAR); // fallback, treat as guest
+                try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    stmt.setString(1, code);
+                    stmt.setTimestamp(2, Timestamp.valueOf(start));
+                    stmt.setTimestamp(3, Timestamp.valueOf(end));
+                    stmt.setInt(4, dinners);
+
+                    if (subscriberId == null) {
+                        stmt.setNull(5, Types.VARCHAR);
                     } else {
-                        stmt.setString(5, subNumber);   // ✅ THIS is the correct value ("SUB123")
+                        if (subNumber == null || subNumber.isBlank()) {
+                            stmt.setNull(5, Types.VARCHAR); // fallback, treat as guest
+                        } else {
+                            stmt.setString(5, subNumber);   // ✅ THIS is the correct value ("SUB123")
+                        }
                     }
-                }
 
 
-                // keep guest info too (helps cancel from subscriber if old records exist)
-                stmt.setString(6, safePhone);
-                stmt.setString(7, safeEmail);
+                    // keep guest info too (helps cancel from subscriber if old records exist)
+                    stmt.setString(6, safePhone);
+                    stmt.setString(7, safeEmail);
+
+                    stmt.setInt(8, tableId);
+                    stmt.setString(9, ContactKeys.email(safeEmail));
+                    stmt.setString(10, ContactKeys.phone(safePhone));
 
-                stmt.setInt(8, tableId);
+                    int rows = stmt.executeUpdate();
+                    if (rows > 0) {
+                        ConfirmationCodeFilter.getInstance().add(code);
 
-                int rows = stmt.executeUpdate();
-                if (rows > 0) return code;
+                        // same-day booking: make it visible to the kiosk before the next refresh
+                        if (KioskCodeIndex.covers(start)) {
+                            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                                if (keys.next()) {
+                                    KioskCodeIndex.getInstance().put(code, new KioskCodeIndex.Entry(
+                                            keys.getInt(1), "ACTIVE", start, end, tableId, dinners,
+                                            (subNumber == null || subNumber.isBlank()) ? null : subNumber, null));
+                                }
+                            }
+                        }
+                        return code;
+                    }
+                } catch (SQLIntegrityConstraintViolationException dup) {
+                    // collision with an older random code -> take the next code
+                }
             }
 
         } catch (Exception e) {
@@ -738,6 +811,7 @@ public class DBController {
             String safePhone = (requesterPhone == null) ? "" : requesterPhone.trim();
 
             if (code.isEmpty()) return CANCEL_FAIL_NOT_FOUND;
+            if (!ConfirmationCodeFilter.getInstance().mightExist(code)) return CANCEL_FAIL_NOT_FOUND;
 
             pConn = pool.getConnection();
             pConn.touch();
@@ -762,6 +836,7 @@ public class DBController {
                     try (ResultSet rs = ps.executeQuery()) {
                         if (!rs.next()) {
                             conn.rollback();
+                            ConfirmationCodeFilter.getInstance().onDbMiss();
                             return CANCEL_FAIL_NOT_FOUND;
                         }
 
@@ -802,12 +877,14 @@ public class DBController {
 				    }
 				
 				    // fallback checks by email / phone
-				    if (!okOwner && !safeEmail.isEmpty() && gEmail != null && !gEmail.trim().isEmpty()) {
-				        okOwner = gEmail.trim().equalsIgnoreCase(safeEmail);
+				    String ownEmailKey = ContactKeys.email(safeEmail);
+				    String ownPhoneKey = ContactKeys.phone(safePhone);
+				    if (!okOwner && ownEmailKey != null) {
+				        okOwner = ownEmailKey.equals(ContactKeys.email(gEmail));
 				    }
 				
-				    if (!okOwner && !safePhone.isEmpty() && gPhone != null && !gPhone.trim().isEmpty()) {
-				        okOwner = gPhone.trim().equals(safePhone);
+				    if (!okOwner && ownPhoneKey != null) {
+				        okOwner = ownPhoneKey.equals(ContactKeys.phone(gPhone));
 				    }
 				
 				    if (!okOwner) {
@@ -830,6 +907,7 @@ public class DBController {
 
                 if (rows > 0) {
                     conn.commit();
+                    KioskCodeIndex.getInstance().onStatus(code, "CANCELED", null);
                     return CANCEL_OK;
                 } else {
                     conn.rollback();
@@ -850,57 +928,175 @@ public class DBController {
     
     /**
      * Retrieves the current waiting list as rich {@link WaitingListEntry} objects.
+     * <p>
+     * WAITING parties are served from the in-memory {@link WaitingQueueIndex} (reloaded from the
+     * database only when it was never loaded or its resync interval has passed). Parties that were
+     * invited and have not arrived yet (INVITED) are still shown; they are read with one range scan
+     * of {@code idx_wl_status_request}.
      *
-     * @return list of waiting list entries ordered by request time
+     * @return WAITING and INVITED entries ordered by request time
      */
- // Change return type from List<String> to List<WaitingListEntry>
     public List<WaitingListEntry> getWaitingList() {
-        List<WaitingListEntry> result = new ArrayList<>();
+        if (waitingIndex.needsResync()) rebuildWaitingQueueIndex();
+        List<WaitingListEntry> result = new ArrayList<>(waitingIndex.snapshotDtos());
 
-        String sql = 
-            "SELECT " +
-            "  wl.id, " +
-            "  wl.request_time, " +
-            "  wl.subscriber_number, " + // keep raw for object
-            "  COALESCE(wl.subscriber_number, 'Guest') AS identifier, " + 
-            "  COALESCE(u.name, 'Guest') AS name, " + 
-            "  COALESCE(u.phone, wl.guest_phone) AS phone " + 
-            "FROM waiting_list wl " +
-            "LEFT JOIN subscribers s ON wl.subscriber_number = s.subscriber_number " +
-            "LEFT JOIN users u ON s.user_id = u.id " +
-            "ORDER BY wl.request_time";
+        PooledConnection pConn = null;
+        try {
+            pConn = pool.getConnection();
+            Connection conn = pConn.getConnection();
+
+            for (WaitingQueueIndex.Entry e : loadWaitingRows(conn, null, "INVITED", 0)) {
+                result.add(e.toDto());
+            }
+        } catch (Exception e) {
+            e.printStackTrace(); // WAITING parties are still listed
+        } finally {
+            if (pConn != null) pool.releaseConnection(pConn);
+        }
+
+        result.sort(Comparator.comparing(WaitingListEntry::getRequestTime,
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        return result;
+    }
 
+    /**
+     * Reloads the in-memory waiting queue from the {@code waiting_list} table.
+     * Called at server startup and periodically as a safety net for rows written by other nodes.
+     *
+     * @return true if the index was reloaded, otherwise false (DB error, old content kept)
+     */
+    public boolean rebuildWaitingQueueIndex() {
         PooledConnection pConn = null;
         try {
             pConn = pool.getConnection();
             Connection conn = pConn.getConnection();
-            
-            try (PreparedStatement ps = conn.prepareStatement(sql);
-                 ResultSet rs = ps.executeQuery()) {
 
-                while (rs.next()) {
-                    // Determine type
-                    String subNum = rs.getString("subscriber_number");
-                    String type = (subNum == null || subNum.isEmpty()) ? "Guest" : "Subscriber";
+            waitingIndex.rebuild(loadWaitingQueue(conn, null));
+            return true;
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            if (pConn != null) pool.releaseConnection(pConn);
+        }
+    }
+
+    /**
+     * Loads WAITING rows (with subscriber display name/phone) in FIFO order.
+     * Treats NULL/empty status as WAITING.
+     *
+     * @param conn open DB connection
+     * @param code if not null, only the row with this confirmation code is loaded
+     * @return WAITING entries ordered by request time (may be empty)
+     * @throws SQLException if DB operations fail
+     */
+    private List<WaitingQueueIndex.Entry> loadWaitingQueue(Connection conn, String code) throws SQLException {
+        return loadWaitingRows(conn, code, "WAITING", 0);
+    }
+
+    /**
+     * Brings the in-memory waiting queue up to date before an invite pass.
+     * <p>
+     * Rebuilds it when its resync interval has passed; otherwise only reads WAITING rows with an id
+     * above the largest one already seen (minus {@link WaitingQueueIndex#DELTA_OVERLAP_IDS}, as
+     * auto-increment ids can commit out of order), i.e. parties that joined through another node.
+     * Rows that left or were invited elsewhere are dropped by the conditional INVITED update.
+     *
+     * @param conn open DB connection
+     * @throws SQLException if DB operations fail
+     */
+    private void syncWaitingQueue(Connection conn) throws SQLException {
+        if (waitingIndex.needsResync()) {
+            waitingIndex.rebuild(loadWaitingQueue(conn, null));
+            return;
+        }
+        int afterId = Math.max(0, waitingIndex.maxSeenId() - WaitingQueueIndex.DELTA_OVERLAP_IDS);
+        waitingIndex.addMissing(loadWaitingRows(conn, null, "WAITING", afterId));
+    }
+
+    /**
+     * Loads waiting-list rows of one status (with subscriber display name/phone) in FIFO order.
+     *
+     * @param conn   open DB connection
+     * @param code   if not null, only the row with this confirmation code is loaded
+     * @param status WAITING (NULL/empty status counts as WAITING) or INVITED
+     * @param afterId only rows with a larger id are loaded (0 for all)
+     * @return entries ordered by request time (may be empty)
+     * @throws SQLException if DB operations fail
+     */
+    private List<WaitingQueueIndex.Entry> loadWaitingRows(Connection conn, String code, String status, int afterId) throws SQLException {
+        String sql =
+            "SELECT " +
+            "  wl.id, wl.confirmation_code, wl.diners_number, wl.request_time, " +
+            "  wl.subscriber_number, wl.guest_phone, wl.guest_email, " +
+            "  COALESCE(u.name, 'Guest') AS name, " +
+            "  COALESCE(u.phone, wl.guest_phone) AS phone " +
+            "FROM waiting_list wl " +
+            "LEFT JOIN subscribers s ON wl.subscriber_number = s.subscriber_number " +
+            "LEFT JOIN users u ON s.user_id = u.id " +
+            ("WAITING".equals(status)
+                ? "WHERE (wl.status IS NULL OR wl.status='' OR wl.status='WAITING') "
+                : "WHERE wl.status = '" + status + "' ") +
+            (code == null ? "" : "AND wl.confirmation_code = ? ") +
+            (afterId > 0 ? "AND wl.id > " + afterId + " " : "") +
+            "ORDER BY wl.request_time ASC, wl.id ASC";
+
+        List<WaitingQueueIndex.Entry> out = new ArrayList<>();
 
-                    // ✅ Create the Object directly
-                    result.add(new WaitingListEntry(
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            if (code != null) ps.setString(1, code);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp req = rs.getTimestamp("request_time");
+                    out.add(new WaitingQueueIndex.Entry(
                         rs.getInt("id"),
-                        rs.getTimestamp("request_time"),
-                        subNum,
+                        rs.getString("confirmation_code"),
+                        rs.getInt("diners_number"),
+                        req == null ? null : req.toLocalDateTime(),
+                        rs.getString("subscriber_number"),
+                        rs.getString("guest_phone"),
+                        rs.getString("guest_email"),
                         rs.getString("name"),
-                        rs.getString("phone"),
-                        type
+                        rs.getString("phone")
                     ));
                 }
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-        } finally {
-            if (pConn != null) pool.releaseConnection(pConn);
         }
+        return out;
+    }
 
-        return result;
+    /**
+     * Returns the 1-based FIFO position of a WAITING party (O(log n), from memory).
+     *
+     * @param waitingCode waiting confirmation code
+     * @return queue position, or -1 if the code is not WAITING
+     */
+    public int getWaitingPosition(String waitingCode) {
+        return waitingIndex.positionOf(waitingCode);
+    }
+
+    /**
+     * Estimates the wait of a party from live table turnover (see {@link WaitTimeEstimator}).
+     *
+     * @param diners   party size
+     * @param position 1-based queue position (or -1 if unknown)
+     * @return estimated wait in minutes, or -1 if there is not enough data yet
+     */
+    public int estimateWaitMinutes(int diners, int position) {
+        return WaitTimeEstimator.getInstance().estimateMinutes(diners, Math.max(0, position - 1));
+    }
+
+    /**
+     * Adds a freshly inserted waiting-list row to the in-memory queue.
+     *
+     * @param conn open DB connection
+     * @param code waiting confirmation code of the new row
+     * @throws SQLException if DB operations fail
+     */
+    private void indexNewWaitingEntry(Connection conn, String code) throws SQLException {
+        List<WaitingQueueIndex.Entry> rows = loadWaitingQueue(conn, code);
+        if (!rows.isEmpty()) waitingIndex.add(rows.get(0));
     }
     
     /**
@@ -927,14 +1123,17 @@ public class DBController {
             pConn = pool.getConnection();
             Connection conn = pConn.getConnection();
 
+            // repeat customers share one String instance, so the reply writes each name/phone once
+            Map<String, String> shared = new HashMap<>();
+
             try (PreparedStatement ps = conn.prepareStatement(sql);
                  ResultSet rs = ps.executeQuery()) {
 
                 while (rs.next()) {
                     result.add(new ManageOrderEntry(
                         rs.getInt("reservation_id"),
-                        rs.getString("customer_name"),
-                        rs.getString("phone"),
+                        share(shared, rs.getString("customer_name")),
+                        share(shared, rs.getString("phone")),
                         rs.getTimestamp("start_time"),
                         rs.getInt("dinners_number"),
                         rs.getInt("table_number"),
@@ -950,47 +1149,34 @@ public class DBController {
         return result;
     }
 
+    /**
+     * Returns the first instance seen of an equal string (null stays null).
+     */
+    private static String share(Map<String, String> seen, String value) {
+        if (value == null) return null;
+        String prev = seen.putIfAbsent(value, value);
+        return (prev != null) ? prev : value;
+    }
+
 
     // -------------------- subscriber lookup helper --------------------
 
     /**
-     * Attempts to find an active subscriber user ID by matching email and/or phone.
-     * Email is checked first, then phone.
+     * Finds an active subscriber by email or phone through {@link SubscriberIdentityCache}
+     * (email first, then phone).
      *
-     * @param conn  open DB connection
+     * @param conn  open DB connection (used on a cache miss)
      * @param email email string (may be blank)
      * @param phone phone string (may be blank)
-     * @return {@code users.id} if found, otherwise null
+     * @return subscriber identity, or null if none matches or the lookup failed
      */
-    private Integer findSubscriberIdByEmailOrPhone(Connection conn, String email, String phone) {
+    private SubscriberIdentityCache.Identity findSubscriberByEmailOrPhone(Connection conn, String email, String phone) {
         try {
-            // Prefer email match
-            if (email != null && !email.isEmpty()) {
-                String sql = "SELECT id FROM `users` WHERE role='SUBSCRIBER' AND is_active=1 AND email=? LIMIT 1";
-                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                    stmt.setString(1, email);
-                    try (ResultSet rs = stmt.executeQuery()) {
-                        if (rs.next()) return rs.getInt("id");
-                    }
-                }
-            }
-
-            // Then phone match
-            if (phone != null && !phone.isEmpty()) {
-                String sql = "SELECT id FROM `users` WHERE role='SUBSCRIBER' AND is_active=1 AND phone=? LIMIT 1";
-                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                    stmt.setString(1, phone);
-                    try (ResultSet rs = stmt.executeQuery()) {
-                        if (rs.next()) return rs.getInt("id");
-                    }
-                }
-            }
-
+            return SubscriberIdentityCache.getInstance().byEmailOrPhone(conn, email, phone);
         } catch (Exception e) {
             e.printStackTrace();
+            return null;
         }
-
-        return null;
     }
 
     // -------------------- table-based helpers --------------------
@@ -1183,14 +1369,12 @@ public class DBController {
     // -------------------- misc helpers --------------------
 
     /**
-     * Generates a random 6-digit numeric confirmation code.
+     * Allocates a unique 6-digit numeric confirmation code (see {@link ConfirmationCodeAllocator}).
      *
      * @return confirmation code as string
      */
     private String generateConfirmationCode() {
-        SecureRandom rnd = new SecureRandom();
-        int num = 100000 + rnd.nextInt(900000);
-        return String.valueOf(num);
+        return ConfirmationCodeAllocator.getInstance().nextReservationCode();
     }
     
     
@@ -1218,14 +1402,8 @@ public class DBController {
      * @throws SQLException if DB operations fail
      */
     private String getSubscriberNumberByUserId(Connection conn, int userId) throws SQLException {
-        String sql = "SELECT subscriber_number FROM subscribers WHERE user_id = ? LIMIT 1";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, userId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return rs.getString("subscriber_number");
-            }
-        }
-        return null;
+        SubscriberIdentityCache.Identity id = SubscriberIdentityCache.getInstance().byUserId(conn, userId);
+        return (id == null) ? null : id.subscriberNumber;
     }
 
 
@@ -1254,6 +1432,10 @@ public class DBController {
      * <p>
      * Enforces the payment window to be between start_time and end_time (2 hours).
      * Creates a bill record and marks the reservation as COMPLETED.
+     * <p>
+     * A code indexed as CHECKED_IN in {@link KioskCodeIndex} skips the locking SELECT; the
+     * status-guarded UPDATE (done before the bill INSERT) then decides, so a stale entry can never
+     * produce a second bill.
      *
      * @param confirmationCode reservation confirmation code
      * @return protocol string PAY_OK|... or PAY_FAIL|...
@@ -1264,6 +1446,7 @@ public class DBController {
         try {
             String code = (confirmationCode == null) ? "" : confirmationCode.trim();
             if (code.isEmpty()) return "PAY_FAIL|Invalid confirmation code";
+            if (!ConfirmationCodeFilter.getInstance().mightExist(code)) return "PAY_FAIL|Confirmation code not found";
 
             pConn = pool.getConnection();
             pConn.touch();
@@ -1273,38 +1456,53 @@ public class DBController {
             conn.setAutoCommit(false);
 
             try {
-                // lock reservation row
-                String selectSql =
-                        "SELECT reservation_id, status, subscriber_number, dinners_number, start_time, end_time " +
-                        "FROM `Reservations` WHERE confirmation_code=? FOR UPDATE";
-
                 int reservationId;
                 String status;
                 int diners;
                 Timestamp startTs;
                 Timestamp endTs;
+                Timestamp checkInTs;
                 String subscriberNumber = null;
                 boolean isSubscriber = false;
 
+                KioskCodeIndex.Entry indexed = KioskCodeIndex.getInstance().get(code);
+                if (indexed != null && "CHECKED_IN".equals(indexed.status) && indexed.end != null) {
+                    // ✅ fast path: today's checked-in reservation, no lookup
+                    reservationId = indexed.reservationId;
+                    status = indexed.status;
+                    subscriberNumber = indexed.subscriberNumber;
+                    isSubscriber = (subscriberNumber != null && !subscriberNumber.isBlank());
+                    diners = indexed.diners;
+                    startTs = Timestamp.valueOf(indexed.start);
+                    endTs = Timestamp.valueOf(indexed.end);
+                    checkInTs = indexed.checkInTime;
+                } else {
+                    // lock reservation row
+                    String selectSql =
+                            "SELECT reservation_id, status, subscriber_number, dinners_number, start_time, end_time, check_in_time " +
+                            "FROM `Reservations` WHERE confirmation_code=? FOR UPDATE";
+
+                    try (PreparedStatement ps = conn.prepareStatement(selectSql)) {
+                        ps.setString(1, code);
+                        try (ResultSet rs = ps.executeQuery()) {
+                            if (!rs.next()) {
+                                conn.rollback();
+                                ConfirmationCodeFilter.getInstance().onDbMiss();
+                                return "PAY_FAIL|Confirmation code not found";
+                            }
 
-                try (PreparedStatement ps = conn.prepareStatement(selectSql)) {
-                    ps.setString(1, code);
-                    try (ResultSet rs = ps.executeQuery()) {
-                        if (!rs.next()) {
-                            conn.rollback();
-                            return "PAY_FAIL|Confirmation code not found";
-                        }
-
-                        reservationId = rs.getInt("reservation_id");
-                        status = rs.getString("status");
+                            reservationId = rs.getInt("reservation_id");
+                            status = rs.getString("status");
 
-                        subscriberNumber = rs.getString("subscriber_number"); // "SUB123" or null
-                        isSubscriber = (subscriberNumber != null && !subscriberNumber.isBlank());
+                            subscriberNumber = rs.getString("subscriber_number"); // "SUB123" or null
+                            isSubscriber = (subscriberNumber != null && !subscriberNumber.isBlank());
 
 
-                        diners = rs.getInt("dinners_number");
-                        startTs = rs.getTimestamp("start_time");
-                        endTs = rs.getTimestamp("end_time");
+                            diners = rs.getInt("dinners_number");
+                            startTs = rs.getTimestamp("start_time");
+                            endTs = rs.getTimestamp("end_time");
+                            checkInTs = rs.getTimestamp("check_in_time");
+                        }
                     }
                 }
 
@@ -1332,6 +1530,22 @@ public class DBController {
 
                 double finalTotal = total - discount;
 
+                // update reservation status -> COMPLETED (table becomes free); the status guard
+                // also locks the row, so only one payment gets past this point
+                String updateSql =
+                        "UPDATE `Reservations` SET status='COMPLETED' " +
+                        "WHERE reservation_id=? AND status='CHECKED_IN'";
+
+                try (PreparedStatement ps = conn.prepareStatement(updateSql)) {
+                    ps.setInt(1, reservationId);
+                    int rows = ps.executeUpdate();
+                    if (rows <= 0) {
+                        conn.rollback();
+                        KioskCodeIndex.getInstance().remove(code);
+                        return "PAY_FAIL|Reservation is not ACTIVE (already paid/canceled)";
+                    }
+                }
+
                 // insert bill
                 String insertBill =
                         "INSERT INTO bills (total_amount, discount_amount, bill_date, reservation_id) " +
@@ -1358,26 +1572,24 @@ public class DBController {
                     }
                 }
 
-                // update reservation status -> COMPLETED (table becomes free)
-                String updateSql =
-                        "UPDATE `Reservations` SET status='COMPLETED' " +
-                        "WHERE reservation_id=? AND status='CHECKED_IN'";
-
-                try (PreparedStatement ps = conn.prepareStatement(updateSql)) {
-                    ps.setInt(1, reservationId);
-                    int rows = ps.executeUpdate();
-                    if (rows <= 0) {
-                        conn.rollback();
-                        return "PAY_FAIL|Failed to mark reservation as COMPLETED";
-                    }
-                }
+                // keep monthly report rows and subscriber counters up to date (same transaction)
+                new ReportAggregateDAO(conn).recordCompletion(startTs, checkInTs, endTs, subscriberNumber);
+                new SubscriberStatsDAO(conn).recordVisit(subscriberNumber, startTs, finalTotal);
 
                 conn.commit();
+                KioskCodeIndex.getInstance().onStatus(code, "COMPLETED", null);
+                WaitTimeEstimator.getInstance().onRelease(diners, checkInTs == null ? 0 : checkInTs.getTime());
+                ReportCache.getInstance().onCompletion(startTs.toLocalDateTime().toLocalDate(),
+                        subscriberNumber != null && !subscriberNumber.isBlank());
 
                 // PAY_OK|billNumber|diners|total|discount|final
                 return "PAY_OK|" + billNumber + "|" + diners + "|"
                         + formatMoney(total) + "|" + formatMoney(discount) + "|" + formatMoney(finalTotal);
 
+            } catch (Exception e) {
+                // the status UPDATE runs before the bill INSERT: never let restoring autocommit keep it alone
+                conn.rollback();
+                throw e;
             } finally {
                 conn.setAutoCommit(oldAuto);
             }
@@ -1402,6 +1614,7 @@ public class DBController {
     
     /**
      * Previews the bill calculation for a reservation (without inserting a bill or updating status).
+     * A code indexed as CHECKED_IN in {@link KioskCodeIndex} is answered without a database lookup.
      *
      * @param confirmationCode reservation confirmation code
      * @return protocol string PREVIEW_OK|... or PREVIEW_FAIL|...
@@ -1412,14 +1625,7 @@ public class DBController {
         try {
             String code = (confirmationCode == null) ? "" : confirmationCode.trim();
             if (code.isEmpty()) return "PREVIEW_FAIL|Invalid confirmation code";
-
-            pConn = pool.getConnection();
-            pConn.touch();
-            Connection conn = pConn.getConnection();
-
-            String sql =
-                    "SELECT status, subscriber_number, dinners_number, start_time, end_time " +
-                    "FROM `Reservations` WHERE confirmation_code=?";
+            if (!ConfirmationCodeFilter.getInstance().mightExist(code)) return "PREVIEW_FAIL|Confirmation code not found";
 
             String status;
             int diners;
@@ -1428,23 +1634,41 @@ public class DBController {
             String subscriberNumber = null;
             boolean isSubscriber = false;
 
+            KioskCodeIndex.Entry indexed = KioskCodeIndex.getInstance().get(code);
+            if (indexed != null && "CHECKED_IN".equals(indexed.status) && indexed.end != null) {
+                status = indexed.status;
+                subscriberNumber = indexed.subscriberNumber;
+                isSubscriber = (subscriberNumber != null && !subscriberNumber.isBlank());
+                diners = indexed.diners;
+                startTs = Timestamp.valueOf(indexed.start);
+                endTs = Timestamp.valueOf(indexed.end);
+            } else {
+                pConn = pool.getConnection();
+                pConn.touch();
+                Connection conn = pConn.getConnection();
+
+                String sql =
+                        "SELECT status, subscriber_number, dinners_number, start_time, end_time " +
+                        "FROM `Reservations` WHERE confirmation_code=?";
+
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setString(1, code);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (!rs.next()) {
+                            ConfirmationCodeFilter.getInstance().onDbMiss();
+                            return "PREVIEW_FAIL|Confirmation code not found";
+                        }
 
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setString(1, code);
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (!rs.next()) {
-                        return "PREVIEW_FAIL|Confirmation code not found";
-                    }
-
-                    status = rs.getString("status");
+                        status = rs.getString("status");
 
-                    subscriberNumber = rs.getString("subscriber_number"); // "SUB123" or null
-                    isSubscriber = (subscriberNumber != null && !subscriberNumber.isBlank());
+                        subscriberNumber = rs.getString("subscriber_number"); // "SUB123" or null
+                        isSubscriber = (subscriberNumber != null && !subscriberNumber.isBlank());
 
 
-                    diners = rs.getInt("dinners_number");
-                    startTs = rs.getTimestamp("start_time");
-                    endTs = rs.getTimestamp("end_time");
+                        diners = rs.getInt("dinners_number");
+                        startTs = rs.getTimestamp("start_time");
+                        endTs = rs.getTimestamp("end_time");
+                    }
                 }
             }
 
@@ -1482,22 +1706,42 @@ public class DBController {
     }
     
     /**
-     * Loads the full reservation history for a subscriber user (all statuses).
+     * Loads one page of a subscriber's reservation history (all statuses) with the subscriber's
+     * lifetime counters.
+     * <p>
+     * Keyset pagination: a page is the {@code limit} rows that come after the cursor in
+     * {@code (start_time DESC, reservation_id DESC)} order, read from the
+     * {@code (subscriber_number, start_time, reservation_id)} index of the live and archive tables, so
+     * every page costs the same however long the history is. The counters are one
+     * {@code subscriber_stats} row (see {@link SubscriberStatsDAO}).
      *
      * @param subscriberUserId {@code users.id} for the subscriber
-     * @return list of {@link ReservationHistoryRow} ordered by newest first
+     * @param beforeStart      start time of the last row already shown, or {@code null} for the first page
+     * @param beforeId         reservation id of the last row already shown (ignored for the first page)
+     * @param limit            page size (capped at {@link #MAX_HISTORY_PAGE})
+     * @return the page (empty, with empty stats, if the user is not a subscriber or on error)
      */
     // Subscriber History Section
-    public List<ReservationHistoryRow> getSubscriberReservationHistory(int subscriberUserId) {
+    public SubscriberHistoryResponse getSubscriberHistory(int subscriberUserId, LocalDateTime beforeStart,
+                                                          int beforeId, int limit) {
+        int size = Math.max(1, Math.min(MAX_HISTORY_PAGE, limit));
         List<ReservationHistoryRow> out = new ArrayList<>();
-
-        String sql =
-            "SELECT r.start_time, r.end_time, r.dinners_number, r.table_number, " +
-            "       r.confirmation_code, r.status, r.created_at " +
-            "FROM reservations r " +
-            "JOIN subscribers s ON s.subscriber_number = r.subscriber_number " +
-            "WHERE s.user_id = ? " +
-            "ORDER BY r.start_time DESC";
+        SubscriberStats stats = SubscriberStats.EMPTY;
+        boolean hasMore = false;
+
+        // each table returns its first size+1 rows after the cursor, then the union is cut again
+        String sql = ArchiveDAO.unionReservations(
+            "(SELECT r.reservation_id, r.start_time, r.end_time, r.dinners_number, r.table_number, " +
+            "        r.confirmation_code, r.status, r.created_at " +
+            " FROM " + ArchiveDAO.RESERVATIONS + " r " +
+            " WHERE r.subscriber_number = ? " +
+            "   AND (r.start_time < ? OR (r.start_time = ? AND r.reservation_id < ?)) " +
+            " ORDER BY r.start_time DESC, r.reservation_id DESC LIMIT ?)") +
+            " ORDER BY start_time DESC, reservation_id DESC LIMIT ?";
+
+        // first page: a cursor after every real row
+        Timestamp cursorStart = Timestamp.valueOf(beforeStart != null ? beforeStart : LocalDateTime.of(9999, 12, 31, 23, 59));
+        int cursorId = (beforeStart != null) ? beforeId : Integer.MAX_VALUE;
 
         PooledConnection pConn = null;
 
@@ -1505,11 +1749,28 @@ public class DBController {
             pConn = pool.getConnection();
             Connection conn = pConn.getConnection();
 
+            // subscriber number from the identity cache instead of a JOIN per table
+            String subNumber = getSubscriberNumberByUserId(conn, subscriberUserId);
+            if (subNumber == null) return new SubscriberHistoryResponse(out, stats, false);
+
             try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setInt(1, subscriberUserId);
+                int i = 1;
+                for (int branch = 0; branch < 2; branch++) {
+                    ps.setString(i++, subNumber);
+                    ps.setTimestamp(i++, cursorStart);
+                    ps.setTimestamp(i++, cursorStart);
+                    ps.setInt(i++, cursorId);
+                    ps.setInt(i++, size + 1);
+                }
+                ps.setInt(i, size + 1);
 
                 try (ResultSet rs = ps.executeQuery()) {
                     while (rs.next()) {
+                        if (out.size() == size) {
+                            hasMore = true;
+                            break;
+                        }
+                        int id = rs.getInt("reservation_id");
                         var start = rs.getTimestamp("start_time").toLocalDateTime();
                         var end = rs.getTimestamp("end_time").toLocalDateTime();
                         int diners = rs.getInt("dinners_number");
@@ -1518,18 +1779,20 @@ public class DBController {
                         String status = rs.getString("status");
                         var created = rs.getTimestamp("created_at").toLocalDateTime();
 
-                        out.add(new ReservationHistoryRow(start, end, diners, table, code, status, created));
+                        out.add(new ReservationHistoryRow(id, start, end, diners, table, code, status, created));
                     }
                 }
             }
 
+            stats = new SubscriberStatsDAO(conn).find(subNumber);
+
         } catch (Exception e) {
             e.printStackTrace();
         } finally {
             if (pConn != null)
             	pool.releaseConnection(pConn);
         }
-        return out;
+        return new SubscriberHistoryResponse(out, stats, hasMore);
     }
     
     
@@ -1558,7 +1821,13 @@ public class DBController {
             }
 
             WaitingListDAO dao = new WaitingListDAO(conn);
-            return dao.joinAsSubscriber(userId, diners, phone, email);
+            String code = dao.joinAsSubscriber(userId, diners, phone, email);
+            if (code != null) {
+                indexNewWaitingEntry(conn, code);
+                new ReportAggregateDAO(conn).recordSubscriberWaitingJoin(LocalDateTime.now());
+                ReportCache.getInstance().onSubscriberWaitingJoin(LocalDate.now());
+            }
+            return code;
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -1571,14 +1840,12 @@ public class DBController {
 
 
     /**
-     * Generates a random waiting-list confirmation code in the format WLxxxxxx.
+     * Allocates a unique waiting-list confirmation code in the format WLxxxxxx.
      *
      * @return waiting list code
      */
     private String generateWLConfirmationCode() {
-        SecureRandom random = new SecureRandom();
-        int number = 100000 + random.nextInt(900000); // 6 ספרות
-        return "WL" + number;
+        return ConfirmationCodeAllocator.getInstance().nextWaitingCode();
     }
 
 
@@ -1597,7 +1864,12 @@ public class DBController {
             Connection conn = pConn.getConnection();
 
             WaitingListDAO dao = new WaitingListDAO(conn);
-            return dao.leaveAsSubscriber(userId);
+            String subNumber = dao.getSubscriberNumberByUserId(userId);
+            if (subNumber == null) return false;
+
+            boolean ok = dao.leaveBySubscriberNumber(subNumber);
+            waitingIndex.removeBySubscriber(subNumber);
+            return ok;
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -1609,42 +1881,6 @@ public class DBController {
     }
 
     
-    /**
-     * Counts completed visits for a given subscriber user.
-     *
-     * @param subscriberUserId subscriber user id
-     * @return number of COMPLETED reservations
-     */
-    // Subscriber Visit History 
-    public int countSubscriberVisits(int subscriberUserId) {
-        String sql =
-            "SELECT COUNT(*) AS c " +
-            "FROM reservations r " +
-            "JOIN subscribers s ON s.subscriber_number = r.subscriber_number " +
-            "WHERE s.user_id = ? AND r.status = 'COMPLETED'";
-
-        PooledConnection pConn = null;
-
-        try {
-            pConn = pool.getConnection();
-            Connection conn = pConn.getConnection();
-
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setInt(1, subscriberUserId);
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (rs.next()) return rs.getInt("c");
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        } finally {
-            if (pConn != null)
-            	pool.releaseConnection(pConn);
-        }
-        return 0;
-        
-    }
-    
     /**
      * Adds a guest to the waiting list (if currently within working hours).
      *
@@ -1667,7 +1903,9 @@ public class DBController {
             }
 
             WaitingListDAO dao = new WaitingListDAO(conn);
-            return dao.joinAsGuest(diners, phone, email);
+            String code = dao.joinAsGuest(diners, phone, email);
+            if (code != null) indexNewWaitingEntry(conn, code);
+            return code;
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -1687,13 +1925,16 @@ public class DBController {
         PooledConnection pConn = null;
 
         try {
+            if (!ConfirmationCodeFilter.getInstance().mightExist(confirmationCode)) return false;
+
             pConn = pool.getConnection();
             pConn.touch();
             Connection conn = pConn.getConnection();
 
-            
             WaitingListDAO dao = new WaitingListDAO(conn);
-            return dao.leaveAsGuest(confirmationCode);
+            boolean ok = dao.leaveAsGuest(confirmationCode);
+            if (ok) waitingIndex.removeByCode(confirmationCode);
+            return ok;
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -1713,17 +1954,17 @@ public class DBController {
      */
     public String findConfirmationCodeByEmailAndPhone(String email, String phone) {
 
-        String safeEmail = (email == null) ? "" : email.trim();
-        String safePhone = (phone == null) ? "" : phone.trim();
+        String emailKey = ContactKeys.email(email);
+        String phoneKey = ContactKeys.phone(phone);
 
-        if (safeEmail.isEmpty() || safePhone.isEmpty()) return null;
+        if (emailKey == null || phoneKey == null) return null;
 
         // Pick the most relevant reservation:
         // prefer ACTIVE / CHECKED_IN, newest first
         String sql =
             "SELECT confirmation_code " +
             "FROM reservations " +
-            "WHERE email = ? AND phone = ? " +
+            "WHERE email_key = ? AND phone_key = ? " +
             "  AND status IN ('ACTIVE','CHECKED_IN') " +
             "ORDER BY created_at DESC " +
             "LIMIT 1";
@@ -1735,8 +1976,8 @@ public class DBController {
             Connection conn = pConn.getConnection();
 
             try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setString(1, safeEmail);
-                ps.setString(2, safePhone);
+                ps.setString(1, emailKey);
+                ps.setString(2, phoneKey);
 
                 try (ResultSet rs = ps.executeQuery()) {
                     if (rs.next()) return rs.getString("confirmation_code");
@@ -1747,13 +1988,13 @@ public class DBController {
             String sql2 =
                 "SELECT confirmation_code " +
                 "FROM reservations " +
-                "WHERE email = ? AND phone = ? " +
+                "WHERE email_key = ? AND phone_key = ? " +
                 "ORDER BY created_at DESC " +
                 "LIMIT 1";
 
             try (PreparedStatement ps = conn.prepareStatement(sql2)) {
-                ps.setString(1, safeEmail);
-                ps.setString(2, safePhone);
+                ps.setString(1, emailKey);
+                ps.setString(2, phoneKey);
 
                 try (ResultSet rs = ps.executeQuery()) {
                     if (rs.next()) return rs.getString("confirmation_code");
@@ -1789,19 +2030,17 @@ public class DBController {
             pConn = pool.getConnection();
             Connection conn = pConn.getConnection();
 
-            // Pick the latest ACTIVE reservation that matches
+            // Pick the latest ACTIVE reservation that matches (a blank input has a NULL key and matches nothing)
             String sql =
                 "SELECT confirmation_code, email, phone " +
                 "FROM reservations " +
-                "WHERE status='ACTIVE' AND (" +
-                " (email<>'' AND email=? ) OR (phone<>'' AND phone=? )" +
-                ") " +
+                "WHERE status='ACTIVE' AND (email_key = ? OR phone_key = ?) " +
                 "ORDER BY created_at DESC " +
                 "LIMIT 1";
 
             try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setString(1, safeEmail);
-                ps.setString(2, safePhone);
+                ps.setString(1, ContactKeys.email(safeEmail));
+                ps.setString(2, ContactKeys.phone(safePhone));
 
                 try (ResultSet rs = ps.executeQuery()) {
                     if (!rs.next()) return "No active reservation found for these details.";
@@ -1839,60 +2078,68 @@ public class DBController {
     }
     
     /**
-     * Builds monthly statistics about dining duration and check-in delay for COMPLETED reservations.
-     * Also persists the report to the DB.
+     * Returns monthly statistics about dining duration and check-in delay for COMPLETED reservations.
+     * <p>
+     * Served from {@link ReportCache}; on a miss from {@code monthly_time_report} (kept up to date
+     * incrementally on every completion). A month without a stored row is computed once from
+     * {@code reservations} and stored.
      *
      * @param month month number (1-12)
      * @param year  year number
      * @return map with keys: Normal, Delayed, Extended (or null on error)
      */
     public Map<String, Integer> generateMonthlyTimeReport(int month, int year) {
-        Map<String, Integer> stats = new HashMap<>();
-        stats.put("Normal", 0);
-        stats.put("Delayed", 0);
-        stats.put("Extended", 0);
-
-        String sql = "SELECT start_time, check_in_time, end_time FROM reservations " +
-                     "WHERE status = 'COMPLETED' " +
-                     "AND MONTH(start_time) = ? AND YEAR(start_time) = ?";
+        return ReportCache.getInstance().get(ReportRangeService.TYPE_TIME, month, year, this::loadMonthlyTimeReport);
+    }
 
+    /**
+     * Loads the monthly time report from the DB (cache miss path of {@link #generateMonthlyTimeReport(int, int)}).
+     */
+    private Map<String, Integer> loadMonthlyTimeReport(int month, int year) {
         PooledConnection pConn = null;
         try {
             pConn = pool.getConnection();
             Connection conn = pConn.getConnection();
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setInt(1, month);
-                stmt.setInt(2, year);
+            ReportAggregateDAO dao = new ReportAggregateDAO(conn);
+            Map<String, Integer> stats = dao.findTimeReport(month, year);
+            return (stats != null) ? stats : dao.recomputeTimeReport(month, year);
 
-                try (ResultSet rs = stmt.executeQuery()) {
-                    while (rs.next()) {
-                        Timestamp start = rs.getTimestamp("start_time");
-                        Timestamp checkIn = rs.getTimestamp("check_in_time");
-                        Timestamp end = rs.getTimestamp("end_time");
-
-                        if (checkIn == null || end == null) continue;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            if (pConn != null) pool.releaseConnection(pConn);
+        }
+    }
 
-                        long plannedTime = start.getTime();
-                        long arrivalTime = checkIn.getTime();
-                        long leaveTime = end.getTime();
+    /**
+     * Returns monthly subscriber activity stats:
+     * completed subscriber orders and subscriber waiting-list joins.
+     * <p>
+     * Served from {@link ReportCache}; on a miss from {@code monthly_subscriber_report} (kept up to
+     * date incrementally). A month without a stored row is computed once and stored.
+     *
+     * @param month month number (1-12)
+     * @param year  year number
+     * @return map with keys: Orders, WaitingList (or null on error)
+     */
+    public Map<String, Integer> generateMonthlySubscriberReport(int month, int year) {
+        return ReportCache.getInstance().get(ReportRangeService.TYPE_SUBSCRIBER, month, year, this::loadMonthlySubscriberReport);
+    }
 
-                        long durationMinutes = (leaveTime - arrivalTime) / (60 * 1000);
-                        long delayMinutes = (arrivalTime - plannedTime) / (60 * 1000);
+    /**
+     * Loads the monthly subscriber report from the DB (cache miss path of {@link #generateMonthlySubscriberReport(int, int)}).
+     */
+    private Map<String, Integer> loadMonthlySubscriberReport(int month, int year) {
+        PooledConnection pConn = null;
+        try {
+            pConn = pool.getConnection();
+            Connection conn = pConn.getConnection();
 
-                        if (durationMinutes > 120) {
-                            stats.put("Extended", stats.get("Extended") + 1);
-                        } else if (delayMinutes > 0 && delayMinutes < 15) {
-                            stats.put("Delayed", stats.get("Delayed") + 1);
-                        } else {
-                            stats.put("Normal", stats.get("Normal") + 1);
-                        }
-                    }
-                }
-            }
-            
-            // Call the helper method (now also non-static)
-            saveTimeReportToDB(month, year, stats);
+            ReportAggregateDAO dao = new ReportAggregateDAO(conn);
+            Map<String, Integer> stats = dao.findSubscriberReport(month, year);
+            return (stats != null) ? stats : dao.recomputeSubscriberReport(month, year);
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -1900,40 +2147,72 @@ public class DBController {
         } finally {
             if (pConn != null) pool.releaseConnection(pConn);
         }
+    }
 
-        return stats;
+    /**
+     * Returns a monthly report for every month of an inclusive range (e.g. a full year trend).
+     * Months are loaded in parallel by {@link ReportRangeService}; cached months are served by {@link ReportCache}.
+     *
+     * @param type {@link ReportRangeService#TYPE_TIME} or {@link ReportRangeService#TYPE_SUBSCRIBER}
+     * @param from first month (inclusive)
+     * @param to   last month (inclusive)
+     * @return ordered map {@code "yyyy-MM"} -> report map (same keys as the single-month reports)
+     * @throws IllegalArgumentException if the type is unknown or the range is invalid
+     */
+    public Map<String, Map<String, Integer>> generateMonthlyReportRange(String type, YearMonth from, YearMonth to) {
+        return generateMonthlyReportRange(type, from, to, null);
     }
 
     /**
-     * Saves (or updates) the monthly time report into {@code monthly_time_report}.
+     * Same as {@link #generateMonthlyReportRange(String, YearMonth, YearMonth)}, reporting progress
+     * as {@code (monthsDone, monthsTotal)} while months finish.
      *
-     * @param month month number (1-12)
-     * @param year  year number
-     * @param stats computed statistics map
+     * @param type     {@link ReportRangeService#TYPE_TIME} or {@link ReportRangeService#TYPE_SUBSCRIBER}
+     * @param from     first month (inclusive)
+     * @param to       last month (inclusive)
+     * @param progress progress callback (may be null)
+     * @return ordered map {@code "yyyy-MM"} -> report map
+     * @throws IllegalArgumentException if the type is unknown or the range is invalid
      */
-    private void saveTimeReportToDB(int month, int year, Map<String, Integer> stats) {
-        String sql = "INSERT INTO monthly_time_report (report_year, report_month, total_normal, total_delayed, total_extended, generated_date) " +
-                     "VALUES (?, ?, ?, ?, ?, NOW()) " +
-                     "ON DUPLICATE KEY UPDATE " +
-                     "total_normal = VALUES(total_normal), " +
-                     "total_delayed = VALUES(total_delayed), " +
-                     "total_extended = VALUES(total_extended), " +
-                     "generated_date = NOW()";
+    public Map<String, Map<String, Integer>> generateMonthlyReportRange(String type, YearMonth from, YearMonth to,
+                                                                        BiConsumer<Integer, Integer> progress) {
+        if (ReportRangeService.TYPE_TIME.equals(type)) {
+            return ReportRangeService.getInstance().compute(type, from, to, this::generateMonthlyTimeReport, progress);
+        }
+        if (ReportRangeService.TYPE_SUBSCRIBER.equals(type)) {
+            return ReportRangeService.getInstance().compute(type, from, to, this::generateMonthlySubscriberReport, progress);
+        }
+        throw new IllegalArgumentException("Unknown report type: " + type);
+    }
 
+    /**
+     * Brings the monthly report tables up to date at server startup:
+     * recomputes the current month, and every month that has data but no stored row
+     * (data from before incremental maintenance). Closed months with a stored row are not touched.
+     *
+     * @return number of months recomputed
+     */
+    public int refreshMonthlyReports() {
         PooledConnection pConn = null;
+        int refreshed = 0;
         try {
             pConn = pool.getConnection();
             Connection conn = pConn.getConnection();
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setInt(1, year);
-                stmt.setInt(2, month);
-                stmt.setInt(3, stats.get("Normal"));
-                stmt.setInt(4, stats.get("Delayed"));
-                stmt.setInt(5, stats.get("Extended"));
-
-                stmt.executeUpdate();
-                System.out.println("Report saved/updated for " + month + "/" + year);
+            ReportAggregateDAO dao = new ReportAggregateDAO(conn);
+            LocalDate today = LocalDate.now();
+
+            List<int[]> months = dao.findMonthsMissingReports();
+            months.add(new int[] { today.getYear(), today.getMonthValue() });
+
+            java.util.Set<Integer> done = new java.util.HashSet<>();
+            for (int[] ym : months) {
+                if (!done.add(ym[0] * 100 + ym[1])) continue;
+
+                dao.recomputeTimeReport(ym[1], ym[0]);
+                dao.recomputeSubscriberReport(ym[1], ym[0]);
+                ReportCache.getInstance().invalidateMonth(YearMonth.of(ym[0], ym[1]));
+                refreshed++;
             }
 
         } catch (Exception e) {
@@ -1941,116 +2220,249 @@ public class DBController {
         } finally {
             if (pConn != null) pool.releaseConnection(pConn);
         }
+        return refreshed;
     }
     
     /**
-     * Generates monthly subscriber activity stats:
-     * completed subscriber orders and subscriber waiting-list joins.
-     * Also persists the report to the DB.
+     * Incremental daily rollup job.
+     * <p>
+     * Recomputes {@code daily_rollup} for every day from the stored watermark up to today
+     * (31 days per batch on the first run), then moves the watermark to the earliest day that can
+     * still change: today, or an earlier day that still has ACTIVE/CHECKED_IN reservations.
      *
-     * @param month month number (1-12)
-     * @param year  year number
-     * @return map with keys: Orders, WaitingList (or null on error)
+     * @return number of day rows written
      */
-    public Map<String, Integer> generateMonthlySubscriberReport(int month, int year) {
-        Map<String, Integer> stats = new HashMap<>();
-        stats.put("Orders", 0);
-        stats.put("WaitingList", 0);
-
+    public int runDailyRollupJob() {
         PooledConnection pConn = null;
+        int written = 0;
         try {
             pConn = pool.getConnection();
             Connection conn = pConn.getConnection();
 
-            // ---------------------------------------------------------
-            // 1. COUNT SUBSCRIBER ORDERS (From 'reservations')
-            // ---------------------------------------------------------
-            String sqlOrders = "SELECT COUNT(*) AS count FROM reservations " +
-                               "WHERE status = 'COMPLETED' " +
-                               "AND subscriber_number IS NOT NULL " +
-                               "AND subscriber_number != '' " +       // Ensure not empty string
-                               "AND MONTH(start_time) = ? AND YEAR(start_time) = ?";
-
-            try (PreparedStatement stmt = conn.prepareStatement(sqlOrders)) {
-                stmt.setInt(1, month);
-                stmt.setInt(2, year);
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        stats.put("Orders", rs.getInt("count"));
-                    }
-                }
+            DailyRollupDAO dao = new DailyRollupDAO(conn);
+            if (!rollupTablesReady) {
+                dao.ensureTables();
+                rollupTablesReady = true;
             }
+            LocalDate today = LocalDate.now();
 
-            // ---------------------------------------------------------
-            // 2. COUNT SUBSCRIBER WAITING LIST (From 'waiting_list')
-            // ---------------------------------------------------------
-            // Using the 'request_time' column from your image
-            String sqlWait = "SELECT COUNT(*) AS count FROM waiting_list " +
-                             "WHERE subscriber_number IS NOT NULL " +
-                             "AND subscriber_number != '' " +
-                             "AND MONTH(request_time) = ? AND YEAR(request_time) = ?";
-
-            try (PreparedStatement stmt = conn.prepareStatement(sqlWait)) {
-                stmt.setInt(1, month);
-                stmt.setInt(2, year);
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        stats.put("WaitingList", rs.getInt("count"));
-                    }
-                }
+            LocalDate from = dao.getWatermark();
+            if (from == null) from = dao.findEarliestDataDay();
+            if (from == null || from.isAfter(today)) from = today;
+
+            LocalDate end = today.plusDays(1);
+            while (from.isBefore(end)) {
+                LocalDate batchEnd = from.plusDays(31).isBefore(end) ? from.plusDays(31) : end;
+                written += dao.rebuildRange(from, batchEnd);
+                from = batchEnd;
             }
 
-            // 3. SAVE REPORT TO DB
-            saveSubscriberReportToDB(month, year, stats);
+            LocalDate open = dao.findEarliestOpenDay();
+            dao.setWatermark((open != null && open.isBefore(today)) ? open : today);
 
         } catch (Exception e) {
             e.printStackTrace();
-            return null;
         } finally {
             if (pConn != null) pool.releaseConnection(pConn);
         }
+        return written;
+    }
 
-        return stats;
+    /**
+     * Hot/cold archival job.
+     * <p>
+     * Once per day, moves COMPLETED and CANCELED reservations that started more than
+     * {@value #ARCHIVE_AFTER_DAYS} days ago (and their bills) to the archive tables, in batches of
+     * {@value #ARCHIVE_BATCH_SIZE} so each transaction holds its row locks only briefly.
+     * Subscriber history and reports keep reading the archived rows.
+     *
+     * @return number of reservations archived by this call
+     */
+    public int runArchivalJob() {
+        LocalDate today = LocalDate.now();
+        if (today.equals(lastArchiveDay)) return 0;
+
+        PooledConnection pConn = null;
+        int archived = 0;
+        try {
+            pConn = pool.getConnection();
+            Connection conn = pConn.getConnection();
+
+            ArchiveDAO dao = new ArchiveDAO(conn);
+            LocalDateTime cutoff = today.minusDays(ARCHIVE_AFTER_DAYS).atStartOfDay();
+
+            int n;
+            do {
+                n = dao.archiveBatch(cutoff, ARCHIVE_BATCH_SIZE);
+                archived += n;
+            } while (n == ARCHIVE_BATCH_SIZE);
+
+            lastArchiveDay = today;
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            if (pConn != null) pool.releaseConnection(pConn);
+        }
+        return archived;
     }
-    
+
     /**
-     * Saves (or updates) the monthly subscriber report into {@code monthly_subscriber_report}.
+     * Aggregates analytics for any inclusive date range from the daily rollups.
      *
-     * @param month month number (1-12)
-     * @param year  year number
-     * @param stats computed statistics map
+     * @param from first day (inclusive)
+     * @param to   last day (inclusive)
+     * @return ordered map of metric name to value (or null on error)
      */
- // Helper method to save to the database
-    private void saveSubscriberReportToDB(int month, int year, Map<String, Integer> stats) {
-        String sql = "INSERT INTO monthly_subscriber_report (report_year, report_month, subscriber_orders, subscriber_waiting_list, generated_date) " +
-                     "VALUES (?, ?, ?, ?, NOW()) " +
-                     "ON DUPLICATE KEY UPDATE " +
-                     "subscriber_orders = VALUES(subscriber_orders), " +
-                     "subscriber_waiting_list = VALUES(subscriber_waiting_list), " +
-                     "generated_date = NOW()";
+    public Map<String, Double> getRangeReport(LocalDate from, LocalDate to) {
+        PooledConnection pConn = null;
+        try {
+            pConn = pool.getConnection();
+            Connection conn = pConn.getConnection();
+
+            return new DailyRollupDAO(conn).sumRange(from, to.plusDays(1));
 
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            if (pConn != null) pool.releaseConnection(pConn);
+        }
+    }
+
+    /**
+     * Seat utilization report: occupied vs. available seat-minutes per 30-minute bucket per weekday.
+     * <p>
+     * Available seat-minutes come from each day's opening hours (special dates first, then the
+     * weekly schedule) times the current total seats; occupied seat-minutes come from one streamed
+     * pass over the seatings that started in the range.
+     *
+     * @param from first day (inclusive)
+     * @param to   last day (inclusive)
+     * @return occupancy report (or null on error)
+     */
+    public OccupancyReport generateOccupancyReport(LocalDate from, LocalDate to) {
         PooledConnection pConn = null;
         try {
             pConn = pool.getConnection();
             Connection conn = pConn.getConnection();
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setInt(1, year);
-                stmt.setInt(2, month);
-                stmt.setInt(3, stats.get("Orders"));
-                stmt.setInt(4, stats.get("WaitingList"));
+            OccupancyDAO dao = new OccupancyDAO(conn);
+            OccupancyAccumulator acc = new OccupancyAccumulator();
+            int seats = dao.getTotalSeats();
 
-                stmt.executeUpdate();
-                System.out.println("Subscriber Report saved for " + month + "/" + year);
+            for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+                HoursRange hours = getOpeningHoursOrDefault(conn, d);
+                if (hours.isClosed || hours.open == null || hours.close == null) continue;
+                acc.addOpenWindow(d, hours.open, hours.close, seats);
             }
 
+            dao.streamSeatings(TimeRange.days(from, to.plusDays(1)), acc);
+            return acc.toReport(from, to, seats);
+
         } catch (Exception e) {
             e.printStackTrace();
+            return null;
         } finally {
             if (pConn != null) pool.releaseConnection(pConn);
         }
     }
-    
+
+    /**
+     * Streams reservations or bills (live and archived) into an export sink.
+     * <p>
+     * The pooled connection is held until the last row was handed to the sink, so the caller
+     * should run this off the request thread (see {@link ExportService}).
+     *
+     * @param dataset {@link ExportDAO#DATASET_RESERVATIONS} or {@link ExportDAO#DATASET_BILLS}
+     * @param range   day range to export, or {@code null} for the whole history
+     * @param sink    receives the rows
+     * @return number of rows exported, or -1 on failure
+     */
+    public long exportData(String dataset, TimeRange range, ExportDAO.RowSink sink) {
+        PooledConnection pConn = null;
+        try {
+            pConn = pool.getConnection();
+            return new ExportDAO(pConn.getConnection()).stream(dataset, range, sink);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return -1;
+        } finally {
+            if (pConn != null) pool.releaseConnection(pConn);
+        }
+    }
+
+    /**
+     * Fills missing contact keys ({@code email_key}, {@code phone_key}) of older rows in batches.
+     *
+     * @return number of rows updated, or -1 on failure (lookups then miss the rows not filled yet)
+     */
+    public int backfillContactKeys() {
+        PooledConnection pConn = null;
+        try {
+            pConn = pool.getConnection();
+            pConn.touch();
+            return new ContactKeyDAO(pConn.getConnection()).backfillAll();
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return -1;
+        } finally {
+            if (pConn != null) pool.releaseConnection(pConn);
+        }
+    }
+
+    /**
+     * Reloads the {@link KioskCodeIndex} with today's ACTIVE and CHECKED_IN reservations
+     * (see {@link KioskCodeIndex#window()}). Runs at startup and on every scheduler tick, on every
+     * server node, so changes made elsewhere (other nodes, bulk cancellations, waiting-list
+     * invites) reach the index within one tick.
+     *
+     * @return number of indexed codes, or -1 on failure (the old index is kept)
+     */
+    public int refreshKioskIndex() {
+        TimeRange window = KioskCodeIndex.window();
+        String sql =
+            "SELECT reservation_id, confirmation_code, status, start_time, end_time, table_number, " +
+            "       dinners_number, subscriber_number, check_in_time " +
+            "FROM reservations " +
+            "WHERE status IN ('ACTIVE','CHECKED_IN') AND " + TimeRange.predicate("start_time");
+
+        PooledConnection pConn = null;
+        try {
+            pConn = pool.getConnection();
+            Connection conn = pConn.getConnection();
+
+            Map<String, KioskCodeIndex.Entry> snapshot = new HashMap<>();
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                window.bind(ps, 1);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Timestamp end = rs.getTimestamp("end_time");
+                        snapshot.put(rs.getString("confirmation_code"), new KioskCodeIndex.Entry(
+                                rs.getInt("reservation_id"),
+                                rs.getString("status"),
+                                rs.getTimestamp("start_time").toLocalDateTime(),
+                                end == null ? null : end.toLocalDateTime(),
+                                rs.getInt("table_number"),
+                                rs.getInt("dinners_number"),
+                                rs.getString("subscriber_number"),
+                                rs.getTimestamp("check_in_time")));
+                    }
+                }
+            }
+
+            KioskCodeIndex.getInstance().replaceAll(snapshot);
+            return snapshot.size();
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return -1;
+        } finally {
+            if (pConn != null) pool.releaseConnection(pConn);
+        }
+    }
+
     /**
      * Auto-cancels ACTIVE reservations that were not checked in within 15 minutes of start_time.
      * Sends a notification to email/phone if available.
@@ -2061,13 +2473,15 @@ public class DBController {
     public int cancelNoShowReservations(NotificationService notifier) {
         PooledConnection pConn = null;
         int canceled = 0;
+        List<String> canceledCodes = new ArrayList<>();
 
         String selectSql =
-            "SELECT reservation_id, confirmation_code, email, phone, start_time " +
+            "SELECT reservation_id, confirmation_code, email, phone, start_time, subscriber_number " +
             "FROM reservations " +
             "WHERE status='ACTIVE' " +
             "  AND check_in_time IS NULL " +
-            "  AND start_time <= (NOW() - INTERVAL 15 MINUTE)";
+            "  AND start_time <= (NOW() - INTERVAL 15 MINUTE) " +
+            "FOR UPDATE SKIP LOCKED"; // rows claimed by another server node are left to it
 
         String updateSql =
             "UPDATE reservations " +
@@ -2080,6 +2494,7 @@ public class DBController {
 
             boolean oldAuto = conn.getAutoCommit();
             conn.setAutoCommit(false);
+            SubscriberStatsDAO statsDao = new SubscriberStatsDAO(conn);
 
             try (PreparedStatement psSel = conn.prepareStatement(selectSql);
                  ResultSet rs = psSel.executeQuery()) {
@@ -2097,6 +2512,8 @@ public class DBController {
 
                         if (rows > 0) {
                             canceled++;
+                            canceledCodes.add(code);
+                            statsDao.recordNoShow(rs.getString("subscriber_number"));
 
                             String startTime = (startTs == null)
                                     ? ""
@@ -2117,7 +2534,7 @@ public class DBController {
                                 try (PreparedStatement psW =
                                         conn.prepareStatement("UPDATE waiting_list SET status='EXPIRED' WHERE confirmation_code=? AND status='INVITED'")) {
                                     psW.setString(1, code);
-                                    psW.executeUpdate();
+                                    if (psW.executeUpdate() > 0) InviteExpiryTimer.getInstance().onExpired(code);
                                 }
                             }
 
@@ -2128,6 +2545,7 @@ public class DBController {
 
             conn.commit();
             conn.setAutoCommit(oldAuto);
+            for (String c : canceledCodes) KioskCodeIndex.getInstance().onStatus(c, "CANCELED", null);
             return canceled;
 
         } catch (Exception e) {
@@ -2150,113 +2568,291 @@ public class DBController {
  // ============================================================
 
  /**
-  * Finds the oldest WAITING entry that can fit an available table RIGHT NOW,
-  * marks it INVITED (15 min window), creates an ACTIVE reservation with code WLxxxx,
-  * and sends email/sms.
+  * Runs one matching pass over the waiting list and invites every party that can be seated now.
+  * <p>
+  * Takes the WAITING queue from the in-memory {@link WaitingQueueIndex} (each tick only reads rows
+  * added since the last sync, see {@link #syncWaitingQueue(Connection)})
+  * and loads all free tables (for the full [now, now+2h] window), computes a fair assignment in memory
+  * with {@link WaitingListMatcher} (size buckets + aging, so a large party at the head no longer blocks
+  * smaller parties behind it), then marks all chosen rows INVITED (15 min window) and creates their
+  * WLxxxx reservations in a single transaction. The conditional INVITED update is the guard against
+  * a stale index. Email/SMS are sent after the commit.
   *
   * Returns how many invites were created in this run (usually 0..N).
   */
     public int processWaitingListInvites(NotificationService notifier) {
         PooledConnection pConn = null;
-        int invitedCount = 0;
 
         try {
             pConn = pool.getConnection();
             Connection conn = pConn.getConnection();
 
+            LocalDateTime now = LocalDateTime.now();
+
+            // ✅ 1) Only invite during opening hours AND only if there is time for a full 2h seating
+            HoursRange hours = getOpeningHoursOrDefault(conn, now.toLocalDate());
+            if (hours.isClosed) return 0; // Restaurant is closed today
+
+            LocalTime nowT = now.toLocalTime();
+            LocalTime endT = now.plusHours(2).toLocalTime();
+
+            if (nowT.isBefore(hours.open) || nowT.isAfter(hours.close)) return 0; // outside working hours
+            if (endT.isAfter(hours.close)) return 0; // too close to closing
+
+            // ✅ 2) Pick up parties that joined through another node (new ids only; full reload on the
+            //       resync interval), then match from memory
+            syncWaitingQueue(conn);
+            List<WaitingQueueIndex.Entry> queue = waitingIndex.snapshot();
+            if (queue.isEmpty()) return 0;
+
             boolean oldAuto = conn.getAutoCommit();
             conn.setAutoCommit(false);
 
+            List<WaitingCandidate> invited = new ArrayList<>();
+            Map<Integer, Integer> tableByWaitingId = new HashMap<>();
+
+            List<Integer> stale = new ArrayList<>();
+
             try {
-                // Repeat a few times: there might be more than one free table right now
-                for (int loop = 0; loop < 10; loop++) {
+                // ✅ 3) Load all free tables once (tables claimed by other nodes are skipped)
+                List<WaitingListMatcher.FreeTable> freeTables = loadFreeTablesForUpdate(conn, now);
+                if (freeTables.isEmpty()) {
+                    conn.rollback();
+                    return 0;
+                }
 
-                    LocalDateTime now = LocalDateTime.now();
+                // ✅ 4) Compute the assignment in memory
+                List<WaitingListMatcher.Party> parties = new ArrayList<>();
+                Map<Integer, WaitingQueueIndex.Entry> byId = new HashMap<>();
+                for (WaitingQueueIndex.Entry e : queue) {
+                    long waited = (e.requestTime == null) ? 0
+                            : java.time.Duration.between(e.requestTime, now).toMinutes();
+                    parties.add(new WaitingListMatcher.Party(e.id, e.diners, waited));
+                    byId.put(e.id, e);
+                }
 
-                    // ✅ 1) Only invite during opening hours AND only if there is time for a full 2h seating
-                    HoursRange hours = getOpeningHoursOrDefault(conn, now.toLocalDate());
-                    
-                    if (hours.isClosed) {
-                        break; // Restaurant is closed today -> stop sending invites
-                    }
-                    
-                    LocalTime open = hours.open;
-                    LocalTime close = hours.close;
+                List<WaitingListMatcher.Invite> plan = WaitingListMatcher.match(parties, freeTables);
 
-                    LocalTime nowT = now.toLocalTime();
-                    LocalTime endT = now.plusHours(2).toLocalTime();
+                // ✅ 5) Apply all invites in one transaction (a savepoint per party, so one bad row
+                //       does not roll back the others)
+                for (WaitingListMatcher.Invite inv : plan) {
+                    WaitingCandidate cand = toCandidate(byId.get(inv.waitingId));
+                    Savepoint sp = conn.setSavepoint();
 
-                    // Not open now
-                    if (nowT.isBefore(open) || nowT.isAfter(close)) {
-                        break; // outside working hours -> stop sending invites
-                    }
+                    try {
+                        if (!markWaitingInvited(conn, cand.id, inv.tableNumber)) {
+                            stale.add(cand.id); // left, or invited by another node -> drop from the index
+                            continue;
+                        }
 
-                    // Not enough time left for 2 hours before closing
-                    if (endT.isAfter(close)) {
-                        break; // too close to closing -> stop invites
-                    }
+                        if (cand.subscriberNumber != null && !cand.subscriberNumber.isBlank()) {
+                            fillSubscriberContactIfMissing(conn, cand);
+                        }
+                        if (cand.phone == null) cand.phone = "";
+                        if (cand.email == null) cand.email = "";
 
-                    WaitingCandidate cand = getOldestWaitingCandidateForUpdate(conn);
-                    if (cand == null) break;
+                        if (!createReservationFromWaiting(conn, cand, inv.tableNumber, now)) {
+                            throw new SQLException("Failed to create reservation for waiting code " + cand.code);
+                        }
 
-                    // ✅ 2) Find a table available for the FULL window: [now, now+2h]
-                    Integer tableNum = findBestAvailableTable(conn, now, cand.diners);
-                    if (tableNum == null) {
-                        // No table for this candidate right now -> stop (don’t skip them)
-                        break;
+                        invited.add(cand);
+                        tableByWaitingId.put(cand.id, inv.tableNumber);
+
+                    } catch (SQLException e) {
+                        // undo this party only, then expire it (as before) so it is not retried every tick
+                        e.printStackTrace();
+                        conn.rollback(sp);
+                        try {
+                            markWaitingExpiredById(conn, cand.id);
+                        } catch (SQLException ex) {
+                            ex.printStackTrace(); // stays WAITING; skipped until the next index resync
+                        }
+                        stale.add(cand.id);
                     }
+                }
 
-                    // Mark waiting row INVITED + assign table + expires
-                    if (!markWaitingInvited(conn, cand.id, tableNum)) {
-                        // someone else took it (race) -> retry loop
-                        continue;
-                    }
+                conn.commit(); // commit before sending email/sms
 
-                    // Create a real reservation using the SAME waiting code (WLxxxx)
-                    boolean created = createReservationFromWaiting(conn, cand, tableNum, now);
-                    if (!created) {
-                        // rollback this invite if reservation insert failed
-                        markWaitingExpired(conn, cand.code);
-                        conn.commit();
-                        continue;
-                    }
+            } catch (Exception e) {
+                e.printStackTrace();
+                try { conn.rollback(); } catch (Exception ignored) {}
+                return 0;
+            } finally {
+                try { conn.setAutoCommit(oldAuto); } catch (Exception ignored) {}
+                for (Integer id : stale) waitingIndex.removeById(id);
+            }
 
-                    conn.commit(); // commit before sending email/sms
+            long invitedMillis = System.currentTimeMillis();
+            for (WaitingCandidate cand : invited) {
+                waitingIndex.removeById(cand.id);
+                InviteExpiryTimer.getInstance().schedule(cand.code, invitedMillis,
+                        invitedMillis + InviteExpiryTimer.INVITE_WINDOW_MILLIS);
+            }
+
+            // ✅ 6) Notify
+            for (WaitingCandidate cand : invited) {
+                String msg =
+                    "A table is now available for you at Bistro.\n" +
+                    "Please arrive within 15 minutes.\n" +
+                    "Your waiting code: " + cand.code + "\n" +
+                    "Table: " + tableByWaitingId.get(cand.id);
 
-                    // Notify
-                    String msg =
-                        "A table is now available for you at Bistro.\n" +
-                        "Please arrive within 15 minutes.\n" +
-                        "Your waiting code: " + cand.code + "\n" +
-                        "Table: " + tableNum;
+                if (!cand.email.isBlank()) {
+                    notifier.sendEmail(cand.email, "Bistro – Table is Ready", msg);
+                }
+                if (!cand.phone.isBlank()) {
+                    notifier.sendSms(cand.phone, msg);
+                }
+            }
 
-                    if (cand.email != null && !cand.email.isBlank()) {
-                        notifier.sendEmail(cand.email, "Bistro – Table is Ready", msg);
+            return invited.size();
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return 0;
+        } finally {
+            if (pConn != null) pool.releaseConnection(pConn);
+        }
+    }
+
+    /**
+     * Expires a single waiting-list invite whose 15-minute window has ended (timer driven).
+     * <p>
+     * In one transaction: cancels the WLxxxx reservation if the party has not checked in
+     * (this releases the held table) and marks the waiting-list row EXPIRED. Does nothing if the
+     * party already checked in or the invite was already expired by the no-show sweep.
+     *
+     * @param waitingCode waiting confirmation code (WLxxxxxx)
+     * @param notifier    notification service
+     * @return true if the invite was expired and its table released, otherwise false
+     */
+    public boolean expireWaitingInvite(String waitingCode, NotificationService notifier) {
+        PooledConnection pConn = null;
+
+        String lockSql =
+            "SELECT id FROM waiting_list WHERE confirmation_code=? AND status='INVITED' FOR UPDATE";
+
+        String cancelSql =
+            "UPDATE reservations SET status='CANCELED' " +
+            "WHERE confirmation_code=? AND status='ACTIVE' AND check_in_time IS NULL";
+
+        String contactSql =
+            "SELECT email, phone FROM reservations WHERE confirmation_code=?";
+
+        String email = null;
+        String phone = null;
+
+        try {
+            pConn = pool.getConnection();
+            Connection conn = pConn.getConnection();
+
+            boolean oldAuto = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+
+            try {
+                try (PreparedStatement ps = conn.prepareStatement(lockSql)) {
+                    ps.setString(1, waitingCode);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (!rs.next()) {
+                            conn.rollback();
+                            return false; // already expired / removed
+                        }
                     }
-                    if (cand.phone != null && !cand.phone.isBlank()) {
-                        notifier.sendSms(cand.phone, msg);
+                }
+
+                try (PreparedStatement ps = conn.prepareStatement(cancelSql)) {
+                    ps.setString(1, waitingCode);
+                    if (ps.executeUpdate() <= 0) {
+                        conn.rollback();
+                        return false; // checked in (accepted) or already canceled
                     }
+                }
+
+                markWaitingExpired(conn, waitingCode);
 
-                    invitedCount++;
-                    conn.setAutoCommit(false); // keep loop safe
+                try (PreparedStatement ps = conn.prepareStatement(contactSql)) {
+                    ps.setString(1, waitingCode);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (rs.next()) {
+                            email = rs.getString("email");
+                            phone = rs.getString("phone");
+                        }
+                    }
                 }
 
-                conn.setAutoCommit(oldAuto);
-                return invitedCount;
+                conn.commit();
 
             } catch (Exception e) {
                 e.printStackTrace();
                 try { conn.rollback(); } catch (Exception ignored) {}
+                return false;
+            } finally {
                 try { conn.setAutoCommit(oldAuto); } catch (Exception ignored) {}
-                return invitedCount;
             }
 
         } catch (Exception e) {
             e.printStackTrace();
-            return invitedCount;
+            return false;
         } finally {
             if (pConn != null) pool.releaseConnection(pConn);
         }
+
+        InviteExpiryTimer.getInstance().onExpired(waitingCode);
+        KioskCodeIndex.getInstance().onStatus(waitingCode, "CANCELED", null);
+
+        String msg =
+            "Your Bistro waiting-list invite (" + waitingCode + ") has expired because you did not arrive within 15 minutes.\n" +
+            "You are welcome to join the waiting list again.";
+
+        if (email != null && !email.isBlank()) {
+            notifier.sendEmail(email, "Bistro – Invite Expired", msg);
+        }
+        if (phone != null && !phone.isBlank()) {
+            notifier.sendSms(phone, msg);
+        }
+        return true;
+    }
+
+    /**
+     * Re-arms expiry timers for invites that are still pending (server restart, or this node just
+     * became the scheduler leader).
+     *
+     * @return number of timers armed
+     */
+    public int rearmInviteTimers() {
+        String sql =
+            "SELECT w.confirmation_code, w.invited_at, w.expires_at " +
+            "FROM waiting_list w " +
+            "JOIN reservations r ON r.confirmation_code = w.confirmation_code " +
+            "WHERE w.status='INVITED' AND r.status='ACTIVE' AND r.check_in_time IS NULL";
+
+        PooledConnection pConn = null;
+        int armed = 0;
+
+        try {
+            pConn = pool.getConnection();
+            Connection conn = pConn.getConnection();
+
+            try (PreparedStatement ps = conn.prepareStatement(sql);
+                 ResultSet rs = ps.executeQuery()) {
+
+                while (rs.next()) {
+                    Timestamp invitedTs = rs.getTimestamp("invited_at");
+                    Timestamp expiresTs = rs.getTimestamp("expires_at");
+
+                    long invited = (invitedTs == null) ? System.currentTimeMillis() : invitedTs.getTime();
+                    long expires = (expiresTs == null) ? invited + InviteExpiryTimer.INVITE_WINDOW_MILLIS : expiresTs.getTime();
+
+                    InviteExpiryTimer.getInstance().schedule(rs.getString("confirmation_code"), invited, expires);
+                    armed++;
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            if (pConn != null) pool.releaseConnection(pConn);
+        }
+        return armed;
     }
 
     /**
@@ -2288,48 +2884,21 @@ public class DBController {
     }
 
     /**
-     * Loads the oldest waiting-list candidate and locks it FOR UPDATE.
-     * Treats NULL/empty status as WAITING.
+     * Copies an in-memory queue entry into a mutable candidate for the invite transaction.
+     * Starts with the guest contact fields (subscriber contact is filled only for invited parties).
      *
-     * @param conn open DB connection
-     * @return waiting candidate or null if none
-     * @throws SQLException if DB operations fail
+     * @param e queue entry
+     * @return waiting candidate
      */
- private WaitingCandidate getOldestWaitingCandidateForUpdate(Connection conn) throws SQLException {
-     // IMPORTANT: your join methods currently insert status NULL -> so we treat NULL as WAITING.
-     String sql =
-         "SELECT id, diners_number, confirmation_code, subscriber_number, guest_phone, guest_email " +
-         "FROM waiting_list " +
-         "WHERE (status IS NULL OR status='' OR status='WAITING') " +
-         "ORDER BY request_time ASC " +
-         "LIMIT 1 FOR UPDATE";
-
-     try (PreparedStatement ps = conn.prepareStatement(sql);
-          ResultSet rs = ps.executeQuery()) {
-
-         if (!rs.next()) return null;
-
-         WaitingCandidate c = new WaitingCandidate();
-         c.id = rs.getInt("id");
-         c.diners = rs.getInt("diners_number");
-         c.code = rs.getString("confirmation_code");
-         c.subscriberNumber = rs.getString("subscriber_number");
-
-         // start with guest fields
-         c.phone = rs.getString("guest_phone");
-         c.email = rs.getString("guest_email");
-
-         // If subscriber and email/phone empty -> try take from users table
-         if (c.subscriberNumber != null && !c.subscriberNumber.isBlank()) {
-             fillSubscriberContactIfMissing(conn, c);
-         }
-
-         // normalize nulls
-         if (c.phone == null) c.phone = "";
-         if (c.email == null) c.email = "";
-
-         return c;
-     }
+ private WaitingCandidate toCandidate(WaitingQueueIndex.Entry e) {
+     WaitingCandidate c = new WaitingCandidate();
+     c.id = e.id;
+     c.diners = e.diners;
+     c.code = e.code;
+     c.subscriberNumber = e.subscriberNumber;
+     c.phone = e.guestPhone;
+     c.email = e.guestEmail;
+     return c;
  }
 
     /**
@@ -2340,23 +2909,10 @@ public class DBController {
      * @throws SQLException if DB operations fail
      */
  private void fillSubscriberContactIfMissing(Connection conn, WaitingCandidate c) throws SQLException {
-     String sql =
-         "SELECT u.email, u.phone " +
-         "FROM subscribers s " +
-         "JOIN users u ON u.id = s.user_id " +
-         "WHERE s.subscriber_number = ? " +
-         "LIMIT 1";
-
-     try (PreparedStatement ps = conn.prepareStatement(sql)) {
-         ps.setString(1, c.subscriberNumber);
-         try (ResultSet rs = ps.executeQuery()) {
-             if (rs.next()) {
-                 String e = rs.getString("email");
-                 String p = rs.getString("phone");
-                 if ((c.email == null || c.email.isBlank()) && e != null) c.email = e;
-                 if ((c.phone == null || c.phone.isBlank()) && p != null) c.phone = p;
-             }
-         }
+     SubscriberIdentityCache.Identity id = SubscriberIdentityCache.getInstance().bySubscriberNumber(conn, c.subscriberNumber);
+     if (id != null) {
+         if ((c.email == null || c.email.isBlank()) && id.email != null) c.email = id.email;
+         if ((c.phone == null || c.phone.isBlank()) && id.phone != null) c.phone = id.phone;
      }
  }
 
@@ -2396,6 +2952,44 @@ public class DBController {
      return null;
  }
 
+    /**
+     * Loads every table that is free for the whole window NOW until NOW+2h and locks those
+     * {@code restaurant_tables} rows until the current transaction ends.
+     * <p>
+     * Uses {@code FOR UPDATE OF t SKIP LOCKED}, so two server nodes matching at the same time
+     * never hand out the same table and never block on each other.
+     *
+     * @param conn open DB connection (inside a transaction)
+     * @param now  current time
+     * @return free tables (may be empty)
+     * @throws SQLException if DB operations fail
+     */
+ private List<WaitingListMatcher.FreeTable> loadFreeTablesForUpdate(Connection conn, LocalDateTime now) throws SQLException {
+     String sql =
+         "SELECT t.table_number, t.capacity " +
+         "FROM restaurant_tables t " +
+         "WHERE NOT EXISTS ( " +
+         "  SELECT 1 FROM reservations r " +
+         "  WHERE r.status IN ('ACTIVE','CHECKED_IN') " +
+         "    AND r.table_number = t.table_number " +
+         "    AND r.start_time < ? AND r.end_time > ? " +
+         ") " +
+         "FOR UPDATE OF t SKIP LOCKED";
+
+     List<WaitingListMatcher.FreeTable> out = new ArrayList<>();
+
+     try (PreparedStatement ps = conn.prepareStatement(sql)) {
+         ps.setTimestamp(1, Timestamp.valueOf(now.plusHours(2)));
+         ps.setTimestamp(2, Timestamp.valueOf(now));
+         try (ResultSet rs = ps.executeQuery()) {
+             while (rs.next()) {
+                 out.add(new WaitingListMatcher.FreeTable(rs.getInt("table_number"), rs.getInt("capacity")));
+             }
+         }
+     }
+     return out;
+ }
+
     /**
      * Marks a waiting-list entry as INVITED and assigns a table, setting a 15-minute expiration.
      *
@@ -2521,8 +3115,8 @@ public class DBController {
 
      String sql =
          "INSERT INTO reservations " +
-         "(dinners_number, confirmation_code, status, table_number, subscriber_number, start_time, end_time, phone, email, created_at) " +
-         "VALUES (?, ?, 'ACTIVE', ?, ?, ?, ?, ?, ?, NOW())";
+         "(dinners_number, confirmation_code, status, table_number, subscriber_number, start_time, end_time, phone, email, created_at, email_key, phone_key) " +
+         "VALUES (?, ?, 'ACTIVE', ?, ?, ?, ?, ?, ?, NOW(), ?, ?)";
 
      try (PreparedStatement ps = conn.prepareStatement(sql)) {
          ps.setInt(1, c.diners);
@@ -2540,6 +3134,8 @@ public class DBController {
 
          ps.setString(7, c.phone == null ? "" : c.phone);
          ps.setString(8, c.email == null ? "" : c.email);
+         ps.setString(9, ContactKeys.email(c.email));
+         ps.setString(10, ContactKeys.phone(c.phone));
 
          return ps.executeUpdate() == 1;
      }
@@ -2563,6 +3159,24 @@ public class DBController {
      }
  }
 
+    /**
+     * Marks a WAITING or INVITED waiting-list entry as EXPIRED (an invite that could not be applied).
+     *
+     * @param conn      open DB connection
+     * @param waitingId waiting_list.id
+     * @throws SQLException if DB operations fail
+     */
+ private void markWaitingExpiredById(Connection conn, int waitingId) throws SQLException {
+     String sql =
+         "UPDATE waiting_list " +
+         "SET status='EXPIRED' " +
+         "WHERE id=? AND status IN ('WAITING','INVITED')";
+     try (PreparedStatement ps = conn.prepareStatement(sql)) {
+         ps.setInt(1, waitingId);
+         ps.executeUpdate();
+     }
+ }
+
     /**
      * Internal container for a waiting-list candidate selected for invitation.
      */
@@ -2591,7 +3205,8 @@ public class DBController {
 	    	    "WHERE status='ACTIVE' " +
 	    	    "  AND reminder_sent_at IS NULL " +
 	    	    "  AND email IS NOT NULL AND email <> '' " +
-	    	    "  AND start_time BETWEEN (NOW() + INTERVAL 120 MINUTE) AND (NOW() + INTERVAL 121 MINUTE)";
+	    	    "  AND start_time BETWEEN (NOW() + INTERVAL 120 MINUTE) AND (NOW() + INTERVAL 121 MINUTE) " +
+	    	    "FOR UPDATE SKIP LOCKED"; // another node may already be sending these
 
 	    
 	    String updateSql =
@@ -2908,7 +3523,7 @@ public class DBController {
 	  String selectSql =
 	      "SELECT reservation_id, confirmation_code, email, phone, start_time, end_time " +
 	      "FROM reservations " +
-	      "WHERE status='ACTIVE' AND start_time > NOW() AND DATE(start_time) = ? " +
+	      "WHERE status='ACTIVE' AND start_time > NOW() AND " + TimeRange.predicate("start_time") + " " +
 	      "FOR UPDATE";
 	
 	  String updateSql =
@@ -2921,7 +3536,7 @@ public class DBController {
 	  List<CancelNotice> notices = new ArrayList<>();
 	
 	  try (PreparedStatement psSel = conn.prepareStatement(selectSql)) {
-	      psSel.setDate(1, Date.valueOf(date));
+	      TimeRange.day(date).bind(psSel, 1);
 	
 	      try (ResultSet rs = psSel.executeQuery()) {
 	          while (rs.next()) {
@@ -3006,17 +3621,23 @@ public class DBController {
 		
 		  // 1. Find reservations checked in > 2 hours ago that represent "active" dining
 		  String selectCandidates = 
-		      "SELECT reservation_id, confirmation_code, email, subscriber_number, dinners_number, check_in_time " +
+		      "SELECT reservation_id, confirmation_code, email, subscriber_number, dinners_number, start_time, end_time, check_in_time " +
 		      "FROM reservations " +
 		      "WHERE status = 'CHECKED_IN' " +
 		      "  AND check_in_time <= (NOW() - INTERVAL 2 HOUR)";
 		
-		  // 2. Logic to insert the bill
+		  // 2. Claim one candidate: lock it, skipping rows another server node is already billing
+		  String claimSql =
+		      "SELECT reservation_id FROM reservations " +
+		      "WHERE reservation_id = ? AND status = 'CHECKED_IN' " +
+		      "FOR UPDATE SKIP LOCKED";
+
+		  // 3. Logic to insert the bill
 		  String insertBillSql = 
 		      "INSERT INTO bills (total_amount, discount_amount, bill_date, reservation_id) " +
 		      "VALUES (?, ?, NOW(), ?)";
 		
-		  // 3. Logic to close the reservation
+		  // 4. Logic to close the reservation
 		  String closeReservationSql = 
 		      "UPDATE reservations SET status = 'COMPLETED' " +
 		      "WHERE reservation_id = ? AND status = 'CHECKED_IN'";
@@ -3036,6 +3657,9 @@ public class DBController {
 		              String subNum = rs.getString("subscriber_number");
 		              int diners = rs.getInt("dinners_number");
 		              String code = rs.getString("confirmation_code");
+		              Timestamp checkInTs = rs.getTimestamp("check_in_time");
+		              Timestamp startTs = rs.getTimestamp("start_time");
+		              Timestamp endTs = rs.getTimestamp("end_time");
 		
 		              // --- A. Replicate Billing Logic ---
 		              double total = diners * 100.0;
@@ -3044,7 +3668,18 @@ public class DBController {
 		              double finalTotal = total - discount;
 		
 		              try {
-		                  // --- B. Insert Bill ---
+		                  // --- B. Claim the row (no double billing across nodes) ---
+		                  try (PreparedStatement psClaim = conn.prepareStatement(claimSql)) {
+		                      psClaim.setInt(1, id);
+		                      try (ResultSet claimed = psClaim.executeQuery()) {
+		                          if (!claimed.next()) {
+		                              conn.rollback();
+		                              continue; // paid manually or claimed by another node
+		                          }
+		                      }
+		                  }
+
+		                  // --- C. Insert Bill ---
 		                  // We do this INSIDE the loop for each person
 		                  try (PreparedStatement psBill = conn.prepareStatement(insertBillSql)) {
 		                      psBill.setDouble(1, total);
@@ -3054,7 +3689,7 @@ public class DBController {
 		                      if (billRows <= 0) continue; // Skip if insert failed
 		                  }
 		
-		                  // --- C. Update Status ---
+		                  // --- D. Update Status ---
 		                  try (PreparedStatement psUpdate = conn.prepareStatement(closeReservationSql)) {
 		                      psUpdate.setInt(1, id);
 		                      int updateRows = psUpdate.executeUpdate();
@@ -3066,10 +3701,20 @@ public class DBController {
 		                          continue; 
 		                      }
 		                  }
+
+		                  // Keep monthly report rows and subscriber counters up to date (same transaction)
+		                  new ReportAggregateDAO(conn).recordCompletion(startTs, checkInTs, endTs, subNum);
+		                  new SubscriberStatsDAO(conn).recordVisit(subNum, startTs, finalTotal);
 		
 		                  conn.commit(); // Finalize this specific reservation
+		                  KioskCodeIndex.getInstance().onStatus(code, "COMPLETED", null);
+		                  WaitTimeEstimator.getInstance().onRelease(diners, checkInTs == null ? 0 : checkInTs.getTime());
+		                  if (startTs != null) {
+		                      ReportCache.getInstance().onCompletion(startTs.toLocalDateTime().toLocalDate(),
+		                              subNum != null && !subNum.isBlank());
+		                  }
 		
-		                  // --- D. Send Email ---
+		                  // --- E. Send Email ---
 		                  if (email != null && !email.isBlank()) {
 		                      String msg = String.format(
 		                          "Hello,\n\n" +
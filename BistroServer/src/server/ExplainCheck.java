@@ -0,0 +1,290 @@
+package server;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import server.dao.ArchiveDAO;
+
+/**
+ * Runs {@code EXPLAIN} on the hot query paths and fails if any of them scans a whole table.
+ * <p>
+ * Each check is the SQL of one server method (built with the same {@link TimeRange} and
+ * {@link ArchiveDAO} helpers), bound with sample parameters. A plan row fails when its access
+ * type is {@code ALL} and either no index could be used at all ({@code possible_keys} is NULL)
+ * or the table is big enough ({@code rows >= minRows}) that the optimizer should not prefer a
+ * scan. Small lookup tables ({@link #SMALL_TABLES}) and derived tables are not checked.
+ * <p>
+ * Usage (same defaults as the server GUI):
+ * <pre>
+ * java -cp bin:mysql-connector-j.jar server.ExplainCheck [dbHost] [dbPort] [dbUser] [dbPass] [minRows]
+ * </pre>
+ * Exit code 0 if every plan passes, 1 if any plan fails, 2 if the check could not run.
+ * When adding a query on a hot path, add it to {@link #checks()}.
+ */
+public final class ExplainCheck {
+
+    /**
+     * Tables of a handful of rows, where a full scan is the right plan.
+     */
+    private static final Set<String> SMALL_TABLES = Set.of(
+            "restaurant_tables", "opening_hours", "special_opening_hours",
+            "rollup_watermark", "code_sequences", "schema_migrations");
+
+    /**
+     * Default row estimate from which a full scan fails even if an index was considered.
+     */
+    private static final long DEFAULT_MIN_ROWS = 1000;
+
+    /**
+     * Binds the sample parameters of a query.
+     */
+    @FunctionalInterface
+    private interface Binder {
+        void bind(PreparedStatement ps) throws SQLException;
+    }
+
+    /**
+     * One query to explain.
+     */
+    private static final class Check {
+        final String name;
+        final String sql;
+        final Binder binder;
+
+        Check(String name, String sql, Binder binder) {
+            this.name = name;
+            this.sql = sql;
+            this.binder = binder;
+        }
+    }
+
+    private ExplainCheck() {}
+
+    /**
+     * Entry point.
+     *
+     * @param args optional dbHost, dbPort, dbUser, dbPass, minRows
+     */
+    public static void main(String[] args) {
+        String host = arg(args, 0, "localhost");
+        String port = arg(args, 1, "3306");
+        String user = arg(args, 2, "root");
+        String pass = arg(args, 3, "Aa123456");
+        long minRows = Long.parseLong(arg(args, 4, String.valueOf(DEFAULT_MIN_ROWS)));
+
+        MySQLConnectionPool.configure("jdbc:mysql://" + host + ":" + port +
+                "/bistro?serverTimezone=Asia/Jerusalem&useSSL=false&allowPublicKeyRetrieval=true", user, pass);
+
+        int failed = 0;
+        PooledConnection pConn = null;
+        try {
+            pConn = MySQLConnectionPool.getInstance().getConnection();
+            Connection conn = pConn.getConnection();
+
+            for (Check c : checks()) {
+                failed += explain(conn, c, minRows);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            System.exit(2);
+        } finally {
+            if (pConn != null) MySQLConnectionPool.getInstance().releaseConnection(pConn);
+        }
+
+        System.out.println(failed == 0 ? "✅ All plans use an index." : "❌ " + failed + " plan row(s) scan a whole table.");
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    /**
+     * Explains one query and prints its plan.
+     *
+     * @return number of failing plan rows
+     */
+    private static int explain(Connection conn, Check c, long minRows) throws SQLException {
+        System.out.println("== " + c.name);
+        int failed = 0;
+
+        try (PreparedStatement ps = conn.prepareStatement("EXPLAIN " + c.sql)) {
+            c.binder.bind(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String table = rs.getString("table");
+                    String type = rs.getString("type");
+                    String possible = rs.getString("possible_keys");
+                    long rows = rs.getLong("rows");
+
+                    boolean checked = table != null && !table.startsWith("<") && !SMALL_TABLES.contains(table.toLowerCase());
+                    boolean fail = checked && "ALL".equals(type) && (possible == null || rows >= minRows);
+                    if (fail) failed++;
+
+                    System.out.printf("   %-4s %-22s type=%-8s key=%-28s rows=%d%n",
+                            fail ? "FAIL" : "ok", table, type, rs.getString("key"), rows);
+                }
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * The hot queries, with sample parameters.
+     */
+    private static List<Check> checks() {
+        List<Check> out = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Timestamp later = Timestamp.valueOf(LocalDateTime.now().plusHours(2));
+        YearMonth month = YearMonth.now();
+        TimeRange monthRange = TimeRange.month(month.getYear(), month.getMonthValue());
+        TimeRange dayRange = TimeRange.day(LocalDate.now());
+
+        // DBController.cancelNoShowReservations
+        out.add(new Check("no-show sweep",
+            "SELECT reservation_id, confirmation_code, email, phone, start_time, subscriber_number " +
+            "FROM reservations " +
+            "WHERE status='ACTIVE' " +
+            "  AND check_in_time IS NULL " +
+            "  AND start_time <= (NOW() - INTERVAL 15 MINUTE)",
+            ps -> {}));
+
+        // DBController.sendReservationReminders
+        out.add(new Check("reminders",
+            "SELECT reservation_id, confirmation_code, email, start_time " +
+            "FROM reservations " +
+            "WHERE status='ACTIVE' " +
+            "  AND reminder_sent_at IS NULL " +
+            "  AND email IS NOT NULL AND email <> '' " +
+            "  AND start_time BETWEEN (NOW() + INTERVAL 120 MINUTE) AND (NOW() + INTERVAL 121 MINUTE)",
+            ps -> {}));
+
+        // DBController.autoCompleteFinishedReservations
+        out.add(new Check("auto-complete",
+            "SELECT reservation_id, confirmation_code, email, subscriber_number, dinners_number, start_time, end_time, check_in_time " +
+            "FROM reservations " +
+            "WHERE status = 'CHECKED_IN' " +
+            "  AND check_in_time <= (NOW() - INTERVAL 2 HOUR)",
+            ps -> {}));
+
+        // DBController.findBestAvailableTableNow (overlap check per table)
+        out.add(new Check("table overlap",
+            "SELECT t.table_number " +
+            "FROM restaurant_tables t " +
+            "WHERE t.capacity >= ? " +
+            "AND NOT EXISTS ( " +
+            "  SELECT 1 FROM reservations r " +
+            "  WHERE r.status IN ('ACTIVE','CHECKED_IN') " +
+            "    AND r.table_number = t.table_number " +
+            "    AND r.start_time < ? AND r.end_time > ? " +
+            ") " +
+            "ORDER BY t.capacity ASC, t.table_number ASC " +
+            "LIMIT 1",
+            ps -> { ps.setInt(1, 2); ps.setTimestamp(2, later); ps.setTimestamp(3, now); }));
+
+        // DBController.cancelFutureReservationsDueToTableRemoval
+        out.add(new Check("table removal",
+            "SELECT reservation_id, confirmation_code, email, phone, start_time " +
+            "FROM reservations " +
+            "WHERE status='ACTIVE' AND start_time > NOW() AND table_number = ?",
+            ps -> ps.setInt(1, 1)));
+
+        // DBController.findConfirmationCodeByEmailAndPhone
+        out.add(new Check("forgot code (email and phone)",
+            "SELECT confirmation_code " +
+            "FROM reservations " +
+            "WHERE email_key = ? AND phone_key = ? " +
+            "  AND status IN ('ACTIVE','CHECKED_IN') " +
+            "ORDER BY created_at DESC " +
+            "LIMIT 1",
+            ps -> { ps.setString(1, ContactKeys.email("guest@example.com")); ps.setString(2, ContactKeys.phone("0501234567")); }));
+
+        // DBController.sendConfirmationCodeByEmailOrPhone
+        out.add(new Check("forgot code (email or phone)",
+            "SELECT confirmation_code, email, phone " +
+            "FROM reservations " +
+            "WHERE status='ACTIVE' AND (email_key = ? OR phone_key = ?) " +
+            "ORDER BY created_at DESC " +
+            "LIMIT 1",
+            ps -> { ps.setString(1, ContactKeys.email("guest@example.com")); ps.setString(2, ContactKeys.phone("0501234567")); }));
+
+        // DBController.getSubscriberHistory (first page)
+        out.add(new Check("subscriber history",
+            ArchiveDAO.unionReservations(
+                "(SELECT r.reservation_id, r.start_time, r.end_time, r.dinners_number, r.table_number, " +
+                "        r.confirmation_code, r.status, r.created_at " +
+                " FROM " + ArchiveDAO.RESERVATIONS + " r " +
+                " WHERE r.subscriber_number = ? " +
+                "   AND (r.start_time < ? OR (r.start_time = ? AND r.reservation_id < ?)) " +
+                " ORDER BY r.start_time DESC, r.reservation_id DESC LIMIT ?)") +
+            " ORDER BY start_time DESC, reservation_id DESC LIMIT ?",
+            ps -> {
+                Timestamp cursor = Timestamp.valueOf(LocalDateTime.of(9999, 12, 31, 23, 59));
+                int i = 1;
+                for (int table = 0; table < 2; table++) {
+                    ps.setString(i++, "SUB1001");
+                    ps.setTimestamp(i++, cursor);
+                    ps.setTimestamp(i++, cursor);
+                    ps.setInt(i++, Integer.MAX_VALUE);
+                    ps.setInt(i++, 21);
+                }
+                ps.setInt(i, 21);
+            }));
+
+        // DBController.loadWaitingRows (WAITING queue)
+        out.add(new Check("waiting queue",
+            "SELECT wl.id, wl.confirmation_code, wl.diners_number, wl.request_time, " +
+            "  wl.subscriber_number, wl.guest_phone, wl.guest_email, " +
+            "  COALESCE(u.name, 'Guest') AS name, COALESCE(u.phone, wl.guest_phone) AS phone " +
+            "FROM waiting_list wl " +
+            "LEFT JOIN subscribers s ON wl.subscriber_number = s.subscriber_number " +
+            "LEFT JOIN users u ON s.user_id = u.id " +
+            "WHERE (wl.status IS NULL OR wl.status='' OR wl.status='WAITING') " +
+            "ORDER BY wl.request_time ASC, wl.id ASC",
+            ps -> {}));
+
+        // ReportAggregateDAO.recomputeSubscriberReport (orders)
+        out.add(new Check("subscriber report: orders",
+            ArchiveDAO.unionReservations(
+                "SELECT COUNT(*) AS count FROM " + ArchiveDAO.RESERVATIONS + " " +
+                "WHERE status = 'COMPLETED' " +
+                "AND subscriber_number IS NOT NULL AND subscriber_number != '' " +
+                "AND " + TimeRange.predicate("start_time")),
+            ps -> monthRange.bind(ps, monthRange.bind(ps, 1))));
+
+        // ReportAggregateDAO.recomputeSubscriberReport (waiting list)
+        out.add(new Check("subscriber report: waiting list",
+            "SELECT COUNT(*) AS count FROM waiting_list " +
+            "WHERE subscriber_number IS NOT NULL AND subscriber_number != '' " +
+            "AND " + TimeRange.predicate("request_time"),
+            ps -> monthRange.bind(ps, 1)));
+
+        // DailyRollupDAO.rebuildRange (reservations)
+        out.add(new Check("daily rollup: reservations",
+            ArchiveDAO.unionReservations(
+                "SELECT DATE(start_time) AS d, status, COUNT(*) AS n " +
+                "FROM " + ArchiveDAO.RESERVATIONS + " " +
+                "WHERE " + TimeRange.predicate("start_time") + " " +
+                "GROUP BY DATE(start_time), status"),
+            ps -> dayRange.bind(ps, dayRange.bind(ps, 1))));
+
+        // DailyRollupDAO.rebuildRange (bills)
+        out.add(new Check("daily rollup: bills",
+            ArchiveDAO.unionBills(
+                "SELECT bill_date AS d, COUNT(*) AS n, SUM(total_amount - COALESCE(discount_amount, 0)) AS revenue FROM " + ArchiveDAO.BILLS + " " +
+                "WHERE " + TimeRange.predicate("bill_date") + " " +
+                "GROUP BY bill_date"),
+            ps -> dayRange.bindDates(ps, dayRange.bindDates(ps, 1))));
+
+        return out;
+    }
+
+    private static String arg(String[] args, int i, String def) {
+        return (args.length > i && !args[i].isBlank()) ? args[i] : def;
+    }
+}
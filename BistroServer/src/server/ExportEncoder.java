@@ -0,0 +1,320 @@
+package server;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import server.dao.ExportDAO;
+
+/**
+ * Encodes streamed export rows into a gzip-compressed file format.
+ * <p>
+ * Two formats are supported:
+ * <ul>
+ *   <li>{@link #FORMAT_CSV}: RFC 4180 CSV with a header line, UTF-8, gzip ({@code .csv.gz}).</li>
+ *   <li>{@link #FORMAT_COLUMNAR}: a compact columnar binary format, gzip ({@code .bcol.gz}).
+ *       Rows are buffered in groups of {@value Columnar#GROUP_ROWS}; each group is written column by
+ *       column, which puts similar values next to each other and compresses much better than CSV.
+ *       Layout (big-endian, {@link DataOutputStream} encoding):
+ *       <pre>
+ * file   := "BCOL" version:u8 columns:i32 column* group* 0:i32
+ * column := name:UTF type:u8 scale:u8
+ * group  := rows:i32 chunk*                       (one chunk per column)
+ * chunk  := bytes:i32 nulls[(rows+7)/8] value*    (bit set = null; values of non-null rows only)
+ * value  := INT i32 | LONG i64 | DECIMAL unscaled i64 | DATE epoch-day i32
+ *         | DATETIME epoch-second i64 (wall time, no zone) | STRING UTF
+ *       </pre>
+ *       The byte length in front of every chunk lets a reader skip columns it does not need.</li>
+ * </ul>
+ * Memory use is bounded by the encoder buffers (one row group at most), not by the row count.
+ */
+public abstract class ExportEncoder implements ExportDAO.RowSink {
+
+    /**
+     * Format name: gzip-compressed CSV.
+     */
+    public static final String FORMAT_CSV = "CSV";
+
+    /**
+     * Format name: gzip-compressed columnar binary.
+     */
+    public static final String FORMAT_COLUMNAR = "COLUMNAR";
+
+    /**
+     * Gzip stream all output goes through.
+     */
+    protected final GZIPOutputStream gzip;
+
+    /**
+     * Wraps the target stream in gzip.
+     *
+     * @param out target stream (not closed by the encoder)
+     * @throws IOException if the gzip header cannot be written
+     */
+    protected ExportEncoder(OutputStream out) throws IOException {
+        this.gzip = new GZIPOutputStream(out, 8192);
+    }
+
+    /**
+     * Creates an encoder for a format.
+     *
+     * @param format {@link #FORMAT_CSV} or {@link #FORMAT_COLUMNAR}
+     * @param out    target stream
+     * @return encoder, or {@code null} if the format is unknown
+     * @throws IOException if the encoder cannot be created
+     */
+    public static ExportEncoder forFormat(String format, OutputStream out) throws IOException {
+        if (FORMAT_CSV.equals(format)) return new Csv(out);
+        if (FORMAT_COLUMNAR.equals(format)) return new Columnar(out);
+        return null;
+    }
+
+    /**
+     * Returns the file extension for a format.
+     *
+     * @param format format name
+     * @return {@code ".csv.gz"} or {@code ".bcol.gz"}
+     */
+    public static String extension(String format) {
+        return FORMAT_COLUMNAR.equals(format) ? ".bcol.gz" : ".csv.gz";
+    }
+
+    /**
+     * Writes any buffered rows and the gzip trailer. The target stream is not closed.
+     *
+     * @throws IOException if writing fails
+     */
+    public abstract void finish() throws IOException;
+
+
+    /* =========================
+       CSV
+       ========================= */
+
+    private static final class Csv extends ExportEncoder {
+
+        private final Writer writer;
+        private int columns;
+
+        Csv(OutputStream out) throws IOException {
+            super(out);
+            this.writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), 16 * 1024);
+        }
+
+        @Override
+        public void begin(ResultSetMetaData meta) throws Exception {
+            columns = meta.getColumnCount();
+            for (int i = 1; i <= columns; i++) {
+                if (i > 1) writer.write(',');
+                writeField(meta.getColumnLabel(i));
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void row(ResultSet rs) throws Exception {
+            for (int i = 1; i <= columns; i++) {
+                if (i > 1) writer.write(',');
+                String v = rs.getString(i);
+                if (v != null) writeField(v);
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+            gzip.finish();
+        }
+
+        /**
+         * Writes one field, quoted only when it contains a separator, quote or line break.
+         */
+        private void writeField(String v) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < v.length() && !quote; i++) {
+                char c = v.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(v);
+                return;
+            }
+            writer.write('"');
+            writer.write(v.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+
+    /* =========================
+       COLUMNAR
+       ========================= */
+
+    private static final class Columnar extends ExportEncoder {
+
+        /**
+         * Rows per row group (bounds the encoder memory).
+         */
+        static final int GROUP_ROWS = 4096;
+
+        private static final byte VERSION = 1;
+
+        private static final byte T_INT = 1;
+        private static final byte T_LONG = 2;
+        private static final byte T_DECIMAL = 3;
+        private static final byte T_DATE = 4;
+        private static final byte T_DATETIME = 5;
+        private static final byte T_STRING = 6;
+
+        private final DataOutputStream out;
+
+        private byte[] types;
+        private int[] scales;
+        private ByteArrayOutputStream[] buffers;
+        private DataOutputStream[] values;
+        private byte[][] nulls;
+        private int rows;
+
+        Columnar(OutputStream target) throws IOException {
+            super(target);
+            this.out = new DataOutputStream(gzip);
+        }
+
+        @Override
+        public void begin(ResultSetMetaData meta) throws Exception {
+            int n = meta.getColumnCount();
+            types = new byte[n];
+            scales = new int[n];
+            buffers = new ByteArrayOutputStream[n];
+            values = new DataOutputStream[n];
+            nulls = new byte[n][(GROUP_ROWS + 7) / 8];
+
+            out.writeBytes("BCOL");
+            out.writeByte(VERSION);
+            out.writeInt(n);
+
+            for (int i = 0; i < n; i++) {
+                types[i] = typeOf(meta.getColumnType(i + 1));
+                scales[i] = types[i] == T_DECIMAL ? Math.max(0, meta.getScale(i + 1)) : 0;
+                buffers[i] = new ByteArrayOutputStream(GROUP_ROWS * 8);
+                values[i] = new DataOutputStream(buffers[i]);
+
+                out.writeUTF(meta.getColumnLabel(i + 1));
+                out.writeByte(types[i]);
+                out.writeByte(scales[i]);
+            }
+        }
+
+        @Override
+        public void row(ResultSet rs) throws Exception {
+            for (int i = 0; i < types.length; i++) {
+                int col = i + 1;
+                DataOutputStream v = values[i];
+                boolean isNull;
+
+                switch (types[i]) {
+                    case T_INT: {
+                        int x = rs.getInt(col);
+                        isNull = rs.wasNull();
+                        if (!isNull) v.writeInt(x);
+                        break;
+                    }
+                    case T_LONG: {
+                        long x = rs.getLong(col);
+                        isNull = rs.wasNull();
+                        if (!isNull) v.writeLong(x);
+                        break;
+                    }
+                    case T_DECIMAL: {
+                        BigDecimal x = rs.getBigDecimal(col);
+                        isNull = x == null;
+                        if (!isNull) v.writeLong(x.setScale(scales[i], RoundingMode.HALF_UP).unscaledValue().longValue());
+                        break;
+                    }
+                    case T_DATE: {
+                        Date x = rs.getDate(col);
+                        isNull = x == null;
+                        if (!isNull) v.writeInt((int) x.toLocalDate().toEpochDay());
+                        break;
+                    }
+                    case T_DATETIME: {
+                        Timestamp x = rs.getTimestamp(col);
+                        isNull = x == null;
+                        if (!isNull) v.writeLong(x.toLocalDateTime().toEpochSecond(ZoneOffset.UTC));
+                        break;
+                    }
+                    default: {
+                        String x = rs.getString(col);
+                        isNull = x == null;
+                        if (!isNull) v.writeUTF(x);
+                        break;
+                    }
+                }
+
+                if (isNull) nulls[i][rows >> 3] |= (byte) (1 << (rows & 7));
+            }
+
+            if (++rows == GROUP_ROWS) flushGroup();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (types != null && rows > 0) flushGroup();
+            out.writeInt(0);
+            out.flush();
+            gzip.finish();
+        }
+
+        /**
+         * Writes the buffered row group column by column and clears the buffers.
+         */
+        private void flushGroup() throws IOException {
+            int bitmapBytes = (rows + 7) / 8;
+            out.writeInt(rows);
+            for (int i = 0; i < types.length; i++) {
+                out.writeInt(bitmapBytes + buffers[i].size());
+                out.write(nulls[i], 0, bitmapBytes);
+                buffers[i].writeTo(out);
+                buffers[i].reset();
+                Arrays.fill(nulls[i], (byte) 0);
+            }
+            rows = 0;
+        }
+
+        private static byte typeOf(int sqlType) {
+            switch (sqlType) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                    return T_INT;
+                case Types.BIGINT:
+                    return T_LONG;
+                case Types.DECIMAL:
+                case Types.NUMERIC:
+                    return T_DECIMAL;
+                case Types.DATE:
+                    return T_DATE;
+                case Types.TIMESTAMP:
+                    return T_DATETIME;
+                default:
+                    return T_STRING;
+            }
+        }
+    }
+}
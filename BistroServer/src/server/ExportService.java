@@ -0,0 +1,185 @@
+package server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import common.ExportChunk;
+import server.dao.ExportDAO;
+
+/**
+ * Runs data exports (reservations / bills) in the background and streams them to the client.
+ * <p>
+ * The encoder writes into a fixed {@value #CHUNK_BYTES}-byte buffer; every full buffer is sent as
+ * one {@link ExportChunk} while the DB cursor is still open. The file never exists in full on the
+ * server, so memory stays constant however large the history is. A slow client slows the export
+ * down (the send blocks) instead of letting data pile up.
+ * <p>
+ * Every export holds one pooled DB connection for its whole duration, so only
+ * {@value #EXPORT_THREADS} run at a time; further requests wait in a short queue and are
+ * rejected when it is full.
+ */
+public final class ExportService {
+
+    /**
+     * Size of one chunk sent over the wire.
+     */
+    static final int CHUNK_BYTES = 64 * 1024;
+
+    /**
+     * Number of exports running at the same time (also the max DB connections used).
+     */
+    private static final int EXPORT_THREADS = 2;
+
+    /**
+     * Max exports waiting for a thread.
+     */
+    private static final int QUEUE_CAPACITY = 4;
+
+    private static final ExportService INSTANCE = new ExportService();
+
+    /**
+     * Streams the dataset rows into the given sink and returns the row count, or -1 on failure.
+     */
+    @FunctionalInterface
+    public interface Source {
+        long stream(ExportDAO.RowSink sink);
+    }
+
+    /**
+     * Receives the output of an export.
+     */
+    public interface Output {
+        void started(String exportId, String fileName);
+        void chunk(ExportChunk chunk) throws IOException;
+        void failed(String exportId, String reason);
+    }
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            EXPORT_THREADS, EXPORT_THREADS, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+            new ThreadFactory() {
+                private final AtomicInteger seq = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "export-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+    private final AtomicLong exportSeq = new AtomicLong();
+
+    /**
+     * Returns the shared export service.
+     *
+     * @return export service
+     */
+    public static ExportService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Private constructor (singleton).
+     */
+    private ExportService() {}
+
+    /**
+     * Queues an export.
+     *
+     * @param dataset dataset name (used for the file name)
+     * @param format  {@link ExportEncoder#FORMAT_CSV} or {@link ExportEncoder#FORMAT_COLUMNAR}
+     * @param source  streams the rows
+     * @param output  receives the start event, the chunks and failures
+     */
+    public void submit(String dataset, String format, Source source, Output output) {
+        String id = "EX" + exportSeq.incrementAndGet();
+        try {
+            executor.execute(() -> run(id, dataset, format, source, output));
+        } catch (RejectedExecutionException e) {
+            output.failed(id, "Server is busy with other exports, please try again.");
+        }
+    }
+
+    /**
+     * Runs one export on an executor thread.
+     */
+    private void run(String id, String dataset, String format, Source source, Output output) {
+        String fileName = dataset.toLowerCase() + "-" + LocalDate.now() + ExportEncoder.extension(format);
+        output.started(id, fileName);
+
+        ChunkedOutputStream chunks = new ChunkedOutputStream(id, output);
+        try {
+            ExportEncoder encoder = ExportEncoder.forFormat(format, chunks);
+            long rows = source.stream(encoder);
+            if (rows < 0) {
+                output.failed(id, "Export failed on the server.");
+                return;
+            }
+            encoder.finish();
+            chunks.finish(rows);
+            System.out.println("[EXPORT] " + fileName + ": " + rows + " rows, " + chunks.totalBytes + " bytes");
+        } catch (IOException e) {
+            // the client went away (or the stream broke); nothing left to report to
+            System.out.println("⚠️ Export " + id + " aborted: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Buffers encoder output and sends it as fixed-size {@link ExportChunk}s.
+     */
+    private static final class ChunkedOutputStream extends OutputStream {
+        private final String id;
+        private final Output output;
+        private final byte[] buf = new byte[CHUNK_BYTES];
+        private int len;
+        private int seq;
+        private long totalBytes;
+
+        ChunkedOutputStream(String id, Output output) {
+            this.id = id;
+            this.output = output;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (len == buf.length) send(false, -1);
+            buf[len++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int n) throws IOException {
+            while (n > 0) {
+                if (len == buf.length) send(false, -1);
+                int k = Math.min(n, buf.length - len);
+                System.arraycopy(b, off, buf, len, k);
+                len += k;
+                off += k;
+                n -= k;
+            }
+        }
+
+        /**
+         * Sends the rest of the buffer as the last chunk.
+         */
+        void finish(long rows) throws IOException {
+            send(true, rows);
+        }
+
+        private void send(boolean last, long rows) throws IOException {
+            output.chunk(new ExportChunk(id, seq++, Arrays.copyOf(buf, len), last, rows));
+            totalBytes += len;
+            len = 0;
+        }
+    }
+}
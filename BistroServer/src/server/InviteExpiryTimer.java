@@ -0,0 +1,186 @@
+package server;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Precise expiry timers for waiting-list invites, plus invite acceptance metrics.
+ * <p>
+ * Every invite created by {@link DBController#processWaitingListInvites(NotificationService)} gets a
+ * one-shot timer that fires exactly when its 15-minute window ends, instead of waiting for the next
+ * 60-second no-show sweep. When the timer fires, the registered expiry handler (set by
+ * {@link BistroServer}) releases the held table and re-runs matching for the next waiting party.
+ * <p>
+ * A check-in with a WL code cancels the timer and records the acceptance latency
+ * (invite -> check-in). The no-show sweep stays in place as a fallback for invites whose timer was
+ * lost (e.g. the node that issued them went down).
+ * <p>
+ * With several server nodes, only the scheduler leader holds timers: {@link BistroServer} re-arms
+ * them from the database when a node becomes leader and cancels them when it loses the lock.
+ */
+public final class InviteExpiryTimer {
+
+    /**
+     * Length of the invite window (must match {@code expires_at} set when inviting).
+     */
+    public static final long INVITE_WINDOW_MILLIS = 15 * 60 * 1000L;
+
+    /**
+     * Shared instance used by the DB layer and the check-in flow.
+     */
+    private static final InviteExpiryTimer INSTANCE = new InviteExpiryTimer();
+
+    /**
+     * Single daemon thread that runs the expiry callbacks.
+     */
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "invite-expiry");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Pending timers: waiting code -> scheduled expiry.
+     */
+    private final Map<String, ScheduledFuture<?>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Invite time of pending invites: waiting code -> epoch millis.
+     */
+    private final Map<String, Long> invitedAt = new ConcurrentHashMap<>();
+
+    /**
+     * Called with the waiting code when an invite window ends.
+     */
+    private volatile Consumer<String> expiryHandler = code -> {};
+
+    // ---------- metrics ----------
+    private long accepted;
+    private long expired;
+    private long latencySumMillis;
+    private long latencyMaxMillis;
+
+    /**
+     * Returns the shared timer instance.
+     *
+     * @return invite expiry timer
+     */
+    public static InviteExpiryTimer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Private constructor (singleton).
+     */
+    private InviteExpiryTimer() {}
+
+    /**
+     * Sets the action run when an invite window ends.
+     *
+     * @param handler callback receiving the waiting code
+     */
+    public void setExpiryHandler(Consumer<String> handler) {
+        this.expiryHandler = (handler == null) ? code -> {} : handler;
+    }
+
+    /**
+     * Arms (or re-arms) the expiry timer of an invite.
+     *
+     * @param code          waiting confirmation code (WLxxxxxx)
+     * @param invitedMillis invite time in epoch millis
+     * @param expiresMillis expiry time in epoch millis
+     */
+    public void schedule(String code, long invitedMillis, long expiresMillis) {
+        if (code == null) return;
+
+        long delay = Math.max(0, expiresMillis - System.currentTimeMillis());
+        invitedAt.put(code, invitedMillis);
+
+        ScheduledFuture<?> f = timer.schedule(() -> fire(code), delay, TimeUnit.MILLISECONDS);
+        ScheduledFuture<?> old = pending.put(code, f);
+        if (old != null) old.cancel(false);
+    }
+
+    /**
+     * Records that an invited party checked in and cancels its expiry timer.
+     *
+     * @param code reservation confirmation code (ignored unless it is a pending WL invite)
+     */
+    public void onAccepted(String code) {
+        if (code == null) return;
+
+        ScheduledFuture<?> f = pending.remove(code);
+        if (f != null) f.cancel(false);
+
+        Long invited = invitedAt.remove(code);
+        if (invited == null) return;
+
+        long latency = Math.max(0, System.currentTimeMillis() - invited);
+        synchronized (this) {
+            accepted++;
+            latencySumMillis += latency;
+            latencyMaxMillis = Math.max(latencyMaxMillis, latency);
+        }
+        System.out.println("✅ Waiting-list invite " + code + " accepted after " + formatMinutes(latency) + " " + summary());
+    }
+
+    /**
+     * Records that an invite ran out without a check-in (called by the expiry handler once the
+     * table was actually released).
+     *
+     * @param code waiting confirmation code
+     */
+    public void onExpired(String code) {
+        synchronized (this) {
+            expired++;
+        }
+        System.out.println("⌛ Waiting-list invite " + code + " expired " + summary());
+    }
+
+    /**
+     * Cancels all pending timers (server stop). Pending invites are then handled by the no-show sweep.
+     */
+    public void cancelAll() {
+        for (ScheduledFuture<?> f : pending.values()) f.cancel(false);
+        pending.clear();
+        invitedAt.clear();
+    }
+
+    /**
+     * Returns a one-line summary of the acceptance metrics.
+     *
+     * @return metrics summary
+     */
+    public synchronized String summary() {
+        long avg = (accepted == 0) ? 0 : latencySumMillis / accepted;
+        long total = accepted + expired;
+        long rate = (total == 0) ? 0 : Math.round(accepted * 100.0 / total);
+        return "(accepted=" + accepted + ", expired=" + expired + ", acceptRate=" + rate + "%"
+                + ", avgLatency=" + formatMinutes(avg) + ", maxLatency=" + formatMinutes(latencyMaxMillis)
+                + ", pending=" + pending.size() + ")";
+    }
+
+    /**
+     * Timer callback: forgets the invite and hands it to the expiry handler.
+     *
+     * @param code waiting confirmation code
+     */
+    private void fire(String code) {
+        pending.remove(code);
+        invitedAt.remove(code);
+        try {
+            expiryHandler.accept(code);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static String formatMinutes(long millis) {
+        return String.format(java.util.Locale.US, "%.1f min", millis / 60000.0);
+    }
+}
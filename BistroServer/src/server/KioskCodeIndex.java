@@ -0,0 +1,169 @@
+package server;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory index of the reservations the check-in kiosk can see: confirmation code -> reservation
+ * id, start/end, table, diners, subscriber number, status and check-in time.
+ * <p>
+ * Covers every reservation starting today or within the next hour ({@link #window()}). It is
+ * reloaded by {@link DBController#refreshKioskIndex()} on every scheduler tick (on every node) and
+ * updated right away by check-in, payment, cancellation, no-show and auto-complete.
+ * <p>
+ * The index is a fast path, never the source of truth: callers only act on an entry whose status
+ * allows the operation (ACTIVE for check-in, CHECKED_IN for payment), and the status UPDATE that
+ * follows is guarded by the expected status. A missing entry, an entry with another status, or a
+ * guarded UPDATE that matches no row all fall back to the original database lookup.
+ */
+public final class KioskCodeIndex {
+
+    private static final KioskCodeIndex INSTANCE = new KioskCodeIndex();
+
+    /**
+     * One indexed reservation (immutable; status changes replace the entry).
+     */
+    public static final class Entry {
+        public final int reservationId;
+        public final String status;
+        public final LocalDateTime start;
+        public final LocalDateTime end;
+        public final int tableNumber;
+        public final int diners;
+        public final String subscriberNumber;
+        public final Timestamp checkInTime;
+
+        public Entry(int reservationId, String status, LocalDateTime start, LocalDateTime end,
+                     int tableNumber, int diners, String subscriberNumber, Timestamp checkInTime) {
+            this.reservationId = reservationId;
+            this.status = status;
+            this.start = start;
+            this.end = end;
+            this.tableNumber = tableNumber;
+            this.diners = diners;
+            this.subscriberNumber = subscriberNumber;
+            this.checkInTime = checkInTime;
+        }
+
+        public Entry withStatus(String newStatus, Timestamp newCheckIn) {
+            return new Entry(reservationId, newStatus, start, end, tableNumber, diners, subscriberNumber, newCheckIn);
+        }
+    }
+
+    /**
+     * Confirmation code -> reservation.
+     */
+    private volatile Map<String, Entry> byCode = new ConcurrentHashMap<>();
+
+    // ---------- metrics ----------
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Returns the shared index.
+     *
+     * @return kiosk code index
+     */
+    public static KioskCodeIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Private constructor (singleton).
+     */
+    private KioskCodeIndex() {}
+
+    /**
+     * Range of start times covered by the index: today, and the next hour when that crosses midnight.
+     *
+     * @return {@code [today 00:00, max(tomorrow 00:00, now + 1h))}
+     */
+    public static TimeRange window() {
+        LocalDate today = LocalDate.now();
+        LocalDateTime end = today.plusDays(1).atStartOfDay();
+        LocalDateTime nextHour = LocalDateTime.now().plusHours(1);
+        return nextHour.isAfter(end)
+            ? TimeRange.days(today, today.plusDays(2)) // rare: only in the last hour of the day
+            : TimeRange.days(today, today.plusDays(1));
+    }
+
+    /**
+     * Returns whether a reservation starting at {@code start} belongs in the index.
+     *
+     * @param start reservation start
+     * @return {@code true} if inside {@link #window()}
+     */
+    public static boolean covers(LocalDateTime start) {
+        TimeRange w = window();
+        return start != null && !start.isBefore(w.getFrom()) && start.isBefore(w.getTo());
+    }
+
+    /**
+     * Looks up a confirmation code.
+     *
+     * @param code confirmation code (trimmed)
+     * @return the indexed reservation, or null
+     */
+    public Entry get(String code) {
+        Entry e = (code == null) ? null : byCode.get(code);
+        if (e == null) misses.incrementAndGet();
+        else hits.incrementAndGet();
+        return e;
+    }
+
+    /**
+     * Adds or replaces one reservation (e.g. after a database fallback lookup).
+     *
+     * @param code  confirmation code
+     * @param entry reservation
+     */
+    public void put(String code, Entry entry) {
+        if (code != null && entry != null) byCode.put(code, entry);
+    }
+
+    /**
+     * Records a committed status change.
+     *
+     * @param code        confirmation code
+     * @param status      new status
+     * @param checkInTime check-in time (kept from the old entry when null)
+     */
+    public void onStatus(String code, String status, Timestamp checkInTime) {
+        if (code == null) return;
+        byCode.computeIfPresent(code, (k, e) -> e.withStatus(status, checkInTime != null ? checkInTime : e.checkInTime));
+    }
+
+    /**
+     * Drops one code (its state is unknown, e.g. after a guarded UPDATE matched no row).
+     *
+     * @param code confirmation code
+     */
+    public void remove(String code) {
+        if (code != null) byCode.remove(code);
+    }
+
+    /**
+     * Replaces the whole index with a fresh snapshot of {@link #window()}.
+     *
+     * @param snapshot code -> reservation
+     */
+    public void replaceAll(Map<String, Entry> snapshot) {
+        byCode = new ConcurrentHashMap<>(snapshot);
+    }
+
+    /**
+     * Returns a one-line summary of the index metrics.
+     *
+     * @return metrics summary
+     */
+    public String summary() {
+        long h = hits.get();
+        long m = misses.get();
+        long ratio = (h + m == 0) ? 0 : Math.round(h * 100.0 / (h + m));
+        return "(codes=" + byCode.size() + ", hits=" + h + ", misses=" + m + ", hitRatio=" + ratio + "%)";
+    }
+}
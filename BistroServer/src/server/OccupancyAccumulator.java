@@ -0,0 +1,91 @@
+package server;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+
+import common.OccupancyReport;
+
+/**
+ * Accumulates seat-minutes into weekday x half-hour cells for {@link OccupancyReport}.
+ * <p>
+ * All state lives in two flat {@code long[]} arrays, so feeding thousands of streamed rows
+ * allocates nothing per row. An interval is split at bucket boundaries and each part adds
+ * {@code seats x minutes} to its cell.
+ */
+public final class OccupancyAccumulator {
+
+    /**
+     * Longest seating counted, in minutes. Longer intervals are bad data (a table left
+     * checked in overnight) and are cut, so they do not dominate the heatmap.
+     */
+    static final int MAX_STAY_MINUTES = 6 * 60;
+
+    private static final int CELLS = OccupancyReport.DAYS * OccupancyReport.BUCKETS;
+
+    private final long[] occupied = new long[CELLS];
+    private final long[] available = new long[CELLS];
+
+    /**
+     * Adds the seats that were available while the restaurant was open on one date.
+     * A close time at or before the open time means the restaurant closes after midnight.
+     *
+     * @param date  the date
+     * @param open  opening time
+     * @param close closing time
+     * @param seats total seats
+     */
+    public void addOpenWindow(LocalDate date, LocalTime open, LocalTime close, int seats) {
+        LocalDateTime start = date.atTime(open);
+        LocalDateTime end = date.atTime(close);
+        if (!end.isAfter(start)) end = end.plusDays(1);
+        add(available, start, end, seats);
+    }
+
+    /**
+     * Adds one seating: {@code diners} seats occupied from {@code from} to {@code to}.
+     *
+     * @param from   seating start (check-in)
+     * @param to     seating end (completion)
+     * @param diners number of diners
+     */
+    public void addSeating(LocalDateTime from, LocalDateTime to, int diners) {
+        LocalDateTime cap = from.plusMinutes(MAX_STAY_MINUTES);
+        add(occupied, from, to.isAfter(cap) ? cap : to, diners);
+    }
+
+    /**
+     * Builds the report from the accumulated cells.
+     *
+     * @param from       first day of the range (inclusive)
+     * @param to         last day of the range (inclusive)
+     * @param totalSeats total seats used for the available seat-minutes
+     * @return report DTO
+     */
+    public OccupancyReport toReport(LocalDate from, LocalDate to, int totalSeats) {
+        return new OccupancyReport(from, to, totalSeats, occupied.clone(), available.clone());
+    }
+
+    /**
+     * Splits {@code [from, to)} at bucket boundaries and adds {@code seats x minutes} per cell.
+     */
+    private static void add(long[] cells, LocalDateTime from, LocalDateTime to, int seats) {
+        if (seats <= 0 || from == null || to == null) return;
+
+        LocalDateTime t = from.truncatedTo(ChronoUnit.MINUTES);
+        LocalDateTime end = to.truncatedTo(ChronoUnit.MINUTES);
+
+        while (t.isBefore(end)) {
+            int minuteOfDay = t.getHour() * 60 + t.getMinute();
+            int bucket = minuteOfDay / OccupancyReport.BUCKET_MINUTES;
+            int day = t.getDayOfWeek().getValue() - 1; // Monday = 0
+
+            LocalDateTime bucketEnd = t.plusMinutes(OccupancyReport.BUCKET_MINUTES - minuteOfDay % OccupancyReport.BUCKET_MINUTES);
+            LocalDateTime next = bucketEnd.isBefore(end) ? bucketEnd : end;
+
+            cells[day * OccupancyReport.BUCKETS + bucket] += seats * ChronoUnit.MINUTES.between(t, next);
+            t = next;
+        }
+    }
+}
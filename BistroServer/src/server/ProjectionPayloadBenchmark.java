@@ -0,0 +1,222 @@
+package server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import common.ManageOrderEntry;
+import common.SubscriberSummary;
+import common.UserRole;
+import entities.User;
+
+/**
+ * Wire-size and serialization-time benchmark for the representative table replies.
+ * <p>
+ * Builds the same synthetic rows (fixed random seed) in the old and the new wire form and
+ * Java-serializes each list the way {@code sendToClient} does, then prints the payload size and the
+ * average serialize / deserialize time:
+ * <ul>
+ *   <li>{@code GET_ALL_SUBSCRIBERS}: full {@link User} entities (password, role, subscriber fields)
+ *       vs. {@link SubscriberSummary} projections</li>
+ *   <li>{@code GET_ALL_RESERVATIONS}: the old {@link ManageOrderEntry} layout (a {@link Timestamp}
+ *       per row, a fresh String per column value as JDBC returns them) vs. the current one (epoch
+ *       millis, interned status, names and phones shared within the reply)</li>
+ * </ul>
+ * Orders are spread over a pool of repeat customers, as in a real reservation history. The old
+ * order layout is reproduced by {@link LegacyOrderEntry} (same fields, different class name, so the
+ * class descriptor differs by a few bytes).
+ * <p>
+ * Usage (no database needed):
+ * <pre>
+ * java -cp bin server.ProjectionPayloadBenchmark [rows] [runs]
+ * </pre>
+ */
+public final class ProjectionPayloadBenchmark {
+
+    private static final int DEFAULT_ROWS = 10_000;
+    private static final int DEFAULT_RUNS = 50;
+    private static final int WARMUP = 10;
+    private static final long SEED = 42L;
+
+    /**
+     * Distinct customers the synthetic orders are drawn from.
+     */
+    private static final int CUSTOMERS = 2_000;
+
+    private static final String[] STATUSES = { "ACTIVE", "CHECKED_IN", "COMPLETED", "CANCELED" };
+
+    /**
+     * {@link ManageOrderEntry} as it was sent before the projection change.
+     */
+    private static final class LegacyOrderEntry implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int reservationId;
+        private final String name;
+        private final String phone;
+        private final Timestamp startTime;
+        private final int diners;
+        private final int tableNumber;
+        private final String status;
+
+        LegacyOrderEntry(int reservationId, String name, String phone, Timestamp startTime, int diners, int tableNumber, String status) {
+            this.reservationId = reservationId;
+            this.name = name;
+            this.phone = phone;
+            this.startTime = startTime;
+            this.diners = diners;
+            this.tableNumber = tableNumber;
+            this.status = status;
+        }
+    }
+
+    private ProjectionPayloadBenchmark() {}
+
+    /**
+     * Entry point.
+     *
+     * @param args optional rows, runs
+     * @throws Exception if serialization fails
+     */
+    public static void main(String[] args) throws Exception {
+        int rows = Integer.parseInt(args.length > 0 ? args[0] : String.valueOf(DEFAULT_ROWS));
+        int runs = Integer.parseInt(args.length > 1 ? args[1] : String.valueOf(DEFAULT_RUNS));
+
+        System.out.printf("%d rows, %d runs after %d warm-up runs, JDK %s%n%n",
+                rows, runs, WARMUP, System.getProperty("java.version"));
+        System.out.printf("%-32s %12s %14s %16s%n", "payload", "bytes", "serialize ms", "deserialize ms");
+
+        report("subscribers: User", subscribersAsUsers(rows), runs);
+        report("subscribers: SubscriberSummary", subscribersAsSummaries(rows), runs);
+        report("orders: old ManageOrderEntry", ordersLegacy(rows), runs);
+        report("orders: ManageOrderEntry", ordersCurrent(rows), runs);
+    }
+
+    // ---------- DATA ----------
+    private static ArrayList<User> subscribersAsUsers(int rows) {
+        Random rnd = new Random(SEED);
+        ArrayList<User> out = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            User u = new User(i, name(rnd), "user" + i + "@example.com", phone(rnd),
+                    "pw-" + Long.toHexString(rnd.nextLong()), UserRole.SUBSCRIBER, true, createdAt(rnd));
+            u.setSubscriberNumber("SUB" + i);
+            u.setDigitalCard("CARD" + i);
+            out.add(u);
+        }
+        return out;
+    }
+
+    private static ArrayList<SubscriberSummary> subscribersAsSummaries(int rows) {
+        Random rnd = new Random(SEED);
+        ArrayList<SubscriberSummary> out = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            String name = name(rnd);
+            String phone = phone(rnd);
+            rnd.nextLong(); // password (not sent), keeps the same values as the User list
+            out.add(new SubscriberSummary(i, "SUB" + i, "CARD" + i, name,
+                    "user" + i + "@example.com", phone, true, createdAt(rnd)));
+        }
+        return out;
+    }
+
+    private static ArrayList<LegacyOrderEntry> ordersLegacy(int rows) {
+        String[][] customers = customers();
+        Random rnd = new Random(SEED + 1);
+        ArrayList<LegacyOrderEntry> out = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            String[] c = customers[rnd.nextInt(CUSTOMERS)];
+            // JDBC returns a new String per column value
+            out.add(new LegacyOrderEntry(i, new String(c[0]), new String(c[1]), startTime(rnd),
+                    1 + rnd.nextInt(8), 1 + rnd.nextInt(20), new String(STATUSES[rnd.nextInt(STATUSES.length)])));
+        }
+        return out;
+    }
+
+    private static ArrayList<ManageOrderEntry> ordersCurrent(int rows) {
+        String[][] customers = customers();
+        Random rnd = new Random(SEED + 1);
+        Map<String, String> shared = new HashMap<>(); // as DBController.getAllReservations
+        ArrayList<ManageOrderEntry> out = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            String[] c = customers[rnd.nextInt(CUSTOMERS)];
+            out.add(new ManageOrderEntry(i, share(shared, new String(c[0])), share(shared, new String(c[1])), startTime(rnd),
+                    1 + rnd.nextInt(8), 1 + rnd.nextInt(20), new String(STATUSES[rnd.nextInt(STATUSES.length)])));
+        }
+        return out;
+    }
+
+    private static String[][] customers() {
+        Random rnd = new Random(SEED + 2);
+        String[][] out = new String[CUSTOMERS][];
+        for (int i = 0; i < CUSTOMERS; i++) out[i] = new String[] { name(rnd), phone(rnd) };
+        return out;
+    }
+
+    private static String share(Map<String, String> seen, String value) {
+        String prev = seen.putIfAbsent(value, value);
+        return (prev == null) ? value : prev;
+    }
+
+    private static String name(Random rnd) {
+        String[] first = { "Noa", "Yosef", "Maya", "Daniel", "Tamar", "Omer", "Shira", "Ariel", "Lior", "Dana" };
+        String[] last = { "Cohen", "Levi", "Mizrahi", "Peretz", "Biton", "Friedman", "Azulay", "Katz", "Dahan", "Malka" };
+        return first[rnd.nextInt(first.length)] + " " + last[rnd.nextInt(last.length)];
+    }
+
+    private static String phone(Random rnd) {
+        return String.format("05%d-%07d", rnd.nextInt(10), rnd.nextInt(10_000_000));
+    }
+
+    private static Timestamp createdAt(Random rnd) {
+        return Timestamp.valueOf(LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(rnd.nextInt(1_000_000)));
+    }
+
+    private static Timestamp startTime(Random rnd) {
+        return Timestamp.valueOf(LocalDateTime.of(2025, 1, 1, 11, 0).plusDays(rnd.nextInt(730)).plusMinutes(30L * rnd.nextInt(22)));
+    }
+
+    // ---------- MEASURE ----------
+    private static void report(String label, ArrayList<?> list, int runs) throws IOException, ClassNotFoundException {
+        byte[] bytes = serialize(list);
+        long serNanos = 0;
+        long deserNanos = 0;
+
+        for (int i = -WARMUP; i < runs; i++) {
+            long t0 = System.nanoTime();
+            byte[] b = serialize(list);
+            long t1 = System.nanoTime();
+            deserialize(b);
+            long t2 = System.nanoTime();
+            if (i >= 0) {
+                serNanos += t1 - t0;
+                deserNanos += t2 - t1;
+            }
+        }
+
+        System.out.printf("%-32s %,12d %14.2f %16.2f%n", label, bytes.length,
+                serNanos / 1_000_000.0 / runs, deserNanos / 1_000_000.0 / runs);
+    }
+
+    private static byte[] serialize(Object o) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(1 << 20);
+        try (ObjectOutputStream out = new ObjectOutputStream(bos)) {
+            out.writeObject(o);
+        }
+        return bos.toByteArray();
+    }
+
+    private static Object deserialize(byte[] b) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(b))) {
+            return in.readObject();
+        }
+    }
+}
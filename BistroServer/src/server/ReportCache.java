@@ -0,0 +1,198 @@
+package server;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * In-memory cache of monthly reports, keyed by (report type, year, month).
+ * <p>
+ * A closed month (ended more than {@value #CLOSE_GRACE_DAYS} day ago) cannot change any more, so
+ * its report is loaded once (from the {@code monthly_*_report} row) and then served from memory
+ * for the life of the server. An open month (the current one, or one still in its grace period
+ * while late completions are recorded) is dropped by {@link #onCompletion(LocalDate, boolean)} and
+ * {@link #onSubscriberWaitingJoin(LocalDate)} / {@link #onSubscriberWaitingRemoval(LocalDate)} when a transition that changes it is committed on
+ * this node. Open entries also expire after {@value #OPEN_TTL_MILLIS} ms, which covers
+ * transitions committed by another server node.
+ * <p>
+ * A load that overlaps an invalidation is returned to its caller but not stored, so a result read
+ * before the transition never hides it.
+ */
+public final class ReportCache {
+
+    /**
+     * Days after the end of a month before its report is considered final.
+     */
+    static final int CLOSE_GRACE_DAYS = 1;
+
+    /**
+     * Lifetime of an open-month entry (guards against transitions on other nodes).
+     */
+    static final long OPEN_TTL_MILLIS = 5 * 60 * 1000L;
+
+    private static final ReportCache INSTANCE = new ReportCache();
+
+    /**
+     * A cached report.
+     */
+    private static final class Entry {
+        final Map<String, Integer> stats;
+        final long loadedAt;
+
+        Entry(Map<String, Integer> stats, long loadedAt) {
+            this.stats = stats;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * Cached reports: {@code "TYPE|yyyy-MM"} -> entry.
+     */
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Bumped on every invalidation; a load only stores its result if this did not change meanwhile.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    // ---------- metrics ----------
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong loadMillisSum = new AtomicLong();
+    private volatile long loadMillisMax;
+
+    /**
+     * Returns the shared report cache.
+     *
+     * @return report cache
+     */
+    public static ReportCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Private constructor (singleton).
+     */
+    private ReportCache() {}
+
+    /**
+     * Returns a monthly report, loading it on a miss.
+     *
+     * @param type   {@link ReportRangeService#TYPE_TIME} or {@link ReportRangeService#TYPE_SUBSCRIBER}
+     * @param month  month number (1-12)
+     * @param year   year number
+     * @param loader loads the report: {@code (month, year) -> report map}, or null on error
+     * @return a copy of the report map, or null if the load failed
+     */
+    public Map<String, Integer> get(String type, int month, int year,
+                                    BiFunction<Integer, Integer, Map<String, Integer>> loader) {
+        YearMonth ym = YearMonth.of(year, month);
+        String key = key(type, ym);
+        boolean closed = isClosed(ym);
+
+        Entry e = entries.get(key);
+        if (e != null && (closed || System.currentTimeMillis() - e.loadedAt <= OPEN_TTL_MILLIS)) {
+            hits.incrementAndGet();
+            return new HashMap<>(e.stats);
+        }
+
+        misses.incrementAndGet();
+        long gen = generation.get();
+        long t0 = System.currentTimeMillis();
+
+        Map<String, Integer> stats = loader.apply(month, year);
+
+        long took = System.currentTimeMillis() - t0;
+        loadMillisSum.addAndGet(took);
+        if (took > loadMillisMax) loadMillisMax = took;
+
+        if (stats == null) return null;
+
+        Entry fresh = new Entry(new HashMap<>(stats), System.currentTimeMillis());
+        synchronized (this) {
+            if (generation.get() == gen) entries.put(key, fresh);
+        }
+        System.out.println("📊 Report " + key + " loaded in " + took + " ms " + summary());
+        return new HashMap<>(stats);
+    }
+
+    /**
+     * Drops the reports changed by a reservation that became COMPLETED.
+     *
+     * @param startDay   start day of the reservation (decides the report month)
+     * @param subscriber whether the reservation belongs to a subscriber
+     */
+    public void onCompletion(LocalDate startDay, boolean subscriber) {
+        invalidate(ReportRangeService.TYPE_TIME, YearMonth.from(startDay));
+        if (subscriber) invalidate(ReportRangeService.TYPE_SUBSCRIBER, YearMonth.from(startDay));
+    }
+
+    /**
+     * Drops the subscriber report changed by a subscriber joining the waiting list.
+     *
+     * @param day join day
+     */
+    public void onSubscriberWaitingJoin(LocalDate day) {
+        invalidate(ReportRangeService.TYPE_SUBSCRIBER, YearMonth.from(day));
+    }
+
+    /**
+     * Drops the subscriber report changed by a subscriber's waiting list row being deleted.
+     *
+     * @param day join day of the deleted row
+     */
+    public void onSubscriberWaitingRemoval(LocalDate day) {
+        invalidate(ReportRangeService.TYPE_SUBSCRIBER, YearMonth.from(day));
+    }
+
+    /**
+     * Drops both reports of a month (after the stored rows were recomputed).
+     *
+     * @param month the month
+     */
+    public void invalidateMonth(YearMonth month) {
+        invalidate(ReportRangeService.TYPE_TIME, month);
+        invalidate(ReportRangeService.TYPE_SUBSCRIBER, month);
+    }
+
+    /**
+     * Returns a one-line summary of the cache metrics.
+     *
+     * @return metrics summary
+     */
+    public String summary() {
+        long h = hits.get();
+        long m = misses.get();
+        long ratio = (h + m == 0) ? 0 : Math.round(h * 100.0 / (h + m));
+        long avg = (m == 0) ? 0 : loadMillisSum.get() / m;
+        return "(hits=" + h + ", misses=" + m + ", hitRatio=" + ratio + "%"
+                + ", avgLoad=" + avg + "ms, maxLoad=" + loadMillisMax + "ms"
+                + ", invalidations=" + invalidations.get() + ", cached=" + entries.size() + ")";
+    }
+
+    private void invalidate(String type, YearMonth month) {
+        synchronized (this) {
+            generation.incrementAndGet();
+            if (entries.remove(key(type, month)) != null) invalidations.incrementAndGet();
+        }
+    }
+
+    private static String key(String type, YearMonth m) {
+        return type + "|" + m;
+    }
+
+    /**
+     * Returns whether a month ended more than {@link #CLOSE_GRACE_DAYS} ago.
+     *
+     * @param m the month
+     * @return {@code true} if its report can no longer change
+     */
+    static boolean isClosed(YearMonth m) {
+        return !m.plusMonths(1).atDay(1).plusDays(CLOSE_GRACE_DAYS).isAfter(LocalDate.now());
+    }
+}
@@ -0,0 +1,240 @@
+package server;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Runs report generation as background jobs, off the client reader thread.
+ * <p>
+ * OCSF calls {@code handleMessageFromClient} while holding the server lock, so a report that
+ * scans for seconds would stall every connected client. Report requests are therefore submitted
+ * here and run on a dedicated, bounded executor (a bulkhead: at most {@value #JOB_THREADS} reports
+ * run at once and at most {@value #QUEUE_CAPACITY} wait; further jobs are rejected instead of
+ * piling up).
+ * <p>
+ * Each job gets an ID. Subscribers are told when the job is accepted, receive progress updates,
+ * and finally the result or the failure reason. Identical requests (same key) share one running
+ * job, and a finished result is reused for {@value #MEMO_TTL_MILLIS} ms.
+ */
+public final class ReportJobService {
+
+    /**
+     * Reports that may run at the same time.
+     */
+    private static final int JOB_THREADS = 2;
+
+    /**
+     * Jobs that may wait for a free thread before new ones are rejected.
+     */
+    private static final int QUEUE_CAPACITY = 16;
+
+    /**
+     * How long a finished result is reused for identical requests.
+     */
+    private static final long MEMO_TTL_MILLIS = 60_000;
+
+    /**
+     * Maximum number of memoized results kept.
+     */
+    private static final int MEMO_MAX_ENTRIES = 64;
+
+    /**
+     * Shared instance used by the server.
+     */
+    private static final ReportJobService INSTANCE = new ReportJobService();
+
+    /**
+     * Work done by a job. Reports progress as {@code (done, total)} and returns a serializable result.
+     */
+    @FunctionalInterface
+    public interface Job {
+        Object run(BiConsumer<Integer, Integer> progress) throws Exception;
+    }
+
+    /**
+     * Receives the life cycle events of a job. {@link #onAccepted(String)} and memoized results are
+     * delivered on the submitting thread, everything else on the job thread.
+     */
+    public interface Listener {
+        void onAccepted(String jobId);
+        void onProgress(String jobId, int done, int total);
+        void onDone(String jobId, Object result);
+        void onFailed(String jobId, String reason);
+    }
+
+    /**
+     * A job that is queued or running, with everyone waiting for it.
+     */
+    private static final class Running {
+        final String id;
+        final List<Listener> listeners = new CopyOnWriteArrayList<>();
+        volatile int done;
+        volatile int total;
+
+        Running(String id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * A finished result kept for identical requests.
+     */
+    private static final class Memo {
+        final String id;
+        final Object result;
+        final long finishedAt;
+
+        Memo(String id, Object result, long finishedAt) {
+            this.id = id;
+            this.result = result;
+            this.finishedAt = finishedAt;
+        }
+    }
+
+    /**
+     * Bulkhead executor: fixed threads, bounded queue, rejects when full.
+     */
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            JOB_THREADS, JOB_THREADS, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+            new ThreadFactory() {
+                private final AtomicInteger seq = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "report-job-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+    /**
+     * Queued/running jobs by request key.
+     */
+    private final Map<String, Running> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Finished results by request key.
+     */
+    private final Map<String, Memo> memo = new ConcurrentHashMap<>();
+
+    private final AtomicLong jobSeq = new AtomicLong();
+
+    /**
+     * Returns the shared job service.
+     *
+     * @return report job service
+     */
+    public static ReportJobService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Private constructor (singleton).
+     */
+    private ReportJobService() {}
+
+    /**
+     * Submits a report job, or joins/reuses an identical one.
+     *
+     * @param key      request key (report kind + parameters); equal keys mean equal results
+     * @param job      work to run
+     * @param listener receives the job events
+     */
+    public void submit(String key, Job job, Listener listener) {
+        Running run;
+        boolean start = false;
+
+        synchronized (this) {
+            Memo m = memo.get(key);
+            if (m != null && System.currentTimeMillis() - m.finishedAt <= MEMO_TTL_MILLIS) {
+                listener.onAccepted(m.id);
+                listener.onDone(m.id, m.result);
+                return;
+            }
+
+            run = inFlight.get(key);
+            if (run == null) {
+                run = new Running("RJ" + jobSeq.incrementAndGet());
+                inFlight.put(key, run);
+                start = true;
+            }
+            // accepted before joining, so this listener never sees progress for an unknown job
+            listener.onAccepted(run.id);
+            run.listeners.add(listener);
+        }
+
+        if (!start) {
+            if (run.total > 0) listener.onProgress(run.id, run.done, run.total);
+            return;
+        }
+
+        Running r = run;
+        try {
+            executor.execute(() -> execute(key, r, job));
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                inFlight.remove(key);
+            }
+            for (Listener l : r.listeners) l.onFailed(r.id, "Server is busy generating other reports, please try again.");
+        }
+    }
+
+    /**
+     * Returns a one-line summary of the job service state.
+     *
+     * @return state summary
+     */
+    public String summary() {
+        return "(running=" + executor.getActiveCount() + ", queued=" + executor.getQueue().size()
+                + ", memoized=" + memo.size() + ")";
+    }
+
+    /**
+     * Job thread body: runs the work, forwards progress and delivers the outcome.
+     */
+    private void execute(String key, Running run, Job job) {
+        try {
+            Object result = job.run((done, total) -> {
+                run.done = done;
+                run.total = total;
+                for (Listener l : run.listeners) l.onProgress(run.id, done, total);
+            });
+
+            synchronized (this) {
+                inFlight.remove(key);
+                // null means the report failed inside the DB layer: deliver it, but do not reuse it
+                if (result != null) remember(key, new Memo(run.id, result, System.currentTimeMillis()));
+            }
+            for (Listener l : run.listeners) l.onDone(run.id, result);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            synchronized (this) {
+                inFlight.remove(key);
+            }
+            String reason = (e.getMessage() != null) ? e.getMessage() : e.getClass().getSimpleName();
+            for (Listener l : run.listeners) l.onFailed(run.id, reason);
+        }
+    }
+
+    private void remember(String key, Memo m) {
+        long now = System.currentTimeMillis();
+        for (Iterator<Memo> it = memo.values().iterator(); it.hasNext(); ) {
+            if (now - it.next().finishedAt > MEMO_TTL_MILLIS) it.remove();
+        }
+        if (memo.size() < MEMO_MAX_ENTRIES) memo.put(key, m);
+    }
+}
@@ -0,0 +1,149 @@
+package server;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ * Computes a monthly report (time or subscriber) for many months at once.
+ * <p>
+ * Months are loaded concurrently on a small fixed executor. Every load holds one pooled DB
+ * connection, so the executor size (not the number of months) bounds how many connections a
+ * range request can take. Single months are cached by {@link ReportCache} (the loader passed in
+ * by {@link DBController} goes through it), so a month already in the cache costs no DB work.
+ */
+public final class ReportRangeService {
+
+    /**
+     * Report type: monthly time report (Normal/Delayed/Extended).
+     */
+    public static final String TYPE_TIME = "TIME";
+
+    /**
+     * Report type: monthly subscriber report (Orders/WaitingList).
+     */
+    public static final String TYPE_SUBSCRIBER = "SUBSCRIBER";
+
+    /**
+     * Largest range accepted by one request.
+     */
+    public static final int MAX_MONTHS = 24;
+
+    /**
+     * Number of months loaded at the same time (also the max DB connections used).
+     */
+    private static final int PARALLELISM = 4;
+
+    /**
+     * Shared instance used by the DB controller.
+     */
+    private static final ReportRangeService INSTANCE = new ReportRangeService();
+
+    /**
+     * Bounded pool of daemon worker threads.
+     */
+    private final ExecutorService executor = Executors.newFixedThreadPool(PARALLELISM, new ThreadFactory() {
+        private final AtomicInteger seq = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "report-range-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    /**
+     * Returns the shared service instance.
+     *
+     * @return report range service
+     */
+    public static ReportRangeService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Private constructor (singleton).
+     */
+    private ReportRangeService() {}
+
+    /**
+     * Loads one report for every month of an inclusive range.
+     *
+     * @param type   {@link #TYPE_TIME} or {@link #TYPE_SUBSCRIBER} (report type served by the loader)
+     * @param from   first month (inclusive)
+     * @param to     last month (inclusive)
+     * @param loader loads one month: {@code (month, year) -> report map}, or null on error
+     * @return ordered map {@code "yyyy-MM"} -> report map (an empty map for a month that failed)
+     * @throws IllegalArgumentException if the range is empty or longer than {@link #MAX_MONTHS}
+     */
+    public Map<String, Map<String, Integer>> compute(String type, YearMonth from, YearMonth to,
+                                                     BiFunction<Integer, Integer, Map<String, Integer>> loader) {
+        return compute(type, from, to, loader, null);
+    }
+
+    /**
+     * Loads one report for every month of an inclusive range, reporting progress as months finish.
+     *
+     * @param type     {@link #TYPE_TIME} or {@link #TYPE_SUBSCRIBER} (report type served by the loader)
+     * @param from     first month (inclusive)
+     * @param to       last month (inclusive)
+     * @param loader   loads one month: {@code (month, year) -> report map}, or null on error
+     * @param progress called with {@code (monthsDone, monthsTotal)}; may be null
+     * @return ordered map {@code "yyyy-MM"} -> report map (an empty map for a month that failed)
+     * @throws IllegalArgumentException if the range is empty or longer than {@link #MAX_MONTHS}
+     */
+    public Map<String, Map<String, Integer>> compute(String type, YearMonth from, YearMonth to,
+                                                     BiFunction<Integer, Integer, Map<String, Integer>> loader,
+                                                     BiConsumer<Integer, Integer> progress) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Range end is before range start");
+        }
+        List<YearMonth> months = new ArrayList<>();
+        for (YearMonth m = from; !m.isAfter(to); m = m.plusMonths(1)) {
+            months.add(m);
+            if (months.size() > MAX_MONTHS) {
+                throw new IllegalArgumentException("Range is longer than " + MAX_MONTHS + " months");
+            }
+        }
+
+        // 1) start a load for every month
+        int total = months.size();
+        AtomicInteger done = new AtomicInteger();
+        Map<YearMonth, CompletableFuture<Map<String, Integer>>> pending = new LinkedHashMap<>();
+        for (YearMonth m : months) {
+            pending.put(m, CompletableFuture.supplyAsync(
+                    () -> loader.apply(m.getMonthValue(), m.getYear()), executor));
+        }
+
+        if (progress != null) {
+            progress.accept(done.get(), total);
+            for (CompletableFuture<Map<String, Integer>> f : pending.values()) {
+                f.whenComplete((r, e) -> progress.accept(done.incrementAndGet(), total));
+            }
+        }
+
+        // 2) collect in month order
+        Map<String, Map<String, Integer>> out = new LinkedHashMap<>();
+        for (YearMonth m : months) {
+            Map<String, Integer> stats = null;
+            try {
+                stats = pending.get(m).join();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            out.put(m.toString(), (stats != null) ? stats : new HashMap<>());
+        }
+        return out;
+    }
+}
@@ -0,0 +1,144 @@
+package server;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Optional leader election for the periodic background jobs, based on MySQL named locks.
+ * <p>
+ * When several {@link BistroServer} instances share one database, only the instance that holds
+ * the {@code GET_LOCK} named lock runs the scheduler tick. The lock belongs to a dedicated
+ * connection that is kept out of the pool for as long as this node is the leader; if that
+ * connection dies, MySQL frees the lock and another node takes over on its next tick.
+ * <p>
+ * Leader election is enabled with the {@code BISTRO_SCHEDULER_LEADER_LOCK=true} environment variable.
+ * When disabled, every node runs the jobs and relies on {@code FOR UPDATE SKIP LOCKED} row claiming
+ * in {@link DBController} to avoid duplicate work.
+ */
+public class SchedulerLeaderLock {
+
+    /**
+     * Name of the MySQL named lock shared by all server nodes.
+     */
+    private static final String LOCK_NAME = "bistro.scheduler.leader";
+
+    /**
+     * Shared MySQL connection pool used to obtain the lock-holding connection.
+     */
+    private final MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
+
+    /**
+     * Whether leader election is enabled for this node.
+     */
+    private final boolean enabled;
+
+    /**
+     * Connection that currently holds the named lock (null when this node is not the leader).
+     */
+    private PooledConnection lockConn;
+
+    /**
+     * Creates a leader lock configured from the {@code BISTRO_SCHEDULER_LEADER_LOCK} environment variable.
+     */
+    public SchedulerLeaderLock() {
+        this("true".equalsIgnoreCase(System.getenv("BISTRO_SCHEDULER_LEADER_LOCK")));
+    }
+
+    /**
+     * Creates a leader lock.
+     *
+     * @param enabled whether leader election should be used
+     */
+    public SchedulerLeaderLock(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns whether this node should run the background jobs right now.
+     * <p>
+     * Always true when leader election is disabled. Otherwise verifies that the lock-holding
+     * connection still owns the lock, or tries to acquire it without waiting.
+     *
+     * @return true if this node is (or just became) the leader
+     */
+    public synchronized boolean isLeader() {
+        if (!enabled) return true;
+
+        try {
+            if (lockConn != null) {
+                if (stillHoldsLock(lockConn.getConnection())) return true;
+                lockConn.closePhysical();
+                lockConn = null;
+            }
+
+            PooledConnection candidate = pool.getConnection();
+            if (tryAcquire(candidate.getConnection())) {
+                lockConn = candidate;
+                System.out.println("👑 This node is now the scheduler leader");
+                return true;
+            }
+
+            pool.releaseConnection(candidate);
+            return false;
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (lockConn != null) {
+                lockConn.closePhysical();
+                lockConn = null;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Releases the named lock (if held) and closes the lock-holding connection.
+     */
+    public synchronized void release() {
+        if (lockConn == null) return;
+
+        try (PreparedStatement ps = lockConn.getConnection().prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.executeQuery().close();
+        } catch (Exception ignored) {
+        } finally {
+            lockConn.closePhysical();
+            lockConn = null;
+        }
+    }
+
+    /**
+     * Tries to acquire the named lock without waiting.
+     *
+     * @param conn connection that will own the lock
+     * @return true if the lock was acquired
+     * @throws Exception if DB access fails
+     */
+    private boolean tryAcquire(Connection conn) throws Exception {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+            ps.setString(1, LOCK_NAME);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    /**
+     * Checks that the given connection is still alive and is the current owner of the named lock.
+     *
+     * @param conn lock-holding connection
+     * @return true if the lock is still owned by this connection
+     * @throws Exception if DB access fails
+     */
+    private boolean stillHoldsLock(Connection conn) throws Exception {
+        if (!conn.isValid(2)) return false;
+
+        try (PreparedStatement ps = conn.prepareStatement("SELECT IS_USED_LOCK(?) = CONNECTION_ID()")) {
+            ps.setString(1, LOCK_NAME);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+}
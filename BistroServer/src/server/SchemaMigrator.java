@@ -0,0 +1,306 @@
+package server;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import server.dao.DailyRollupDAO;
+
+/**
+ * Versioned schema migrations, applied once per database at server startup.
+ * <p>
+ * Applied versions are recorded in {@code schema_migrations}; each startup runs only the versions
+ * that are missing, in ascending order. All statements are safe to re-run against a database that
+ * was created from a newer {@code 11_Assignment3_DB.sql} dump: tables use {@code IF NOT EXISTS},
+ * and an index or column that already exists (MySQL error 1061, duplicate key name, or 1060,
+ * duplicate column name) counts as applied.
+ * <p>
+ * When several server nodes start together, a MySQL named lock makes sure only one of them
+ * migrates at a time.
+ * <p>
+ * To change the schema, append a new {@link Migration} with the next version number;
+ * never edit a migration that was already released.
+ * {@link ExplainCheck} verifies that the hot queries use the indexes declared here.
+ */
+public class SchemaMigrator {
+
+    /**
+     * Name of the MySQL named lock that serializes migrations across nodes.
+     */
+    private static final String LOCK_NAME = "bistro.schema.migrate";
+
+    /**
+     * MySQL error code for "Duplicate key name" (index already exists).
+     */
+    private static final int ER_DUP_KEYNAME = 1061;
+
+    /**
+     * MySQL error code for "Duplicate column name" (column already exists).
+     */
+    private static final int ER_DUP_FIELDNAME = 1060;
+
+    /**
+     * A single schema version: an ordered list of DDL statements.
+     */
+    static final class Migration {
+        final int version;
+        final String description;
+        final List<String> statements;
+
+        Migration(int version, String description, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.statements = List.of(statements);
+        }
+    }
+
+    /**
+     * All migrations, in version order.
+     */
+    static final List<Migration> MIGRATIONS = List.of(
+
+        new Migration(1, "analytics tables (daily rollup + watermark)",
+            DailyRollupDAO.CREATE_DAILY_ROLLUP,
+            DailyRollupDAO.CREATE_ROLLUP_WATERMARK
+        ),
+
+        new Migration(2, "indexes for hot query predicates",
+            // reservations: status + time (no-show sweep, invites, auto-complete, open-day lookup)
+            "CREATE INDEX `idx_res_status_start` ON `reservations` (`status`, `start_time`)",
+            // reservations: day / month / range reports and rollups
+            "CREATE INDEX `idx_res_start_time` ON `reservations` (`start_time`)",
+            // reservations: per-table overlap checks
+            "CREATE INDEX `idx_res_table_time` ON `reservations` (`table_number`, `status`, `start_time`, `end_time`)",
+            // reservations: auto-complete (CHECKED_IN for 2h+)
+            "CREATE INDEX `idx_res_status_checkin` ON `reservations` (`status`, `check_in_time`)",
+            // reservations: reminder job (ACTIVE, not reminded yet, starting soon)
+            "CREATE INDEX `idx_res_reminder` ON `reservations` (`status`, `reminder_sent_at`, `start_time`)",
+            // reservations: "forgot confirmation code" lookup
+            "CREATE INDEX `idx_res_email_phone` ON `reservations` (`email`, `phone`)",
+            // reservations: subscriber history / visit counts / subscriber report
+            "CREATE INDEX `idx_res_subscriber_status` ON `reservations` (`subscriber_number`, `status`, `start_time`)",
+            // waiting_list: FIFO queue by status
+            "CREATE INDEX `idx_wl_status_request` ON `waiting_list` (`status`, `request_time`, `id`)",
+            // waiting_list: joins per day / month
+            "CREATE INDEX `idx_wl_request_time` ON `waiting_list` (`request_time`)",
+            // bills: revenue per day
+            "CREATE INDEX `idx_bills_date` ON `bills` (`bill_date`)",
+            // users: subscriber lookup by phone
+            "CREATE INDEX `idx_users_phone` ON `users` (`phone`)"
+        ),
+
+        new Migration(3, "archive tables for finished reservations and their bills",
+            "CREATE TABLE IF NOT EXISTS `reservations_archive` (" +
+            "  `reservation_id` int NOT NULL," +
+            "  `dinners_number` int NOT NULL," +
+            "  `confirmation_code` varchar(20) NOT NULL," +
+            "  `status` enum('ACTIVE','CANCELED','COMPLETED','CHECKED_IN') DEFAULT NULL," +
+            "  `table_number` int DEFAULT NULL," +
+            "  `subscriber_number` varchar(20) DEFAULT NULL," +
+            "  `start_time` datetime DEFAULT NULL," +
+            "  `end_time` datetime DEFAULT NULL," +
+            "  `phone` varchar(20) DEFAULT NULL," +
+            "  `email` varchar(255) DEFAULT NULL," +
+            "  `created_at` datetime DEFAULT NULL," +
+            "  `check_in_time` datetime DEFAULT NULL," +
+            "  `reminder_sent_at` datetime DEFAULT NULL," +
+            "  `archived_at` datetime NOT NULL," +
+            "  PRIMARY KEY (`reservation_id`)," +
+            "  KEY `idx_resarc_start_time` (`start_time`)," +
+            "  KEY `idx_resarc_subscriber_status` (`subscriber_number`,`status`,`start_time`)" +
+            ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci",
+
+            "CREATE TABLE IF NOT EXISTS `bills_archive` (" +
+            "  `bill_number` int NOT NULL," +
+            "  `total_amount` decimal(10,2) NOT NULL," +
+            "  `discount_amount` decimal(10,2) DEFAULT '0.00'," +
+            "  `bill_date` date NOT NULL," +
+            "  `reservation_id` int NOT NULL," +
+            "  PRIMARY KEY (`bill_number`)," +
+            "  KEY `idx_billarc_reservation` (`reservation_id`)," +
+            "  KEY `idx_billarc_date` (`bill_date`)" +
+            ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci"
+        ),
+
+        new Migration(4, "confirmation code sequences (block allocator)",
+            "CREATE TABLE IF NOT EXISTS `code_sequences` (" +
+            "  `name` varchar(20) NOT NULL," +
+            "  `next_value` bigint NOT NULL DEFAULT '0'," +
+            "  `perm_key` bigint NOT NULL," +
+            "  PRIMARY KEY (`name`)" +
+            ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci",
+
+            // one row per code namespace; the permutation key is random per database
+            "INSERT IGNORE INTO `code_sequences` (`name`, `next_value`, `perm_key`) VALUES " +
+            "('RES', 0, FLOOR(RAND() * 9007199254740991)), ('WL', 0, FLOOR(RAND() * 9007199254740991))"
+        ),
+
+        new Migration(5, "per-subscriber stats and keyset history indexes",
+            "CREATE TABLE IF NOT EXISTS `subscriber_stats` (" +
+            "  `subscriber_number` varchar(50) NOT NULL," +
+            "  `visits` int NOT NULL DEFAULT '0'," +
+            "  `no_shows` int NOT NULL DEFAULT '0'," +
+            "  `last_visit` datetime DEFAULT NULL," +
+            "  `lifetime_spend` decimal(12,2) NOT NULL DEFAULT '0.00'," +
+            "  `updated_at` datetime NOT NULL," +
+            "  PRIMARY KEY (`subscriber_number`)" +
+            ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci",
+
+            // subscriber history pages: WHERE subscriber_number = ? ORDER BY start_time DESC, reservation_id DESC
+            "CREATE INDEX `idx_res_subscriber_start` ON `reservations` (`subscriber_number`, `start_time`, `reservation_id`)",
+            "CREATE INDEX `idx_resarc_subscriber_start` ON `reservations_archive` (`subscriber_number`, `start_time`, `reservation_id`)",
+
+            // one-time load of existing history (live + archive); no-shows were stored as plain
+            // CANCELED rows, so they can only be counted from now on
+            "INSERT IGNORE INTO `subscriber_stats` (`subscriber_number`, `visits`, `no_shows`, `last_visit`, `lifetime_spend`, `updated_at`) " +
+            "SELECT s.subscriber_number, COALESCE(v.visits, 0), 0, v.last_visit, COALESCE(p.spend, 0), NOW() " +
+            "FROM subscribers s " +
+            "LEFT JOIN (" +
+            "  SELECT subscriber_number, COUNT(*) AS visits, MAX(start_time) AS last_visit FROM (" +
+            "    SELECT subscriber_number, start_time FROM reservations WHERE status = 'COMPLETED'" +
+            "    UNION ALL " +
+            "    SELECT subscriber_number, start_time FROM reservations_archive WHERE status = 'COMPLETED'" +
+            "  ) c GROUP BY subscriber_number" +
+            ") v ON v.subscriber_number = s.subscriber_number " +
+            "LEFT JOIN (" +
+            "  SELECT subscriber_number, SUM(paid) AS spend FROM (" +
+            "    SELECT r.subscriber_number, b.total_amount - COALESCE(b.discount_amount, 0) AS paid " +
+            "    FROM bills b JOIN reservations r ON r.reservation_id = b.reservation_id" +
+            "    UNION ALL " +
+            "    SELECT r.subscriber_number, b.total_amount - COALESCE(b.discount_amount, 0) " +
+            "    FROM bills_archive b JOIN reservations_archive r ON r.reservation_id = b.reservation_id" +
+            "  ) x GROUP BY subscriber_number" +
+            ") p ON p.subscriber_number = s.subscriber_number"
+        ),
+
+        new Migration(6, "normalized contact keys (lower-case email, E.164 phone)",
+            // filled by the application on write; older rows by ContactKeyDAO.backfill at startup
+            "ALTER TABLE `users` ADD COLUMN `email_key` varchar(255) DEFAULT NULL, ADD COLUMN `phone_key` varchar(20) DEFAULT NULL",
+            "ALTER TABLE `reservations` ADD COLUMN `email_key` varchar(255) DEFAULT NULL, ADD COLUMN `phone_key` varchar(20) DEFAULT NULL",
+            "ALTER TABLE `waiting_list` ADD COLUMN `email_key` varchar(255) DEFAULT NULL, ADD COLUMN `phone_key` varchar(20) DEFAULT NULL",
+
+            // users: email-taken check and subscriber identity lookup (email OR phone)
+            "CREATE INDEX `idx_users_email_key` ON `users` (`email_key`)",
+            "CREATE INDEX `idx_users_phone_key` ON `users` (`phone_key`)",
+            // reservations: confirmation code recovery (email AND phone, or email OR phone)
+            "CREATE INDEX `idx_res_email_key` ON `reservations` (`email_key`, `phone_key`)",
+            "CREATE INDEX `idx_res_phone_key` ON `reservations` (`phone_key`)"
+        )
+    );
+
+    /**
+     * Shared MySQL connection pool.
+     */
+    private final MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
+
+    /**
+     * Applies all pending migrations.
+     *
+     * @return number of migrations applied by this call (0 if already up to date or on error)
+     */
+    public int migrate() {
+        PooledConnection pConn = null;
+        int applied = 0;
+
+        try {
+            pConn = pool.getConnection();
+            Connection conn = pConn.getConnection();
+
+            if (!acquireLock(conn)) {
+                System.out.println("⚠️ Schema migration lock busy, skipping migrations on this node");
+                return 0;
+            }
+
+            try {
+                ensureMigrationsTable(conn);
+                Set<Integer> done = loadAppliedVersions(conn);
+
+                for (Migration m : MIGRATIONS) {
+                    if (done.contains(m.version)) continue;
+
+                    System.out.println("🛠️ Applying schema migration V" + m.version + ": " + m.description);
+                    apply(conn, m);
+                    applied++;
+                }
+            } finally {
+                releaseLock(conn);
+            }
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            if (pConn != null) pool.releaseConnection(pConn);
+        }
+        return applied;
+    }
+
+    /**
+     * Runs the statements of one migration and records its version.
+     * DDL is auto-committed by MySQL, so every statement must be re-runnable.
+     *
+     * @param conn open DB connection
+     * @param m    migration to apply
+     * @throws SQLException if a statement fails for any reason other than an existing index or column
+     */
+    private void apply(Connection conn, Migration m) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            for (String sql : m.statements) {
+                try {
+                    st.execute(sql);
+                } catch (SQLException e) {
+                    if (e.getErrorCode() != ER_DUP_KEYNAME && e.getErrorCode() != ER_DUP_FIELDNAME) throw e;
+                }
+            }
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO schema_migrations (version, description, applied_at) VALUES (?, ?, NOW())")) {
+            ps.setInt(1, m.version);
+            ps.setString(2, m.description);
+            ps.executeUpdate();
+        }
+    }
+
+    private void ensureMigrationsTable(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute(
+                "CREATE TABLE IF NOT EXISTS `schema_migrations` (" +
+                "  `version` int NOT NULL," +
+                "  `description` varchar(255) NOT NULL," +
+                "  `applied_at` datetime NOT NULL," +
+                "  PRIMARY KEY (`version`)" +
+                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci");
+        }
+    }
+
+    private Set<Integer> loadAppliedVersions(Connection conn) throws SQLException {
+        Set<Integer> out = new HashSet<>();
+        try (PreparedStatement ps = conn.prepareStatement("SELECT version FROM schema_migrations");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) out.add(rs.getInt(1));
+        }
+        return out;
+    }
+
+    private boolean acquireLock(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT GET_LOCK(?, 30)")) {
+            ps.setString(1, LOCK_NAME);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private void releaseLock(Connection conn) {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.executeQuery().close();
+        } catch (Exception ignored) {
+        }
+    }
+}
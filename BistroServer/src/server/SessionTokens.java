@@ -0,0 +1,211 @@
+package server;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Signed, expiring session tokens that let a client restore its sign-in on a new connection.
+ * <p>
+ * A token is issued with every {@code LOGIN_OK} and carries the whole session (role, name, user id,
+ * email, phone, expiry) signed with HMAC-SHA256, so resuming is a signature check in memory: no
+ * password, no database query and no server-side session table. A resume issues a new token with
+ * the expiry of the original login, so a session lasts at most {@link #TTL_MILLIS} however often it
+ * is resumed.
+ * <p>
+ * Before a session is restored, its user must still be active with the same role in an in-memory
+ * snapshot of {@code users} (user id -> role of active users). The snapshot is loaded by
+ * {@code MySQLUserDAO.warmSessionRoles()} at startup and with every subscriber search resync, and
+ * each login records the role it just checked, so a deactivated or demoted user can no longer
+ * resume once the next resync has run. If the snapshot could not be loaded, every resume is refused
+ * and clients sign in normally.
+ * <p>
+ * The signing key comes from {@code BISTRO_SESSION_SECRET} (shared by every server node, and tokens
+ * survive restarts); without it a random key is generated per process, and clients fall back to a
+ * normal sign-in after a server restart.
+ */
+public final class SessionTokens {
+
+    /**
+     * How long a session can be resumed after the login that started it.
+     */
+    static final long TTL_MILLIS = 12 * 60 * 60 * 1000L;
+
+    private static final String HMAC = "HmacSHA256";
+
+    private static final SessionTokens INSTANCE = new SessionTokens();
+
+    private final SecretKeySpec key;
+
+    /**
+     * Active user id -> role name (whole-table snapshot, plus roles seen at login since).
+     */
+    private volatile Map<Integer, String> activeRoles = new ConcurrentHashMap<>();
+
+    // ---------- metrics ----------
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong resumed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong revoked = new AtomicLong();
+
+    /**
+     * A verified session, as stored in the token.
+     *
+     * @param role   user role name
+     * @param name   display name
+     * @param userId user id
+     * @param email  email ("" if none)
+     * @param phone  phone ("" if none)
+     * @param expiresAt end of the session (epoch millis, fixed at login)
+     */
+    public record Session(String role, String name, int userId, String email, String phone, long expiresAt) {}
+
+    /**
+     * Returns the shared token service.
+     *
+     * @return session tokens
+     */
+    public static SessionTokens getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Private constructor (singleton).
+     */
+    private SessionTokens() {
+        String secret = System.getenv("BISTRO_SESSION_SECRET");
+        byte[] raw;
+        if (secret != null && !secret.isBlank()) {
+            raw = secret.getBytes(StandardCharsets.UTF_8);
+        } else {
+            raw = new byte[32];
+            new SecureRandom().nextBytes(raw);
+        }
+        key = new SecretKeySpec(raw, HMAC);
+    }
+
+    /**
+     * Issues a token for a user who just signed in (password or card, checked against the database).
+     * The role is recorded in the active-user snapshot.
+     *
+     * @param role   user role name
+     * @param name   display name
+     * @param userId user id
+     * @param email  email (may be null)
+     * @param phone  phone (may be null)
+     * @return token (URL-safe Base64, contains no {@code |})
+     */
+    public String issue(String role, String name, int userId, String email, String phone) {
+        activeRoles.put(userId, role);
+        return sign(role, name, userId, email, phone, System.currentTimeMillis() + TTL_MILLIS);
+    }
+
+    /**
+     * Issues the replacement token of a resumed session (same expiry as the original login).
+     *
+     * @param s verified session
+     * @return token
+     */
+    public String reissue(Session s) {
+        return sign(s.role(), s.name(), s.userId(), s.email(), s.phone(), s.expiresAt());
+    }
+
+    /**
+     * Verifies a token, then checks that its user is still active with the same role.
+     *
+     * @param token token from {@link #issue} or {@link #reissue}
+     * @return the session, or null if the token is malformed, forged or expired, or the user was
+     *         deactivated or changed role
+     */
+    public Session verify(String token) {
+        Session s = parse(token);
+        if (s == null) {
+            rejected.incrementAndGet();
+            return null;
+        }
+        if (!s.role().equals(activeRoles.get(s.userId()))) {
+            revoked.incrementAndGet();
+            return null;
+        }
+        resumed.incrementAndGet();
+        return s;
+    }
+
+    /**
+     * Replaces the active-user snapshot.
+     *
+     * @param roles user id -> role name of every active user
+     */
+    public void replaceActiveRoles(Map<Integer, String> roles) {
+        activeRoles = new ConcurrentHashMap<>(roles);
+    }
+
+    /**
+     * Returns a one-line summary of the token metrics.
+     *
+     * @return metrics summary
+     */
+    public String summary() {
+        return "(issued=" + issued.get() + ", resumed=" + resumed.get() + ", rejected=" + rejected.get()
+                + ", revoked=" + revoked.get() + ", activeUsers=" + activeRoles.size() + ")";
+    }
+
+    private String sign(String role, String name, int userId, String email, String phone, long expiresAt) {
+        String payload = String.join("\n",
+                role, safe(name), String.valueOf(userId), safe(email), safe(phone), String.valueOf(expiresAt));
+
+        byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+        issued.incrementAndGet();
+        return encode(body) + "." + encode(sign(body));
+    }
+
+    private Session parse(String token) {
+        if (token == null) return null;
+        int dot = token.indexOf('.');
+        if (dot <= 0) return null;
+
+        try {
+            byte[] body = Base64.getUrlDecoder().decode(token.substring(0, dot));
+            byte[] mac = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(mac, sign(body))) return null;
+
+            String[] f = new String(body, StandardCharsets.UTF_8).split("\n", -1);
+            if (f.length != 6) return null;
+            long expiresAt = Long.parseLong(f[5]);
+            if (expiresAt < System.currentTimeMillis()) return null;
+
+            return new Session(f[0], f[1], Integer.parseInt(f[2]), f[3], f[4], expiresAt);
+        } catch (IllegalArgumentException e) {
+            return null; // bad Base64 or number
+        }
+    }
+
+    private byte[] sign(byte[] body) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(key);
+            return mac.doFinal(body);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e); // HmacSHA256 is always available
+        }
+    }
+
+    private static String encode(byte[] b) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(b);
+    }
+
+    /**
+     * Null becomes "", and line breaks (the field separator) are flattened.
+     */
+    private static String safe(String s) {
+        return (s == null) ? "" : s.replace('\n', ' ');
+    }
+}
@@ -0,0 +1,309 @@
+package server;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-memory cache of subscriber identities ({@code users} JOIN {@code subscribers}).
+ * <p>
+ * One {@link Identity} per subscriber, reachable by user id, subscriber number and the
+ * {@link ContactKeys} of its email and phone. A miss costs one joined query (indexed equality on
+ * {@code users.email_key} / {@code users.phone_key}) instead
+ * of the separate email / phone / subscriber-number lookups used before. Email/phone pairs that
+ * match no active subscriber (the guest case) are remembered in a bounded negative cache, so a
+ * returning guest costs no lookup at all.
+ * <p>
+ * Subscriber changes made through {@code MySQLUserDAO} call {@link #onSubscriberAdded()} and
+ * {@link #invalidateUser(int)}. Entries also expire after {@value #TTL_MILLIS} ms, which covers
+ * changes made by another server node. When a map reaches its bound it is simply cleared; it
+ * refills from the DB on demand.
+ *
+ * @see server.dao.MySQLUserDAO
+ */
+public final class SubscriberIdentityCache {
+
+    /**
+     * Max cached identities.
+     */
+    static final int MAX_ENTRIES = 10_000;
+
+    /**
+     * Max cached "no subscriber" email/phone pairs.
+     */
+    static final int MAX_NEGATIVE = 5_000;
+
+    /**
+     * Lifetime of positive and negative entries.
+     */
+    static final long TTL_MILLIS = 10 * 60 * 1000L;
+
+    private static final SubscriberIdentityCache INSTANCE = new SubscriberIdentityCache();
+
+    private static final String SELECT =
+        "SELECT u.id, u.email, u.phone, u.is_active, s.subscriber_number " +
+        "FROM subscribers s JOIN users u ON u.id = s.user_id ";
+
+    /**
+     * Identity of one subscriber.
+     */
+    public static final class Identity {
+        public final int userId;
+        public final String subscriberNumber;
+        public final String email;
+        public final String phone;
+        public final boolean active;
+        final long loadedAt;
+
+        Identity(int userId, String subscriberNumber, String email, String phone, boolean active, long loadedAt) {
+            this.userId = userId;
+            this.subscriberNumber = subscriberNumber;
+            this.email = email;
+            this.phone = phone;
+            this.active = active;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * Identities by user id (primary store).
+     */
+    private final Map<Integer, Identity> byUserId = new ConcurrentHashMap<>();
+
+    /**
+     * Secondary keys ({@code N:subscriberNumber}, {@code E:email}, {@code P:phone}) -> user id.
+     */
+    private final Map<String, Integer> keys = new ConcurrentHashMap<>();
+
+    /**
+     * Email/phone pairs with no active subscriber -> time of the lookup.
+     */
+    private final Map<String, Long> negative = new ConcurrentHashMap<>();
+
+    /**
+     * Bumped on every invalidation; a load only stores its result if this did not change meanwhile.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    // ---------- metrics ----------
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Returns the shared cache.
+     *
+     * @return subscriber identity cache
+     */
+    public static SubscriberIdentityCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Private constructor (singleton).
+     */
+    private SubscriberIdentityCache() {}
+
+    // ---------- LOOKUPS ----------
+
+    /**
+     * Finds a subscriber by user id (active or not).
+     *
+     * @param conn   open DB connection (used on a miss)
+     * @param userId {@code users.id}
+     * @return identity, or null if the user is not a subscriber
+     * @throws SQLException if a database access error occurs
+     */
+    public Identity byUserId(Connection conn, int userId) throws SQLException {
+        Identity id = fresh(byUserId.get(userId));
+        if (id != null) {
+            hits.incrementAndGet();
+            return id;
+        }
+        misses.incrementAndGet();
+        return loadOne(conn, SELECT + "WHERE s.user_id = ? LIMIT 1", userId);
+    }
+
+    /**
+     * Finds a subscriber by subscriber number (active or not).
+     *
+     * @param conn             open DB connection (used on a miss)
+     * @param subscriberNumber e.g. {@code "SUB12"}
+     * @return identity, or null if unknown
+     * @throws SQLException if a database access error occurs
+     */
+    public Identity bySubscriberNumber(Connection conn, String subscriberNumber) throws SQLException {
+        if (subscriberNumber == null || subscriberNumber.isBlank()) return null;
+
+        Identity id = lookup("N:" + subscriberNumber.trim());
+        if (id != null && subscriberNumber.trim().equals(id.subscriberNumber)) {
+            hits.incrementAndGet();
+            return id;
+        }
+        misses.incrementAndGet();
+        return loadOne(conn, SELECT + "WHERE s.subscriber_number = ? LIMIT 1", subscriberNumber.trim());
+    }
+
+    /**
+     * Finds the active subscriber owning an email or phone. Email wins over phone,
+     * as in the original two-step lookup.
+     *
+     * @param conn  open DB connection (used on a miss)
+     * @param email email (may be blank)
+     * @param phone phone (may be blank)
+     * @return identity, or null if no active subscriber matches (the guest case)
+     * @throws SQLException if a database access error occurs
+     */
+    public Identity byEmailOrPhone(Connection conn, String email, String phone) throws SQLException {
+        String e = ContactKeys.email(email);
+        String p = ContactKeys.phone(phone);
+        if (e == null && p == null) return null;
+
+        Identity id = (e == null) ? null : lookup("E:" + e);
+        if (id != null && (!id.active || !e.equals(ContactKeys.email(id.email)))) id = null;
+        if (id == null && p != null) {
+            id = lookup("P:" + p);
+            if (id != null && (!id.active || !p.equals(ContactKeys.phone(id.phone)))) id = null;
+        }
+        if (id != null) {
+            hits.incrementAndGet();
+            return id;
+        }
+
+        String negKey = (e == null ? "" : e) + "|" + (p == null ? "" : p);
+        Long at = negative.get(negKey);
+        if (at != null && System.currentTimeMillis() - at <= TTL_MILLIS) {
+            hits.incrementAndGet();
+            return null;
+        }
+
+        misses.incrementAndGet();
+        long gen = generation.get();
+
+        String sql = SELECT +
+            "WHERE u.role = 'SUBSCRIBER' AND u.is_active = 1 AND (u.email_key = ? OR u.phone_key = ?) " +
+            "ORDER BY (u.email_key = ?) DESC LIMIT 1";
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            // a blank value has a NULL key, which matches no row
+            ps.setString(1, e);
+            ps.setString(2, p);
+            ps.setString(3, e);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) return store(map(rs), gen);
+            }
+        }
+
+        synchronized (this) {
+            if (generation.get() == gen) {
+                if (negative.size() >= MAX_NEGATIVE) negative.clear();
+                negative.put(negKey, System.currentTimeMillis());
+            }
+        }
+        return null;
+    }
+
+    // ---------- INVALIDATION ----------
+
+    /**
+     * A subscriber was added: guests remembered as "not a subscriber" may now be one.
+     */
+    public void onSubscriberAdded() {
+        synchronized (this) {
+            generation.incrementAndGet();
+            negative.clear();
+        }
+    }
+
+    /**
+     * A subscriber's details changed (contact, status): drops the identity and all its keys.
+     *
+     * @param userId {@code users.id}
+     */
+    public void invalidateUser(int userId) {
+        synchronized (this) {
+            generation.incrementAndGet();
+            Identity old = byUserId.remove(userId);
+            if (old != null) removeKeys(old);
+            negative.clear(); // the new email/phone may have been cached as "no subscriber"
+        }
+    }
+
+    /**
+     * Returns a one-line summary of the cache metrics.
+     *
+     * @return metrics summary
+     */
+    public String summary() {
+        long h = hits.get();
+        long m = misses.get();
+        long ratio = (h + m == 0) ? 0 : Math.round(h * 100.0 / (h + m));
+        return "(hits=" + h + ", misses=" + m + ", hitRatio=" + ratio + "%"
+                + ", identities=" + byUserId.size() + ", negative=" + negative.size() + ")";
+    }
+
+    // ---------- INTERNALS ----------
+
+    private Identity lookup(String key) {
+        Integer userId = keys.get(key);
+        return (userId == null) ? null : fresh(byUserId.get(userId));
+    }
+
+    private static Identity fresh(Identity id) {
+        return (id != null && System.currentTimeMillis() - id.loadedAt <= TTL_MILLIS) ? id : null;
+    }
+
+    private Identity loadOne(Connection conn, String sql, Object key) throws SQLException {
+        long gen = generation.get();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setObject(1, key);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? store(map(rs), gen) : null;
+            }
+        }
+    }
+
+    private static Identity map(ResultSet rs) throws SQLException {
+        return new Identity(
+            rs.getInt("id"),
+            rs.getString("subscriber_number"),
+            rs.getString("email"),
+            rs.getString("phone"),
+            rs.getBoolean("is_active"),
+            System.currentTimeMillis());
+    }
+
+    /**
+     * Stores a loaded identity unless an invalidation happened since {@code gen}; returns it either way.
+     */
+    private Identity store(Identity id, long gen) {
+        synchronized (this) {
+            if (generation.get() != gen) return id;
+
+            if (byUserId.size() >= MAX_ENTRIES) {
+                byUserId.clear();
+                keys.clear();
+            }
+            Identity old = byUserId.put(id.userId, id);
+            if (old != null) removeKeys(old);
+
+            if (id.subscriberNumber != null) keys.put("N:" + id.subscriberNumber, id.userId);
+            String e = ContactKeys.email(id.email);
+            String p = ContactKeys.phone(id.phone);
+            if (e != null) keys.put("E:" + e, id.userId);
+            if (p != null) keys.put("P:" + p, id.userId);
+        }
+        return id;
+    }
+
+    private void removeKeys(Identity id) {
+        if (id.subscriberNumber != null) keys.remove("N:" + id.subscriberNumber, id.userId);
+        String e = ContactKeys.email(id.email);
+        String p = ContactKeys.phone(id.phone);
+        if (e != null) keys.remove("E:" + e, id.userId);
+        if (p != null) keys.remove("P:" + p, id.userId);
+    }
+}
@@ -0,0 +1,354 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import common.SubscriberSearchPage;
+import common.SubscriberSummary;
+
+/**
+ * In-memory prefix search over subscribers for the representative screens.
+ * <p>
+ * Every subscriber is split into lower-case tokens: name words, email, email local part pieces,
+ * phone key ({@link ContactKeys#phone}, so {@code 05...} and {@code +9725...} match the same
+ * subscriber), subscriber number (also without its {@code SUB} prefix) and digital card. A
+ * snapshot keeps the tokens in one sorted array (a flattened trie: all tokens starting with a
+ * prefix are one contiguous range found by binary search), with the subscribers stored in display
+ * order (name, then id). A query term becomes a {@link BitSet} of matching subscribers, terms are
+ * AND-ed, and a page is read by walking the set bits, so no sorting happens per keystroke.
+ * <p>
+ * The snapshot is loaded by {@code MySQLUserDAO.warmSearchIndex()} at startup and every
+ * {@value #RESYNC_MILLIS} ms (on every node). Subscribers added or changed on this node in between
+ * go into a small overlay that hides their snapshot row and is matched by a linear scan. A reload
+ * only drops overlay entries recorded before the load started, so a subscriber added while the
+ * database was being read is not lost when the new snapshot is swapped in.
+ */
+public final class SubscriberSearchIndex {
+
+    /**
+     * How long a snapshot is used before it is reloaded from the database.
+     */
+    static final long RESYNC_MILLIS = 10 * 60 * 1000L;
+
+    /**
+     * Largest page a client can ask for.
+     */
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private static final SubscriberSearchIndex INSTANCE = new SubscriberSearchIndex();
+
+    /**
+     * Display order: name (case-insensitive), then user id.
+     */
+    private static final Comparator<SubscriberSummary> ORDER =
+        Comparator.comparing(SubscriberSearchIndex::sortKey).thenComparingInt(SubscriberSummary::getId);
+
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final Pattern EMAIL_SEPARATORS = Pattern.compile("[._+\\-]+");
+    private static final Pattern PHONE_LIKE = Pattern.compile("[0-9+()\\-.]+");
+
+    /**
+     * A string key and the row it belongs to (only used while building a snapshot).
+     */
+    private static final class Posting implements Comparable<Posting> {
+        final String token;
+        final int row;
+
+        Posting(String token, int row) {
+            this.token = token;
+            this.row = row;
+        }
+
+        @Override
+        public int compareTo(Posting o) {
+            return token.compareTo(o.token);
+        }
+    }
+
+    /**
+     * Immutable index over a list of subscribers.
+     */
+    private static final class Snapshot {
+        /** Subscribers in display order. */
+        final SubscriberSummary[] rows;
+        /** User id -> row. */
+        final Map<Integer, Integer> rowByUser;
+        /** Sorted tokens (with duplicates) and the row of each. */
+        final String[] tokens;
+        final int[] tokenRows;
+
+        Snapshot(Collection<SubscriberSummary> subscribers) {
+            // sort on precomputed keys (same order as ORDER, without lower-casing per comparison)
+            Posting[] keyed = new Posting[subscribers.size()];
+            SubscriberSummary[] in = subscribers.toArray(new SubscriberSummary[0]);
+            for (int i = 0; i < in.length; i++) keyed[i] = new Posting(sortKey(in[i]), i);
+            Arrays.sort(keyed, Comparator.<Posting, String>comparing(k -> k.token)
+                                         .thenComparingInt(k -> in[k.row].getId()));
+            rows = new SubscriberSummary[in.length];
+            for (int i = 0; i < in.length; i++) rows[i] = in[keyed[i].row];
+
+            rowByUser = new HashMap<>(rows.length * 2);
+            List<Posting> postings = new ArrayList<>(rows.length * 8);
+            for (int r = 0; r < rows.length; r++) {
+                rowByUser.put(rows[r].getId(), r);
+                for (String t : tokensOf(rows[r])) postings.add(new Posting(t, r));
+            }
+
+            Posting[] sorted = postings.toArray(new Posting[0]);
+            Arrays.sort(sorted);
+
+            tokens = new String[sorted.length];
+            tokenRows = new int[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                tokens[i] = sorted[i].token;
+                tokenRows[i] = sorted[i].row;
+            }
+        }
+
+        /**
+         * Rows having a token that starts with {@code prefix}.
+         */
+        BitSet match(String prefix) {
+            BitSet out = new BitSet(rows.length);
+            int i = lowerBound(prefix);
+            while (i < tokens.length && tokens[i].startsWith(prefix)) {
+                out.set(tokenRows[i]);
+                i++;
+            }
+            return out;
+        }
+
+        private int lowerBound(String key) {
+            int lo = 0;
+            int hi = tokens.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (tokens[mid].compareTo(key) < 0) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+
+    private volatile Snapshot snapshot = new Snapshot(List.of());
+    private volatile long loadedAt;
+
+    /**
+     * A subscriber added or changed on this node, and when it was recorded.
+     */
+    private static final class Overlaid {
+        final SubscriberSummary subscriber;
+        final long recordedAt;
+
+        Overlaid(SubscriberSummary subscriber, long recordedAt) {
+            this.subscriber = subscriber;
+            this.recordedAt = recordedAt;
+        }
+    }
+
+    /**
+     * Subscribers added or changed on this node since the snapshot load started.
+     */
+    private final Map<Integer, Overlaid> overlay = new ConcurrentHashMap<>();
+
+    // ---------- metrics ----------
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong searchNanos = new AtomicLong();
+
+    /**
+     * Returns the shared index.
+     *
+     * @return subscriber search index
+     */
+    public static SubscriberSearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Private constructor (singleton).
+     */
+    private SubscriberSearchIndex() {}
+
+    /**
+     * Replaces the snapshot with a full load. Overlay entries recorded before the load started are
+     * dropped (the load already has them); newer ones are kept.
+     *
+     * @param subscribers   every subscriber
+     * @param loadStartedAt time (epoch millis) taken just before the load query ran
+     */
+    public synchronized void replaceAll(Collection<SubscriberSummary> subscribers, long loadStartedAt) {
+        snapshot = new Snapshot(subscribers);
+        overlay.values().removeIf(o -> o.recordedAt < loadStartedAt);
+        loadedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns whether the snapshot is older than {@link #RESYNC_MILLIS} (or was never loaded).
+     *
+     * @return {@code true} if a reload is due
+     */
+    public boolean needsResync() {
+        return System.currentTimeMillis() - loadedAt >= RESYNC_MILLIS;
+    }
+
+    /**
+     * Records a subscriber added or changed on this node.
+     *
+     * @param s the subscriber as now stored
+     */
+    public void put(SubscriberSummary s) {
+        if (s != null) overlay.put(s.getId(), new Overlaid(s, System.currentTimeMillis()));
+    }
+
+    /**
+     * Returns one page of subscribers matching every term of {@code query} by prefix.
+     * A blank query matches everyone.
+     *
+     * @param query  search text (terms separated by spaces)
+     * @param offset first match to return
+     * @param limit  page size (capped at {@link #MAX_PAGE_SIZE})
+     * @return the page
+     */
+    public SubscriberSearchPage search(String query, int offset, int limit) {
+        long t0 = System.nanoTime();
+        int from = Math.max(0, offset);
+        int size = Math.max(1, Math.min(MAX_PAGE_SIZE, limit));
+
+        Snapshot snap = snapshot;
+        List<String> terms = terms(query);
+
+        // snapshot matches
+        BitSet hits;
+        if (terms.isEmpty()) {
+            hits = new BitSet(snap.rows.length);
+            hits.set(0, snap.rows.length);
+        } else {
+            hits = snap.match(terms.get(0));
+            for (int i = 1; i < terms.size() && !hits.isEmpty(); i++) hits.and(snap.match(terms.get(i)));
+        }
+
+        // overlay: hide stale snapshot rows, match the new versions directly
+        List<SubscriberSummary> extra = new ArrayList<>();
+        for (Overlaid o : overlay.values()) {
+            SubscriberSummary s = o.subscriber;
+            Integer row = snap.rowByUser.get(s.getId());
+            if (row != null) hits.clear(row);
+            if (matchesAll(s, terms)) extra.add(s);
+        }
+        extra.sort(ORDER);
+
+        int total = hits.cardinality() + extra.size();
+
+        // merge the two ordered sequences, skip the offset, take one page
+        List<SubscriberSummary> page = new ArrayList<>(Math.min(size, Math.max(0, total - from)));
+        int row = hits.nextSetBit(0);
+        int e = 0;
+        int pos = 0;
+        while (page.size() < size && (row >= 0 || e < extra.size())) {
+            SubscriberSummary next;
+            if (row < 0) {
+                next = extra.get(e++);
+            } else if (e >= extra.size() || ORDER.compare(snap.rows[row], extra.get(e)) <= 0) {
+                next = snap.rows[row];
+                row = hits.nextSetBit(row + 1);
+            } else {
+                next = extra.get(e++);
+            }
+            if (pos++ >= from) page.add(next);
+        }
+
+        searches.incrementAndGet();
+        searchNanos.addAndGet(System.nanoTime() - t0);
+        return new SubscriberSearchPage(query == null ? "" : query, from, total, page);
+    }
+
+    /**
+     * Returns a one-line summary of the index metrics.
+     *
+     * @return metrics summary
+     */
+    public String summary() {
+        Snapshot snap = snapshot;
+        long n = searches.get();
+        long avgMicros = (n == 0) ? 0 : searchNanos.get() / n / 1000;
+        return "(subscribers=" + snap.rows.length + ", tokens=" + snap.tokens.length + ", overlay=" + overlay.size()
+                + ", searches=" + n + ", avgSearch=" + avgMicros + "us)";
+    }
+
+    // ---------- TOKENS ----------
+
+    /**
+     * Splits a query into normalized terms (phone-like terms become {@link ContactKeys#phone} keys,
+     * like the indexed phones).
+     */
+    private static List<String> terms(String query) {
+        List<String> out = new ArrayList<>();
+        if (query == null) return out;
+        for (String raw : SPACES.split(query.trim().toLowerCase(Locale.ROOT))) {
+            if (raw.isEmpty()) continue;
+            String t = PHONE_LIKE.matcher(raw).matches() ? ContactKeys.phone(raw) : raw;
+            if (t != null && !t.isEmpty()) out.add(t);
+        }
+        return out;
+    }
+
+    private static List<String> tokensOf(SubscriberSummary s) {
+        List<String> out = new ArrayList<>(8);
+        if (s.getName() != null) {
+            for (String w : SPACES.split(s.getName().toLowerCase(Locale.ROOT))) {
+                if (!w.isEmpty()) out.add(w);
+            }
+        }
+        String email = ContactKeys.email(s.getEmail());
+        if (email != null) {
+            out.add(email);
+            int at = email.indexOf('@');
+            String local = (at < 0) ? email : email.substring(0, at);
+            for (String part : EMAIL_SEPARATORS.split(local)) {
+                if (!part.isEmpty() && !email.startsWith(part)) out.add(part);
+            }
+            if (at >= 0 && at + 1 < email.length()) out.add(email.substring(at + 1));
+        }
+        String phone = ContactKeys.phone(s.getPhone());
+        if (phone != null) out.add(phone);
+        if (s.getSubscriberNumber() != null) {
+            String sub = s.getSubscriberNumber().trim().toLowerCase(Locale.ROOT);
+            out.add(sub);
+            if (sub.startsWith("sub") && sub.length() > 3) out.add(sub.substring(3));
+        }
+        if (s.getDigitalCard() != null && !s.getDigitalCard().isBlank()) {
+            out.add(s.getDigitalCard().trim().toLowerCase(Locale.ROOT));
+        }
+        return out;
+    }
+
+    private static String sortKey(SubscriberSummary s) {
+        return s.getName() == null ? "" : s.getName().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean matchesAll(SubscriberSummary s, List<String> terms) {
+        if (terms.isEmpty()) return true;
+        List<String> toks = tokensOf(s);
+        for (String term : terms) {
+            boolean any = false;
+            for (String t : toks) {
+                if (t.startsWith(term)) {
+                    any = true;
+                    break;
+                }
+            }
+            if (!any) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,146 @@
+package server;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Half-open time range {@code [from, to)} for sargable SQL predicates.
+ * <p>
+ * Day and month filters written as {@code DATE(col) = ?} or {@code MONTH(col) = ? AND YEAR(col) = ?}
+ * wrap the column in a function, so MySQL cannot use an index on it and scans the whole table.
+ * The same filter written as {@code col >= ? AND col < ?} is an index range scan.
+ * {@link TimeRangeBenchmark} measures the difference on a seeded 1M-row table.
+ * <p>
+ * Usage:
+ * <pre>
+ * String sql = "SELECT ... FROM reservations WHERE " + TimeRange.predicate("start_time") + " AND status = ?";
+ * int next = TimeRange.day(date).bind(ps, 1);   // binds parameters 1 and 2
+ * ps.setString(next, "ACTIVE");
+ * </pre>
+ */
+public final class TimeRange {
+
+    /**
+     * Inclusive lower bound.
+     */
+    private final LocalDateTime from;
+
+    /**
+     * Exclusive upper bound.
+     */
+    private final LocalDateTime to;
+
+    /**
+     * Creates a range {@code [from, to)}.
+     *
+     * @param from inclusive lower bound
+     * @param to   exclusive upper bound
+     */
+    private TimeRange(LocalDateTime from, LocalDateTime to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Range covering one calendar day.
+     *
+     * @param day the day
+     * @return {@code [day 00:00, day+1 00:00)}
+     */
+    public static TimeRange day(LocalDate day) {
+        return new TimeRange(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Range covering today (server local date).
+     *
+     * @return today's range
+     */
+    public static TimeRange today() {
+        return day(LocalDate.now());
+    }
+
+    /**
+     * Range covering one calendar month.
+     *
+     * @param year  year number
+     * @param month month number (1-12)
+     * @return {@code [first day, first day of next month)}
+     */
+    public static TimeRange month(int year, int month) {
+        LocalDate first = LocalDate.of(year, month, 1);
+        return new TimeRange(first.atStartOfDay(), first.plusMonths(1).atStartOfDay());
+    }
+
+    /**
+     * Range covering whole days {@code [fromDay, toDayExclusive)}.
+     *
+     * @param fromDay        first day (inclusive)
+     * @param toDayExclusive day after the last day
+     * @return the range
+     */
+    public static TimeRange days(LocalDate fromDay, LocalDate toDayExclusive) {
+        return new TimeRange(fromDay.atStartOfDay(), toDayExclusive.atStartOfDay());
+    }
+
+    /**
+     * Builds the sargable predicate for a column.
+     *
+     * @param column column name (may be qualified, e.g. {@code r.start_time})
+     * @return {@code "column >= ? AND column < ?"}
+     */
+    public static String predicate(String column) {
+        return column + " >= ? AND " + column + " < ?";
+    }
+
+    /**
+     * Binds the two range parameters of {@link #predicate(String)} as timestamps.
+     *
+     * @param ps    statement
+     * @param index index of the lower-bound parameter
+     * @return index of the next parameter after the range
+     * @throws SQLException if binding fails
+     */
+    public int bind(PreparedStatement ps, int index) throws SQLException {
+        ps.setTimestamp(index, Timestamp.valueOf(from));
+        ps.setTimestamp(index + 1, Timestamp.valueOf(to));
+        return index + 2;
+    }
+
+    /**
+     * Binds the two range parameters as dates (for {@code DATE} columns such as {@code bills.bill_date}).
+     * Only meaningful for whole-day ranges.
+     *
+     * @param ps    statement
+     * @param index index of the lower-bound parameter
+     * @return index of the next parameter after the range
+     * @throws SQLException if binding fails
+     */
+    public int bindDates(PreparedStatement ps, int index) throws SQLException {
+        ps.setDate(index, java.sql.Date.valueOf(from.toLocalDate()));
+        ps.setDate(index + 1, java.sql.Date.valueOf(to.toLocalDate()));
+        return index + 2;
+    }
+
+    /**
+     * @return inclusive lower bound
+     */
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    /**
+     * @return exclusive upper bound
+     */
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + from + ", " + to + ")";
+    }
+}
@@ -0,0 +1,225 @@
+package server;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Latency benchmark: day/month filters as function predicates vs. {@link TimeRange} ranges.
+ * <p>
+ * Seeds {@code bench_reservations} (a copy of the {@code reservations} schema, indexes included)
+ * with {@code rows} reservations spread over two years from a fixed random seed, so every run
+ * sees the same data. A table that already holds exactly {@code rows} rows is reused. Each query
+ * pair is then run warm, and the median and p95 latencies are printed side by side:
+ * <ul>
+ *   <li>today's reservations: {@code DATE(start_time) = ?} vs. {@code [day, day + 1)}</li>
+ *   <li>active reservations of a day: {@code status = 'ACTIVE' AND DATE(start_time) = ?} vs. range</li>
+ *   <li>monthly subscriber orders: {@code MONTH(start_time) = ? AND YEAR(start_time) = ?} vs. {@code [month, month + 1)}</li>
+ * </ul>
+ * Usage (same DB defaults as the server GUI; {@code drop} removes the table afterwards):
+ * <pre>
+ * java -cp bin:mysql-connector-j.jar server.TimeRangeBenchmark [dbHost] [dbPort] [dbUser] [dbPass] [rows] [drop]
+ * </pre>
+ */
+public final class TimeRangeBenchmark {
+
+    private static final String TABLE = "bench_reservations";
+
+    private static final int DEFAULT_ROWS = 1_000_000;
+    private static final long SEED = 42L;
+    private static final int BATCH = 5_000;
+    private static final int WARMUP = 3;
+    private static final int RUNS = 15;
+
+    /**
+     * Data covers [FIRST_DAY, FIRST_DAY + DAYS); reservations before CUTOFF are finished.
+     */
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 1);
+    private static final int DAYS = 730;
+    private static final LocalDate CUTOFF = LocalDate.of(2026, 1, 1);
+
+    /**
+     * Day and month the queries look at (inside the seeded data).
+     */
+    private static final LocalDate QUERY_DAY = LocalDate.of(2025, 6, 15);
+
+    private TimeRangeBenchmark() {}
+
+    /**
+     * Entry point.
+     *
+     * @param args optional dbHost, dbPort, dbUser, dbPass, rows, "drop"
+     */
+    public static void main(String[] args) {
+        String host = arg(args, 0, "localhost");
+        String port = arg(args, 1, "3306");
+        String user = arg(args, 2, "root");
+        String pass = arg(args, 3, "Aa123456");
+        int rows = Integer.parseInt(arg(args, 4, String.valueOf(DEFAULT_ROWS)));
+        boolean drop = "drop".equalsIgnoreCase(arg(args, 5, ""));
+
+        MySQLConnectionPool.configure("jdbc:mysql://" + host + ":" + port +
+                "/bistro?serverTimezone=Asia/Jerusalem&useSSL=false&allowPublicKeyRetrieval=true" +
+                "&rewriteBatchedStatements=true", user, pass);
+
+        PooledConnection pConn = null;
+        try {
+            pConn = MySQLConnectionPool.getInstance().getConnection();
+            Connection conn = pConn.getConnection();
+
+            seed(conn, rows);
+            run(conn);
+
+            if (drop) {
+                try (Statement st = conn.createStatement()) {
+                    st.execute("DROP TABLE " + TABLE);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            System.exit(2);
+        } finally {
+            if (pConn != null) MySQLConnectionPool.getInstance().releaseConnection(pConn);
+        }
+        System.exit(0);
+    }
+
+    // ---------- SEED ----------
+    private static void seed(Connection conn, int rows) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " LIKE reservations");
+            try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM " + TABLE)) {
+                if (rs.next() && rs.getLong(1) == rows) {
+                    System.out.println("Reusing " + TABLE + " (" + rows + " rows).");
+                    return;
+                }
+            }
+            st.execute("TRUNCATE TABLE " + TABLE);
+        }
+
+        System.out.println("Seeding " + rows + " rows into " + TABLE + "...");
+        long t0 = System.nanoTime();
+        Random rnd = new Random(SEED);
+
+        String sql =
+            "INSERT INTO " + TABLE + " (dinners_number, confirmation_code, status, table_number, subscriber_number, " +
+            "  start_time, end_time, created_at, check_in_time) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 1; i <= rows; i++) {
+                LocalDateTime start = FIRST_DAY.plusDays(rnd.nextInt(DAYS))
+                        .atTime(11 + rnd.nextInt(11), rnd.nextBoolean() ? 0 : 30);
+                boolean finished = start.toLocalDate().isBefore(CUTOFF);
+                String status = !finished ? "ACTIVE" : (rnd.nextInt(5) == 0 ? "CANCELED" : "COMPLETED");
+
+                ps.setInt(1, 1 + rnd.nextInt(8));
+                ps.setString(2, "B" + i);
+                ps.setString(3, status);
+                ps.setInt(4, 1 + rnd.nextInt(20));
+                ps.setString(5, rnd.nextInt(10) < 3 ? String.valueOf(1000 + rnd.nextInt(5000)) : null);
+                ps.setTimestamp(6, Timestamp.valueOf(start));
+                ps.setTimestamp(7, Timestamp.valueOf(start.plusHours(2)));
+                ps.setTimestamp(8, Timestamp.valueOf(start.minusDays(1 + rnd.nextInt(30))));
+                ps.setTimestamp(9, "COMPLETED".equals(status) ? Timestamp.valueOf(start.plusMinutes(rnd.nextInt(20))) : null);
+                ps.addBatch();
+
+                if (i % BATCH == 0 || i == rows) {
+                    ps.executeBatch();
+                    conn.commit();
+                }
+            }
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+
+        try (Statement st = conn.createStatement()) {
+            st.execute("ANALYZE TABLE " + TABLE);
+        }
+        System.out.println("Seeded in " + (System.nanoTime() - t0) / 1_000_000 + " ms.");
+    }
+
+    // ---------- RUN ----------
+    private static void run(Connection conn) throws SQLException {
+        TimeRange day = TimeRange.day(QUERY_DAY);
+        TimeRange month = TimeRange.month(QUERY_DAY.getYear(), QUERY_DAY.getMonthValue());
+        Date dayDate = Date.valueOf(QUERY_DAY);
+
+        System.out.printf("%n%-34s %12s %12s %12s %12s%n", "query", "func p50 ms", "func p95 ms", "range p50 ms", "range p95 ms");
+
+        compare(conn, "day's reservations",
+            "SELECT reservation_id, start_time, status FROM " + TABLE + " WHERE DATE(start_time) = ?",
+            ps -> ps.setDate(1, dayDate),
+            "SELECT reservation_id, start_time, status FROM " + TABLE + " WHERE " + TimeRange.predicate("start_time"),
+            ps -> day.bind(ps, 1));
+
+        compare(conn, "active reservations of a day",
+            "SELECT reservation_id FROM " + TABLE + " WHERE status = 'ACTIVE' AND DATE(start_time) = ?",
+            ps -> ps.setDate(1, dayDate),
+            "SELECT reservation_id FROM " + TABLE + " WHERE status = 'ACTIVE' AND " + TimeRange.predicate("start_time"),
+            ps -> day.bind(ps, 1));
+
+        compare(conn, "monthly subscriber orders",
+            "SELECT COUNT(*) FROM " + TABLE + " WHERE status = 'COMPLETED' " +
+            "AND subscriber_number IS NOT NULL AND subscriber_number != '' " +
+            "AND MONTH(start_time) = ? AND YEAR(start_time) = ?",
+            ps -> { ps.setInt(1, QUERY_DAY.getMonthValue()); ps.setInt(2, QUERY_DAY.getYear()); },
+            "SELECT COUNT(*) FROM " + TABLE + " WHERE status = 'COMPLETED' " +
+            "AND subscriber_number IS NOT NULL AND subscriber_number != '' " +
+            "AND " + TimeRange.predicate("start_time"),
+            ps -> month.bind(ps, 1));
+    }
+
+    @FunctionalInterface
+    private interface Binder {
+        void bind(PreparedStatement ps) throws SQLException;
+    }
+
+    private static void compare(Connection conn, String name, String funcSql, Binder funcBind,
+                                String rangeSql, Binder rangeBind) throws SQLException {
+        long[] func = time(conn, funcSql, funcBind);
+        long[] range = time(conn, rangeSql, rangeBind);
+        System.out.printf("%-34s %12.2f %12.2f %12.2f %12.2f%n", name,
+                ms(func[RUNS / 2]), ms(func[(int) (RUNS * 0.95)]),
+                ms(range[RUNS / 2]), ms(range[(int) (RUNS * 0.95)]));
+    }
+
+    /**
+     * Runs a query WARMUP + RUNS times (reading every row) and returns the sorted timed latencies in ns.
+     */
+    private static long[] time(Connection conn, String sql, Binder binder) throws SQLException {
+        long[] out = new long[RUNS];
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            binder.bind(ps);
+            for (int i = -WARMUP; i < RUNS; i++) {
+                long t0 = System.nanoTime();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        // drain
+                    }
+                }
+                if (i >= 0) out[i] = System.nanoTime() - t0;
+            }
+        }
+        Arrays.sort(out);
+        return out;
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static String arg(String[] args, int i, String def) {
+        return (args.length > i && !args[i].isBlank()) ? args[i] : def;
+    }
+}
@@ -0,0 +1,134 @@
+package server;
+
+/**
+ * Rolling wait-time (ETA) estimator for the waiting list, fed by live table turnover.
+ * <p>
+ * Keeps, per party size, an exponentially weighted moving average (EWMA) of:
+ * <ul>
+ *   <li>the interval between two table releases (COMPLETED reservations), and</li>
+ *   <li>the dwell time (check-in -> completion),</li>
+ * </ul>
+ * plus the number of parties currently seated. Every event is an O(1) update on a few array slots,
+ * so calling it from check-in / payment / auto-complete adds nothing noticeable to those paths.
+ * <p>
+ * A released table of a party of size {@code s} can seat any party of size {@code <= s}, so the
+ * release rate seen by a party of size {@code d} is the sum of the rates of all sizes {@code >= d}.
+ * When no release interval is known yet, the rate falls back to Little's law
+ * ({@code seated parties / average dwell time}).
+ * <p>
+ * Statistics are in memory only and start empty on every server start.
+ */
+public final class WaitTimeEstimator {
+
+    /**
+     * Largest tracked party size; bigger parties share the last slot.
+     */
+    public static final int MAX_PARTY_SIZE = 12;
+
+    /**
+     * Upper bound for a returned estimate, in minutes.
+     */
+    public static final int MAX_ESTIMATE_MINUTES = 240;
+
+    /**
+     * EWMA smoothing factor (weight of the newest sample).
+     */
+    private static final double ALPHA = 0.2;
+
+    /**
+     * Default dwell time (minutes) used before the first completion is seen: one full seating.
+     */
+    private static final double DEFAULT_DWELL_MINUTES = 120.0;
+
+    /**
+     * Shared instance used by the DB layer and the waiting-list handlers.
+     */
+    private static final WaitTimeEstimator INSTANCE = new WaitTimeEstimator();
+
+    // index = party size (1..MAX_PARTY_SIZE); slot 0 unused
+    private final double[] releaseIntervalMin = new double[MAX_PARTY_SIZE + 1];
+    private final long[] lastReleaseMillis = new long[MAX_PARTY_SIZE + 1];
+    private final double[] dwellMin = new double[MAX_PARTY_SIZE + 1];
+    private final int[] seated = new int[MAX_PARTY_SIZE + 1];
+
+    /**
+     * Returns the shared estimator instance.
+     *
+     * @return wait-time estimator
+     */
+    public static WaitTimeEstimator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Private constructor (singleton).
+     */
+    private WaitTimeEstimator() {}
+
+    /**
+     * Records that a party was seated (reservation moved to CHECKED_IN).
+     *
+     * @param diners party size
+     */
+    public synchronized void onCheckIn(int diners) {
+        seated[slot(diners)]++;
+    }
+
+    /**
+     * Records that a party left and its table became free (reservation moved to COMPLETED).
+     *
+     * @param diners        party size
+     * @param checkInMillis check-in time in epoch millis, or 0 if unknown
+     */
+    public synchronized void onRelease(int diners, long checkInMillis) {
+        int s = slot(diners);
+        long now = System.currentTimeMillis();
+
+        if (seated[s] > 0) seated[s]--;
+
+        if (lastReleaseMillis[s] > 0) {
+            releaseIntervalMin[s] = ewma(releaseIntervalMin[s], (now - lastReleaseMillis[s]) / 60000.0);
+        }
+        lastReleaseMillis[s] = now;
+
+        if (checkInMillis > 0 && checkInMillis <= now) {
+            dwellMin[s] = ewma(dwellMin[s], (now - checkInMillis) / 60000.0);
+        }
+    }
+
+    /**
+     * Estimates how long a party will wait for a table.
+     *
+     * @param diners       party size
+     * @param partiesAhead number of waiting parties ahead of this one
+     * @return estimated wait in minutes (0..{@link #MAX_ESTIMATE_MINUTES}), or -1 if there is no data yet
+     */
+    public synchronized int estimateMinutes(int diners, int partiesAhead) {
+        long now = System.currentTimeMillis();
+        double ratePerMin = 0;
+
+        for (int s = slot(diners); s <= MAX_PARTY_SIZE; s++) {
+            if (releaseIntervalMin[s] > 0) {
+                // a long silence since the last release stretches the interval
+                double sinceLast = (now - lastReleaseMillis[s]) / 60000.0;
+                ratePerMin += 1.0 / Math.max(releaseIntervalMin[s], sinceLast);
+            } else if (seated[s] > 0) {
+                double dwell = dwellMin[s] > 0 ? dwellMin[s] : DEFAULT_DWELL_MINUTES;
+                ratePerMin += seated[s] / dwell;
+            }
+        }
+
+        if (ratePerMin <= 0) return -1;
+
+        double minutes = (Math.max(0, partiesAhead) + 1) / ratePerMin;
+        return (int) Math.min(MAX_ESTIMATE_MINUTES, Math.ceil(minutes));
+    }
+
+    private static int slot(int diners) {
+        return Math.max(1, Math.min(MAX_PARTY_SIZE, diners));
+    }
+
+    private static double ewma(double current, double sample) {
+        return current <= 0 ? sample : current + ALPHA * (sample - current);
+    }
+}
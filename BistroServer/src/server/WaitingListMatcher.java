@@ -0,0 +1,171 @@
+package server;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * In-memory matching engine that assigns waiting-list parties to free tables.
+ * <p>
+ * The whole queue and all free tables are matched in one pass, so a party that does not fit any
+ * free table no longer blocks the parties behind it (no head-of-line blocking).
+ * <p>
+ * Matching rules:
+ * <ol>
+ *   <li>Aged parties (waiting at least {@link #AGING_MINUTES}) are served first, in FIFO order,
+ *       each getting the smallest free table that fits.</li>
+ *   <li>Every remaining table (smallest first) goes to the largest party that fits it
+ *       (least wasted seats); parties of the same size are served FIFO.</li>
+ * </ol>
+ * This class does no database access; {@link DBController} loads the input and commits the result.
+ */
+public final class WaitingListMatcher {
+
+    /**
+     * Waiting time (minutes) after which a party is served ahead of better-fitting parties.
+     */
+    public static final int AGING_MINUTES = 15;
+
+    /**
+     * A waiting party, as seen by the matcher.
+     */
+    public static final class Party {
+        final int id;
+        final int diners;
+        final long waitingMinutes;
+
+        /**
+         * @param id             waiting_list id
+         * @param diners         party size
+         * @param waitingMinutes minutes since the party joined the waiting list
+         */
+        public Party(int id, int diners, long waitingMinutes) {
+            this.id = id;
+            this.diners = diners;
+            this.waitingMinutes = waitingMinutes;
+        }
+    }
+
+    /**
+     * A table that is free for the whole seating window.
+     */
+    public static final class FreeTable {
+        final int tableNumber;
+        final int capacity;
+
+        /**
+         * @param tableNumber table number
+         * @param capacity    table capacity
+         */
+        public FreeTable(int tableNumber, int capacity) {
+            this.tableNumber = tableNumber;
+            this.capacity = capacity;
+        }
+    }
+
+    /**
+     * A single match result: waiting party id -> table number.
+     */
+    public static final class Invite {
+        final int waitingId;
+        final int tableNumber;
+
+        Invite(int waitingId, int tableNumber) {
+            this.waitingId = waitingId;
+            this.tableNumber = tableNumber;
+        }
+    }
+
+    /**
+     * Static utility; not instantiable.
+     */
+    private WaitingListMatcher() {}
+
+    /**
+     * Computes a fair assignment of waiting parties to free tables.
+     *
+     * @param queue  waiting parties in FIFO order (oldest first)
+     * @param tables free tables (any order)
+     * @return list of invites (each party and each table used at most once)
+     */
+    public static List<Invite> match(List<Party> queue, List<FreeTable> tables) {
+        List<Invite> invites = new ArrayList<>();
+        if (queue.isEmpty() || tables.isEmpty()) return invites;
+
+        // capacity -> free tables of that capacity (lowest table number first)
+        TreeMap<Integer, Deque<FreeTable>> freeByCapacity = new TreeMap<>();
+        List<FreeTable> sortedTables = new ArrayList<>(tables);
+        sortedTables.sort(Comparator.comparingInt((FreeTable t) -> t.capacity).thenComparingInt(t -> t.tableNumber));
+        for (FreeTable t : sortedTables) {
+            freeByCapacity.computeIfAbsent(t.capacity, k -> new ArrayDeque<>()).addLast(t);
+        }
+
+        // party size -> waiting parties of that size (FIFO)
+        TreeMap<Integer, Deque<Party>> bucketBySize = new TreeMap<>();
+        for (Party p : queue) {
+            bucketBySize.computeIfAbsent(p.diners, k -> new ArrayDeque<>()).addLast(p);
+        }
+
+        // 1) Aged parties first (FIFO), smallest table that fits
+        for (Party p : queue) {
+            if (p.waitingMinutes < AGING_MINUTES) continue;
+
+            FreeTable t = takeSmallestFitting(freeByCapacity, p.diners);
+            if (t == null) continue; // does not fit anything right now -> others may still be seated
+
+            removeParty(bucketBySize, p);
+            invites.add(new Invite(p.id, t.tableNumber));
+        }
+
+        // 2) Remaining tables (smallest first) -> largest party that fits, FIFO within the size
+        while (!freeByCapacity.isEmpty() && !bucketBySize.isEmpty()) {
+            Map.Entry<Integer, Deque<FreeTable>> smallest = freeByCapacity.firstEntry();
+            FreeTable t = smallest.getValue().pollFirst();
+            if (smallest.getValue().isEmpty()) freeByCapacity.remove(smallest.getKey());
+
+            Map.Entry<Integer, Deque<Party>> bucket = bucketBySize.floorEntry(t.capacity);
+            if (bucket == null) continue; // nobody fits this table
+
+            Party p = bucket.getValue().pollFirst();
+            if (bucket.getValue().isEmpty()) bucketBySize.remove(bucket.getKey());
+
+            invites.add(new Invite(p.id, t.tableNumber));
+        }
+
+        return invites;
+    }
+
+    /**
+     * Removes and returns the smallest free table whose capacity fits the party.
+     *
+     * @param freeByCapacity free tables grouped by capacity
+     * @param diners         party size
+     * @return the table, or null if no table fits
+     */
+    private static FreeTable takeSmallestFitting(TreeMap<Integer, Deque<FreeTable>> freeByCapacity, int diners) {
+        Map.Entry<Integer, Deque<FreeTable>> e = freeByCapacity.ceilingEntry(diners);
+        if (e == null) return null;
+
+        FreeTable t = e.getValue().pollFirst();
+        if (e.getValue().isEmpty()) freeByCapacity.remove(e.getKey());
+        return t;
+    }
+
+    /**
+     * Removes a party from its size bucket.
+     *
+     * @param bucketBySize parties grouped by size
+     * @param p            party to remove
+     */
+    private static void removeParty(TreeMap<Integer, Deque<Party>> bucketBySize, Party p) {
+        Deque<Party> bucket = bucketBySize.get(p.diners);
+        if (bucket == null) return;
+
+        bucket.remove(p);
+        if (bucket.isEmpty()) bucketBySize.remove(p.diners);
+    }
+}
@@ -0,0 +1,375 @@
+package server;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import common.WaitingListEntry;
+
+/**
+ * In-memory view of the WAITING part of the {@code waiting_list} table.
+ * <p>
+ * Entries are kept in FIFO order (by a sequence number assigned in {@code request_time, id} order)
+ * and grouped into party-size buckets, so invite selection and queue-position answers do not need
+ * to scan the table:
+ * <ul>
+ *   <li>size buckets: {@code diners -> (seq -> entry)} (O(log n) add/remove, FIFO inside a size)</li>
+ *   <li>queue position: Fenwick tree over sequence numbers (O(log n) rank of an entry)</li>
+ * </ul>
+ * The index is rebuilt from the database at server startup and updated by {@link DBController} after
+ * every committed mutation (join, leave, invite). The database stays the source of truth: every state
+ * change is still a conditional UPDATE/DELETE. Before matching, the invite pass (run by the scheduler
+ * leader only) adds the rows with an id above the largest one seen ({@link #addMissing(List)}), so
+ * joins handled by other server nodes are not skipped; everything is rebuilt from the database
+ * every {@link #RESYNC_INTERVAL_MILLIS} ms.
+ */
+public final class WaitingQueueIndex {
+
+    /**
+     * Maximum age of the index before it is rebuilt from the database.
+     */
+    public static final long RESYNC_INTERVAL_MILLIS = 5 * 60 * 1000L;
+
+    /**
+     * Delta loads re-read this many ids below the largest one seen (auto-increment ids can commit out of order).
+     */
+    public static final int DELTA_OVERLAP_IDS = 100;
+
+    /**
+     * A single WAITING party, with the fields needed by the invite job and the waiting-list screen.
+     */
+    public static final class Entry {
+        final int id;
+        final String code;
+        final int diners;
+        final LocalDateTime requestTime;
+        final String subscriberNumber;
+        final String guestPhone;
+        final String guestEmail;
+        final String name;
+        final String phone;
+
+        /** FIFO sequence number inside the index (assigned on insert). */
+        int seq;
+
+        /**
+         * @param id               waiting_list id
+         * @param code             waiting confirmation code (WLxxxxxx)
+         * @param diners           party size
+         * @param requestTime      time the party joined the waiting list
+         * @param subscriberNumber subscriber number (null for guests)
+         * @param guestPhone       phone stored on the waiting-list row
+         * @param guestEmail       email stored on the waiting-list row
+         * @param name             display name (subscriber name or "Guest")
+         * @param phone            display phone (subscriber phone or guest phone)
+         */
+        public Entry(int id, String code, int diners, LocalDateTime requestTime, String subscriberNumber,
+                     String guestPhone, String guestEmail, String name, String phone) {
+            this.id = id;
+            this.code = code;
+            this.diners = diners;
+            this.requestTime = requestTime;
+            this.subscriberNumber = (subscriberNumber == null || subscriberNumber.isBlank()) ? null : subscriberNumber;
+            this.guestPhone = guestPhone;
+            this.guestEmail = guestEmail;
+            this.name = name;
+            this.phone = phone;
+        }
+
+        /**
+         * Converts this entry to the DTO sent to the representative's waiting-list screen.
+         *
+         * @return waiting list DTO
+         */
+        WaitingListEntry toDto() {
+            return new WaitingListEntry(
+                    id,
+                    requestTime == null ? null : Timestamp.valueOf(requestTime),
+                    subscriberNumber,
+                    name,
+                    phone,
+                    subscriberNumber == null ? "Guest" : "Subscriber"
+            );
+        }
+    }
+
+    /**
+     * Shared instance used by all {@link DBController} objects in this server.
+     */
+    private static final WaitingQueueIndex INSTANCE = new WaitingQueueIndex();
+
+    // ---------- lookups ----------
+    private final Map<Integer, Entry> byId = new HashMap<>();
+    private final Map<String, Entry> byCode = new HashMap<>();
+    private final Map<String, Entry> bySubscriber = new HashMap<>();
+
+    // ---------- ordering ----------
+    /** seq -> entry, FIFO order of the whole queue. */
+    private final TreeMap<Integer, Entry> bySeq = new TreeMap<>();
+    /** diners -> (seq -> entry), FIFO order inside each party-size bucket. */
+    private final TreeMap<Integer, TreeMap<Integer, Entry>> bySize = new TreeMap<>();
+
+    /** Fenwick tree over sequence numbers (1-based), counts live entries. */
+    private int[] fenwick = new int[64];
+    private int nextSeq = 1;
+
+    /** Largest waiting_list id inserted since the last rebuild. */
+    private int maxSeenId;
+
+    /** Whether the index was loaded from the database at least once. */
+    private boolean loaded;
+    private long lastSyncMillis;
+
+    /**
+     * Returns the shared index instance.
+     *
+     * @return waiting queue index
+     */
+    public static WaitingQueueIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Private constructor (singleton).
+     */
+    private WaitingQueueIndex() {}
+
+    /**
+     * Replaces the whole index content with the given WAITING entries.
+     *
+     * @param fifo WAITING entries ordered by {@code request_time, id}
+     */
+    public synchronized void rebuild(List<Entry> fifo) {
+        byId.clear();
+        byCode.clear();
+        bySubscriber.clear();
+        bySeq.clear();
+        bySize.clear();
+
+        fenwick = new int[Math.max(64, fifo.size() * 2)];
+        nextSeq = 1;
+        maxSeenId = 0;
+
+        for (Entry e : fifo) {
+            insert(e);
+        }
+
+        loaded = true;
+        lastSyncMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns whether the index should be rebuilt from the database
+     * (never loaded, or older than {@link #RESYNC_INTERVAL_MILLIS}).
+     *
+     * @return true if a resync is due
+     */
+    public synchronized boolean needsResync() {
+        return !loaded || System.currentTimeMillis() - lastSyncMillis >= RESYNC_INTERVAL_MILLIS;
+    }
+
+    /**
+     * Appends a newly joined party at the end of the queue.
+     * A previous entry with the same id, code or subscriber number is replaced
+     * (a subscriber re-joining loses their old place, as in the database).
+     *
+     * @param e new WAITING entry
+     */
+    public synchronized void add(Entry e) {
+        if (e == null) return;
+
+        removeEntry(byId.get(e.id));
+        if (e.code != null) removeEntry(byCode.get(e.code));
+        if (e.subscriberNumber != null) removeEntry(bySubscriber.get(e.subscriberNumber));
+
+        insert(e);
+    }
+
+    /**
+     * Appends the entries that are not in the index yet (delta load); known ids keep their place.
+     *
+     * @param fifo WAITING entries ordered by {@code request_time, id}
+     * @return number of entries added
+     */
+    public synchronized int addMissing(List<Entry> fifo) {
+        int added = 0;
+        for (Entry e : fifo) {
+            if (byId.containsKey(e.id)) continue;
+            add(e);
+            added++;
+        }
+        return added;
+    }
+
+    /**
+     * Returns the largest waiting_list id inserted since the last rebuild (start of the next delta load).
+     *
+     * @return largest id seen, or 0
+     */
+    public synchronized int maxSeenId() {
+        return maxSeenId;
+    }
+
+    /**
+     * Removes an entry by waiting_list id (invited, expired, or found stale).
+     *
+     * @param waitingId waiting_list id
+     */
+    public synchronized void removeById(int waitingId) {
+        removeEntry(byId.get(waitingId));
+    }
+
+    /**
+     * Removes an entry by waiting confirmation code.
+     *
+     * @param code waiting confirmation code
+     */
+    public synchronized void removeByCode(String code) {
+        if (code == null) return;
+        removeEntry(byCode.get(code.trim()));
+    }
+
+    /**
+     * Removes the entry of a subscriber.
+     *
+     * @param subscriberNumber subscriber number
+     */
+    public synchronized void removeBySubscriber(String subscriberNumber) {
+        if (subscriberNumber == null) return;
+        removeEntry(bySubscriber.get(subscriberNumber));
+    }
+
+    /**
+     * Returns the 1-based queue position of a waiting party (FIFO across all sizes).
+     *
+     * @param code waiting confirmation code
+     * @return position in the queue, or -1 if the code is not WAITING
+     */
+    public synchronized int positionOf(String code) {
+        if (code == null) return -1;
+        Entry e = byCode.get(code.trim());
+        return (e == null) ? -1 : prefixCount(e.seq);
+    }
+
+    /**
+     * Returns the number of WAITING parties.
+     *
+     * @return queue size
+     */
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    /**
+     * Returns the size of the smallest waiting party, used to skip the invite job
+     * when no free table can seat anybody.
+     *
+     * @return smallest party size, or -1 if the queue is empty
+     */
+    public synchronized int smallestPartySize() {
+        return bySize.isEmpty() ? -1 : bySize.firstKey();
+    }
+
+    /**
+     * Returns all WAITING entries in FIFO order.
+     *
+     * @return snapshot of the queue (oldest first)
+     */
+    public synchronized List<Entry> snapshot() {
+        return new ArrayList<>(bySeq.values());
+    }
+
+    /**
+     * Returns all WAITING entries in FIFO order as DTOs for the waiting-list screen.
+     *
+     * @return waiting list DTOs (oldest first)
+     */
+    public synchronized List<WaitingListEntry> snapshotDtos() {
+        List<WaitingListEntry> out = new ArrayList<>(bySeq.size());
+        for (Entry e : bySeq.values()) out.add(e.toDto());
+        return out;
+    }
+
+    /**
+     * Looks up an entry by id.
+     *
+     * @param waitingId waiting_list id
+     * @return entry or null if not WAITING
+     */
+    public synchronized Entry get(int waitingId) {
+        return byId.get(waitingId);
+    }
+
+    // ------------------------------------------------------------
+    // Internal helpers (caller holds the lock)
+    // ------------------------------------------------------------
+
+    /**
+     * Inserts an entry at the tail of the queue.
+     *
+     * @param e entry to insert
+     */
+    private void insert(Entry e) {
+        e.seq = nextSeq++;
+        maxSeenId = Math.max(maxSeenId, e.id);
+        ensureCapacity(e.seq);
+
+        byId.put(e.id, e);
+        if (e.code != null) byCode.put(e.code, e);
+        if (e.subscriberNumber != null) bySubscriber.put(e.subscriberNumber, e);
+
+        bySeq.put(e.seq, e);
+        bySize.computeIfAbsent(e.diners, k -> new TreeMap<>()).put(e.seq, e);
+        fenwickAdd(e.seq, 1);
+    }
+
+    /**
+     * Removes an entry from every structure (no-op for null).
+     *
+     * @param e entry to remove
+     */
+    private void removeEntry(Entry e) {
+        if (e == null) return;
+
+        byId.remove(e.id);
+        if (e.code != null) byCode.remove(e.code);
+        if (e.subscriberNumber != null) bySubscriber.remove(e.subscriberNumber, e);
+
+        bySeq.remove(e.seq);
+        TreeMap<Integer, Entry> bucket = bySize.get(e.diners);
+        if (bucket != null) {
+            bucket.remove(e.seq);
+            if (bucket.isEmpty()) bySize.remove(e.diners);
+        }
+        fenwickAdd(e.seq, -1);
+    }
+
+    /**
+     * Grows the Fenwick tree so it can address the given sequence number.
+     * Sequence numbers only grow, so the live entries are re-added after each doubling.
+     *
+     * @param seq sequence number about to be used
+     */
+    private void ensureCapacity(int seq) {
+        if (seq < fenwick.length) return;
+
+        int len = fenwick.length;
+        while (len <= seq) len *= 2;
+        fenwick = new int[len];
+        for (Integer s : bySeq.keySet()) fenwickAdd(s, 1);
+    }
+
+    private void fenwickAdd(int i, int delta) {
+        for (; i < fenwick.length; i += i & -i) fenwick[i] += delta;
+    }
+
+    private int prefixCount(int i) {
+        int sum = 0;
+        for (; i > 0; i -= i & -i) sum += fenwick[i];
+        return sum;
+    }
+}
@@ -0,0 +1,176 @@
+package server.dao;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Data Access Object (DAO) for hot/cold archival of finished reservations.
+ * <p>
+ * COMPLETED and CANCELED reservations older than the archive cutoff are moved, together with
+ * their bills, from {@code reservations}/{@code bills} into {@code reservations_archive}/
+ * {@code bills_archive}. Rows keep their original ids, so history and reports can read both
+ * tables with a {@code UNION ALL} (see {@link #unionReservations(String)} and
+ * {@link #unionBills(String)}).
+ * </p>
+ * <p>
+ * Each batch is one short transaction: lock a chunk of candidates (skipping rows locked by
+ * another node), copy them, check that every row is now in the archive, then delete them from the
+ * hot tables.
+ * </p>
+ */
+public class ArchiveDAO {
+
+    /**
+     * Table placeholder in a {@link #unionReservations(String)} query template.
+     */
+    public static final String RESERVATIONS = "{reservations}";
+
+    /**
+     * Table placeholder in a {@link #unionBills(String)} query template.
+     */
+    public static final String BILLS = "{bills}";
+
+    /**
+     * Columns copied from {@code reservations} to {@code reservations_archive}.
+     */
+    private static final String RESERVATION_COLUMNS =
+        "reservation_id, dinners_number, confirmation_code, status, table_number, subscriber_number, " +
+        "start_time, end_time, phone, email, created_at, check_in_time, reminder_sent_at";
+
+    /**
+     * Columns copied from {@code bills} to {@code bills_archive}.
+     */
+    private static final String BILL_COLUMNS =
+        "bill_number, total_amount, discount_amount, bill_date, reservation_id";
+
+    private final Connection conn;
+
+    /**
+     * Creates a DAO using an existing DB connection.
+     *
+     * @param conn open DB connection
+     */
+    public ArchiveDAO(Connection conn) {
+        this.conn = conn;
+    }
+
+    /**
+     * Builds a query over live and archived reservations.
+     * The template is run once with {@link #RESERVATIONS} replaced by {@code reservations} and once
+     * by {@code reservations_archive}, joined with {@code UNION ALL}; every parameter of the template
+     * must therefore be bound twice.
+     *
+     * @param template SELECT statement using {@link #RESERVATIONS} as the table name
+     * @return union query
+     */
+    public static String unionReservations(String template) {
+        return template.replace(RESERVATIONS, "reservations") +
+               " UNION ALL " +
+               template.replace(RESERVATIONS, "reservations_archive");
+    }
+
+    /**
+     * Builds a query over live and archived bills (same rules as {@link #unionReservations(String)}).
+     *
+     * @param template SELECT statement using {@link #BILLS} as the table name
+     * @return union query
+     */
+    public static String unionBills(String template) {
+        return template.replace(BILLS, "bills") +
+               " UNION ALL " +
+               template.replace(BILLS, "bills_archive");
+    }
+
+    /**
+     * Moves one batch of finished reservations (and their bills) to the archive tables.
+     *
+     * @param cutoff    only reservations that started before this time are moved
+     * @param batchSize maximum number of reservations moved by this call
+     * @return number of reservations archived (0 when nothing is left)
+     * @throws SQLException if a database access error occurs (the batch is rolled back)
+     */
+    public int archiveBatch(LocalDateTime cutoff, int batchSize) throws SQLException {
+        boolean oldAuto = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+
+        try {
+            List<Integer> ids = new ArrayList<>();
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT reservation_id FROM reservations " +
+                    "WHERE status IN ('COMPLETED','CANCELED') AND start_time < ? " +
+                    "LIMIT ? FOR UPDATE SKIP LOCKED")) {
+                ps.setTimestamp(1, Timestamp.valueOf(cutoff));
+                ps.setInt(2, batchSize);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) ids.add(rs.getInt(1));
+                }
+            }
+
+            if (ids.isEmpty()) {
+                conn.commit();
+                return 0;
+            }
+
+            String in = "(" + String.join(",", Collections.nCopies(ids.size(), "?")) + ")";
+
+            // copy first (plain INSERT, so a bad value fails the batch instead of becoming a warning;
+            // rows already archived by an earlier, interrupted run are skipped)
+            int resPresent = countForIds(
+                "SELECT COUNT(*) FROM reservations_archive WHERE reservation_id IN " + in, ids);
+            int resCopied = executeForIds(
+                "INSERT INTO reservations_archive (" + RESERVATION_COLUMNS + ", archived_at) " +
+                "SELECT " + RESERVATION_COLUMNS + ", NOW() FROM reservations r WHERE r.reservation_id IN " + in + " " +
+                "AND NOT EXISTS (SELECT 1 FROM reservations_archive a WHERE a.reservation_id = r.reservation_id)", ids);
+            if (resPresent + resCopied != ids.size()) {
+                throw new SQLException("Archive copy mismatch: " + ids.size() + " reservations, "
+                        + resCopied + " copied, " + resPresent + " already archived");
+            }
+
+            int billsHot = countForIds(
+                "SELECT COUNT(*) FROM bills WHERE reservation_id IN " + in, ids);
+            int billsPresent = countForIds(
+                "SELECT COUNT(*) FROM bills b WHERE b.reservation_id IN " + in + " " +
+                "AND EXISTS (SELECT 1 FROM bills_archive a WHERE a.bill_number = b.bill_number)", ids);
+            int billsCopied = executeForIds(
+                "INSERT INTO bills_archive (" + BILL_COLUMNS + ") " +
+                "SELECT " + BILL_COLUMNS + " FROM bills b WHERE b.reservation_id IN " + in + " " +
+                "AND NOT EXISTS (SELECT 1 FROM bills_archive a WHERE a.bill_number = b.bill_number)", ids);
+            if (billsPresent + billsCopied != billsHot) {
+                throw new SQLException("Archive copy mismatch: " + billsHot + " bills, "
+                        + billsCopied + " copied, " + billsPresent + " already archived");
+            }
+
+            // then remove from the hot tables (only once every row is known to be in the archive)
+            executeForIds("DELETE FROM bills WHERE reservation_id IN " + in, ids);
+            executeForIds("DELETE FROM reservations WHERE reservation_id IN " + in, ids);
+
+            conn.commit();
+            return ids.size();
+
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(oldAuto);
+        }
+    }
+
+    private int executeForIds(String sql, List<Integer> ids) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < ids.size(); i++) ps.setInt(i + 1, ids.get(i));
+            return ps.executeUpdate();
+        }
+    }
+
+    private int countForIds(String sql, List<Integer> ids) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < ids.size(); i++) ps.setInt(i + 1, ids.get(i));
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package server.dao;
+
+import java.sql.*;
+
+import server.ContactKeys;
+
+/**
+ * Data Access Object (DAO) that fills the normalized contact key columns ({@code email_key},
+ * {@code phone_key}, see {@link ContactKeys}) of rows written before those columns existed.
+ * <p>
+ * Each table is walked by primary key in batches of {@value #BATCH_SIZE}: one short transaction
+ * reads a chunk of rows whose keys are missing and writes them back with a JDBC batch. Rows whose
+ * contact has no key (blank email, phone without digits) are passed over by the id cursor, so a
+ * run always ends. New rows get their keys on insert and update, so after the first run later runs
+ * only scan.
+ * </p>
+ */
+public class ContactKeyDAO {
+
+    /**
+     * Rows read and updated per transaction.
+     */
+    public static final int BATCH_SIZE = 500;
+
+    private final Connection conn;
+
+    /**
+     * Creates a DAO using an existing DB connection.
+     *
+     * @param conn open DB connection
+     */
+    public ContactKeyDAO(Connection conn) {
+        this.conn = conn;
+    }
+
+    /**
+     * Backfills {@code users}, {@code reservations} and {@code waiting_list}.
+     *
+     * @return number of rows updated
+     * @throws SQLException if a database access error occurs
+     */
+    public int backfillAll() throws SQLException {
+        return backfill("users", "id", "email", "phone")
+             + backfill("reservations", "reservation_id", "email", "phone")
+             + backfill("waiting_list", "id", "guest_email", "guest_phone");
+    }
+
+    /**
+     * Backfills one table.
+     *
+     * @param table       table name
+     * @param idColumn    integer primary key column
+     * @param emailColumn free-text email column
+     * @param phoneColumn free-text phone column
+     * @return number of rows updated
+     * @throws SQLException if a database access error occurs
+     */
+    public int backfill(String table, String idColumn, String emailColumn, String phoneColumn) throws SQLException {
+        String selectSql =
+            "SELECT " + idColumn + ", " + emailColumn + ", " + phoneColumn + " FROM " + table + " " +
+            "WHERE " + idColumn + " > ? " +
+            "  AND ((email_key IS NULL AND " + emailColumn + " <> '') OR (phone_key IS NULL AND " + phoneColumn + " <> '')) " +
+            "ORDER BY " + idColumn + " LIMIT ?";
+
+        String updateSql =
+            "UPDATE " + table + " SET email_key = ?, phone_key = ? WHERE " + idColumn + " = ?";
+
+        boolean oldAuto = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+
+        int updated = 0;
+        long afterId = 0;
+        try {
+            while (true) {
+                int read = 0;
+                try (PreparedStatement sel = conn.prepareStatement(selectSql);
+                     PreparedStatement upd = conn.prepareStatement(updateSql)) {
+                    sel.setLong(1, afterId);
+                    sel.setInt(2, BATCH_SIZE);
+
+                    try (ResultSet rs = sel.executeQuery()) {
+                        while (rs.next()) {
+                            read++;
+                            afterId = rs.getLong(1);
+                            upd.setString(1, ContactKeys.email(rs.getString(2)));
+                            upd.setString(2, ContactKeys.phone(rs.getString(3)));
+                            upd.setLong(3, afterId);
+                            upd.addBatch();
+                        }
+                    }
+                    if (read > 0) upd.executeBatch();
+                }
+                conn.commit();
+
+                updated += read;
+                if (read < BATCH_SIZE) return updated;
+            }
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(oldAuto);
+        }
+    }
+}
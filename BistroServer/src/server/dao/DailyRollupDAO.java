@@ -0,0 +1,355 @@
+package server.dao;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import server.TimeRange;
+
+/**
+ * Data Access Object (DAO) for the {@code daily_rollup} analytics table and its job watermark.
+ * <p>
+ * One row per calendar day holds sums and counts (covers, reservations per status, delay and
+ * dining minutes, waiting-list joins, bills and revenue). Averages are stored as sum + count, so
+ * any date range can be aggregated exactly by summing day rows.
+ * </p>
+ * <p>
+ * Days before the watermark in {@code rollup_watermark} are final; the rollup job only recomputes
+ * days from the watermark up to today.
+ * </p>
+ */
+public class DailyRollupDAO {
+
+    /**
+     * Name of the rollup job row in {@code rollup_watermark}.
+     */
+    public static final String JOB_NAME = "daily_rollup";
+
+    /**
+     * DDL of {@code daily_rollup} (also schema migration V1).
+     */
+    public static final String CREATE_DAILY_ROLLUP =
+        "CREATE TABLE IF NOT EXISTS `daily_rollup` (" +
+        "  `rollup_date` date NOT NULL," +
+        "  `covers` int NOT NULL DEFAULT '0'," +
+        "  `reservations_total` int NOT NULL DEFAULT '0'," +
+        "  `reservations_active` int NOT NULL DEFAULT '0'," +
+        "  `reservations_checked_in` int NOT NULL DEFAULT '0'," +
+        "  `reservations_completed` int NOT NULL DEFAULT '0'," +
+        "  `reservations_canceled` int NOT NULL DEFAULT '0'," +
+        "  `delay_minutes_sum` bigint NOT NULL DEFAULT '0'," +
+        "  `delay_count` int NOT NULL DEFAULT '0'," +
+        "  `dining_minutes_sum` bigint NOT NULL DEFAULT '0'," +
+        "  `dining_count` int NOT NULL DEFAULT '0'," +
+        "  `waiting_joins` int NOT NULL DEFAULT '0'," +
+        "  `bills_count` int NOT NULL DEFAULT '0'," +
+        "  `revenue` decimal(12,2) NOT NULL DEFAULT '0.00'," +
+        "  `updated_at` datetime DEFAULT CURRENT_TIMESTAMP," +
+        "  PRIMARY KEY (`rollup_date`)" +
+        ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci";
+
+    /**
+     * DDL of {@code rollup_watermark} (also schema migration V1).
+     */
+    public static final String CREATE_ROLLUP_WATERMARK =
+        "CREATE TABLE IF NOT EXISTS `rollup_watermark` (" +
+        "  `job_name` varchar(50) NOT NULL," +
+        "  `watermark_date` date NOT NULL," +
+        "  `updated_at` datetime DEFAULT CURRENT_TIMESTAMP," +
+        "  PRIMARY KEY (`job_name`)" +
+        ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci";
+
+    // column order of the per-day accumulator
+    private static final int COVERS = 0;
+    private static final int TOTAL = 1;
+    private static final int ACTIVE = 2;
+    private static final int CHECKED_IN = 3;
+    private static final int COMPLETED = 4;
+    private static final int CANCELED = 5;
+    private static final int DELAY_SUM = 6;
+    private static final int DELAY_COUNT = 7;
+    private static final int DINING_SUM = 8;
+    private static final int DINING_COUNT = 9;
+    private static final int WAITING_JOINS = 10;
+    private static final int BILLS = 11;
+    private static final int FIELDS = 12;
+
+    /**
+     * Database connection used for all rollup operations.
+     */
+    private final Connection conn;
+
+    /**
+     * Constructs a new {@code DailyRollupDAO} using the provided database connection.
+     *
+     * @param conn an open JDBC connection
+     */
+    public DailyRollupDAO(Connection conn) {
+        this.conn = conn;
+    }
+
+    // ---------- SCHEMA ----------
+    /**
+     * Creates the rollup tables if they do not exist yet (databases created before they were added).
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    public void ensureTables() throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute(CREATE_DAILY_ROLLUP);
+            st.execute(CREATE_ROLLUP_WATERMARK);
+        }
+    }
+
+    // ---------- WATERMARK ----------
+    /**
+     * Returns the first day that is not final yet.
+     *
+     * @return watermark date, or {@code null} if the job never ran
+     * @throws SQLException if a database access error occurs
+     */
+    public LocalDate getWatermark() throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT watermark_date FROM rollup_watermark WHERE job_name = ?")) {
+            ps.setString(1, JOB_NAME);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getDate(1).toLocalDate() : null;
+            }
+        }
+    }
+
+    /**
+     * Stores the first day that is not final yet.
+     *
+     * @param day new watermark date
+     * @throws SQLException if a database access error occurs
+     */
+    public void setWatermark(LocalDate day) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO rollup_watermark (job_name, watermark_date, updated_at) VALUES (?, ?, NOW()) " +
+                "ON DUPLICATE KEY UPDATE watermark_date = VALUES(watermark_date), updated_at = NOW()")) {
+            ps.setString(1, JOB_NAME);
+            ps.setDate(2, Date.valueOf(day));
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Returns the earliest day that has any source data (first run of the job).
+     *
+     * @return earliest day, or {@code null} if all source tables are empty
+     * @throws SQLException if a database access error occurs
+     */
+    public LocalDate findEarliestDataDay() throws SQLException {
+        String sql =
+            "SELECT MIN(d) FROM ( " +
+            "  SELECT DATE(MIN(start_time)) AS d FROM reservations " +
+            "  UNION ALL SELECT DATE(MIN(start_time)) FROM reservations_archive " +
+            "  UNION ALL SELECT DATE(MIN(request_time)) FROM waiting_list " +
+            "  UNION ALL SELECT MIN(bill_date) FROM bills " +
+            "  UNION ALL SELECT MIN(bill_date) FROM bills_archive " +
+            ") x";
+
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            if (!rs.next()) return null;
+            Date d = rs.getDate(1);
+            return (d == null) ? null : d.toLocalDate();
+        }
+    }
+
+    /**
+     * Returns the earliest day that still has reservations in a non-terminal state
+     * (ACTIVE or CHECKED_IN), i.e. the first day whose rollup may still change.
+     *
+     * @return earliest open day, or {@code null} if there is none
+     * @throws SQLException if a database access error occurs
+     */
+    public LocalDate findEarliestOpenDay() throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT MIN(start_time) FROM reservations WHERE status IN ('ACTIVE','CHECKED_IN')");
+             ResultSet rs = ps.executeQuery()) {
+            if (!rs.next()) return null;
+            Timestamp t = rs.getTimestamp(1);
+            return (t == null) ? null : t.toLocalDateTime().toLocalDate();
+        }
+    }
+
+    // ---------- REBUILD ----------
+    /**
+     * Recomputes and stores the rollup rows of every day in {@code [from, toExclusive)}.
+     * Days without activity are stored as zero rows so stale values are overwritten.
+     *
+     * @param from        first day (inclusive)
+     * @param toExclusive day after the last day
+     * @return number of day rows written
+     * @throws SQLException if a database access error occurs
+     */
+    public int rebuildRange(LocalDate from, LocalDate toExclusive) throws SQLException {
+        Map<LocalDate, long[]> days = new HashMap<>();
+        Map<LocalDate, Double> revenue = new HashMap<>();
+
+        TimeRange range = TimeRange.days(from, toExclusive);
+
+        // 1) reservations by start day and status (live + archive; rows are summed per day below)
+        String resSql = ArchiveDAO.unionReservations(
+            "SELECT DATE(start_time) AS d, status, COUNT(*) AS n, " +
+            "  SUM(CASE WHEN status IN ('CHECKED_IN','COMPLETED') THEN dinners_number ELSE 0 END) AS covers, " +
+            "  SUM(CASE WHEN check_in_time IS NOT NULL THEN GREATEST(TIMESTAMPDIFF(MINUTE, start_time, check_in_time), 0) ELSE 0 END) AS delay_sum, " +
+            "  SUM(CASE WHEN check_in_time IS NOT NULL THEN 1 ELSE 0 END) AS delay_n, " +
+            "  SUM(CASE WHEN status = 'COMPLETED' AND check_in_time IS NOT NULL THEN TIMESTAMPDIFF(MINUTE, check_in_time, end_time) ELSE 0 END) AS dining_sum, " +
+            "  SUM(CASE WHEN status = 'COMPLETED' AND check_in_time IS NOT NULL THEN 1 ELSE 0 END) AS dining_n " +
+            "FROM " + ArchiveDAO.RESERVATIONS + " " +
+            "WHERE " + TimeRange.predicate("start_time") + " " +
+            "GROUP BY DATE(start_time), status");
+
+        try (PreparedStatement ps = conn.prepareStatement(resSql)) {
+            int next = range.bind(ps, 1);  // live table
+            range.bind(ps, next);          // archive table
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long[] a = days.computeIfAbsent(rs.getDate("d").toLocalDate(), k -> new long[FIELDS]);
+                    long n = rs.getLong("n");
+                    String status = rs.getString("status");
+
+                    a[TOTAL] += n;
+                    if ("ACTIVE".equals(status)) a[ACTIVE] += n;
+                    else if ("CHECKED_IN".equals(status)) a[CHECKED_IN] += n;
+                    else if ("COMPLETED".equals(status)) a[COMPLETED] += n;
+                    else if ("CANCELED".equals(status)) a[CANCELED] += n;
+
+                    a[COVERS] += rs.getLong("covers");
+                    a[DELAY_SUM] += rs.getLong("delay_sum");
+                    a[DELAY_COUNT] += rs.getLong("delay_n");
+                    a[DINING_SUM] += rs.getLong("dining_sum");
+                    a[DINING_COUNT] += rs.getLong("dining_n");
+                }
+            }
+        }
+
+        // 2) waiting-list joins by request day
+        String waitSql =
+            "SELECT DATE(request_time) AS d, COUNT(*) AS n FROM waiting_list " +
+            "WHERE " + TimeRange.predicate("request_time") + " " +
+            "GROUP BY DATE(request_time)";
+
+        try (PreparedStatement ps = conn.prepareStatement(waitSql)) {
+            range.bind(ps, 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    days.computeIfAbsent(rs.getDate("d").toLocalDate(), k -> new long[FIELDS])[WAITING_JOINS] += rs.getLong("n");
+                }
+            }
+        }
+
+        // 3) bills (revenue after discount) by bill day (live + archive)
+        String billSql = ArchiveDAO.unionBills(
+            "SELECT bill_date AS d, COUNT(*) AS n, SUM(total_amount - COALESCE(discount_amount, 0)) AS revenue FROM " + ArchiveDAO.BILLS + " " +
+            "WHERE " + TimeRange.predicate("bill_date") + " " +
+            "GROUP BY bill_date");
+
+        try (PreparedStatement ps = conn.prepareStatement(billSql)) {
+            int next = range.bindDates(ps, 1); // live table
+            range.bindDates(ps, next);         // archive table
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    LocalDate d = rs.getDate("d").toLocalDate();
+                    days.computeIfAbsent(d, k -> new long[FIELDS])[BILLS] += rs.getLong("n");
+                    revenue.merge(d, rs.getDouble("revenue"), Double::sum);
+                }
+            }
+        }
+
+        // 4) upsert every day of the range
+        String upsert =
+            "INSERT INTO daily_rollup (rollup_date, covers, reservations_total, reservations_active, reservations_checked_in, " +
+            "  reservations_completed, reservations_canceled, delay_minutes_sum, delay_count, dining_minutes_sum, dining_count, " +
+            "  waiting_joins, bills_count, revenue, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, NOW()) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "covers = VALUES(covers), reservations_total = VALUES(reservations_total), " +
+            "reservations_active = VALUES(reservations_active), reservations_checked_in = VALUES(reservations_checked_in), " +
+            "reservations_completed = VALUES(reservations_completed), reservations_canceled = VALUES(reservations_canceled), " +
+            "delay_minutes_sum = VALUES(delay_minutes_sum), delay_count = VALUES(delay_count), " +
+            "dining_minutes_sum = VALUES(dining_minutes_sum), dining_count = VALUES(dining_count), " +
+            "waiting_joins = VALUES(waiting_joins), bills_count = VALUES(bills_count), revenue = VALUES(revenue), " +
+            "updated_at = NOW()";
+
+        int written = 0;
+        try (PreparedStatement ps = conn.prepareStatement(upsert)) {
+            for (LocalDate d = from; d.isBefore(toExclusive); d = d.plusDays(1)) {
+                long[] a = days.getOrDefault(d, new long[FIELDS]);
+
+                ps.setDate(1, Date.valueOf(d));
+                ps.setLong(2, a[COVERS]);
+                ps.setLong(3, a[TOTAL]);
+                ps.setLong(4, a[ACTIVE]);
+                ps.setLong(5, a[CHECKED_IN]);
+                ps.setLong(6, a[COMPLETED]);
+                ps.setLong(7, a[CANCELED]);
+                ps.setLong(8, a[DELAY_SUM]);
+                ps.setLong(9, a[DELAY_COUNT]);
+                ps.setLong(10, a[DINING_SUM]);
+                ps.setLong(11, a[DINING_COUNT]);
+                ps.setLong(12, a[WAITING_JOINS]);
+                ps.setLong(13, a[BILLS]);
+                ps.setDouble(14, revenue.getOrDefault(d, 0.0));
+                ps.addBatch();
+                written++;
+            }
+            ps.executeBatch();
+        }
+        return written;
+    }
+
+    // ---------- RANGE QUERY ----------
+    /**
+     * Aggregates the rollup rows of {@code [from, toExclusive)} (primary-key range scan).
+     *
+     * @param from        first day (inclusive)
+     * @param toExclusive day after the last day
+     * @return ordered map of metric name to value
+     * @throws SQLException if a database access error occurs
+     */
+    public Map<String, Double> sumRange(LocalDate from, LocalDate toExclusive) throws SQLException {
+        TimeRange range = TimeRange.days(from, toExclusive);
+        String sql =
+            "SELECT COUNT(*) AS days, " +
+            "  COALESCE(SUM(covers), 0) AS covers, COALESCE(SUM(reservations_total), 0) AS total, " +
+            "  COALESCE(SUM(reservations_active), 0) AS active, COALESCE(SUM(reservations_checked_in), 0) AS checked_in, " +
+            "  COALESCE(SUM(reservations_completed), 0) AS completed, COALESCE(SUM(reservations_canceled), 0) AS canceled, " +
+            "  COALESCE(SUM(delay_minutes_sum), 0) AS delay_sum, COALESCE(SUM(delay_count), 0) AS delay_n, " +
+            "  COALESCE(SUM(dining_minutes_sum), 0) AS dining_sum, COALESCE(SUM(dining_count), 0) AS dining_n, " +
+            "  COALESCE(SUM(waiting_joins), 0) AS waiting, COALESCE(SUM(bills_count), 0) AS bills, " +
+            "  COALESCE(SUM(revenue), 0) AS revenue " +
+            "FROM daily_rollup WHERE " + TimeRange.predicate("rollup_date");
+
+        Map<String, Double> out = new LinkedHashMap<>();
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            range.bindDates(ps, 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return out;
+
+                long delayN = rs.getLong("delay_n");
+                long diningN = rs.getLong("dining_n");
+
+                out.put("Days", (double) rs.getLong("days"));
+                out.put("Covers", (double) rs.getLong("covers"));
+                out.put("Reservations", (double) rs.getLong("total"));
+                out.put("Active", (double) rs.getLong("active"));
+                out.put("CheckedIn", (double) rs.getLong("checked_in"));
+                out.put("Completed", (double) rs.getLong("completed"));
+                out.put("Canceled", (double) rs.getLong("canceled"));
+                out.put("AvgDelayMinutes", delayN == 0 ? 0.0 : rs.getLong("delay_sum") / (double) delayN);
+                out.put("AvgDiningMinutes", diningN == 0 ? 0.0 : rs.getLong("dining_sum") / (double) diningN);
+                out.put("WaitingJoins", (double) rs.getLong("waiting"));
+                out.put("Bills", (double) rs.getLong("bills"));
+                out.put("Revenue", rs.getDouble("revenue"));
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,118 @@
+package server.dao;
+
+import java.sql.*;
+
+import server.TimeRange;
+
+/**
+ * Data Access Object (DAO) for bulk data exports (reservations and bills).
+ * <p>
+ * Rows are read with a forward-only, read-only statement in MySQL streaming mode
+ * ({@code fetchSize = Integer.MIN_VALUE}): the driver hands over one row at a time instead of
+ * buffering the whole result, so an export of the full history (live and archived tables) runs
+ * in constant memory. Each row is passed to a {@link RowSink} while the cursor is on it.
+ * </p>
+ * <p>
+ * No ORDER BY is used: sorting would force MySQL to materialize the result before the first row
+ * is sent. Rows come out of each table in primary-key order, live table first.
+ * </p>
+ */
+public class ExportDAO {
+
+    /**
+     * Dataset name: reservations (live + archive), filtered by {@code start_time}.
+     */
+    public static final String DATASET_RESERVATIONS = "RESERVATIONS";
+
+    /**
+     * Dataset name: bills (live + archive), filtered by {@code bill_date}.
+     */
+    public static final String DATASET_BILLS = "BILLS";
+
+    /**
+     * Receives the streamed rows of an export.
+     */
+    public interface RowSink {
+        /**
+         * Called once before the first row.
+         *
+         * @param meta result columns
+         * @throws Exception if the sink cannot write
+         */
+        void begin(ResultSetMetaData meta) throws Exception;
+
+        /**
+         * Called for every row; read the current row from {@code rs} only.
+         *
+         * @param rs result set positioned on the row
+         * @throws Exception if the sink cannot write
+         */
+        void row(ResultSet rs) throws Exception;
+    }
+
+    private final Connection conn;
+
+    /**
+     * Creates a DAO using an existing DB connection.
+     *
+     * @param conn open DB connection
+     */
+    public ExportDAO(Connection conn) {
+        this.conn = conn;
+    }
+
+    /**
+     * Returns whether the dataset name is supported.
+     *
+     * @param dataset dataset name
+     * @return {@code true} for {@link #DATASET_RESERVATIONS} and {@link #DATASET_BILLS}
+     */
+    public static boolean isDataset(String dataset) {
+        return DATASET_RESERVATIONS.equals(dataset) || DATASET_BILLS.equals(dataset);
+    }
+
+    /**
+     * Streams a dataset into the sink.
+     *
+     * @param dataset {@link #DATASET_RESERVATIONS} or {@link #DATASET_BILLS}
+     * @param range   day range to export, or {@code null} for the whole history
+     * @param sink    receives the columns and rows
+     * @return number of rows exported
+     * @throws Exception if the query fails or the sink throws
+     */
+    public long stream(String dataset, TimeRange range, RowSink sink) throws Exception {
+        boolean bills = DATASET_BILLS.equals(dataset);
+        String sql = bills
+            ? ArchiveDAO.unionBills(
+                "SELECT bill_number, reservation_id, bill_date, total_amount, discount_amount FROM " + ArchiveDAO.BILLS +
+                (range != null ? " WHERE " + TimeRange.predicate("bill_date") : ""))
+            : ArchiveDAO.unionReservations(
+                "SELECT reservation_id, confirmation_code, status, subscriber_number, dinners_number, table_number, " +
+                "start_time, end_time, check_in_time, created_at, phone, email FROM " + ArchiveDAO.RESERVATIONS +
+                (range != null ? " WHERE " + TimeRange.predicate("start_time") : ""));
+
+        long rows = 0;
+        try (PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(Integer.MIN_VALUE); // MySQL Connector/J: stream rows instead of buffering the result
+
+            if (range != null) {
+                if (bills) {
+                    int next = range.bindDates(ps, 1);  // live table
+                    range.bindDates(ps, next);          // archive table
+                } else {
+                    int next = range.bind(ps, 1);       // live table
+                    range.bind(ps, next);               // archive table
+                }
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                sink.begin(rs.getMetaData());
+                while (rs.next()) {
+                    sink.row(rs);
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+}
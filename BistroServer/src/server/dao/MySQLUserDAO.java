@@ -5,14 +5,22 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import common.SubscriberSummary;
 import common.UserRole;
 import entities.User;
 import entities.Subscriber;
 import entities.Representative;
+import server.CardLoginIndex;
+import server.ContactKeys;
 import server.MySQLConnectionPool;
 import server.PooledConnection;
+import server.SessionTokens;
+import server.SubscriberIdentityCache;
+import server.SubscriberSearchIndex;
 
 /**
  * Data Access Object (DAO) responsible for user-related persistence operations in a MySQL database.
@@ -91,51 +99,26 @@ public class MySQLUserDAO {
     /**
      * Retrieves all subscribers by joining the {@code users} and {@code subscribers} tables.
      * <p>
-     * Intended for populating a UI table view with subscriber-related columns such as
-     * subscriber number and digital card.
+     * Intended for populating a UI table view: only the displayed columns are selected and the
+     * rows are {@link SubscriberSummary} projections (no password, no role), not full {@link User}
+     * entities.
      * </p>
      *
-     * @return a list of {@link User} objects with subscriber-specific fields populated
+     * @return a list of {@link SubscriberSummary} rows
      * @throws SQLException if a database access error occurs
      */
-    public List<User> getAllSubscribers() throws SQLException {
-
-    List<User> list = new ArrayList<>();
-    PooledConnection pConn = null;
-
-    try {
-        pConn = pool.getConnection();
-        Connection conn = pConn.getConnection();
-
-        // ✅ MODIFIED SQL: Join 'users' with 'subscribers'
-        String sql = """
-            SELECT u.*, s.subscriber_number, s.digital_card
-            FROM users u
-            JOIN subscribers s ON u.id = s.user_id
-            WHERE u.role = 'SUBSCRIBER'
-        """;
-
-        try (PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-
-            while (rs.next()) {
-                // 1. Map the basic User data (using your existing mapper)
-                User user = mapUser(rs);
+    public List<SubscriberSummary> getAllSubscribers() throws SQLException {
+        PooledConnection pConn = null;
 
-                // 2. ✅ Manually set the extra fields from the JOIN result
-                // (Make sure you added these setters to your User class as discussed)
-                user.setSubscriberNumber(rs.getString("subscriber_number"));
-                user.setDigitalCard(rs.getString("digital_card"));
+        try {
+            pConn = pool.getConnection();
+            Connection conn = pConn.getConnection();
+            return loadSubscriberSummaries(conn, null, null);
 
-                list.add(user);
-            }
+        } finally {
+            pool.releaseConnection(pConn);
         }
-        return list;
-
-    } finally {
-        pool.releaseConnection(pConn);
     }
-}
 
     // =================================================
     // MAPPERS
@@ -168,8 +151,9 @@ public class MySQLUserDAO {
     /**
      * Authenticates an active subscriber by a digital card code (e.g., scanned by a tag reader).
      * <p>
-     * This method joins {@code users} and {@code subscribers} to find the owner of the provided digital card,
-     * and returns a fully loaded {@link Subscriber} instance if found.
+     * Served from {@link CardLoginIndex} (warmed by {@link #warmCardIndex()}), so a known card needs
+     * no database round trip. A card that is not indexed is looked up once in {@code users} JOIN
+     * {@code subscribers}; a card that is unknown there too is remembered as bad for a few minutes.
      * </p>
      *
      * @param digitalCode the digital card code to authenticate by
@@ -177,6 +161,12 @@ public class MySQLUserDAO {
      * @throws SQLException if a database access error occurs
      */
     public User authenticateByCard(String digitalCode) throws SQLException {
+        CardLoginIndex index = CardLoginIndex.getInstance();
+
+        Subscriber cached = index.find(digitalCode);
+        if (cached != null) return cached;
+        if (index.isKnownBad(digitalCode)) return null;
+
         PooledConnection pConn = null;
 
         try {
@@ -184,35 +174,200 @@ public class MySQLUserDAO {
             pConn.touch();
             Connection conn = pConn.getConnection();
 
-            // Join users and subscribers to find the owner of the card
-            String sql = """
-                SELECT u.*
-                FROM users u
-                JOIN subscribers s ON u.id = s.user_id
-                WHERE s.digital_card = ? AND u.is_active = 1
-            """;
+            List<Subscriber> found = loadCardSubscribers(conn, "s.digital_card = ? AND u.is_active = 1", digitalCode);
+            if (found.isEmpty()) {
+                index.markBad(digitalCode); // Card not found
+                return null;
+            }
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, digitalCode);
+            index.put(found.get(0));
+            return found.get(0);
 
-                ResultSet rs = stmt.executeQuery();
+        } finally {
+            pool.releaseConnection(pConn);
+        }
+    }
 
-                if (!rs.next()) {
-                    return null; // Card not found
+    /**
+     * Loads every active subscriber that has a digital card into {@link CardLoginIndex}
+     * (at server startup, then with every subscriber search resync).
+     *
+     * @return number of indexed cards
+     * @throws SQLException if a database access error occurs
+     */
+    public int warmCardIndex() throws SQLException {
+        PooledConnection pConn = null;
+
+        try {
+            pConn = pool.getConnection();
+            pConn.touch();
+            Connection conn = pConn.getConnection();
+
+            CardLoginIndex.getInstance().replaceAll(
+                loadCardSubscribers(conn, "s.digital_card IS NOT NULL AND u.is_active = 1", null));
+            return CardLoginIndex.getInstance().size();
+
+        } finally {
+            pool.releaseConnection(pConn);
+        }
+    }
+
+    /**
+     * Loads the role of every active user into {@link SessionTokens} (at startup, then with every
+     * subscriber search resync), so a resumed session is refused once its user is deactivated or
+     * changes role.
+     *
+     * @return number of active users
+     * @throws SQLException if a database access error occurs
+     */
+    public int warmSessionRoles() throws SQLException {
+        PooledConnection pConn = null;
+
+        try {
+            pConn = pool.getConnection();
+            pConn.touch();
+            Connection conn = pConn.getConnection();
+
+            Map<Integer, String> roles = new HashMap<>();
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT id, role FROM users WHERE is_active = 1");
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    roles.put(rs.getInt("id"), rs.getString("role"));
                 }
+            }
+            SessionTokens.getInstance().replaceActiveRoles(roles);
+            return roles.size();
 
-                User baseUser = mapUser(rs);
-                
-                // Since they have a digital_card, they are definitely a SUBSCRIBER.
-                // We reuse the existing loadSubscriber method to get the full object.
-                return loadSubscriber(conn, baseUser);
+        } finally {
+            pool.releaseConnection(pConn);
+        }
+    }
+
+    /**
+     * Reloads the card index entry of one user after a change (dropped if inactive or not a subscriber).
+     *
+     * @param conn   an open database connection to use for the query
+     * @param userId the user whose entry to refresh
+     * @throws SQLException if a database access error occurs
+     */
+    private void refreshCardEntry(Connection conn, int userId) throws SQLException {
+        List<Subscriber> found = loadCardSubscribers(conn, "u.id = ?", userId);
+        if (found.isEmpty()) {
+            CardLoginIndex.getInstance().remove(userId);
+        } else {
+            CardLoginIndex.getInstance().put(found.get(0)); // put() drops inactive users
+        }
+    }
+
+    /**
+     * Loads subscribers ({@code users} JOIN {@code subscribers}) in one query.
+     *
+     * @param conn  an open database connection to use for the query
+     * @param where WHERE condition over {@code u} and {@code s}, with at most one parameter
+     * @param param value of the parameter, or null if the condition has none
+     * @return matching subscribers
+     * @throws SQLException if a database access error occurs
+     */
+    private List<Subscriber> loadCardSubscribers(Connection conn, String where, Object param) throws SQLException {
+        String sql = """
+            SELECT u.*, s.subscriber_number, s.digital_card
+            FROM users u
+            JOIN subscribers s ON u.id = s.user_id
+            """ + "WHERE " + where;
+
+        List<Subscriber> out = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            if (param != null) stmt.setObject(1, param);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    out.add(new Subscriber(mapUser(rs), rs.getString("subscriber_number"), rs.getString("digital_card")));
+                }
             }
+        }
+        return out;
+    }
+
+    // =================================================
+    // SUBSCRIBER SEARCH (Representative)
+    // =================================================
+
+    /**
+     * Loads every subscriber into {@link SubscriberSearchIndex} (at startup, then whenever
+     * {@link SubscriberSearchIndex#needsResync()} says so).
+     *
+     * @return number of indexed subscribers
+     * @throws SQLException if a database access error occurs
+     */
+    public int warmSearchIndex() throws SQLException {
+        PooledConnection pConn = null;
+
+        try {
+            pConn = pool.getConnection();
+            pConn.touch();
+            Connection conn = pConn.getConnection();
+
+            long loadStartedAt = System.currentTimeMillis();
+            List<SubscriberSummary> all = loadSubscriberSummaries(conn, null, null);
+            SubscriberSearchIndex.getInstance().replaceAll(all, loadStartedAt);
+            return all.size();
 
         } finally {
             pool.releaseConnection(pConn);
         }
     }
 
+    /**
+     * Reloads the search index entry of one user after a change.
+     *
+     * @param conn   an open database connection to use for the query
+     * @param userId the user whose entry to refresh
+     * @throws SQLException if a database access error occurs
+     */
+    private void refreshSearchEntry(Connection conn, int userId) throws SQLException {
+        for (SubscriberSummary s : loadSubscriberSummaries(conn, "u.id = ?", userId)) {
+            SubscriberSearchIndex.getInstance().put(s);
+        }
+    }
+
+    /**
+     * Loads slim subscriber rows (no password) in one query.
+     *
+     * @param conn  an open database connection to use for the query
+     * @param where optional WHERE condition over {@code u} and {@code s} with at most one parameter, or null
+     * @param param value of the parameter, or null if the condition has none
+     * @return matching subscribers
+     * @throws SQLException if a database access error occurs
+     */
+    private List<SubscriberSummary> loadSubscriberSummaries(Connection conn, String where, Object param) throws SQLException {
+        String sql = """
+            SELECT u.id, u.name, u.email, u.phone, u.is_active, u.created_at, s.subscriber_number, s.digital_card
+            FROM users u
+            JOIN subscribers s ON u.id = s.user_id
+            WHERE u.role = 'SUBSCRIBER'
+            """ + (where == null ? "" : " AND " + where);
+
+        List<SubscriberSummary> out = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            if (param != null) stmt.setObject(1, param);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    out.add(new SubscriberSummary(
+                        rs.getInt("id"),
+                        rs.getString("subscriber_number"),
+                        rs.getString("digital_card"),
+                        rs.getString("name"),
+                        rs.getString("email"),
+                        rs.getString("phone"),
+                        rs.getBoolean("is_active"),
+                        rs.getTimestamp("created_at")));
+                }
+            }
+        }
+        return out;
+    }
+
     // =================================================
     // ROLE-SPECIFIC LOADERS
     // =================================================
@@ -281,8 +436,8 @@ public class MySQLUserDAO {
 		try {
 		// 1) Insert into users and get generated user id
 		String userSql = """
-		  INSERT INTO users (name, email, phone, password, role, is_active, created_at)
-		  VALUES (?, ?, ?, ?, 'SUBSCRIBER', ?, NOW())
+		  INSERT INTO users (name, email, phone, password, role, is_active, created_at, email_key, phone_key)
+		  VALUES (?, ?, ?, ?, 'SUBSCRIBER', ?, NOW(), ?, ?)
 		""";
 		
 		int userId;
@@ -293,6 +448,8 @@ public class MySQLUserDAO {
 		  stmt.setString(3, phone);
 		  stmt.setString(4, password);
 		  stmt.setBoolean(5, active);
+		  stmt.setString(6, ContactKeys.email(email));
+		  stmt.setString(7, ContactKeys.phone(phone));
 		
 		  int rows = stmt.executeUpdate();
 		  if (rows <= 0) throw new SQLException("Failed to insert into users");
@@ -320,6 +477,9 @@ public class MySQLUserDAO {
 		}
 		
 		conn.commit();
+		SubscriberIdentityCache.getInstance().onSubscriberAdded();
+		refreshCardEntry(conn, userId);
+		refreshSearchEntry(conn, userId);
 		
 		} catch (SQLException e) {
 		conn.rollback();
@@ -371,7 +531,8 @@ public class MySQLUserDAO {
     }
 
     /**
-     * Checks whether the given email address is already used by a different user (case-insensitive).
+     * Checks whether the given email address is already used by a different user (case-insensitive,
+     * by the indexed {@code email_key}).
      *
      * @param conn an open database connection to use for the query
      * @param email the email address to check for uniqueness
@@ -380,9 +541,9 @@ public class MySQLUserDAO {
      * @throws SQLException if a database access error occurs
      */
     public boolean isEmailTakenByAnotherUser(Connection conn, String email, int userId) throws SQLException {
-        String sql = "SELECT id FROM users WHERE LOWER(email) = LOWER(?) AND id <> ? LIMIT 1";
+        String sql = "SELECT id FROM users WHERE email_key = ? AND id <> ? LIMIT 1";
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, email);
+            stmt.setString(1, ContactKeys.email(email));
             stmt.setInt(2, userId);
             try (ResultSet rs = stmt.executeQuery()) {
                 return rs.next();
@@ -415,12 +576,20 @@ public class MySQLUserDAO {
                 return false;
             }
 
-            String sql = "UPDATE users SET email = ?, phone = ? WHERE id = ? AND is_active = 1";
+            String sql = "UPDATE users SET email = ?, phone = ?, email_key = ?, phone_key = ? WHERE id = ? AND is_active = 1";
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
                 stmt.setString(1, newEmail);
                 stmt.setString(2, newPhone);
-                stmt.setInt(3, userId);
-                return stmt.executeUpdate() > 0;
+                stmt.setString(3, ContactKeys.email(newEmail));
+                stmt.setString(4, ContactKeys.phone(newPhone));
+                stmt.setInt(5, userId);
+                boolean updated = stmt.executeUpdate() > 0;
+                if (updated) {
+                    SubscriberIdentityCache.getInstance().invalidateUser(userId);
+                    refreshCardEntry(conn, userId);
+                    refreshSearchEntry(conn, userId);
+                }
+                return updated;
             }
 
         } finally {
@@ -0,0 +1,85 @@
+package server.dao;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+
+import server.OccupancyAccumulator;
+import server.TimeRange;
+
+/**
+ * Data Access Object (DAO) for the seat utilization (occupancy heatmap) report.
+ * <p>
+ * Seatings are read in one forward-only, streamed pass over live and archived reservations and
+ * fed straight into an {@link OccupancyAccumulator}, so memory use does not depend on how many
+ * reservations the range contains.
+ * </p>
+ */
+public class OccupancyDAO {
+
+    private final Connection conn;
+
+    /**
+     * Creates a DAO using an existing DB connection.
+     *
+     * @param conn open DB connection
+     */
+    public OccupancyDAO(Connection conn) {
+        this.conn = conn;
+    }
+
+    /**
+     * Returns the total number of seats over all restaurant tables (the current table mix).
+     *
+     * @return total seats (0 if there are no tables)
+     * @throws SQLException if a database access error occurs
+     */
+    public int getTotalSeats() throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT COALESCE(SUM(capacity), 0) FROM restaurant_tables");
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Streams every seating that started in the range into the accumulator.
+     * <p>
+     * A seating runs from check-in (or the reserved start when no check-in time was recorded)
+     * to the reservation end; a party that is still seated counts up to now.
+     *
+     * @param range start-time range
+     * @param acc   accumulator receiving the seatings
+     * @return number of seatings read
+     * @throws SQLException if a database access error occurs
+     */
+    public int streamSeatings(TimeRange range, OccupancyAccumulator acc) throws SQLException {
+        String sql = ArchiveDAO.unionReservations(
+            "SELECT dinners_number, status, start_time, check_in_time, end_time FROM " + ArchiveDAO.RESERVATIONS + " " +
+            "WHERE status IN ('COMPLETED','CHECKED_IN') AND " + TimeRange.predicate("start_time"));
+
+        LocalDateTime now = LocalDateTime.now();
+        int rows = 0;
+
+        try (PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(Integer.MIN_VALUE); // MySQL Connector/J: stream rows instead of buffering the result
+            int next = range.bind(ps, 1);  // live table
+            range.bind(ps, next);          // archive table
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp start = rs.getTimestamp("start_time");
+                    Timestamp checkIn = rs.getTimestamp("check_in_time");
+                    Timestamp end = rs.getTimestamp("end_time");
+                    if (start == null || end == null) continue;
+
+                    LocalDateTime from = (checkIn != null ? checkIn : start).toLocalDateTime();
+                    LocalDateTime to = end.toLocalDateTime();
+                    if ("CHECKED_IN".equals(rs.getString("status")) && to.isAfter(now)) to = now;
+
+                    acc.addSeating(from, to, rs.getInt("dinners_number"));
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,349 @@
+package server.dao;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import server.TimeRange;
+
+/**
+ * Data Access Object (DAO) that maintains the monthly report summary tables incrementally.
+ * <p>
+ * {@code monthly_time_report} and {@code monthly_subscriber_report} are updated with
+ * {@code +1} upserts when a reservation becomes COMPLETED and when a subscriber joins the
+ * waiting list (and {@code -1} when a subscriber's waiting list row is deleted, so the figure is the
+ * subscriber rows present in {@code waiting_list}, as the recomputation counts it), so a report request is a primary-key lookup on {@code (report_year, report_month)}.
+ * A full recomputation of one month (sargable {@code [first day, first day of next month)} range)
+ * is kept for months that have no stored row yet and for the startup refresh; it reads live and
+ * archived reservations (see {@link ArchiveDAO}).
+ * </p>
+ */
+public class ReportAggregateDAO {
+
+    /**
+     * Database connection used for all aggregate operations (may be inside a caller transaction).
+     */
+    private final Connection conn;
+
+    /**
+     * Constructs a new {@code ReportAggregateDAO} using the provided database connection.
+     *
+     * @param conn an open JDBC connection
+     */
+    public ReportAggregateDAO(Connection conn) {
+        this.conn = conn;
+    }
+
+    // ---------- INCREMENTAL UPDATES ----------
+    /**
+     * Records a reservation that just became COMPLETED.
+     * <p>
+     * Adds one to the matching time-report bucket (Normal/Delayed/Extended) of the reservation month,
+     * and one to the subscriber orders of that month if the reservation belongs to a subscriber.
+     * </p>
+     *
+     * @param start            reservation start time
+     * @param checkIn          check-in time (may be {@code null}; then no time bucket is updated)
+     * @param end              reservation end time
+     * @param subscriberNumber subscriber number ({@code null}/empty for guests)
+     * @throws SQLException if a database access error occurs
+     */
+    public void recordCompletion(Timestamp start, Timestamp checkIn, Timestamp end, String subscriberNumber) throws SQLException {
+        if (start == null) return;
+
+        LocalDate day = start.toLocalDateTime().toLocalDate();
+        String bucket = classifyTime(start, checkIn, end);
+
+        if (bucket != null) {
+            String column = "Extended".equals(bucket) ? "total_extended"
+                          : "Delayed".equals(bucket) ? "total_delayed"
+                          : "total_normal";
+
+            String sql =
+                "INSERT INTO monthly_time_report (report_year, report_month, total_normal, total_delayed, total_extended, generated_date) " +
+                "VALUES (?, ?, ?, ?, ?, NOW()) " +
+                "ON DUPLICATE KEY UPDATE " + column + " = " + column + " + 1, generated_date = NOW()";
+
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setInt(1, day.getYear());
+                ps.setInt(2, day.getMonthValue());
+                ps.setInt(3, "Normal".equals(bucket) ? 1 : 0);
+                ps.setInt(4, "Delayed".equals(bucket) ? 1 : 0);
+                ps.setInt(5, "Extended".equals(bucket) ? 1 : 0);
+                ps.executeUpdate();
+            }
+        }
+
+        if (subscriberNumber != null && !subscriberNumber.isBlank()) {
+            incrementSubscriberColumn("subscriber_orders", day);
+        }
+    }
+
+    /**
+     * Records a subscriber joining the waiting list.
+     *
+     * @param requestTime join time
+     * @throws SQLException if a database access error occurs
+     */
+    public void recordSubscriberWaitingJoin(LocalDateTime requestTime) throws SQLException {
+        incrementSubscriberColumn("subscriber_waiting_list", requestTime.toLocalDate());
+    }
+
+    /**
+     * Records a subscriber waiting list row being deleted (leave, or replaced by a new join).
+     * A month without a stored row is left alone; it is recomputed when first requested.
+     *
+     * @param requestTime join time of the deleted row
+     * @throws SQLException if a database access error occurs
+     */
+    public void recordSubscriberWaitingRemoval(LocalDateTime requestTime) throws SQLException {
+        String sql =
+            "UPDATE monthly_subscriber_report " +
+            "SET subscriber_waiting_list = GREATEST(subscriber_waiting_list - 1, 0), generated_date = NOW() " +
+            "WHERE report_year = ? AND report_month = ?";
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, requestTime.getYear());
+            ps.setInt(2, requestTime.getMonthValue());
+            ps.executeUpdate();
+        }
+    }
+
+    // ---------- LOOKUPS ----------
+    /**
+     * Loads a stored monthly time report (primary-key lookup).
+     *
+     * @param month month number (1-12)
+     * @param year  year number
+     * @return map with keys Normal, Delayed, Extended; {@code null} if no row is stored
+     * @throws SQLException if a database access error occurs
+     */
+    public Map<String, Integer> findTimeReport(int month, int year) throws SQLException {
+        String sql =
+            "SELECT total_normal, total_delayed, total_extended FROM monthly_time_report " +
+            "WHERE report_year = ? AND report_month = ?";
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, year);
+            ps.setInt(2, month);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+
+                Map<String, Integer> stats = new HashMap<>();
+                stats.put("Normal", rs.getInt("total_normal"));
+                stats.put("Delayed", rs.getInt("total_delayed"));
+                stats.put("Extended", rs.getInt("total_extended"));
+                return stats;
+            }
+        }
+    }
+
+    /**
+     * Loads a stored monthly subscriber report (primary-key lookup).
+     *
+     * @param month month number (1-12)
+     * @param year  year number
+     * @return map with keys Orders, WaitingList; {@code null} if no row is stored
+     * @throws SQLException if a database access error occurs
+     */
+    public Map<String, Integer> findSubscriberReport(int month, int year) throws SQLException {
+        String sql =
+            "SELECT subscriber_orders, subscriber_waiting_list FROM monthly_subscriber_report " +
+            "WHERE report_year = ? AND report_month = ?";
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, year);
+            ps.setInt(2, month);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+
+                Map<String, Integer> stats = new HashMap<>();
+                stats.put("Orders", rs.getInt("subscriber_orders"));
+                stats.put("WaitingList", rs.getInt("subscriber_waiting_list"));
+                return stats;
+            }
+        }
+    }
+
+    // ---------- FULL RECOMPUTE (one month) ----------
+    /**
+     * Recomputes one month of the time report from {@code reservations} and stores it.
+     *
+     * @param month month number (1-12)
+     * @param year  year number
+     * @return map with keys Normal, Delayed, Extended
+     * @throws SQLException if a database access error occurs
+     */
+    public Map<String, Integer> recomputeTimeReport(int month, int year) throws SQLException {
+        Map<String, Integer> stats = new HashMap<>();
+        stats.put("Normal", 0);
+        stats.put("Delayed", 0);
+        stats.put("Extended", 0);
+
+        String sql = ArchiveDAO.unionReservations(
+                     "SELECT start_time, check_in_time, end_time FROM " + ArchiveDAO.RESERVATIONS + " " +
+                     "WHERE status = 'COMPLETED' " +
+                     "AND " + TimeRange.predicate("start_time"));
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            TimeRange range = TimeRange.month(year, month);
+            int next = range.bind(ps, 1);  // live table
+            range.bind(ps, next);          // archive table
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String bucket = classifyTime(rs.getTimestamp("start_time"), rs.getTimestamp("check_in_time"), rs.getTimestamp("end_time"));
+                    if (bucket != null) stats.put(bucket, stats.get(bucket) + 1);
+                }
+            }
+        }
+
+        String upsert =
+            "INSERT INTO monthly_time_report (report_year, report_month, total_normal, total_delayed, total_extended, generated_date) " +
+            "VALUES (?, ?, ?, ?, ?, NOW()) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "total_normal = VALUES(total_normal), " +
+            "total_delayed = VALUES(total_delayed), " +
+            "total_extended = VALUES(total_extended), " +
+            "generated_date = NOW()";
+
+        try (PreparedStatement ps = conn.prepareStatement(upsert)) {
+            ps.setInt(1, year);
+            ps.setInt(2, month);
+            ps.setInt(3, stats.get("Normal"));
+            ps.setInt(4, stats.get("Delayed"));
+            ps.setInt(5, stats.get("Extended"));
+            ps.executeUpdate();
+        }
+        return stats;
+    }
+
+    /**
+     * Recomputes one month of the subscriber report from {@code reservations}/{@code waiting_list} and stores it.
+     *
+     * @param month month number (1-12)
+     * @param year  year number
+     * @return map with keys Orders, WaitingList
+     * @throws SQLException if a database access error occurs
+     */
+    public Map<String, Integer> recomputeSubscriberReport(int month, int year) throws SQLException {
+        Map<String, Integer> stats = new HashMap<>();
+        stats.put("Orders", 0);
+        stats.put("WaitingList", 0);
+
+        String sqlOrders = ArchiveDAO.unionReservations(
+                           "SELECT COUNT(*) AS count FROM " + ArchiveDAO.RESERVATIONS + " " +
+                           "WHERE status = 'COMPLETED' " +
+                           "AND subscriber_number IS NOT NULL AND subscriber_number != '' " +
+                           "AND " + TimeRange.predicate("start_time"));
+
+        try (PreparedStatement ps = conn.prepareStatement(sqlOrders)) {
+            TimeRange range = TimeRange.month(year, month);
+            int next = range.bind(ps, 1);  // live table
+            range.bind(ps, next);          // archive table
+            try (ResultSet rs = ps.executeQuery()) {
+                int orders = 0;
+                while (rs.next()) orders += rs.getInt("count"); // live + archive
+                stats.put("Orders", orders);
+            }
+        }
+
+        String sqlWait = "SELECT COUNT(*) AS count FROM waiting_list " +
+                         "WHERE subscriber_number IS NOT NULL AND subscriber_number != '' " +
+                         "AND " + TimeRange.predicate("request_time");
+
+        try (PreparedStatement ps = conn.prepareStatement(sqlWait)) {
+            TimeRange.month(year, month).bind(ps, 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) stats.put("WaitingList", rs.getInt("count"));
+            }
+        }
+
+        String upsert =
+            "INSERT INTO monthly_subscriber_report (report_year, report_month, subscriber_orders, subscriber_waiting_list, generated_date) " +
+            "VALUES (?, ?, ?, ?, NOW()) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "subscriber_orders = VALUES(subscriber_orders), " +
+            "subscriber_waiting_list = VALUES(subscriber_waiting_list), " +
+            "generated_date = NOW()";
+
+        try (PreparedStatement ps = conn.prepareStatement(upsert)) {
+            ps.setInt(1, year);
+            ps.setInt(2, month);
+            ps.setInt(3, stats.get("Orders"));
+            ps.setInt(4, stats.get("WaitingList"));
+            ps.executeUpdate();
+        }
+        return stats;
+    }
+
+    /**
+     * Finds months that have report data but no stored summary row yet (used once at startup,
+     * so that months before incremental maintenance started are backfilled).
+     *
+     * @return list of {@code {year, month}} pairs
+     * @throws SQLException if a database access error occurs
+     */
+    public List<int[]> findMonthsMissingReports() throws SQLException {
+        String sql =
+            "SELECT y, m FROM ( " +
+            "  SELECT YEAR(start_time) AS y, MONTH(start_time) AS m FROM reservations WHERE status = 'COMPLETED' " +
+            "  UNION " +
+            "  SELECT YEAR(start_time), MONTH(start_time) FROM reservations_archive WHERE status = 'COMPLETED' " +
+            "  UNION " +
+            "  SELECT YEAR(request_time), MONTH(request_time) FROM waiting_list " +
+            "  WHERE subscriber_number IS NOT NULL AND subscriber_number != '' " +
+            ") months " +
+            "WHERE y IS NOT NULL AND (" +
+            "  NOT EXISTS (SELECT 1 FROM monthly_time_report t WHERE t.report_year = y AND t.report_month = m) " +
+            "  OR NOT EXISTS (SELECT 1 FROM monthly_subscriber_report s WHERE s.report_year = y AND s.report_month = m))";
+
+        List<int[]> out = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) out.add(new int[] { rs.getInt("y"), rs.getInt("m") });
+        }
+        return out;
+    }
+
+    // ---------- HELPERS ----------
+    /**
+     * Classifies a completed reservation for the time report.
+     * Same rules as the original on-demand report: more than 120 minutes seated is Extended,
+     * 1-14 minutes late is Delayed, anything else is Normal.
+     *
+     * @param start   reservation start time
+     * @param checkIn check-in time
+     * @param end     reservation end time
+     * @return "Normal", "Delayed", "Extended", or {@code null} if check-in/end is missing
+     */
+    public static String classifyTime(Timestamp start, Timestamp checkIn, Timestamp end) {
+        if (start == null || checkIn == null || end == null) return null;
+
+        long durationMinutes = (end.getTime() - checkIn.getTime()) / (60 * 1000);
+        long delayMinutes = (checkIn.getTime() - start.getTime()) / (60 * 1000);
+
+        if (durationMinutes > 120) return "Extended";
+        if (delayMinutes > 0 && delayMinutes < 15) return "Delayed";
+        return "Normal";
+    }
+
+    private void incrementSubscriberColumn(String column, LocalDate day) throws SQLException {
+        String sql =
+            "INSERT INTO monthly_subscriber_report (report_year, report_month, subscriber_orders, subscriber_waiting_list, generated_date) " +
+            "VALUES (?, ?, ?, ?, NOW()) " +
+            "ON DUPLICATE KEY UPDATE " + column + " = " + column + " + 1, generated_date = NOW()";
+
+        boolean orders = "subscriber_orders".equals(column);
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, day.getYear());
+            ps.setInt(2, day.getMonthValue());
+            ps.setInt(3, orders ? 1 : 0);
+            ps.setInt(4, orders ? 0 : 1);
+            ps.executeUpdate();
+        }
+    }
+}
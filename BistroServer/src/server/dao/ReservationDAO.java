@@ -5,14 +5,19 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import server.ConfirmationCodeFilter;
+import server.InviteExpiryTimer;
+import server.KioskCodeIndex;
 import server.MySQLConnectionPool;
 import server.PooledConnection;
+import server.WaitTimeEstimator;
 
 /**
  * Data Access Object (DAO) responsible for reservation-related database operations.
  * <p>
  * This class currently focuses on the customer check-in flow, validating an active reservation
- * by confirmation code and updating reservation status accordingly.
+ * by confirmation code (through {@link KioskCodeIndex} when possible) and updating reservation
+ * status accordingly.
  * </p>
  */
 public class ReservationDAO { 
@@ -24,7 +29,7 @@ public class ReservationDAO {
 
     /**
      * Handles the customer Check-In process.
-     * 1. Checks if reservation exists and is ACTIVE.
+     * 1. Checks if reservation exists and is ACTIVE ({@link KioskCodeIndex} first, then the DB).
      * 2. Checks if customer is late (>15 mins).
      * 3. If OK, updates status to CHECKED_IN and sets check_in_time.
      *
@@ -37,33 +42,54 @@ public class ReservationDAO {
         ResultSet rs = null;
 
         try {
+            // certainly unknown code (typo / guessing): answer without a DB round trip
+            if (!ConfirmationCodeFilter.getInstance().mightExist(confirmationCode)) {
+                return "Error: Invalid code or reservation not active.";
+            }
+
             pConn = pool.getConnection();
             Connection conn = pConn.getConnection();
 
-            String query =
-                    "SELECT reservation_id, start_time, table_number " +
-                    "FROM reservations " +
-                    "WHERE confirmation_code = ? AND status = 'ACTIVE'";
-
-            stmt = conn.prepareStatement(query);
-            stmt.setString(1, confirmationCode);
-            rs = stmt.executeQuery();
-
-            if (!rs.next()) {
-                return "Error: Invalid code or reservation not active.";
+            KioskCodeIndex index = KioskCodeIndex.getInstance();
+            KioskCodeIndex.Entry res = index.get(confirmationCode);
+
+            // not indexed (or indexed with another status): look it up
+            if (res == null || !"ACTIVE".equals(res.status)) {
+                String query =
+                        "SELECT reservation_id, start_time, end_time, table_number, dinners_number, subscriber_number " +
+                        "FROM reservations " +
+                        "WHERE confirmation_code = ? AND status = 'ACTIVE'";
+
+                stmt = conn.prepareStatement(query);
+                stmt.setString(1, confirmationCode);
+                rs = stmt.executeQuery();
+
+                if (!rs.next()) {
+                    return "Error: Invalid code or reservation not active.";
+                }
+
+                Timestamp end = rs.getTimestamp("end_time");
+                res = new KioskCodeIndex.Entry(
+                        rs.getInt("reservation_id"),
+                        "ACTIVE",
+                        rs.getTimestamp("start_time").toLocalDateTime(),
+                        end == null ? null : end.toLocalDateTime(),
+                        rs.getInt("table_number"),
+                        rs.getInt("dinners_number"),
+                        rs.getString("subscriber_number"),
+                        null);
             }
 
-            int reservationId = rs.getInt("reservation_id");
-            Timestamp startTime = rs.getTimestamp("start_time");
-            int tableNumber = rs.getInt("table_number");
-
             long nowMillis = System.currentTimeMillis();
-            long startMillis = startTime.getTime();
+            long startMillis = Timestamp.valueOf(res.start).getTime();
             long fifteenMin = 15L * 60 * 1000;
 
             // Late => cancel immediately (also protects if scheduler didn't run yet)
             if (nowMillis > (startMillis + fifteenMin)) {
-                updateReservationStatus(conn, reservationId, "CANCELED");
+                if (updateReservationStatus(conn, res.reservationId, "CANCELED")) {
+                    index.onStatus(confirmationCode, "CANCELED", null);
+                    new SubscriberStatsDAO(conn).recordNoShow(res.subscriberNumber);
+                }
                 return "Error: Reservation expired. You arrived more than 15 minutes late.";
             }
 
@@ -72,9 +98,16 @@ public class ReservationDAO {
                 return "Error: It is too early to check in. Please wait for your reservation time.";
             }
 
-            // Success
-            updateReservationToCheckedIn(conn, reservationId);
-            return tableNumber;
+            // Success (the UPDATE only matches an ACTIVE row, so a stale index entry cannot check in twice)
+            if (!updateReservationToCheckedIn(conn, res.reservationId)) {
+                index.remove(confirmationCode);
+                return "Error: Invalid code or reservation not active.";
+            }
+            index.put(confirmationCode, res.withStatus("CHECKED_IN", new Timestamp(nowMillis)));
+
+            WaitTimeEstimator.getInstance().onCheckIn(res.diners);
+            InviteExpiryTimer.getInstance().onAccepted(confirmationCode);
+            return res.tableNumber;
 
         } catch (SQLException e) {
             e.printStackTrace();
@@ -91,33 +124,35 @@ public class ReservationDAO {
      *
      * @param conn the active database connection to use
      * @param reservationId the reservation identifier to update
+     * @return {@code true} if the reservation was still ACTIVE and is now checked in
      * @throws SQLException if a database access error occurs while updating the reservation
      */
-    private void updateReservationToCheckedIn(Connection conn, int reservationId) throws SQLException {
+    private boolean updateReservationToCheckedIn(Connection conn, int reservationId) throws SQLException {
         String update =
                 "UPDATE reservations " +
                 "SET status = 'CHECKED_IN', check_in_time = NOW() " +
-                "WHERE reservation_id = ?";
+                "WHERE reservation_id = ? AND status = 'ACTIVE'";
         try (PreparedStatement stmt = conn.prepareStatement(update)) {
             stmt.setInt(1, reservationId);
-            stmt.executeUpdate();
+            return stmt.executeUpdate() > 0;
         }
     }
 
     /**
-     * Updates the status of the specified reservation.
+     * Updates the status of the specified ACTIVE reservation.
      *
      * @param conn the active database connection to use
      * @param reservationId the reservation identifier to update
      * @param status the new status value to set
+     * @return {@code true} if the reservation was still ACTIVE and was updated
      * @throws SQLException if a database access error occurs while updating the reservation status
      */
-    private void updateReservationStatus(Connection conn, int reservationId, String status) throws SQLException {
-        String update = "UPDATE reservations SET status = ? WHERE reservation_id = ?";
+    private boolean updateReservationStatus(Connection conn, int reservationId, String status) throws SQLException {
+        String update = "UPDATE reservations SET status = ? WHERE reservation_id = ? AND status = 'ACTIVE'";
         try (PreparedStatement stmt = conn.prepareStatement(update)) {
             stmt.setString(1, status);
             stmt.setInt(2, reservationId);
-            stmt.executeUpdate();
+            return stmt.executeUpdate() > 0;
         }
     }
 }
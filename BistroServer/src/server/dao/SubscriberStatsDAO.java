@@ -0,0 +1,109 @@
+package server.dao;
+
+import java.sql.*;
+
+import common.SubscriberStats;
+
+/**
+ * Data Access Object (DAO) for the per-subscriber counters in {@code subscriber_stats}.
+ * <p>
+ * The row of a subscriber is updated with single upserts in the same transaction as the change
+ * that causes it: a reservation becoming COMPLETED together with its bill adds one visit, moves
+ * {@code last_visit} forward and adds the paid amount; a no-show cancellation adds one no-show.
+ * Reading the counters is a primary-key lookup, whatever the length of the subscriber's history.
+ * Existing history is loaded once by schema migration 5.
+ * </p>
+ */
+public class SubscriberStatsDAO {
+
+    /**
+     * Database connection used for all operations (may be inside a caller transaction).
+     */
+    private final Connection conn;
+
+    /**
+     * Constructs a new {@code SubscriberStatsDAO} using the provided database connection.
+     *
+     * @param conn an open JDBC connection
+     */
+    public SubscriberStatsDAO(Connection conn) {
+        this.conn = conn;
+    }
+
+    // ---------- INCREMENTAL UPDATES ----------
+    /**
+     * Records a completed and billed reservation.
+     *
+     * @param subscriberNumber subscriber number ({@code null}/empty for guests: nothing is recorded)
+     * @param start            reservation start time (becomes the last visit if it is the latest)
+     * @param paid             amount charged (after discount)
+     * @throws SQLException if a database access error occurs
+     */
+    public void recordVisit(String subscriberNumber, Timestamp start, double paid) throws SQLException {
+        if (subscriberNumber == null || subscriberNumber.isBlank()) return;
+
+        String sql =
+            "INSERT INTO subscriber_stats (subscriber_number, visits, no_shows, last_visit, lifetime_spend, updated_at) " +
+            "VALUES (?, 1, 0, ?, ?, NOW()) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "visits = visits + 1, " +
+            "last_visit = GREATEST(COALESCE(last_visit, VALUES(last_visit)), COALESCE(VALUES(last_visit), last_visit)), " +
+            "lifetime_spend = lifetime_spend + VALUES(lifetime_spend), " +
+            "updated_at = NOW()";
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, subscriberNumber.trim());
+            ps.setTimestamp(2, start);
+            ps.setDouble(3, paid);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Records a reservation canceled because the subscriber did not arrive in time.
+     *
+     * @param subscriberNumber subscriber number ({@code null}/empty for guests: nothing is recorded)
+     * @throws SQLException if a database access error occurs
+     */
+    public void recordNoShow(String subscriberNumber) throws SQLException {
+        if (subscriberNumber == null || subscriberNumber.isBlank()) return;
+
+        String sql =
+            "INSERT INTO subscriber_stats (subscriber_number, visits, no_shows, last_visit, lifetime_spend, updated_at) " +
+            "VALUES (?, 0, 1, NULL, 0, NOW()) " +
+            "ON DUPLICATE KEY UPDATE no_shows = no_shows + 1, updated_at = NOW()";
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, subscriberNumber.trim());
+            ps.executeUpdate();
+        }
+    }
+
+    // ---------- LOOKUP ----------
+    /**
+     * Loads the counters of one subscriber (primary-key lookup).
+     *
+     * @param subscriberNumber subscriber number
+     * @return the counters, or {@link SubscriberStats#EMPTY} if nothing was recorded yet
+     * @throws SQLException if a database access error occurs
+     */
+    public SubscriberStats find(String subscriberNumber) throws SQLException {
+        String sql =
+            "SELECT visits, no_shows, last_visit, lifetime_spend FROM subscriber_stats " +
+            "WHERE subscriber_number = ?";
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, subscriberNumber);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return SubscriberStats.EMPTY;
+
+                Timestamp last = rs.getTimestamp("last_visit");
+                return new SubscriberStats(
+                    rs.getInt("visits"),
+                    rs.getInt("no_shows"),
+                    last == null ? null : last.toLocalDateTime(),
+                    rs.getDouble("lifetime_spend"));
+            }
+        }
+    }
+}
@@ -1,6 +1,15 @@
 package server.dao;
 
 import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import server.ConfirmationCodeAllocator;
+import server.ConfirmationCodeFilter;
+import server.ContactKeys;
+import server.ReportCache;
+import server.SubscriberIdentityCache;
 
 /**
  * Data Access Object (DAO) responsible for managing entries in the restaurant waiting list.
@@ -27,31 +36,25 @@ public class WaitingListDAO {
 
     // userId -> subscriber_number
     /**
-     * Retrieves a subscriber number associated with a given user ID.
+     * Retrieves a subscriber number associated with a given user ID (through {@link SubscriberIdentityCache}).
      *
      * @param userId the user ID to look up
      * @return the subscriber number if found; {@code null} otherwise
      * @throws SQLException if a database access error occurs
      */
-    private String getSubscriberNumberByUserId(int userId) throws SQLException {
-        String sql = "SELECT subscriber_number FROM subscribers WHERE user_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, userId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return rs.getString("subscriber_number");
-                return null;
-            }
-        }
+    public String getSubscriberNumberByUserId(int userId) throws SQLException {
+        SubscriberIdentityCache.Identity id = SubscriberIdentityCache.getInstance().byUserId(conn, userId);
+        return (id == null) ? null : id.subscriberNumber;
     }
 
     /**
-     * Generates a waiting list confirmation code using a random 6-digit number with a {@code WL} prefix.
+     * Allocates a unique waiting list confirmation code ({@code WL} prefix + 6 digits) from
+     * {@link ConfirmationCodeAllocator}.
      *
-     * @return a newly generated confirmation code (e.g., {@code WL123456})
+     * @return a newly allocated confirmation code (e.g., {@code WL123456})
      */
     private String generateWaitingConfirmationCode() {
-        int num = 100000 + new java.security.SecureRandom().nextInt(900000);
-        return "WL" + num;
+        return ConfirmationCodeAllocator.getInstance().nextWaitingCode();
     }
 
     // ---------- SUBSCRIBER ----------
@@ -59,7 +62,7 @@ public class WaitingListDAO {
      * Adds (or replaces) a waiting list entry for a subscriber identified by user ID.
      * <p>
      * If the subscriber already has an entry in the waiting list, it is deleted before inserting the new one.
-     * The method attempts to generate a unique confirmation code, retrying on collisions.
+     * Codes come from {@link ConfirmationCodeAllocator}; a collision with an older random code is retried.
      * </p>
      *
      * @param userId the subscriber's user ID
@@ -77,17 +80,13 @@ public class WaitingListDAO {
         String safeEmail = (email == null) ? "" : email.trim();
 
         // מוחקים כניסה קודמת
-        try (PreparedStatement del = conn.prepareStatement(
-                "DELETE FROM waiting_list WHERE subscriber_number = ?")) {
-            del.setString(1, subNumber);
-            del.executeUpdate();
-        }
+        deleteSubscriberEntries(subNumber);
 
         String sql =
-            "INSERT INTO waiting_list (subscriber_number, diners_number, request_time, guest_phone, guest_email, confirmation_code) " +
-            "VALUES (?, ?, CURRENT_TIMESTAMP, ?, ?, ?)";
+            "INSERT INTO waiting_list (subscriber_number, diners_number, request_time, guest_phone, guest_email, confirmation_code, email_key, phone_key) " +
+            "VALUES (?, ?, CURRENT_TIMESTAMP, ?, ?, ?, ?, ?)";
 
-        for (int attempt = 0; attempt < 10; attempt++) {
+        for (int attempt = 0; attempt < 3; attempt++) {
             String code = generateWaitingConfirmationCode();
 
             try (PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -96,11 +95,16 @@ public class WaitingListDAO {
                 ps.setString(3, safePhone);
                 ps.setString(4, safeEmail);
                 ps.setString(5, code);
+                ps.setString(6, ContactKeys.email(safeEmail));
+                ps.setString(7, ContactKeys.phone(safePhone));
 
                 int rows = ps.executeUpdate();
-                if (rows == 1) return code;
+                if (rows == 1) {
+                    ConfirmationCodeFilter.getInstance().add(code);
+                    return code;
+                }
             } catch (SQLIntegrityConstraintViolationException dup) {
-                // code collision -> retry
+                // collision with an older random code -> retry
             }
         }
 
@@ -118,19 +122,63 @@ public class WaitingListDAO {
         String subNumber = getSubscriberNumberByUserId(userId);
         if (subNumber == null) return false;
 
+        return leaveBySubscriberNumber(subNumber);
+    }
+
+    /**
+     * Removes a subscriber's waiting list entry based on subscriber number.
+     *
+     * @param subNumber the subscriber number
+     * @return {@code true} if an entry was deleted; {@code false} otherwise
+     * @throws SQLException if a database access error occurs
+     */
+    public boolean leaveBySubscriberNumber(String subNumber) throws SQLException {
+        return deleteSubscriberEntries(subNumber) > 0;
+    }
+
+    /**
+     * Deletes a subscriber's waiting list rows and takes them back out of the monthly subscriber report,
+     * which counts the subscriber rows present in {@code waiting_list}.
+     *
+     * @param subNumber the subscriber number
+     * @return number of rows deleted
+     * @throws SQLException if a database access error occurs
+     */
+    private int deleteSubscriberEntries(String subNumber) throws SQLException {
+        List<LocalDateTime> requestTimes = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT request_time FROM waiting_list WHERE subscriber_number = ?")) {
+            ps.setString(1, subNumber);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp t = rs.getTimestamp("request_time");
+                    if (t != null) requestTimes.add(t.toLocalDateTime());
+                }
+            }
+        }
+
+        int rows;
         try (PreparedStatement ps = conn.prepareStatement(
                 "DELETE FROM waiting_list WHERE subscriber_number = ?")) {
             ps.setString(1, subNumber);
-            return ps.executeUpdate() > 0;
+            rows = ps.executeUpdate();
+        }
+        if (rows == 0) return 0;
+
+        ReportAggregateDAO reports = new ReportAggregateDAO(conn);
+        for (LocalDateTime t : requestTimes) {
+            reports.recordSubscriberWaitingRemoval(t);
+            ReportCache.getInstance().onSubscriberWaitingRemoval(t.toLocalDate());
         }
+        return rows;
     }
 
     // ---------- GUEST ----------
     /**
      * Adds a waiting list entry for a guest (non-subscriber).
      * <p>
-     * The guest is inserted with a {@code NULL} subscriber number. The method attempts to generate a unique
-     * confirmation code, retrying on collisions.
+     * The guest is inserted with a {@code NULL} subscriber number. Codes come from
+     * {@link ConfirmationCodeAllocator}; a collision with an older random code is retried.
      * </p>
      *
      * @param diners the number of diners for the request
@@ -144,10 +192,10 @@ public class WaitingListDAO {
         String safeEmail = (email == null) ? "" : email.trim();
 
         String sql =
-            "INSERT INTO waiting_list (subscriber_number, diners_number, request_time, guest_phone, guest_email, confirmation_code) " +
-            "VALUES (NULL, ?, CURRENT_TIMESTAMP, ?, ?, ?)";
+            "INSERT INTO waiting_list (subscriber_number, diners_number, request_time, guest_phone, guest_email, confirmation_code, email_key, phone_key) " +
+            "VALUES (NULL, ?, CURRENT_TIMESTAMP, ?, ?, ?, ?, ?)";
 
-        for (int attempt = 0; attempt < 10; attempt++) {
+        for (int attempt = 0; attempt < 3; attempt++) {
             String code = generateWaitingConfirmationCode();
 
             try (PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -155,12 +203,17 @@ public class WaitingListDAO {
                 ps.setString(2, safePhone);
                 ps.setString(3, safeEmail);
                 ps.setString(4, code);
+                ps.setString(5, ContactKeys.email(safeEmail));
+                ps.setString(6, ContactKeys.phone(safePhone));
 
                 int rows = ps.executeUpdate();
-                if (rows == 1) return code;
+                if (rows == 1) {
+                    ConfirmationCodeFilter.getInstance().add(code);
+                    return code;
+                }
 
             } catch (SQLIntegrityConstraintViolationException dup) {
-                // collision -> try again
+                // collision with an older random code -> try again
             }
         }
         return null;
@@ -128,6 +128,38 @@ public class ClientRequest implements Serializable {
 	      */
 	     public static final String CMD_GET_SUBSCRIBER_REPORT = "GET_SUBSCRIBER_REPORT";
 
+	     /**
+	      * Command to retrieve aggregated analytics for a date range (params: fromDate, toDate as yyyy-MM-dd, inclusive).
+	      */
+	     public static final String CMD_GET_RANGE_REPORT = "GET_RANGE_REPORT";
+
+	     /**
+	      * Command to retrieve a monthly report for many months at once
+	      * (params: type TIME/SUBSCRIBER, fromMonth, toMonth as yyyy-MM, inclusive; at most 24 months).
+	      */
+	     public static final String CMD_GET_MONTHLY_REPORT_RANGE = "GET_MONTHLY_REPORT_RANGE";
+
+	     /**
+	      * Command to run a report as a background job (params: kind TIME/SUBSCRIBER/RANGE/TREND/OCCUPANCY, then the
+	      * parameters of that report). The server answers REPORT_JOB_ACCEPTED|jobId, REPORT_JOB_PROGRESS|jobId|done|total,
+	      * and finally a ReportJobResult or REPORT_JOB_FAILED|jobId|reason.
+	      */
+	     public static final String CMD_SUBMIT_REPORT_JOB = "SUBMIT_REPORT_JOB";
+
+	     /**
+	      * Command to retrieve seat utilization per 30-minute bucket per weekday
+	      * (params: fromDate, toDate as yyyy-MM-dd, inclusive; answers an OccupancyReport).
+	      */
+	     public static final String CMD_GET_OCCUPANCY_REPORT = "GET_OCCUPANCY_REPORT";
+
+	     /**
+	      * Command to export reservations or bills as a file
+	      * (params: dataset RESERVATIONS|BILLS, format CSV|COLUMNAR, fromDate, toDate as yyyy-MM-dd or null for all history).
+	      * Answers EXPORT_STARTED|exportId|fileName, then ExportChunk objects until the last one,
+	      * or EXPORT_FAILED|exportId|reason.
+	      */
+	     public static final String CMD_EXPORT_DATA = "EXPORT_DATA";
+
 	     /**
 	      * Command to retrieve all reservations.
 	      */
@@ -138,6 +170,18 @@ public class ClientRequest implements Serializable {
 	      */
 	     public static final String CMD_GET_SUBSCRIBER_CODES = "GET_SUBSCRIBER_CODES";
 
+	     /**
+	      * Command to search subscribers by name, email, phone or subscriber number prefix
+	      * (params: query, offset, limit). Answers a {@link SubscriberSearchPage} (representatives only).
+	      */
+	     public static final String CMD_SEARCH_SUBSCRIBERS = "SEARCH_SUBSCRIBERS";
+
+	     /**
+	      * Command to restore a signed-in session on a new connection (params: session token from
+	      * {@code LOGIN_OK}). Answers {@code RESUME_OK|ROLE|NAME|ID|EMAIL|PHONE|TOKEN} or {@code RESUME_FAIL|reason}.
+	      */
+	     public static final String CMD_RESUME_SESSION = "RESUME_SESSION";
+
 
     /**
      * The command name that identifies the server-side action to execute.
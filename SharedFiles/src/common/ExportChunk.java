@@ -0,0 +1,80 @@
+package common;
+
+import java.io.Serializable;
+
+/**
+ * One piece of a streamed data export.
+ * <p>
+ * This {@link Serializable} DTO is sent by the server after an {@code EXPORT_DATA} request was
+ * answered with {@code EXPORT_STARTED|exportId|fileName}. Chunks arrive in order; the client
+ * appends {@link #getData()} of each chunk to the file. The chunk with {@link #isLast()} set
+ * closes the export and carries the total row count.
+ * </p>
+ */
+public class ExportChunk implements Serializable {
+    /** Serialization version UID for compatibility across different runtime versions. */
+    private static final long serialVersionUID = 1L;
+
+    /** Export ID announced in {@code EXPORT_STARTED}. */
+    private final String exportId;
+    /** Chunk sequence number, starting at 0. */
+    private final int seq;
+    /** File bytes of this chunk (may be empty in the last chunk). */
+    private final byte[] data;
+    /** Whether this is the last chunk of the export. */
+    private final boolean last;
+    /** Total exported rows (only set in the last chunk, otherwise -1). */
+    private final long rowCount;
+
+    /**
+     * Constructs an export chunk.
+     *
+     * @param exportId the export ID
+     * @param seq      the chunk sequence number
+     * @param data     the file bytes of this chunk
+     * @param last     whether this is the last chunk
+     * @param rowCount total exported rows (last chunk only, otherwise -1)
+     */
+    public ExportChunk(String exportId, int seq, byte[] data, boolean last, long rowCount) {
+        this.exportId = exportId;
+        this.seq = seq;
+        this.data = data;
+        this.last = last;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Returns the export ID.
+     *
+     * @return the export ID
+     */
+    public String getExportId() { return exportId; }
+
+    /**
+     * Returns the chunk sequence number.
+     *
+     * @return the sequence number (0 for the first chunk)
+     */
+    public int getSeq() { return seq; }
+
+    /**
+     * Returns the file bytes of this chunk.
+     *
+     * @return the chunk data
+     */
+    public byte[] getData() { return data; }
+
+    /**
+     * Returns whether this is the last chunk of the export.
+     *
+     * @return {@code true} for the last chunk
+     */
+    public boolean isLast() { return last; }
+
+    /**
+     * Returns the total number of exported rows.
+     *
+     * @return the row count, or -1 if this is not the last chunk
+     */
+    public long getRowCount() { return rowCount; }
+}
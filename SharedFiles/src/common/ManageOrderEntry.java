@@ -14,7 +14,12 @@ public class ManageOrderEntry implements Serializable {
     /**
      * Serialization version UID for compatibility across different class versions.
      */
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
+
+    /**
+     * Marker for "no start time" in {@link #startMillis}.
+     */
+    private static final long NO_TIME = Long.MIN_VALUE;
 
     /**
      * Unique identifier of the reservation.
@@ -33,9 +38,10 @@ public class ManageOrderEntry implements Serializable {
     
  
     /**
-     * Scheduled start time of the reservation.
+     * Scheduled start time of the reservation in epoch milliseconds ({@link #NO_TIME} if unknown).
+     * Kept as a primitive so each row does not carry a serialized {@link Timestamp} object.
      */
-    private final Timestamp startTime;
+    private final long startMillis;
     
     /**
      * Number of diners for the reservation.
@@ -67,10 +73,11 @@ public class ManageOrderEntry implements Serializable {
         this.reservationId = reservationId;
         this.name = name;
         this.phone = phone;
-        this.startTime = startTime;
+        this.startMillis = (startTime == null) ? NO_TIME : startTime.getTime();
         this.diners = diners;      
         this.tableNumber = tableNumber;
-        this.status = status;
+        // few distinct values: a shared instance is written once per stream, then by reference
+        this.status = (status == null) ? null : status.intern();
     }
 
     /**
@@ -99,7 +106,7 @@ public class ManageOrderEntry implements Serializable {
      *
      * @return the start time, or {@code null} if not available
      */
-    public Timestamp getStartTime() { return startTime; }
+    public Timestamp getStartTime() { return (startMillis == NO_TIME) ? null : new Timestamp(startMillis); }
     
     /**
      * Returns the number of diners for the reservation.
@@ -129,14 +136,14 @@ public class ManageOrderEntry implements Serializable {
     /**
      * Returns a formatted time string for display purposes.
      * <p>
-     * If {@link #startTime} is {@code null}, an empty string is returned.
+     * If there is no start time, an empty string is returned.
      * The returned value is derived from {@link Timestamp#toString()} and truncated for UI display.
      * </p>
      *
      * @return a display-friendly time string, or an empty string if no start time exists
      */
     public String getTimeString() {
-        if (startTime == null) return "";
-        return startTime.toString().substring(0, 16); 
+        if (startMillis == NO_TIME) return "";
+        return new Timestamp(startMillis).toString().substring(0, 16); 
     }
 }
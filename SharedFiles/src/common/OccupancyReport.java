@@ -0,0 +1,107 @@
+package common;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Seat utilization per 30-minute bucket per weekday, for a date range.
+ * <p>
+ * This {@link Serializable} DTO holds two flat arrays of {@link #DAYS} x {@link #BUCKETS} cells,
+ * indexed by {@code day * BUCKETS + bucket} where {@code day} is 0 (Monday) .. 6 (Sunday) and
+ * {@code bucket} is the half hour of the day (0 = 00:00-00:30 .. 47 = 23:30-24:00):
+ * occupied seat-minutes (diners seated x minutes) and available seat-minutes (total seats x
+ * minutes the restaurant was open).
+ * </p>
+ */
+public class OccupancyReport implements Serializable {
+    /** Serialization version UID for compatibility across different runtime versions. */
+    private static final long serialVersionUID = 1L;
+
+    /** Number of weekdays (Monday..Sunday). */
+    public static final int DAYS = 7;
+    /** Length of one bucket in minutes. */
+    public static final int BUCKET_MINUTES = 30;
+    /** Number of buckets per day. */
+    public static final int BUCKETS = 24 * 60 / BUCKET_MINUTES;
+
+    /** First day of the range (inclusive). */
+    private final LocalDate from;
+    /** Last day of the range (inclusive). */
+    private final LocalDate to;
+    /** Total seats over all tables used for the available seat-minutes. */
+    private final int totalSeats;
+    /** Occupied seat-minutes per cell. */
+    private final long[] occupiedSeatMinutes;
+    /** Available seat-minutes per cell. */
+    private final long[] availableSeatMinutes;
+
+    /**
+     * Constructs an occupancy report.
+     *
+     * @param from                 first day of the range (inclusive)
+     * @param to                   last day of the range (inclusive)
+     * @param totalSeats           total seats over all tables
+     * @param occupiedSeatMinutes  occupied seat-minutes per cell ({@code DAYS * BUCKETS} values)
+     * @param availableSeatMinutes available seat-minutes per cell ({@code DAYS * BUCKETS} values)
+     */
+    public OccupancyReport(LocalDate from, LocalDate to, int totalSeats,
+                           long[] occupiedSeatMinutes, long[] availableSeatMinutes) {
+        this.from = from;
+        this.to = to;
+        this.totalSeats = totalSeats;
+        this.occupiedSeatMinutes = occupiedSeatMinutes;
+        this.availableSeatMinutes = availableSeatMinutes;
+    }
+
+    /**
+     * Returns the first day of the range.
+     *
+     * @return first day (inclusive)
+     */
+    public LocalDate getFrom() { return from; }
+
+    /**
+     * Returns the last day of the range.
+     *
+     * @return last day (inclusive)
+     */
+    public LocalDate getTo() { return to; }
+
+    /**
+     * Returns the total seats used for the available seat-minutes.
+     *
+     * @return total seats
+     */
+    public int getTotalSeats() { return totalSeats; }
+
+    /**
+     * Returns the occupied seat-minutes of one cell.
+     *
+     * @param day    0 (Monday) .. 6 (Sunday)
+     * @param bucket 0 .. {@link #BUCKETS} - 1
+     * @return occupied seat-minutes
+     */
+    public long getOccupied(int day, int bucket) { return occupiedSeatMinutes[day * BUCKETS + bucket]; }
+
+    /**
+     * Returns the available seat-minutes of one cell.
+     *
+     * @param day    0 (Monday) .. 6 (Sunday)
+     * @param bucket 0 .. {@link #BUCKETS} - 1
+     * @return available seat-minutes (0 when the restaurant was never open in this cell)
+     */
+    public long getAvailable(int day, int bucket) { return availableSeatMinutes[day * BUCKETS + bucket]; }
+
+    /**
+     * Returns the seat utilization of one cell.
+     *
+     * @param day    0 (Monday) .. 6 (Sunday)
+     * @param bucket 0 .. {@link #BUCKETS} - 1
+     * @return occupied / available (0..1, may exceed 1 for seatings outside opening hours),
+     *         or -1 if the restaurant was never open in this cell
+     */
+    public double getUtilization(int day, int bucket) {
+        long available = getAvailable(day, bucket);
+        return (available == 0) ? -1 : (double) getOccupied(day, bucket) / available;
+    }
+}
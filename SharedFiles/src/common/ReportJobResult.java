@@ -0,0 +1,58 @@
+package common;
+
+import java.io.Serializable;
+
+/**
+ * Final result of an asynchronous report job.
+ * <p>
+ * This {@link Serializable} DTO is sent by the server after a {@code SUBMIT_REPORT_JOB} request
+ * finishes. It carries the job ID announced earlier in {@code REPORT_JOB_ACCEPTED|jobId}, so the
+ * client can match the result to its request, and the same payload the synchronous report
+ * command would have returned.
+ * </p>
+ */
+public class ReportJobResult implements Serializable {
+    /** Serialization version UID for compatibility across different runtime versions. */
+    private static final long serialVersionUID = 1L;
+
+    /** Job ID assigned by the server. */
+    private final String jobId;
+    /** Report kind that was requested (TIME, SUBSCRIBER, RANGE, TREND or OCCUPANCY). */
+    private final String kind;
+    /** Report payload (same type as the matching synchronous command returns). */
+    private final Serializable result;
+
+    /**
+     * Constructs a report job result.
+     *
+     * @param jobId  the job ID assigned by the server
+     * @param kind   the report kind that was requested
+     * @param result the report payload
+     */
+    public ReportJobResult(String jobId, String kind, Serializable result) {
+        this.jobId = jobId;
+        this.kind = kind;
+        this.result = result;
+    }
+
+    /**
+     * Returns the job ID assigned by the server.
+     *
+     * @return the job ID
+     */
+    public String getJobId() { return jobId; }
+
+    /**
+     * Returns the report kind that was requested.
+     *
+     * @return the report kind
+     */
+    public String getKind() { return kind; }
+
+    /**
+     * Returns the report payload.
+     *
+     * @return the payload (cast to the expected map type by the caller)
+     */
+    public Serializable getResult() { return result; }
+}
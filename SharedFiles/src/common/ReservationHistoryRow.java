@@ -12,8 +12,10 @@ import java.time.LocalDateTime;
  */
 public class ReservationHistoryRow implements Serializable {
     /** Serialization version UID for compatibility across different runtime versions. */
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
 
+    /** Reservation identifier (tie-breaker of the history order). */
+    private int reservationId;
     /** Reservation start date and time. */
     private LocalDateTime start;
     /** Reservation end date and time. */
@@ -32,6 +34,7 @@ public class ReservationHistoryRow implements Serializable {
     /**
      * Constructs a reservation history row with all relevant reservation details.
      *
+     * @param reservationId the reservation identifier
      * @param start the reservation start date and time
      * @param end the reservation end date and time
      * @param diners the number of diners for the reservation
@@ -40,8 +43,9 @@ public class ReservationHistoryRow implements Serializable {
      * @param status the reservation status
      * @param created the timestamp when the reservation was created
      */
-    public ReservationHistoryRow(LocalDateTime start, LocalDateTime end, int diners, int table,
+    public ReservationHistoryRow(int reservationId, LocalDateTime start, LocalDateTime end, int diners, int table,
                                  String code, String status, LocalDateTime created) {
+        this.reservationId = reservationId;
         this.start = start;
         this.end = end;
         this.diners = diners;
@@ -51,6 +55,13 @@ public class ReservationHistoryRow implements Serializable {
         this.created = created;
     }
 
+    /**
+     * Returns the reservation identifier.
+     *
+     * @return the reservation id
+     */
+    public int getReservationId() { return reservationId; }
+
     /**
      * Returns the reservation start date and time.
      *
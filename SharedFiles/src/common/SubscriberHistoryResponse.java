@@ -1,46 +1,85 @@
 package common;
 
 import java.io.Serializable;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
- * Represents a subscriber's reservation history response payload.
+ * Represents one page of a subscriber's reservation history.
  * <p>
- * This {@link Serializable} DTO bundles the subscriber's reservation history rows along with
- * an aggregated visits count, and is typically transferred between server and client.
+ * This {@link Serializable} DTO bundles a page of reservation history rows (newest first) with the
+ * subscriber's lifetime {@link SubscriberStats}, and is typically transferred between server and client.
+ * The next page is requested with {@link #getNextBeforeStart()} and {@link #getNextBeforeId()}
+ * (keyset pagination: "rows older than the last one shown").
  * </p>
  */
 public class SubscriberHistoryResponse implements Serializable {
     /** Serialization version UID for compatibility across different runtime versions. */
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
 
-    /** List of reservation history entries associated with the subscriber. */
+    /** Reservation history entries of this page, newest first. */
     private final List<ReservationHistoryRow> reservations;
-    /** Total number of visits attributed to the subscriber. */
-    private final int visitsCount;
+    /** Lifetime counters of the subscriber. */
+    private final SubscriberStats stats;
+    /** Whether older rows exist after this page. */
+    private final boolean hasMore;
 
     /**
-     * Constructs a subscriber history response with reservation entries and a visits count.
+     * Constructs a subscriber history page.
      *
-     * @param reservations the list of reservation history rows for the subscriber
-     * @param visitsCount the total number of visits for the subscriber
+     * @param reservations the reservation history rows of this page, newest first
+     * @param stats        the subscriber's lifetime counters
+     * @param hasMore      whether older rows exist after this page
      */
-    public SubscriberHistoryResponse(List<ReservationHistoryRow> reservations, int visitsCount) {
+    public SubscriberHistoryResponse(List<ReservationHistoryRow> reservations, SubscriberStats stats, boolean hasMore) {
         this.reservations = reservations;
-        this.visitsCount = visitsCount;
+        this.stats = (stats == null) ? SubscriberStats.EMPTY : stats;
+        this.hasMore = hasMore;
     }
 
     /**
-     * Returns the subscriber's reservation history entries.
+     * Returns the reservation history entries of this page.
      *
      * @return the list of reservation history rows
      */
     public List<ReservationHistoryRow> getReservations() { return reservations; }
 
+    /**
+     * Returns the subscriber's lifetime counters.
+     *
+     * @return subscriber stats
+     */
+    public SubscriberStats getStats() { return stats; }
+
     /**
      * Returns the total number of visits for the subscriber.
      *
      * @return the visits count
      */
-    public int getVisitsCount() { return visitsCount; }
+    public int getVisitsCount() { return stats.getVisits(); }
+
+    /**
+     * Returns whether older rows exist after this page.
+     *
+     * @return {@code true} if another page can be requested
+     */
+    public boolean hasMore() { return hasMore; }
+
+    /**
+     * Returns the start time of the last row, to pass as the "before" cursor of the next page.
+     *
+     * @return cursor start time, or {@code null} if the page is empty
+     */
+    public LocalDateTime getNextBeforeStart() {
+        return reservations.isEmpty() ? null : reservations.get(reservations.size() - 1).getStart();
+    }
+
+    /**
+     * Returns the reservation id of the last row, to pass as the "before" cursor of the next page.
+     *
+     * @return cursor reservation id, or 0 if the page is empty
+     */
+    public int getNextBeforeId() {
+        return reservations.isEmpty() ? 0 : reservations.get(reservations.size() - 1).getReservationId();
+    }
 }
@@ -0,0 +1,76 @@
+package common;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * One page of subscriber search results.
+ * <p>
+ * This {@link Serializable} DTO is the reply to {@link ClientRequest#CMD_SEARCH_SUBSCRIBERS}. It echoes
+ * the query and offset so the client can drop replies to keystrokes it has already moved past, and
+ * carries the total number of matches for paging.
+ * </p>
+ */
+public class SubscriberSearchPage implements Serializable {
+    /** Serialization version UID for compatibility across different runtime versions. */
+    private static final long serialVersionUID = 1L;
+
+    /** The query as sent by the client. */
+    private final String query;
+    /** Index of the first row of this page within all matches. */
+    private final int offset;
+    /** Total number of matches. */
+    private final int total;
+    /** Matches on this page, ordered by name. */
+    private final List<SubscriberSummary> rows;
+
+    /**
+     * Constructs a search page.
+     *
+     * @param query  the query as sent by the client
+     * @param offset index of the first row within all matches
+     * @param total  total number of matches
+     * @param rows   matches on this page
+     */
+    public SubscriberSearchPage(String query, int offset, int total, List<SubscriberSummary> rows) {
+        this.query = query;
+        this.offset = offset;
+        this.total = total;
+        this.rows = rows;
+    }
+
+    /**
+     * Returns the query as sent by the client.
+     *
+     * @return query text
+     */
+    public String getQuery() { return query; }
+
+    /**
+     * Returns the index of the first row of this page.
+     *
+     * @return offset
+     */
+    public int getOffset() { return offset; }
+
+    /**
+     * Returns the total number of matches.
+     *
+     * @return total matches
+     */
+    public int getTotal() { return total; }
+
+    /**
+     * Returns the matches on this page.
+     *
+     * @return rows ordered by name
+     */
+    public List<SubscriberSummary> getRows() { return rows; }
+
+    /**
+     * Returns whether more matches follow this page.
+     *
+     * @return {@code true} if another page exists
+     */
+    public boolean hasMore() { return offset + rows.size() < total; }
+}
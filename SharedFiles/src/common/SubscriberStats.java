@@ -0,0 +1,71 @@
+package common;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Lifetime activity counters of one subscriber (one {@code subscriber_stats} row).
+ * <p>
+ * This {@link Serializable} DTO is sent with every subscriber history page so the home and history
+ * screens can show the totals without the server counting reservations.
+ * </p>
+ */
+public class SubscriberStats implements Serializable {
+    /** Serialization version UID for compatibility across different runtime versions. */
+    private static final long serialVersionUID = 1L;
+
+    /** Counters of a subscriber with no recorded activity. */
+    public static final SubscriberStats EMPTY = new SubscriberStats(0, 0, null, 0.0);
+
+    /** Number of COMPLETED reservations. */
+    private final int visits;
+    /** Number of reservations canceled because the party did not arrive in time. */
+    private final int noShows;
+    /** Start time of the latest completed reservation ({@code null} if none). */
+    private final LocalDateTime lastVisit;
+    /** Sum of all paid bills (after discount). */
+    private final double lifetimeSpend;
+
+    /**
+     * Constructs subscriber stats.
+     *
+     * @param visits        completed reservations
+     * @param noShows       no-show cancellations
+     * @param lastVisit     start of the latest completed reservation, or {@code null}
+     * @param lifetimeSpend total paid
+     */
+    public SubscriberStats(int visits, int noShows, LocalDateTime lastVisit, double lifetimeSpend) {
+        this.visits = visits;
+        this.noShows = noShows;
+        this.lastVisit = lastVisit;
+        this.lifetimeSpend = lifetimeSpend;
+    }
+
+    /**
+     * Returns the number of completed reservations.
+     *
+     * @return visits
+     */
+    public int getVisits() { return visits; }
+
+    /**
+     * Returns the number of no-show cancellations.
+     *
+     * @return no-shows
+     */
+    public int getNoShows() { return noShows; }
+
+    /**
+     * Returns the start time of the latest completed reservation.
+     *
+     * @return last visit, or {@code null} if the subscriber never visited
+     */
+    public LocalDateTime getLastVisit() { return lastVisit; }
+
+    /**
+     * Returns the total amount paid over all bills.
+     *
+     * @return lifetime spend
+     */
+    public double getLifetimeSpend() { return lifetimeSpend; }
+}
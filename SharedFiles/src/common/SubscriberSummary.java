@@ -0,0 +1,113 @@
+package common;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+
+/**
+ * Slim, read-only view of a subscriber for representative screens (tables and search results).
+ * <p>
+ * This {@link Serializable} DTO carries only what the subscriber table shows; unlike
+ * {@link entities.User} it has no password and no role, so lists of it are small on the wire.
+ * </p>
+ */
+public class SubscriberSummary implements Serializable {
+    /** Serialization version UID for compatibility across different runtime versions. */
+    private static final long serialVersionUID = 1L;
+
+    /** User identifier ({@code users.id}). */
+    private final int id;
+    /** Subscriber number (e.g. {@code SUB12}). */
+    private final String subscriberNumber;
+    /** Digital card code. */
+    private final String digitalCard;
+    /** Full name. */
+    private final String name;
+    /** Email address. */
+    private final String email;
+    /** Phone number. */
+    private final String phone;
+    /** Whether the account is active. */
+    private final boolean active;
+    /** When the user was created. */
+    private final Timestamp createdAt;
+
+    /**
+     * Constructs a subscriber summary.
+     *
+     * @param id               user id
+     * @param subscriberNumber subscriber number
+     * @param digitalCard      digital card code
+     * @param name             full name
+     * @param email            email address
+     * @param phone            phone number
+     * @param active           whether the account is active
+     * @param createdAt        creation time
+     */
+    public SubscriberSummary(int id, String subscriberNumber, String digitalCard, String name,
+                             String email, String phone, boolean active, Timestamp createdAt) {
+        this.id = id;
+        this.subscriberNumber = subscriberNumber;
+        this.digitalCard = digitalCard;
+        this.name = name;
+        this.email = email;
+        this.phone = phone;
+        this.active = active;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Returns the user id.
+     *
+     * @return user id
+     */
+    public int getId() { return id; }
+
+    /**
+     * Returns the subscriber number.
+     *
+     * @return subscriber number
+     */
+    public String getSubscriberNumber() { return subscriberNumber; }
+
+    /**
+     * Returns the digital card code.
+     *
+     * @return digital card code
+     */
+    public String getDigitalCard() { return digitalCard; }
+
+    /**
+     * Returns the full name.
+     *
+     * @return name
+     */
+    public String getName() { return name; }
+
+    /**
+     * Returns the email address.
+     *
+     * @return email
+     */
+    public String getEmail() { return email; }
+
+    /**
+     * Returns the phone number.
+     *
+     * @return phone
+     */
+    public String getPhone() { return phone; }
+
+    /**
+     * Returns whether the account is active.
+     *
+     * @return {@code true} if active
+     */
+    public boolean isActive() { return active; }
+
+    /**
+     * Returns the creation time.
+     *
+     * @return creation timestamp
+     */
+    public Timestamp getCreatedAt() { return createdAt; }
+}